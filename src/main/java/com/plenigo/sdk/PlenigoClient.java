@@ -0,0 +1,454 @@
+package com.plenigo.sdk;
+
+import com.plenigo.sdk.http.CircuitBreakerListener;
+import com.plenigo.sdk.http.CircuitBreakerPolicy;
+import com.plenigo.sdk.http.HttpTransport;
+import com.plenigo.sdk.http.RateLimit;
+import com.plenigo.sdk.http.RequestPriority;
+import com.plenigo.sdk.http.RetryPolicy;
+import com.plenigo.sdk.internal.ApiURLs;
+import com.plenigo.sdk.json.JsonCodec;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>
+ * An immutable, independently configured plenigo SDK instance, for applications that call the plenigo API for several companies.
+ * Every client has its own configuration, transport, JWT header and caches, none of them are shared with the other clients or with
+ * the singleton {@link PlenigoManager}.
+ * </p>
+ * <p>
+ * The services stay static: they use the configuration of the client bound to the calling thread, or the singleton
+ * {@link PlenigoManager} when no client is bound. The asynchronous variants of the services and the
+ * {@link com.plenigo.sdk.services.CatalogSnapshotLoader} run with the client that was bound when they were started.
+ * </p>
+ * <pre>
+ * PlenigoClient client = PlenigoClient.builder(secret, companyId).testMode(true).catalogCache(1000, 60000L, 600000L).build();
+ * ProductData product = client.call(() -&gt; ProductService.getProductData(productId));
+ * </pre>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ */
+public final class PlenigoClient {
+    private static final ThreadLocal<PlenigoClient> CURRENT = new ThreadLocal<PlenigoClient>();
+
+    private final PlenigoManager manager;
+
+    /**
+     * A call of the services made with a client.
+     *
+     * @param <T> the type of the result
+     */
+    public interface Call<T> {
+        /**
+         * Executes the call.
+         *
+         * @return the result
+         *
+         * @throws PlenigoException whenever an error happens
+         */
+        T call() throws PlenigoException;
+    }
+
+    /**
+     * Builds a client with the sealed manager holding its configuration.
+     *
+     * @param manager the manager
+     */
+    private PlenigoClient(PlenigoManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Starts building a client for a company.
+     *
+     * @param secret    the secret of the company
+     * @param companyId the id of the company
+     *
+     * @return the builder
+     */
+    public static Builder builder(String secret, String companyId) {
+        return new Builder(secret, companyId);
+    }
+
+    /**
+     * Returns the client bound to the calling thread.
+     *
+     * @return the client or null if the services use the singleton {@link PlenigoManager}
+     */
+    public static PlenigoClient current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the manager holding the configuration of the client. Its configuration can be read but not changed.
+     *
+     * @return the manager
+     */
+    public PlenigoManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Executes service calls with this client bound to the calling thread. The previous binding is restored afterwards,
+     * so calls can be nested.
+     *
+     * @param call the service calls
+     * @param <T>  the type of the result
+     *
+     * @return the result of the call
+     *
+     * @throws PlenigoException whenever the call throws it
+     */
+    public <T> T call(Call<T> call) throws PlenigoException {
+        PlenigoClient previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Wraps a task so that it runs with this client bound to the thread executing it, e.g. to hand it to an executor.
+     *
+     * @param task the task
+     *
+     * @return the wrapped task
+     */
+    public Runnable bind(final Runnable task) {
+        return () -> {
+            PlenigoClient previous = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Restores the client that was bound to the thread before.
+     *
+     * @param previous the previous client, null if none was bound
+     */
+    private static void restore(PlenigoClient previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PlenigoClient{companyId='" + manager.getCompanyId() + "', url='" + manager.getUrl() + "', testMode=" + manager.isTestMode() + '}';
+    }
+
+    /**
+     * <p>
+     * Builds {@link PlenigoClient} instances. The options that are not set use the same defaults as the singleton
+     * {@link PlenigoManager}, the caches are disabled unless they are configured.
+     * </p>
+     * <p>
+     * <strong>Thread safety:</strong> This class is not thread safe.
+     * </p>
+     */
+    public static final class Builder {
+        private final String secret;
+        private final String companyId;
+        private String url = ApiURLs.DEFAULT_PLENIGO_URL;
+        private String oauthUrl = ApiURLs.OAUTH_PLENIGO_URL;
+        private boolean testMode;
+        private HttpTransport transport;
+        private JsonCodec codec;
+        private Executor executor;
+        private int cookieCacheSize;
+        private int entitlementCacheSize;
+        private long entitlementPositiveTtlMillis;
+        private long entitlementNegativeTtlMillis;
+        private int catalogCacheSize;
+        private long catalogSoftTtlMillis;
+        private long catalogHardTtlMillis;
+        private String[] coalescedEndpoints = new String[0];
+        private final Map<String, RetryPolicy> retryPolicies = new LinkedHashMap<String, RetryPolicy>();
+        private final Map<String, CircuitBreakerPolicy> circuitBreakerPolicies = new LinkedHashMap<String, CircuitBreakerPolicy>();
+        private final List<CircuitBreakerListener> circuitBreakerListeners = new ArrayList<CircuitBreakerListener>();
+        private final Map<String, String> rateLimitGroups = new LinkedHashMap<String, String>();
+        private final Map<String, Map<RequestPriority, RateLimit>> rateLimits = new LinkedHashMap<String, Map<RequestPriority, RateLimit>>();
+
+        /**
+         * Builds a builder for a company.
+         *
+         * @param secret    the secret of the company
+         * @param companyId the id of the company
+         */
+        private Builder(String secret, String companyId) {
+            this.secret = secret;
+            this.companyId = companyId;
+        }
+
+        /**
+         * Sets the url where the plenigo API is.
+         *
+         * @param url the url
+         *
+         * @return this builder
+         */
+        public Builder url(String url) {
+            this.url = url;
+            return this;
+        }
+
+        /**
+         * Sets the OAUTH base url.
+         *
+         * @param oauthUrl the url
+         *
+         * @return this builder
+         */
+        public Builder oauthUrl(String oauthUrl) {
+            this.oauthUrl = oauthUrl;
+            return this;
+        }
+
+        /**
+         * Sets whether the API transactions are on test mode.
+         *
+         * @param testMode the test mode flag
+         *
+         * @return this builder
+         */
+        public Builder testMode(boolean testMode) {
+            this.testMode = testMode;
+            return this;
+        }
+
+        /**
+         * Sets the transport, see {@link PlenigoManager#configureTransport(HttpTransport)}.
+         *
+         * @param transport the transport, null for a new default one
+         *
+         * @return this builder
+         */
+        public Builder transport(HttpTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * Sets the codec, see {@link PlenigoManager#configureCodec(JsonCodec)}.
+         *
+         * @param codec the codec, null for a new default one
+         *
+         * @return this builder
+         */
+        public Builder codec(JsonCodec codec) {
+            this.codec = codec;
+            return this;
+        }
+
+        /**
+         * Sets the executor of the asynchronous calls, see {@link PlenigoManager#configureExecutor(Executor)}.
+         *
+         * @param executor the executor, null for the default one
+         *
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Enables the cookie cache, see {@link PlenigoManager#configureCookieCache(int)}.
+         *
+         * @param maxSize the maximum amount of cached cookies of every type
+         *
+         * @return this builder
+         */
+        public Builder cookieCache(int maxSize) {
+            this.cookieCacheSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Enables the entitlement cache, see {@link PlenigoManager#configureEntitlementCache(int, long, long)}.
+         *
+         * @param maxSize           the maximum amount of cached answers
+         * @param positiveTtlMillis the time to live in milliseconds of the granted accesses
+         * @param negativeTtlMillis the time to live in milliseconds of the denied accesses
+         *
+         * @return this builder
+         */
+        public Builder entitlementCache(int maxSize, long positiveTtlMillis, long negativeTtlMillis) {
+            this.entitlementCacheSize = maxSize;
+            this.entitlementPositiveTtlMillis = positiveTtlMillis;
+            this.entitlementNegativeTtlMillis = negativeTtlMillis;
+            return this;
+        }
+
+        /**
+         * Enables the catalog cache, see {@link PlenigoManager#configureCatalogCache(int, long, long)}.
+         *
+         * @param maxSize       the maximum amount of cached products and categories
+         * @param softTtlMillis the time in milliseconds after which an entry is refreshed in the background
+         * @param hardTtlMillis the time in milliseconds after which an entry is no longer used
+         *
+         * @return this builder
+         */
+        public Builder catalogCache(int maxSize, long softTtlMillis, long hardTtlMillis) {
+            this.catalogCacheSize = maxSize;
+            this.catalogSoftTtlMillis = softTtlMillis;
+            this.catalogHardTtlMillis = hardTtlMillis;
+            return this;
+        }
+
+        /**
+         * Enables the request coalescing, see {@link PlenigoManager#configureRequestCoalescing(String...)}.
+         *
+         * @param endpoints the API endpoints to coalesce
+         *
+         * @return this builder
+         */
+        public Builder requestCoalescing(String... endpoints) {
+            this.coalescedEndpoints = endpoints.clone();
+            return this;
+        }
+
+        /**
+         * Sets the retry policy of API endpoints, see {@link PlenigoManager#configureRetryPolicy(RetryPolicy, String...)}.
+         *
+         * @param policy    the policy, null to remove the policy of the endpoints
+         * @param endpoints the API endpoints
+         *
+         * @return this builder
+         */
+        public Builder retryPolicy(RetryPolicy policy, String... endpoints) {
+            for (String endpoint : endpoints) {
+                if (policy == null) {
+                    retryPolicies.remove(endpoint);
+                } else {
+                    retryPolicies.put(endpoint, policy);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Sets the circuit breaker policy of API endpoints, see
+         * {@link PlenigoManager#configureCircuitBreaker(CircuitBreakerPolicy, String...)}.
+         *
+         * @param policy    the policy, null to remove the policy of the endpoints
+         * @param endpoints the API endpoints
+         *
+         * @return this builder
+         */
+        public Builder circuitBreaker(CircuitBreakerPolicy policy, String... endpoints) {
+            for (String endpoint : endpoints) {
+                if (policy == null) {
+                    circuitBreakerPolicies.remove(endpoint);
+                } else {
+                    circuitBreakerPolicies.put(endpoint, policy);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds a listener that is notified when a circuit breaker of the client changes its state.
+         *
+         * @param listener the listener
+         *
+         * @return this builder
+         */
+        public Builder circuitBreakerListener(CircuitBreakerListener listener) {
+            circuitBreakerListeners.add(listener);
+            return this;
+        }
+
+        /**
+         * Sets the rate limit of the requests of a group of API endpoints with the given priority, see
+         * {@link PlenigoManager#configureRateLimit(String, RequestPriority, RateLimit, String...)}.
+         *
+         * @param group     the name of the group
+         * @param priority  the priority of the requests the limit applies to
+         * @param limit     the limit, null to remove the limit of the group with the priority
+         * @param endpoints the API endpoints added to the group
+         *
+         * @return this builder
+         */
+        public Builder rateLimit(String group, RequestPriority priority, RateLimit limit, String... endpoints) {
+            for (String endpoint : endpoints) {
+                rateLimitGroups.put(endpoint, group);
+            }
+            Map<RequestPriority, RateLimit> limits = rateLimits.computeIfAbsent(group,
+                    name -> new EnumMap<RequestPriority, RateLimit>(RequestPriority.class));
+            if (limit == null) {
+                limits.remove(priority);
+            } else {
+                limits.put(priority, limit);
+            }
+            return this;
+        }
+
+        /**
+         * Builds the client. The builder can be reused, every client gets its own caches and, unless one was set, its own transport.
+         *
+         * @return the client
+         */
+        public PlenigoClient build() {
+            PlenigoManager manager = PlenigoManager.newInstance();
+            manager.configure(url, secret, companyId, testMode, oauthUrl);
+            if (transport != null) {
+                manager.configureTransport(transport);
+            }
+            if (codec != null) {
+                manager.configureCodec(codec);
+            }
+            manager.configureExecutor(executor);
+            if (cookieCacheSize > 0) {
+                manager.configureCookieCache(cookieCacheSize);
+            }
+            if (entitlementCacheSize > 0) {
+                manager.configureEntitlementCache(entitlementCacheSize, entitlementPositiveTtlMillis, entitlementNegativeTtlMillis);
+            }
+            if (catalogCacheSize > 0) {
+                manager.configureCatalogCache(catalogCacheSize, catalogSoftTtlMillis, catalogHardTtlMillis);
+            }
+            if (coalescedEndpoints.length > 0) {
+                manager.configureRequestCoalescing(coalescedEndpoints);
+            }
+            for (Map.Entry<String, RetryPolicy> entry : retryPolicies.entrySet()) {
+                manager.configureRetryPolicy(entry.getValue(), entry.getKey());
+            }
+            for (Map.Entry<String, Map<RequestPriority, RateLimit>> group : rateLimits.entrySet()) {
+                List<String> endpoints = new ArrayList<String>();
+                for (Map.Entry<String, String> entry : rateLimitGroups.entrySet()) {
+                    if (entry.getValue().equals(group.getKey())) {
+                        endpoints.add(entry.getKey());
+                    }
+                }
+                for (Map.Entry<RequestPriority, RateLimit> entry : group.getValue().entrySet()) {
+                    manager.configureRateLimit(group.getKey(), entry.getKey(), entry.getValue(), endpoints.toArray(new String[0]));
+                }
+            }
+            for (Map.Entry<String, CircuitBreakerPolicy> entry : circuitBreakerPolicies.entrySet()) {
+                manager.configureCircuitBreaker(entry.getValue(), entry.getKey());
+            }
+            for (CircuitBreakerListener listener : circuitBreakerListeners) {
+                manager.addCircuitBreakerListener(listener);
+            }
+            manager.seal();
+            return new PlenigoClient(manager);
+        }
+    }
+}
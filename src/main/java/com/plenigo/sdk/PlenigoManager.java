@@ -1,9 +1,41 @@
 package com.plenigo.sdk;
 
 
+import com.plenigo.sdk.http.CircuitBreakerListener;
+import com.plenigo.sdk.http.CircuitBreakerPolicy;
+import com.plenigo.sdk.http.CircuitBreakingHttpTransport;
+import com.plenigo.sdk.http.CoalescingHttpTransport;
+import com.plenigo.sdk.http.HttpRequest;
+import com.plenigo.sdk.http.HttpResponse;
+import com.plenigo.sdk.http.HttpResponseHandler;
+import com.plenigo.sdk.http.HttpTransport;
+import com.plenigo.sdk.http.PoolStatistics;
+import com.plenigo.sdk.http.PooledHttpTransport;
+import com.plenigo.sdk.http.RateLimit;
+import com.plenigo.sdk.http.RateLimitingHttpTransport;
+import com.plenigo.sdk.http.RequestPriority;
+import com.plenigo.sdk.http.RetryPolicy;
+import com.plenigo.sdk.http.RetryingHttpTransport;
 import com.plenigo.sdk.internal.ApiURLs;
+import com.plenigo.sdk.internal.cache.CatalogCache;
+import com.plenigo.sdk.internal.cache.CookieCache;
+import com.plenigo.sdk.internal.cache.EntitlementCache;
 import com.plenigo.sdk.internal.models.Configuration;
+import com.plenigo.sdk.internal.models.ConfigurationSnapshot;
+import com.plenigo.sdk.internal.util.DefaultExecutor;
+import com.plenigo.sdk.internal.util.HttpConfig;
+import com.plenigo.sdk.internal.util.RestClient;
+import com.plenigo.sdk.internal.util.TransportRestClient;
+import com.plenigo.sdk.json.DefaultJsonCodec;
+import com.plenigo.sdk.json.JsonCodec;
+import com.plenigo.sdk.models.CacheStatistics;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -14,6 +46,10 @@ import java.util.logging.Logger;
  * the complete SDK.
  * </p>
  * <p>
+ * The static services use the singleton instance, unless a {@link PlenigoClient} is bound to the calling thread, in which case
+ * {@link #get()} returns the manager of that client. The managers of the clients are sealed, their configuration can not be changed.
+ * </p>
+ * <p>
  * <strong>Thread safety:</strong> This class is thread safe and can be injected.
  * </p>
  */
@@ -26,34 +62,131 @@ public final class PlenigoManager {
      */
     private static final PlenigoManager INSTANCE = new PlenigoManager();
     /**
-     * Configuration Object containing environment specific data.
+     * Immutable snapshot of the environment specific data, replaced as a whole every time the SDK is configured.
+     */
+    private volatile ConfigurationSnapshot snapshot;
+    /**
+     * Cache of decoded plenigo cookies, null if it is disabled.
+     */
+    private volatile CookieCache cookieCache;
+    /**
+     * Cache of the answers of the product access checks, null if it is disabled.
+     */
+    private volatile EntitlementCache entitlementCache;
+    /**
+     * Cache of the product and category data, null if it is disabled.
+     */
+    private volatile CatalogCache catalogCache;
+    /**
+     * Executor used by the asynchronous service calls, null to use the default one.
+     */
+    private volatile Executor executor;
+    /**
+     * Transport used to send the requests to the plenigo API, the innermost stage of the request pipeline.
+     */
+    private volatile HttpTransport transport;
+    /**
+     * Stage of the request pipeline that guards the requests with circuit breakers, it sends them through the configured transport.
+     */
+    private final CircuitBreakingHttpTransport circuitBreakingTransport;
+    /**
+     * Stage of the request pipeline that keeps the requests within their rate limits.
+     */
+    private final RateLimitingHttpTransport rateLimitingTransport;
+    /**
+     * Stage of the request pipeline that retries and hedges the requests.
+     */
+    private final RetryingHttpTransport retryingTransport;
+    /**
+     * Outermost stage of the request pipeline, it makes concurrent identical requests share a single call.
+     */
+    private final CoalescingHttpTransport coalescingTransport;
+    /**
+     * Codec used to bind the responses of the plenigo API to the models.
+     */
+    private volatile JsonCodec codec;
+    /**
+     * Latest paywall state returned by the plenigo API, null if it was not retrieved yet.
+     */
+    private volatile Boolean lastPaywallState;
+    /**
+     * Whether the configuration can no longer be changed, true for the managers of the {@link PlenigoClient} instances.
      */
-    private Configuration config;
+    private volatile boolean sealed;
 
     /**
      * Default constructor.
      */
     private PlenigoManager() {
-        config = new Configuration();
+        Configuration config = new Configuration();
         config.setUrl(ApiURLs.DEFAULT_PLENIGO_URL);
+        snapshot = new ConfigurationSnapshot(config, this::executeInBackground);
+        transport = new PooledHttpTransport();
+        circuitBreakingTransport = new CircuitBreakingHttpTransport(new ConfiguredTransport());
+        rateLimitingTransport = new RateLimitingHttpTransport(circuitBreakingTransport);
+        retryingTransport = new RetryingHttpTransport(rateLimitingTransport);
+        coalescingTransport = new CoalescingHttpTransport(retryingTransport);
+        codec = new DefaultJsonCodec();
+        installTransportClient();
     }
 
     /**
      * Singleton instance retrieval method.
      *
-     * @return Singleton instance of @{link {@link PlenigoManager}}
+     * @return the manager of the {@link PlenigoClient} bound to the calling thread, or the singleton instance of {@link PlenigoManager}
      */
     public static PlenigoManager get() {
+        PlenigoClient client = PlenigoClient.current();
+        if (client != null) {
+            return client.getManager();
+        }
         return INSTANCE;
     }
 
+    /**
+     * Creates a manager that is independent of the singleton instance, for a {@link PlenigoClient}.
+     *
+     * @return the manager
+     */
+    static PlenigoManager newInstance() {
+        return new PlenigoManager();
+    }
+
+    /**
+     * Prevents any further change of the configuration.
+     */
+    void seal() {
+        sealed = true;
+    }
+
+    /**
+     * Checks that the configuration can still be changed.
+     *
+     * @throws IllegalStateException if the manager belongs to a {@link PlenigoClient}
+     */
+    private void checkNotSealed() {
+        if (sealed) {
+            throw new IllegalStateException("The configuration of a PlenigoClient can not be changed, build a new client instead");
+        }
+    }
+
+    /**
+     * Returns the current configuration. The values of the returned snapshot never change, a service call should read
+     * the snapshot once and take all the values it needs from it so that a concurrent configuration is not seen half-applied.
+     *
+     * @return the configuration snapshot
+     */
+    public ConfigurationSnapshot getSnapshot() {
+        return snapshot;
+    }
+
     /**
      * Returns the company id.
      *
      * @return the company id
      */
     public String getCompanyId() {
-        return config.getCompanyId();
+        return snapshot.getCompanyId();
     }
 
     /**
@@ -62,7 +195,7 @@ public final class PlenigoManager {
      * @return The secret key
      */
     public String getSecret() {
-        return config.getSecret();
+        return snapshot.getSecret();
     }
 
     /**
@@ -71,7 +204,7 @@ public final class PlenigoManager {
      * @return The API base URL
      */
     public String getUrl() {
-        return config.getUrl();
+        return snapshot.getUrl();
     }
 
 
@@ -81,7 +214,7 @@ public final class PlenigoManager {
      * @return The OAuth base URL
      */
     public String getOauthUrl() {
-        return config.getOauthUrl();
+        return snapshot.getOauthUrl();
     }
 
     /**
@@ -90,11 +223,19 @@ public final class PlenigoManager {
      * @return the company id
      */
     public Boolean isTestMode() {
-        if (config.isTestMode() == null) {
-            return false;
-        } else {
-            return config.isTestMode();
-        }
+        return snapshot.isTestMode();
+    }
+
+    /**
+     * Returns the JWT authorization header for the configured company. The header is signed once and reused until
+     * shortly before it expires, configuring the SDK again discards it.
+     *
+     * @return the header to send to the API
+     *
+     * @throws PlenigoException if the header could not be signed
+     */
+    public Map<String, String> getJwtHeader() throws PlenigoException {
+        return snapshot.getJwtHeader();
     }
 
 
@@ -105,9 +246,13 @@ public final class PlenigoManager {
      * @param companyId Unique id of the company
      */
     public void configure(final String secret, final String companyId) {
-        config.setSecret(secret);
-        config.setCompanyId(companyId);
-        LOGGER.log(Level.INFO, "plenigo Manager Configured with the following data: {0}!", config);
+        checkNotSealed();
+        synchronized (this) {
+            Configuration config = snapshot.toConfiguration();
+            config.setSecret(secret);
+            config.setCompanyId(companyId);
+            publish(config);
+        }
     }
 
     /**
@@ -118,8 +263,14 @@ public final class PlenigoManager {
      * @param testMode  Are API transactions on test mode
      */
     public void configure(final String secret, final String companyId, final boolean testMode) {
-        configure(secret, companyId);
-        config.setTestMode(testMode);
+        checkNotSealed();
+        synchronized (this) {
+            Configuration config = snapshot.toConfiguration();
+            config.setSecret(secret);
+            config.setCompanyId(companyId);
+            config.setTestMode(testMode);
+            publish(config);
+        }
         if (testMode) {
             LOGGER.log(Level.INFO, "Test mode is turned on for plenigo SDK transactions.", companyId);
         }
@@ -134,8 +285,493 @@ public final class PlenigoManager {
      * @param oauthUrl The OAUTH base url
      */
     public void configure(final String url, final String secret, final String companyId, final Boolean testMode, String oauthUrl) {
-        config.setUrl(url);
-        config.setOauthUrl(oauthUrl);
-        configure(secret, companyId, testMode);
+        checkNotSealed();
+        synchronized (this) {
+            Configuration config = snapshot.toConfiguration();
+            config.setUrl(url);
+            config.setOauthUrl(oauthUrl);
+            config.setSecret(secret);
+            config.setCompanyId(companyId);
+            config.setTestMode(testMode);
+            publish(config);
+        }
+        if (Boolean.TRUE.equals(testMode)) {
+            LOGGER.log(Level.INFO, "Test mode is turned on for plenigo SDK transactions.", companyId);
+        }
+    }
+
+    /**
+     * Publishes a new snapshot of the configuration in a single write, so that the readers see either the previous or
+     * the new configuration but never a mix of both, and clears the caches that depend on it. The JWT header of the new snapshot
+     * is signed before it is published, so that the first calls after a change do not wait for it. Must be called holding the lock
+     * of this manager.
+     *
+     * @param config the new configuration
+     */
+    private void publish(final Configuration config) {
+        ConfigurationSnapshot next = new ConfigurationSnapshot(config, this::executeInBackground);
+        try {
+            next.getJwtHeader();
+        } catch (PlenigoException e) {
+            LOGGER.log(Level.WARNING, "The JWT header could not be signed, it will be signed again with the first call", e);
+        }
+        snapshot = next;
+        lastPaywallState = null;
+        clearCookieCache();
+        clearEntitlementCache();
+        clearCatalogCache();
+        LOGGER.log(Level.INFO, "plenigo Manager Configured with the following data: {0}!", config);
+    }
+
+    /**
+     * Enables the cache of decoded plenigo cookies. When enabled, a returning visitor sending the same encrypted cookie
+     * is not decrypted again until the cookie changes or the entry is evicted. Passing a size of zero or less disables the cache.
+     *
+     * @param maxSize the maximum amount of cached cookies of every type
+     */
+    public void configureCookieCache(final int maxSize) {
+        checkNotSealed();
+        if (maxSize <= 0) {
+            cookieCache = null;
+            LOGGER.log(Level.INFO, "Cookie cache disabled");
+        } else {
+            cookieCache = new CookieCache(maxSize);
+            LOGGER.log(Level.INFO, "Cookie cache enabled with a maximum size of {0}", maxSize);
+        }
+    }
+
+    /**
+     * Returns the cache of decoded plenigo cookies.
+     *
+     * @return the cookie cache or null if it is disabled
+     */
+    public CookieCache getCookieCache() {
+        return cookieCache;
+    }
+
+    /**
+     * Returns the usage statistics of the cache of decoded plenigo cookies.
+     *
+     * @return the statistics or null if the cache is disabled
+     */
+    public CacheStatistics getCookieCacheStatistics() {
+        CookieCache cache = cookieCache;
+        if (cache == null) {
+            return null;
+        }
+        return cache.getStatistics();
+    }
+
+    /**
+     * Removes the cached cookies, they were decrypted with the previous configuration.
+     */
+    private void clearCookieCache() {
+        CookieCache cache = cookieCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Enables the cache of the product access checks done with {@link com.plenigo.sdk.services.UserService}. Positive and negative
+     * answers are kept for different amounts of time, a time to live of zero or less means that such answers are not cached.
+     * Passing a size of zero or less disables the cache.
+     *
+     * @param maxSize           the maximum amount of cached answers
+     * @param positiveTtlMillis the time in milliseconds an answer saying that the user has bought the product is kept
+     * @param negativeTtlMillis the time in milliseconds an answer saying that the user has not bought the product is kept
+     */
+    public void configureEntitlementCache(final int maxSize, final long positiveTtlMillis, final long negativeTtlMillis) {
+        checkNotSealed();
+        if (maxSize <= 0) {
+            entitlementCache = null;
+            LOGGER.log(Level.INFO, "Entitlement cache disabled");
+        } else {
+            entitlementCache = new EntitlementCache(maxSize, positiveTtlMillis, negativeTtlMillis);
+            LOGGER.log(Level.INFO, "Entitlement cache enabled with a maximum size of {0}, positive TTL {1} ms and negative TTL {2} ms",
+                    new Object[]{maxSize, positiveTtlMillis, negativeTtlMillis});
+        }
+    }
+
+    /**
+     * Returns the cache of the product access checks.
+     *
+     * @return the entitlement cache or null if it is disabled
+     */
+    public EntitlementCache getEntitlementCache() {
+        return entitlementCache;
+    }
+
+    /**
+     * Returns the usage statistics of the cache of the product access checks.
+     *
+     * @return the statistics or null if the cache is disabled
+     */
+    public CacheStatistics getEntitlementCacheStatistics() {
+        EntitlementCache cache = entitlementCache;
+        if (cache == null) {
+            return null;
+        }
+        return cache.getStatistics();
+    }
+
+    /**
+     * Removes the cached product access checks, they were done with the previous configuration.
+     */
+    private void clearEntitlementCache() {
+        EntitlementCache cache = entitlementCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Enables the cache of the product and category data returned by {@link com.plenigo.sdk.services.ProductService#getProductData(String)}
+     * and {@link com.plenigo.sdk.services.ProductService#getCategoryData(String)}. Once a value is older than the soft time to live it is
+     * still returned while a single background refresh runs on the configured executor, once it is older than the hard time to live the
+     * caller loads it again. Passing a size of zero or less disables the cache.
+     *
+     * @param maxSize       the maximum amount of cached products and of cached categories
+     * @param softTtlMillis the time in milliseconds after which a value is refreshed in the background
+     * @param hardTtlMillis the time in milliseconds after which a value is loaded again by the caller
+     */
+    public void configureCatalogCache(final int maxSize, final long softTtlMillis, final long hardTtlMillis) {
+        checkNotSealed();
+        if (maxSize <= 0) {
+            catalogCache = null;
+            LOGGER.log(Level.INFO, "Catalog cache disabled");
+        } else {
+            catalogCache = new CatalogCache(maxSize, softTtlMillis, hardTtlMillis);
+            LOGGER.log(Level.INFO, "Catalog cache enabled with a maximum size of {0}, soft TTL {1} ms and hard TTL {2} ms",
+                    new Object[]{maxSize, softTtlMillis, hardTtlMillis});
+        }
+    }
+
+    /**
+     * Returns the cache of the product and category data.
+     *
+     * @return the catalog cache or null if it is disabled
+     */
+    public CatalogCache getCatalogCache() {
+        return catalogCache;
+    }
+
+    /**
+     * Returns the usage statistics of the cache of the product data.
+     *
+     * @return the statistics or null if the cache is disabled
+     */
+    public CacheStatistics getProductCacheStatistics() {
+        CatalogCache cache = catalogCache;
+        if (cache == null) {
+            return null;
+        }
+        return cache.getProductStatistics();
+    }
+
+    /**
+     * Returns the usage statistics of the cache of the category data.
+     *
+     * @return the statistics or null if the cache is disabled
+     */
+    public CacheStatistics getCategoryCacheStatistics() {
+        CatalogCache cache = catalogCache;
+        if (cache == null) {
+            return null;
+        }
+        return cache.getCategoryStatistics();
+    }
+
+    /**
+     * Removes the cached product and category data, it belongs to the previous configuration.
+     */
+    private void clearCatalogCache() {
+        CatalogCache cache = catalogCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Configures the executor the asynchronous variants of the services run on, e.g. {@link com.plenigo.sdk.services.UserService#getUserDataAsync(String)}.
+     * The calls block on network I/O, so the executor should have enough threads for the expected amount of concurrent calls.
+     * Passing null restores the default executor, a small pool of daemon threads owned by the SDK.
+     *
+     * @param executor the executor to use
+     */
+    public void configureExecutor(final Executor executor) {
+        checkNotSealed();
+        this.executor = executor;
+        LOGGER.log(Level.INFO, "Executor for asynchronous calls configured: {0}", executor);
+    }
+
+    /**
+     * Returns the executor the asynchronous variants of the services run on.
+     *
+     * @return the configured executor or null if the default one is used
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Runs background work of the SDK, like the refresh of the JWT header, on the configured executor or the default one.
+     *
+     * @param task the work to run
+     */
+    private void executeInBackground(final Runnable task) {
+        DefaultExecutor.orDefault(executor).execute(task);
+    }
+
+    /**
+     * Configures the transport used to send the requests to the plenigo API. By default a {@link PooledHttpTransport} is used,
+     * which keeps the connections alive and bounds the amount of concurrent connections. Passing null restores a default transport.
+     * Only the innermost stage of the request pipeline is replaced, the coalescing, retry policies, rate limits and circuit breakers
+     * configured on top of it are kept together with their state, see {@link #getPipeline()}.
+     *
+     * @param transport the transport to use
+     */
+    public void configureTransport(final HttpTransport transport) {
+        checkNotSealed();
+        if (transport == null) {
+            this.transport = new PooledHttpTransport();
+        } else {
+            this.transport = transport;
+        }
+        LOGGER.log(Level.INFO, "HTTP transport configured: {0}", this.transport);
+    }
+
+    /**
+     * Returns the transport used to send the requests to the plenigo API.
+     *
+     * @return the transport configured with {@link #configureTransport(HttpTransport)}, or the default one
+     */
+    public HttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Returns the pipeline the requests to the plenigo API are sent through. It is built once and its stages are always, from the
+     * outermost to the innermost: {@link CoalescingHttpTransport}, {@link RetryingHttpTransport}, {@link RateLimitingHttpTransport},
+     * {@link CircuitBreakingHttpTransport} and the configured transport. A stage without configuration passes the requests on as
+     * they are, the configuration methods change the stages in place.
+     *
+     * @return the outermost stage of the pipeline
+     */
+    public HttpTransport getPipeline() {
+        return coalescingTransport;
+    }
+
+    /**
+     * Configures the codec used to bind the responses of the plenigo API to the models. By default a {@link DefaultJsonCodec} is used.
+     * Passing null restores a default codec.
+     *
+     * @param codec the codec to use
+     */
+    public void configureCodec(final JsonCodec codec) {
+        checkNotSealed();
+        if (codec == null) {
+            this.codec = new DefaultJsonCodec();
+        } else {
+            this.codec = codec;
+        }
+        LOGGER.log(Level.INFO, "JSON codec configured: {0}", this.codec);
+    }
+
+    /**
+     * Returns the codec used to bind the responses of the plenigo API to the models.
+     *
+     * @return the codec
+     */
+    public JsonCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Makes concurrent identical GET requests to the given API endpoints share a single call, see {@link CoalescingHttpTransport}.
+     * The given endpoints replace the ones of a previous call, passing no endpoints disables the coalescing.
+     *
+     * @param endpoints the API endpoints to coalesce, e.g. {@link ApiURLs#GET_PRODUCT}
+     */
+    public void configureRequestCoalescing(final String... endpoints) {
+        checkNotSealed();
+        synchronized (this) {
+            Set<String> enabled = new HashSet<String>(Arrays.asList(endpoints));
+            for (String endpoint : coalescingTransport.getEndpoints()) {
+                if (!enabled.contains(endpoint)) {
+                    coalescingTransport.disableEndpoint(endpoint);
+                }
+            }
+            for (String endpoint : enabled) {
+                coalescingTransport.enableEndpoint(endpoint);
+            }
+        }
+        if (endpoints.length == 0) {
+            LOGGER.log(Level.INFO, "Request coalescing disabled");
+        } else {
+            LOGGER.log(Level.INFO, "Request coalescing enabled for {0}", Arrays.toString(endpoints));
+        }
+    }
+
+    /**
+     * Returns the transport that coalesces the requests, it holds the coalescing statistics.
+     *
+     * @return the transport
+     */
+    public CoalescingHttpTransport getCoalescingTransport() {
+        return coalescingTransport;
+    }
+
+    /**
+     * Retries the GET requests of the given API endpoints that fail temporarily, and optionally hedges them, see
+     * {@link RetryingHttpTransport}. Coalesced requests are retried once for all the callers sharing them.
+     *
+     * @param policy    the policy of the endpoints, null to stop retrying their requests
+     * @param endpoints the API endpoints, e.g. {@link ApiURLs#GET_PRODUCT}
+     */
+    public void configureRetryPolicy(final RetryPolicy policy, final String... endpoints) {
+        checkNotSealed();
+        for (String endpoint : endpoints) {
+            retryingTransport.setPolicy(endpoint, policy);
+        }
+        LOGGER.log(Level.INFO, "Retry policy {0} configured for {1}", new Object[]{policy, Arrays.toString(endpoints)});
+    }
+
+    /**
+     * Returns the transport that retries the requests, it holds the retry statistics.
+     *
+     * @return the transport
+     */
+    public RetryingHttpTransport getRetryingTransport() {
+        return retryingTransport;
+    }
+
+    /**
+     * Keeps the requests of a group of API endpoints with the given priority within a rate limit, see
+     * {@link RateLimitingHttpTransport}. Every group and priority has an own budget, so that e.g. exports running with
+     * {@link RequestPriority#BATCH} can not delay the interactive requests. The requests of a group are also paused when the API
+     * answers one of them with a Retry-After header.
+     * <p>
+     * Every attempt of a retried request needs an own permit, the requests rejected by the limit are not retried and fail with
+     * {@link com.plenigo.sdk.internal.ErrorCode#CONNECTION_ERROR}.
+     * </p>
+     *
+     * @param group     the name of the group, e.g. "export"
+     * @param priority  the priority of the requests the limit applies to
+     * @param limit     the limit, null to stop limiting the requests of the group with the priority
+     * @param endpoints the API endpoints added to the group, e.g. {@link ApiURLs#COMPANY_USERS}
+     */
+    public void configureRateLimit(final String group, final RequestPriority priority, final RateLimit limit, final String... endpoints) {
+        checkNotSealed();
+        rateLimitingTransport.setGroup(group, endpoints);
+        rateLimitingTransport.setLimit(group, priority, limit);
+        LOGGER.log(Level.INFO, "Rate limit {0} configured for the {1} requests of {2} {3}",
+                new Object[]{limit, priority, group, Arrays.toString(endpoints)});
+    }
+
+    /**
+     * Returns the transport that keeps the requests within their rate limits, it holds the rate limiting statistics.
+     *
+     * @return the transport
+     */
+    public RateLimitingHttpTransport getRateLimitingTransport() {
+        return rateLimitingTransport;
+    }
+
+    /**
+     * Guards the requests of the given API endpoints with a circuit breaker, see {@link CircuitBreakingHttpTransport}. While the
+     * breaker of an endpoint is open its requests fail immediately, and the product access and paywall checks answer with the last
+     * known good value or the {@link CircuitBreakerPolicy.Fallback} of the policy. The product access checks only have last known
+     * good values if the entitlement cache is enabled with {@link #configureEntitlementCache(int, long, long)}.
+     * <p>
+     * Every attempt of a retried request is an own call of the breaker, and requests rejected by an open breaker are not retried.
+     * </p>
+     *
+     * @param policy    the policy of the endpoints, null to stop guarding their requests
+     * @param endpoints the API endpoints, e.g. {@link ApiURLs#USER_PRODUCT_ACCESS} and {@link ApiURLs#PAYWALL_STATE}
+     */
+    public void configureCircuitBreaker(final CircuitBreakerPolicy policy, final String... endpoints) {
+        checkNotSealed();
+        for (String endpoint : endpoints) {
+            circuitBreakingTransport.setPolicy(endpoint, policy);
+        }
+        LOGGER.log(Level.INFO, "Circuit breaker {0} configured for {1}", new Object[]{policy, Arrays.toString(endpoints)});
+    }
+
+    /**
+     * Adds a listener that is notified when the circuit breaker of an endpoint changes its state.
+     *
+     * @param listener the listener
+     */
+    public void addCircuitBreakerListener(final CircuitBreakerListener listener) {
+        checkNotSealed();
+        circuitBreakingTransport.addListener(listener);
+    }
+
+    /**
+     * Returns the transport that guards the requests with circuit breakers, it holds the breakers of the endpoints.
+     *
+     * @return the transport
+     */
+    public CircuitBreakingHttpTransport getCircuitBreakingTransport() {
+        return circuitBreakingTransport;
+    }
+
+    /**
+     * Returns the latest paywall state returned by the plenigo API, it is used while the API can not be reached.
+     *
+     * @return the paywall state or null if it was not retrieved since the last configuration
+     */
+    public Boolean getLastPaywallState() {
+        return lastPaywallState;
+    }
+
+    /**
+     * Stores the latest paywall state returned by the plenigo API, called by the paywall check.
+     *
+     * @param enabled whether the paywall is enabled
+     */
+    public void setLastPaywallState(final boolean enabled) {
+        lastPaywallState = enabled;
+    }
+
+    /**
+     * Returns the usage statistics of the connection pool of the transport.
+     *
+     * @return the statistics or null if the configured transport is not a {@link PooledHttpTransport}
+     */
+    public PoolStatistics getPoolStatistics() {
+        HttpTransport current = transport;
+        if (current instanceof PooledHttpTransport) {
+            return ((PooledHttpTransport) current).getStatistics();
+        }
+        return null;
+    }
+
+    /**
+     * Makes the services send their requests through the configured transport. A rest client that was set explicitly,
+     * e.g. in tests, is kept.
+     */
+    private void installTransportClient() {
+        RestClient current = HttpConfig.get().getClient();
+        if (current == null || current.getClass() == RestClient.class) {
+            HttpConfig.get().setClient(new TransportRestClient());
+        }
+    }
+
+    /**
+     * Innermost stage of the request pipeline, it passes the requests to the transport configured at the time of the request, so that
+     * the transport can be replaced without rebuilding the stages above it.
+     */
+    private final class ConfiguredTransport implements HttpTransport {
+        @Override
+        public HttpResponse execute(final HttpRequest request) throws IOException {
+            return transport.execute(request);
+        }
+
+        @Override
+        public <T> T execute(final HttpRequest request, final HttpResponseHandler<T> handler) throws IOException {
+            return transport.execute(request, handler);
+        }
     }
 }
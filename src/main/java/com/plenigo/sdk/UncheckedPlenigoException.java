@@ -0,0 +1,33 @@
+package com.plenigo.sdk;
+
+/**
+ * <p>
+ * Wraps a {@link PlenigoException} where a checked exception can not be thrown, e.g. while iterating over the elements of a
+ * paginated list that are loaded on demand.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+public class UncheckedPlenigoException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Builds the exception with the wrapped exception.
+     *
+     * @param cause the wrapped exception
+     */
+    public UncheckedPlenigoException(PlenigoException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    /**
+     * Returns the wrapped exception.
+     *
+     * @return the wrapped exception
+     */
+    @Override
+    public PlenigoException getCause() {
+        return (PlenigoException) super.getCause();
+    }
+}
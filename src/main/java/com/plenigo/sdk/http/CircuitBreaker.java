@@ -0,0 +1,290 @@
+package com.plenigo.sdk.http;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * Circuit breaker of an API endpoint, see {@link CircuitBreakerPolicy}. While it is closed every call is let through and its outcome
+ * is recorded, while it is open every call is rejected, and while it is half-open only the probe calls are let through.
+ * </p>
+ * <p>
+ * A call takes a permit with {@link #tryAcquire()} and reports its outcome with {@link #onComplete(long, boolean, long)}. The permit
+ * belongs to the state the breaker had when it was taken, the outcome of a call that started before the last change of the state is
+ * ignored.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+public final class CircuitBreaker {
+    private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+    private static final long REJECTED = -1L;
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+    private static final double PERCENT = 100.0;
+
+    private final String endpoint;
+    private final CircuitBreakerPolicy policy;
+    private final List<CircuitBreakerListener> listeners;
+    private final byte[] outcomes;
+    private final AtomicLong rejections = new AtomicLong();
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int slowCalls;
+    private int probesStarted;
+    private int probeSuccesses;
+
+    /**
+     * The states of a breaker.
+     */
+    public enum State {
+        /**
+         * The calls are let through.
+         */
+        CLOSED,
+        /**
+         * The calls are rejected.
+         */
+        OPEN,
+        /**
+         * Only the probe calls are let through.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Builds a closed breaker.
+     *
+     * @param endpoint  the API endpoint
+     * @param policy    the policy
+     * @param listeners the listeners notified of the changes of the state, the list is not copied
+     */
+    CircuitBreaker(String endpoint, CircuitBreakerPolicy policy, List<CircuitBreakerListener> listeners) {
+        this.endpoint = endpoint;
+        this.policy = policy;
+        this.listeners = listeners;
+        this.outcomes = new byte[policy.getWindowSize()];
+    }
+
+    /**
+     * Returns the API endpoint of the breaker.
+     *
+     * @return the endpoint
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Returns the policy of the breaker.
+     *
+     * @return the policy
+     */
+    public CircuitBreakerPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the current state. An open breaker whose open time has passed is still reported as open until the next call probes
+     * the endpoint.
+     *
+     * @return the state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Returns the amount of calls that were rejected because the breaker was open.
+     *
+     * @return the amount of rejected calls
+     */
+    public long getRejectedCount() {
+        return rejections.get();
+    }
+
+    /**
+     * Asks for the permission to call the endpoint.
+     *
+     * @return the permit to pass to {@link #onComplete(long, boolean, long)}, or a negative value if the call is rejected
+     */
+    long tryAcquire() {
+        State from;
+        State to;
+        long permit;
+        synchronized (this) {
+            from = state;
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < TimeUnit.MILLISECONDS.toNanos(policy.getOpenMillis())) {
+                    rejections.incrementAndGet();
+                    return REJECTED;
+                }
+                changeState(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesStarted >= policy.getHalfOpenProbes()) {
+                    rejections.incrementAndGet();
+                    return REJECTED;
+                }
+                probesStarted++;
+            }
+            to = state;
+            permit = generation;
+        }
+        notifyListeners(from, to);
+        return permit;
+    }
+
+    /**
+     * Gives back a permit without recording an outcome, for calls that ended because of the caller, e.g. a cancelled
+     * {@link Deadline}. A probe of a half open breaker can be started again.
+     *
+     * @param permit the permit returned by {@link #tryAcquire()}
+     */
+    synchronized void release(long permit) {
+        if (permit == generation && state == State.HALF_OPEN && probesStarted > 0) {
+            probesStarted--;
+        }
+    }
+
+    /**
+     * Records the outcome of a call.
+     *
+     * @param permit        the permit returned by {@link #tryAcquire()}
+     * @param failed        whether the call failed
+     * @param elapsedMillis the time the call took in milliseconds
+     */
+    void onComplete(long permit, boolean failed, long elapsedMillis) {
+        onComplete(permit, failed, policy.isSlow(elapsedMillis));
+    }
+
+    /**
+     * Records a call whose {@link Deadline} expired while it waited for the API. The API did not answer within the time the caller
+     * could wait, so the call is recorded as a slow one, even if the deadline was shorter than the slow call threshold. If the policy
+     * does not consider slow calls the permit is given back without recording an outcome.
+     *
+     * @param permit the permit returned by {@link #tryAcquire()}
+     */
+    void onDeadlineExpired(long permit) {
+        if (policy.getSlowCallMillis() > 0) {
+            onComplete(permit, false, true);
+        } else {
+            release(permit);
+        }
+    }
+
+    /**
+     * Records the outcome of a call.
+     *
+     * @param permit the permit returned by {@link #tryAcquire()}
+     * @param failed whether the call failed
+     * @param slow   whether the call was slow
+     */
+    private void onComplete(long permit, boolean failed, boolean slow) {
+        State from;
+        State to;
+        synchronized (this) {
+            if (permit != generation) {
+                return;
+            }
+            from = state;
+            if (state == State.HALF_OPEN) {
+                if (failed || slow) {
+                    changeState(State.OPEN);
+                } else if (++probeSuccesses >= policy.getHalfOpenProbes()) {
+                    changeState(State.CLOSED);
+                }
+            } else if (state == State.CLOSED && record(failed, slow)) {
+                changeState(State.OPEN);
+            }
+            to = state;
+        }
+        notifyListeners(from, to);
+    }
+
+    /**
+     * Records the outcome of a call in the window of a closed breaker.
+     *
+     * @param failed whether the call failed
+     * @param slow   whether the call was slow
+     *
+     * @return true if the breaker must open
+     */
+    private boolean record(boolean failed, boolean slow) {
+        byte outcome = 0;
+        if (failed) {
+            outcome |= FAILED;
+        }
+        if (slow) {
+            outcome |= SLOW;
+        }
+        if (recorded == outcomes.length) {
+            byte evicted = outcomes[next];
+            failures -= evicted & FAILED;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = outcome;
+        next = (next + 1) % outcomes.length;
+        failures += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+        if (recorded < outcomes.length) {
+            return false;
+        }
+        return failures * PERCENT / recorded >= policy.getFailureRateThreshold()
+                || slowCalls * PERCENT / recorded >= policy.getSlowCallRateThreshold();
+    }
+
+    /**
+     * Changes the state and resets the recorded outcomes, the outcomes of the running calls are ignored afterwards.
+     *
+     * @param to the new state
+     */
+    private void changeState(State to) {
+        state = to;
+        generation++;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        slowCalls = 0;
+        probesStarted = 0;
+        probeSuccesses = 0;
+        if (to == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Notifies the listeners if the state changed.
+     *
+     * @param from the previous state
+     * @param to   the new state
+     */
+    private void notifyListeners(State from, State to) {
+        if (from == to) {
+            return;
+        }
+        LOGGER.log(Level.INFO, "Circuit breaker of {0} changed from {1} to {2}", new Object[]{endpoint, from, to});
+        for (CircuitBreakerListener listener : listeners) {
+            try {
+                listener.onStateChange(endpoint, from, to);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Circuit breaker listener " + listener + " failed", e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker{endpoint=" + endpoint + ", state=" + getState() + ", policy=" + policy + '}';
+    }
+}
@@ -0,0 +1,22 @@
+package com.plenigo.sdk.http;
+
+/**
+ * <p>
+ * Is notified when the {@link CircuitBreaker} of an API endpoint changes its state, e.g. to report it to a monitoring system.
+ * </p>
+ * <p>
+ * The listener is called by the thread whose call changed the state, after the change. It should return quickly and must not throw
+ * exceptions, they are logged and ignored.
+ * </p>
+ */
+public interface CircuitBreakerListener {
+
+    /**
+     * Called after the breaker of an endpoint changed its state.
+     *
+     * @param endpoint the API endpoint of the breaker
+     * @param from     the previous state
+     * @param to       the new state
+     */
+    void onStateChange(String endpoint, CircuitBreaker.State from, CircuitBreaker.State to);
+}
@@ -0,0 +1,216 @@
+package com.plenigo.sdk.http;
+
+/**
+ * <p>
+ * Describes when the {@link CircuitBreaker} of an API endpoint opens, how long it stays open and what the services answer while it
+ * is open.
+ * </p>
+ * <p>
+ * The breaker looks at the outcome of the latest calls of the endpoint, the size of this window is configurable. Once the window is
+ * full the breaker opens when the percentage of failed calls, or of calls slower than the slow call threshold, reaches its rate
+ * threshold. A call fails when the connection fails or when the API answers with a status code of 500 or higher, a call whose
+ * {@link Deadline} expired while it waited for the API is slow. After the open time the breaker lets a few probe calls through, it
+ * closes again if all of them succeed and opens again as soon as one of them fails.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is immutable and thread safe.
+ * </p>
+ */
+public final class CircuitBreakerPolicy {
+    private static final double MAX_RATE = 100.0;
+    private static final int DEFAULT_HALF_OPEN_PROBES = 1;
+
+    private final double failureRateThreshold;
+    private final int windowSize;
+    private final long openMillis;
+    private final long slowCallMillis;
+    private final double slowCallRateThreshold;
+    private final int halfOpenProbes;
+    private final Fallback fallback;
+
+    /**
+     * What the services answer while the breaker of an endpoint is open and there is no last known good answer.
+     */
+    public enum Fallback {
+        /**
+         * The call fails immediately with a {@link com.plenigo.sdk.PlenigoException}.
+         */
+        FAIL_FAST,
+        /**
+         * The readers are let through: the customer has access to the products and the paywall is disabled.
+         */
+        FAIL_OPEN,
+        /**
+         * The readers are kept out: the customer has no access to the products and the paywall is enabled.
+         */
+        FAIL_CLOSED
+    }
+
+    /**
+     * Builds a policy that only considers failed calls, probes with a single call and fails fast.
+     *
+     * @param failureRateThreshold the percentage of failed calls in the window that opens the breaker, between 0 and 100
+     * @param windowSize           the amount of latest calls that are considered, at least 1
+     * @param openMillis           the time in milliseconds the breaker stays open before it probes the endpoint again
+     */
+    public CircuitBreakerPolicy(double failureRateThreshold, int windowSize, long openMillis) {
+        this(failureRateThreshold, windowSize, openMillis, 0L, MAX_RATE, DEFAULT_HALF_OPEN_PROBES, Fallback.FAIL_FAST);
+    }
+
+    /**
+     * Builds a policy.
+     *
+     * @param failureRateThreshold  the percentage of failed calls in the window that opens the breaker
+     * @param windowSize            the amount of latest calls that are considered
+     * @param openMillis            the time in milliseconds the breaker stays open
+     * @param slowCallMillis        the time in milliseconds after which a call is slow, 0 if slow calls are not considered
+     * @param slowCallRateThreshold the percentage of slow calls in the window that opens the breaker
+     * @param halfOpenProbes        the amount of probe calls that must succeed to close the breaker
+     * @param fallback              what the services answer while the breaker is open
+     */
+    private CircuitBreakerPolicy(double failureRateThreshold, int windowSize, long openMillis, long slowCallMillis,
+                                 double slowCallRateThreshold, int halfOpenProbes, Fallback fallback) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > MAX_RATE) {
+            throw new IllegalArgumentException("The failure rate threshold must be between 0 and 100: " + failureRateThreshold);
+        }
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("The window must contain at least one call: " + windowSize);
+        }
+        if (openMillis < 0 || slowCallMillis < 0) {
+            throw new IllegalArgumentException("Invalid times: " + openMillis + ", " + slowCallMillis);
+        }
+        if (slowCallRateThreshold <= 0 || slowCallRateThreshold > MAX_RATE) {
+            throw new IllegalArgumentException("The slow call rate threshold must be between 0 and 100: " + slowCallRateThreshold);
+        }
+        if (halfOpenProbes < 1) {
+            throw new IllegalArgumentException("At least one probe is needed: " + halfOpenProbes);
+        }
+        if (fallback == null) {
+            throw new IllegalArgumentException("The fallback is required");
+        }
+        this.failureRateThreshold = failureRateThreshold;
+        this.windowSize = windowSize;
+        this.openMillis = openMillis;
+        this.slowCallMillis = slowCallMillis;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.halfOpenProbes = halfOpenProbes;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Returns a copy of this policy that also opens the breaker when too many calls are slow.
+     *
+     * @param slowMillis        the time in milliseconds after which a call is slow, 0 if slow calls are not considered
+     * @param rateThreshold     the percentage of slow calls in the window that opens the breaker, between 0 and 100
+     *
+     * @return the new policy
+     */
+    public CircuitBreakerPolicy withSlowCalls(long slowMillis, double rateThreshold) {
+        return new CircuitBreakerPolicy(failureRateThreshold, windowSize, openMillis, slowMillis, rateThreshold, halfOpenProbes, fallback);
+    }
+
+    /**
+     * Returns a copy of this policy that needs the given amount of successful probe calls to close the breaker.
+     *
+     * @param probes the amount of probe calls, at least 1
+     *
+     * @return the new policy
+     */
+    public CircuitBreakerPolicy withHalfOpenProbes(int probes) {
+        return new CircuitBreakerPolicy(failureRateThreshold, windowSize, openMillis, slowCallMillis, slowCallRateThreshold, probes,
+                fallback);
+    }
+
+    /**
+     * Returns a copy of this policy with another answer while the breaker is open.
+     *
+     * @param answer the answer while the breaker is open and there is no last known good answer
+     *
+     * @return the new policy
+     */
+    public CircuitBreakerPolicy withFallback(Fallback answer) {
+        return new CircuitBreakerPolicy(failureRateThreshold, windowSize, openMillis, slowCallMillis, slowCallRateThreshold,
+                halfOpenProbes, answer);
+    }
+
+    /**
+     * Returns the percentage of failed calls in the window that opens the breaker.
+     *
+     * @return the failure rate threshold
+     */
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * Returns the amount of latest calls that are considered.
+     *
+     * @return the window size
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Returns the time in milliseconds the breaker stays open before it probes the endpoint again.
+     *
+     * @return the open time
+     */
+    public long getOpenMillis() {
+        return openMillis;
+    }
+
+    /**
+     * Returns the time in milliseconds after which a call is slow.
+     *
+     * @return the slow call time, 0 if slow calls are not considered
+     */
+    public long getSlowCallMillis() {
+        return slowCallMillis;
+    }
+
+    /**
+     * Returns the percentage of slow calls in the window that opens the breaker.
+     *
+     * @return the slow call rate threshold
+     */
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    /**
+     * Returns the amount of probe calls that must succeed to close the breaker.
+     *
+     * @return the amount of probes
+     */
+    public int getHalfOpenProbes() {
+        return halfOpenProbes;
+    }
+
+    /**
+     * Returns what the services answer while the breaker is open and there is no last known good answer.
+     *
+     * @return the fallback
+     */
+    public Fallback getFallback() {
+        return fallback;
+    }
+
+    /**
+     * Returns whether a call that took the given time is slow.
+     *
+     * @param elapsedMillis the time the call took in milliseconds
+     *
+     * @return true if the call is slow
+     */
+    boolean isSlow(long elapsedMillis) {
+        return slowCallMillis > 0 && elapsedMillis >= slowCallMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreakerPolicy{failureRateThreshold=" + failureRateThreshold + ", windowSize=" + windowSize + ", openMillis="
+                + openMillis + ", slowCallMillis=" + slowCallMillis + ", slowCallRateThreshold=" + slowCallRateThreshold
+                + ", halfOpenProbes=" + halfOpenProbes + ", fallback=" + fallback + '}';
+    }
+}
@@ -0,0 +1,241 @@
+package com.plenigo.sdk.http;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * {@link HttpTransport} that guards the requests of the API endpoints that have a {@link CircuitBreakerPolicy} with a
+ * {@link CircuitBreaker}, e.g. {@link com.plenigo.sdk.internal.ApiURLs#USER_PRODUCT_ACCESS}. While the breaker of an endpoint is open
+ * its requests fail immediately with a {@link CircuitOpenException} instead of waiting for the timeouts of a degraded API, the
+ * requests of the endpoints without policy are passed to the delegate as they are.
+ * </p>
+ * <p>
+ * A request fails when the delegate throws an {@link IOException} or when the API answers with a status code of 500 or higher,
+ * the exceptions thrown by a {@link HttpResponseHandler} while it reads a successful response are not counted as failures. Neither
+ * are the requests whose {@link Deadline} was cancelled, since the caller gave up on them. A request whose deadline expired while it
+ * waited for the API is recorded as a slow call if the policy considers slow calls, so that callers with deadlines shorter than the
+ * slow call threshold still open the breaker of a degraded API.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+public class CircuitBreakingHttpTransport implements HttpTransport {
+    private static final int SERVER_ERROR = 500;
+
+    private final HttpTransport delegate;
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<String, CircuitBreaker>();
+    private final List<CircuitBreakerListener> listeners = new CopyOnWriteArrayList<CircuitBreakerListener>();
+
+    /**
+     * Builds a transport without breakers.
+     *
+     * @param delegate the transport that executes the requests
+     */
+    public CircuitBreakingHttpTransport(HttpTransport delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns the transport that executes the requests.
+     *
+     * @return the delegate transport
+     */
+    public HttpTransport getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Sets the policy of the given endpoint, its breaker is replaced by a closed one.
+     *
+     * @param endpoint the API endpoint
+     * @param policy   the policy, null to stop guarding the requests of the endpoint
+     */
+    public void setPolicy(String endpoint, CircuitBreakerPolicy policy) {
+        if (policy == null) {
+            breakers.remove(endpoint);
+        } else {
+            breakers.put(endpoint, new CircuitBreaker(endpoint, policy, listeners));
+        }
+    }
+
+    /**
+     * Returns the breaker of the given endpoint.
+     *
+     * @param endpoint the API endpoint
+     *
+     * @return the breaker or null if the requests of the endpoint are not guarded
+     */
+    public CircuitBreaker getCircuitBreaker(String endpoint) {
+        return breakers.get(endpoint);
+    }
+
+    /**
+     * Returns the breakers of all the endpoints.
+     *
+     * @return an unmodifiable view of the breakers by endpoint
+     */
+    public Map<String, CircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableMap(breakers);
+    }
+
+    /**
+     * Adds a listener that is notified when a breaker changes its state.
+     *
+     * @param listener the listener
+     */
+    public void addListener(CircuitBreakerListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(CircuitBreakerListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        CircuitBreaker breaker = breakers.get(request.getEndpoint());
+        if (breaker == null) {
+            return delegate.execute(request);
+        }
+        long permit = acquire(breaker);
+        long start = System.nanoTime();
+        boolean inTime = isInTime(request);
+        Outcome outcome = Outcome.FAILED;
+        try {
+            HttpResponse response = delegate.execute(request);
+            outcome = response.getStatusCode() >= SERVER_ERROR ? Outcome.FAILED : Outcome.SUCCEEDED;
+            return response;
+        } catch (DeadlineExceededException e) {
+            outcome = e.isCancelled() || !inTime ? Outcome.ABANDONED : Outcome.EXPIRED;
+            throw e;
+        } finally {
+            complete(breaker, permit, outcome, start);
+        }
+    }
+
+    @Override
+    public <T> T execute(HttpRequest request, HttpResponseHandler<T> handler) throws IOException {
+        CircuitBreaker breaker = breakers.get(request.getEndpoint());
+        if (breaker == null) {
+            return delegate.execute(request, handler);
+        }
+        long permit = acquire(breaker);
+        long start = System.nanoTime();
+        boolean inTime = isInTime(request);
+        int[] statusCode = {0};
+        Outcome outcome = Outcome.FAILED;
+        try {
+            T result = delegate.execute(request, (response, body) -> {
+                statusCode[0] = response.getStatusCode();
+                return handler.handle(response, body);
+            });
+            outcome = statusCode[0] >= SERVER_ERROR ? Outcome.FAILED : Outcome.SUCCEEDED;
+            return result;
+        } catch (DeadlineExceededException e) {
+            outcome = e.isCancelled() || !inTime ? Outcome.ABANDONED : Outcome.EXPIRED;
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            outcome = statusCode[0] == 0 || statusCode[0] >= SERVER_ERROR ? Outcome.FAILED : Outcome.SUCCEEDED;
+            throw e;
+        } finally {
+            complete(breaker, permit, outcome, start);
+        }
+    }
+
+    /**
+     * Asks the breaker for the permission to send a request.
+     *
+     * @param breaker the breaker of the endpoint
+     *
+     * @return the permit
+     *
+     * @throws CircuitOpenException if the breaker rejects the request
+     */
+    private static long acquire(CircuitBreaker breaker) throws CircuitOpenException {
+        long permit = breaker.tryAcquire();
+        if (permit < 0) {
+            throw new CircuitOpenException(breaker.getEndpoint(), breaker.getPolicy().getFallback());
+        }
+        return permit;
+    }
+
+    /**
+     * Returns whether the deadline of a request had time left when it was sent, a request whose deadline expired before does not tell
+     * anything about the API.
+     *
+     * @param request the request
+     *
+     * @return true if the request has no deadline or its deadline had time left
+     */
+    private static boolean isInTime(HttpRequest request) {
+        return request.getDeadline() == null || request.getDeadline().remainingNanos() > 0;
+    }
+
+    /**
+     * Records the outcome of a call, or gives back its permit if the caller gave up on the call.
+     *
+     * @param breaker the breaker
+     * @param permit  the permit of the call
+     * @param outcome the outcome of the call
+     * @param start   the start of the call in nanoseconds
+     */
+    private static void complete(CircuitBreaker breaker, long permit, Outcome outcome, long start) {
+        switch (outcome) {
+            case ABANDONED:
+                breaker.release(permit);
+                break;
+            case EXPIRED:
+                breaker.onDeadlineExpired(permit);
+                break;
+            default:
+                breaker.onComplete(permit, outcome == Outcome.FAILED, elapsedMillis(start));
+                break;
+        }
+    }
+
+    /**
+     * Returns the time elapsed since the given start.
+     *
+     * @param start the start in nanoseconds, see {@link System#nanoTime()}
+     *
+     * @return the elapsed time in milliseconds
+     */
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * How a call ended.
+     */
+    private enum Outcome {
+        /**
+         * The API answered with a status code below 500.
+         */
+        SUCCEEDED,
+        /**
+         * The connection failed or the API answered with a status code of 500 or higher.
+         */
+        FAILED,
+        /**
+         * The deadline of the call expired while it waited for the API.
+         */
+        EXPIRED,
+        /**
+         * The caller cancelled the call, or its deadline had expired before it was sent.
+         */
+        ABANDONED
+    }
+}
@@ -0,0 +1,68 @@
+package com.plenigo.sdk.http;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * Thrown by the {@link CircuitBreakingHttpTransport} instead of sending a request while the {@link CircuitBreaker} of its endpoint is
+ * open. The services find it in the causes of the {@link com.plenigo.sdk.PlenigoException} with {@link #find(Throwable)} and answer
+ * with the last known good value or the {@link CircuitBreakerPolicy.Fallback} of the breaker.
+ * </p>
+ */
+public class CircuitOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final String endpoint;
+    private final CircuitBreakerPolicy.Fallback fallback;
+
+    /**
+     * Required constructor.
+     *
+     * @param endpoint the API endpoint whose breaker is open
+     * @param fallback the fallback of the breaker
+     */
+    public CircuitOpenException(String endpoint, CircuitBreakerPolicy.Fallback fallback) {
+        super("The circuit breaker of " + endpoint + " is open");
+        this.endpoint = endpoint;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Returns the API endpoint whose breaker is open.
+     *
+     * @return the endpoint
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Returns what the services answer when there is no last known good answer.
+     *
+     * @return the fallback
+     */
+    public CircuitBreakerPolicy.Fallback getFallback() {
+        return fallback;
+    }
+
+    /**
+     * Looks for a {@link CircuitOpenException} in an exception and its causes.
+     *
+     * @param throwable the exception
+     *
+     * @return the exception or null if the call did not fail because of an open breaker
+     */
+    public static CircuitOpenException find(Throwable throwable) {
+        Throwable current = throwable;
+        while (current != null) {
+            if (current instanceof CircuitOpenException) {
+                return (CircuitOpenException) current;
+            }
+            if (current.getCause() == current) {
+                return null;
+            }
+            current = current.getCause();
+        }
+        return null;
+    }
+}
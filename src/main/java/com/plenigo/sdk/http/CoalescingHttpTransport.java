@@ -0,0 +1,280 @@
+package com.plenigo.sdk.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * {@link HttpTransport} that lets concurrent identical GET requests share a single call to the API. The first caller executes the
+ * request with the delegate transport, the callers that arrive while it is in flight wait for it and receive the same response.
+ * Once the response arrives the next caller starts a new request, so no response is ever reused after it completed.
+ * </p>
+ * <p>
+ * Requests are identical when they have the same API endpoint, url (path and query) and headers. The headers are part of the
+ * identity so that responses are never shared between different credentials. Only the endpoints enabled with
+ * {@link #enableEndpoint(String)}, e.g. {@link com.plenigo.sdk.internal.ApiURLs#GET_PRODUCT}, are coalesced, every other request is
+ * passed to the delegate as it is.
+ * </p>
+ * <p>
+ * The callers that share a response also share its body array, it must not be modified. A caller with a {@link Deadline} waits
+ * for the shared request until its deadline, and sends an own request if the shared one failed because of the deadline of its
+ * caller.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+public class CoalescingHttpTransport implements HttpTransport {
+    private static final Logger LOGGER = Logger.getLogger(CoalescingHttpTransport.class.getName());
+    private static final String GET_METHOD = "GET";
+
+    private final HttpTransport delegate;
+    private final Set<String> endpoints = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final ConcurrentMap<RequestKey, CompletableFuture<HttpResponse>> inFlight = new ConcurrentHashMap<RequestKey, CompletableFuture<HttpResponse>>();
+    private final ConcurrentMap<String, AtomicLong> collapsed = new ConcurrentHashMap<String, AtomicLong>();
+    private final AtomicLong executed = new AtomicLong();
+
+    /**
+     * Builds a transport that coalesces the GET requests of the given endpoints.
+     *
+     * @param delegate  the transport that executes the requests
+     * @param endpoints the API endpoints whose requests are coalesced
+     */
+    public CoalescingHttpTransport(HttpTransport delegate, String... endpoints) {
+        this.delegate = delegate;
+        this.endpoints.addAll(Arrays.asList(endpoints));
+    }
+
+    /**
+     * Returns the transport that executes the requests.
+     *
+     * @return the delegate transport
+     */
+    public HttpTransport getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Starts coalescing the GET requests of the given endpoint.
+     *
+     * @param endpoint the API endpoint
+     */
+    public void enableEndpoint(String endpoint) {
+        endpoints.add(endpoint);
+    }
+
+    /**
+     * Stops coalescing the requests of the given endpoint.
+     *
+     * @param endpoint the API endpoint
+     */
+    public void disableEndpoint(String endpoint) {
+        endpoints.remove(endpoint);
+    }
+
+    /**
+     * Returns the endpoints whose requests are coalesced.
+     *
+     * @return an unmodifiable view of the endpoints
+     */
+    public Set<String> getEndpoints() {
+        return Collections.unmodifiableSet(endpoints);
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        if (!GET_METHOD.equals(request.getMethod()) || !endpoints.contains(request.getEndpoint())) {
+            return delegate.execute(request);
+        }
+        RequestKey key = new RequestKey(request);
+        CompletableFuture<HttpResponse> call = new CompletableFuture<HttpResponse>();
+        CompletableFuture<HttpResponse> current = inFlight.putIfAbsent(key, call);
+        if (current != null) {
+            onCollapsed(request.getEndpoint());
+            try {
+                return await(current, request);
+            } catch (DeadlineExceededException e) {
+                //the shared request ran out of the time of its own caller, this one may still have time for its own request
+                if (request.getDeadline() == null || !request.getDeadline().isExpired()) {
+                    return delegate.execute(request);
+                }
+                throw e;
+            }
+        }
+        executed.incrementAndGet();
+        try {
+            HttpResponse response = delegate.execute(request);
+            call.complete(response);
+            return response;
+        } catch (IOException | RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Coalesced requests share a completely read response, all the other requests are streamed by the delegate.
+     * </p>
+     */
+    @Override
+    public <T> T execute(HttpRequest request, HttpResponseHandler<T> handler) throws IOException {
+        if (!GET_METHOD.equals(request.getMethod()) || !endpoints.contains(request.getEndpoint())) {
+            return delegate.execute(request, handler);
+        }
+        return HttpTransport.super.execute(request, handler);
+    }
+
+    /**
+     * Returns the amount of requests that were sent to the delegate by this transport as the first of a group of identical requests.
+     *
+     * @return the amount of executed coalesced requests
+     */
+    public long getExecutedCount() {
+        return executed.get();
+    }
+
+    /**
+     * Returns the amount of requests that shared the response of an identical request instead of calling the API.
+     *
+     * @return the amount of collapsed requests
+     */
+    public long getCollapsedCount() {
+        long total = 0;
+        for (AtomicLong count : collapsed.values()) {
+            total += count.get();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the amount of collapsed requests of every endpoint.
+     *
+     * @return a snapshot of the amount of collapsed requests by endpoint
+     */
+    public Map<String, Long> getCollapsedCounts() {
+        Map<String, Long> counts = new HashMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : collapsed.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().get());
+        }
+        return counts;
+    }
+
+    /**
+     * Counts a collapsed request.
+     *
+     * @param endpoint the API endpoint
+     */
+    private void onCollapsed(String endpoint) {
+        AtomicLong count = collapsed.get(endpoint);
+        if (count == null) {
+            AtomicLong newCount = new AtomicLong();
+            count = collapsed.putIfAbsent(endpoint, newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        count.incrementAndGet();
+        LOGGER.log(Level.FINEST, "Request to {0} joined an identical request in flight", endpoint);
+    }
+
+    /**
+     * Waits for the response of the identical request in flight, at most until the deadline of the waiting request.
+     *
+     * @param call    the call in flight
+     * @param request the waiting request
+     *
+     * @return the shared response
+     *
+     * @throws IOException if the shared request failed, the deadline expired or the thread was interrupted
+     */
+    private static HttpResponse await(CompletableFuture<HttpResponse> call, HttpRequest request) throws IOException {
+        Deadline deadline = request.getDeadline();
+        try {
+            long remaining = deadline == null ? Long.MAX_VALUE : deadline.remainingNanos();
+            if (remaining == Long.MAX_VALUE) {
+                return call.get();
+            }
+            return call.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException(deadline, request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an identical request in flight");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Identity of a request, requests with the same key share the response.
+     */
+    private static final class RequestKey {
+        private static final int HASH_MULTIPLIER = 31;
+
+        private final String endpoint;
+        private final String url;
+        private final Map<String, String> headers;
+        private final int hash;
+
+        /**
+         * Builds the key of a request.
+         *
+         * @param request the request
+         */
+        RequestKey(HttpRequest request) {
+            this.endpoint = request.getEndpoint();
+            this.url = request.getUrl();
+            this.headers = request.getHeaders();
+            int result = endpoint != null ? endpoint.hashCode() : 0;
+            result = HASH_MULTIPLIER * result + url.hashCode();
+            result = HASH_MULTIPLIER * result + headers.hashCode();
+            this.hash = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RequestKey)) {
+                return false;
+            }
+            RequestKey that = (RequestKey) o;
+            return hash == that.hash && url.equals(that.url) && headers.equals(that.headers)
+                    && (endpoint != null ? endpoint.equals(that.endpoint) : that.endpoint == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
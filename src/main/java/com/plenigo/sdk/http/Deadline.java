@@ -0,0 +1,299 @@
+package com.plenigo.sdk.http;
+
+import com.plenigo.sdk.PlenigoClient;
+import com.plenigo.sdk.PlenigoException;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * Latency budget of the service calls made by the calling thread. The requests sent while a deadline is bound get connect and read
+ * timeouts no longer than the time left, so the time spent in earlier attempts, backoffs, rate limits and pool waits is subtracted
+ * from the budget of the next attempt, and no retry is started that can not finish in time:
+ * </p>
+ * <pre>
+ * boolean bought = Deadline.after(80, TimeUnit.MILLISECONDS).call(() -&gt; UserService.hasUserBought(productId, cookieHeader));
+ * </pre>
+ * <p>
+ * A call that runs out of time fails with {@link com.plenigo.sdk.internal.ErrorCode#CONNECTION_ERROR}. The asynchronous variants of
+ * the services run with the deadline of the thread that started them, and cancelling their futures cancels their own copy of it,
+ * which aborts the request in flight.
+ * </p>
+ * <p>
+ * Deadlines are applied by the {@link HttpTransport} decorators of the SDK and the {@link PooledHttpTransport}, custom transports
+ * find the deadline of a request with {@link HttpRequest#getDeadline()}.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+public final class Deadline {
+    private static final Logger LOGGER = Logger.getLogger(Deadline.class.getName());
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<Deadline>();
+
+    private final boolean bounded;
+    private final long expiresAt;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final Set<Runnable> cancelHooks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Builds a deadline.
+     *
+     * @param bounded   whether the deadline expires
+     * @param expiresAt the time it expires in nanoseconds, see {@link System#nanoTime()}
+     */
+    private Deadline(boolean bounded, long expiresAt) {
+        this.bounded = bounded;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Returns a deadline that expires after the given time.
+     *
+     * @param timeout the time
+     * @param unit    the unit of the time
+     *
+     * @return the deadline
+     */
+    public static Deadline after(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("The timeout must not be negative: " + timeout);
+        }
+        return new Deadline(true, System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * Returns a deadline that only ends when it is cancelled.
+     *
+     * @return the deadline
+     */
+    public static Deadline none() {
+        return new Deadline(false, 0L);
+    }
+
+    /**
+     * Returns the deadline of the calling thread.
+     *
+     * @return the deadline or null if none was bound
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns a new deadline that expires together with the deadline of the calling thread, or never if none is bound, and that can
+     * be cancelled on its own.
+     *
+     * @return the deadline
+     */
+    public static Deadline derive() {
+        Deadline current = CURRENT.get();
+        if (current == null) {
+            return none();
+        }
+        return current.copy();
+    }
+
+    /**
+     * Returns a new deadline that expires together with this one and that can be cancelled on its own, e.g. by one of several
+     * attempts of the same request. Cancelling this deadline later does not cancel the copy.
+     *
+     * @return the deadline
+     */
+    Deadline copy() {
+        Deadline copy = new Deadline(bounded, expiresAt);
+        if (isCancelled()) {
+            copy.cancel();
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the time left.
+     *
+     * @param unit the unit of the returned time
+     *
+     * @return the time left, 0 if the deadline expired or was cancelled and {@link Long#MAX_VALUE} if it does not expire
+     */
+    public long getRemaining(TimeUnit unit) {
+        long nanos = remainingNanos();
+        if (nanos == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns whether the deadline expired or was cancelled.
+     *
+     * @return true if no more requests should be sent
+     */
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * Returns whether the deadline was cancelled.
+     *
+     * @return true if it was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Cancels the deadline, the requests in flight with it are aborted and no more are sent.
+     */
+    public void cancel() {
+        if (!cancelled.compareAndSet(false, true)) {
+            return;
+        }
+        for (Runnable hook : cancelHooks) {
+            runHook(hook);
+        }
+        cancelHooks.clear();
+    }
+
+    /**
+     * Runs a call with this deadline, the previous deadline of the calling thread is restored afterwards.
+     *
+     * @param call the call
+     * @param <T>  the type of the result
+     *
+     * @return the result of the call
+     *
+     * @throws PlenigoException the exception thrown by the call
+     */
+    public <T> T call(PlenigoClient.Call<T> call) throws PlenigoException {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Wraps a task so that it runs with this deadline on whatever thread executes it.
+     *
+     * @param task the task
+     *
+     * @return the wrapped task
+     */
+    public Runnable bind(Runnable task) {
+        return () -> {
+            Deadline previous = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Returns the time left in nanoseconds.
+     *
+     * @return the time left, at most 0 if the deadline expired or was cancelled and {@link Long#MAX_VALUE} if it does not expire
+     */
+    long remainingNanos() {
+        if (cancelled.get()) {
+            return 0L;
+        }
+        if (!bounded) {
+            return Long.MAX_VALUE;
+        }
+        return expiresAt - System.nanoTime();
+    }
+
+    /**
+     * Shortens a connect or read timeout to the time left.
+     *
+     * @param timeoutMillis the configured timeout in milliseconds, 0 for none
+     * @param request       the request the timeout is for, used in the message
+     *
+     * @return the timeout in milliseconds, at least 1
+     *
+     * @throws DeadlineExceededException if the deadline expired or was cancelled
+     */
+    int timeoutMillis(int timeoutMillis, HttpRequest request) throws DeadlineExceededException {
+        long remaining = remainingNanos();
+        if (remaining <= 0) {
+            throw new DeadlineExceededException(this, request);
+        }
+        if (remaining == Long.MAX_VALUE) {
+            return timeoutMillis;
+        }
+        long millis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(remaining));
+        if (timeoutMillis > 0 && timeoutMillis <= millis) {
+            return timeoutMillis;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, millis);
+    }
+
+    /**
+     * Registers a task that runs when the deadline is cancelled, e.g. closing a connection. It runs immediately if the deadline is
+     * already cancelled.
+     *
+     * @param hook the task
+     */
+    void addCancelHook(Runnable hook) {
+        cancelHooks.add(hook);
+        if (cancelled.get() && cancelHooks.remove(hook)) {
+            runHook(hook);
+        }
+    }
+
+    /**
+     * Removes a task registered with {@link #addCancelHook(Runnable)}.
+     *
+     * @param hook the task
+     */
+    void removeCancelHook(Runnable hook) {
+        cancelHooks.remove(hook);
+    }
+
+    /**
+     * Runs a cancel hook and logs its failure.
+     *
+     * @param hook the hook
+     */
+    private static void runHook(Runnable hook) {
+        try {
+            hook.run();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.FINE, "Cancel hook " + hook + " failed", e);
+        }
+    }
+
+    /**
+     * Restores the previous deadline of the calling thread.
+     *
+     * @param previous the previous deadline, null if there was none
+     */
+    private static void restore(Deadline previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (isCancelled()) {
+            return "Deadline{cancelled}";
+        }
+        if (!bounded) {
+            return "Deadline{none}";
+        }
+        return "Deadline{remainingMillis=" + getRemaining(TimeUnit.MILLISECONDS) + '}';
+    }
+}
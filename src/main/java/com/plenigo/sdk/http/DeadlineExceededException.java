@@ -0,0 +1,50 @@
+package com.plenigo.sdk.http;
+
+import java.io.InterruptedIOException;
+
+/**
+ * <p>
+ * Thrown by the transports when the {@link Deadline} of a request expired or was cancelled before the request completed. It is
+ * not retried.
+ * </p>
+ */
+public class DeadlineExceededException extends InterruptedIOException {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean cancelled;
+
+    /**
+     * Required constructor.
+     *
+     * @param deadline the deadline of the request
+     * @param request  the request
+     */
+    public DeadlineExceededException(Deadline deadline, HttpRequest request) {
+        super(message(deadline, request));
+        this.cancelled = deadline.isCancelled();
+    }
+
+    /**
+     * Returns whether the deadline was cancelled rather than expired.
+     *
+     * @return true if the call was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Builds the message of the exception.
+     *
+     * @param deadline the deadline of the request
+     * @param request  the request
+     *
+     * @return the message
+     */
+    private static String message(Deadline deadline, HttpRequest request) {
+        if (deadline.isCancelled()) {
+            return "The call was cancelled before " + request + " completed";
+        }
+        return "The deadline expired before " + request + " completed";
+    }
+}
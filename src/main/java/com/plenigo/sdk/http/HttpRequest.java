@@ -0,0 +1,155 @@
+package com.plenigo.sdk.http;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * This represents an HTTP request done by the SDK.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ */
+public class HttpRequest {
+    private final String method;
+    private final String url;
+    private final String endpoint;
+    private final Map<String, String> headers;
+    private final byte[] body;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final Deadline deadline;
+
+    /**
+     * Builds a request without deadline.
+     *
+     * @param method         the HTTP method, e.g. GET
+     * @param url            the complete url including the query string
+     * @param endpoint       the API endpoint the request belongs to, one of the {@link com.plenigo.sdk.internal.ApiURLs} constants
+     * @param headers        the request headers
+     * @param body           the request body or null if there is none
+     * @param connectTimeout the connect timeout in milliseconds
+     * @param readTimeout    the read timeout in milliseconds
+     */
+    public HttpRequest(String method, String url, String endpoint, Map<String, String> headers, byte[] body, int connectTimeout, int readTimeout) {
+        this(method, url, endpoint, headers, body, connectTimeout, readTimeout, null);
+    }
+
+    /**
+     * Required constructor.
+     *
+     * @param method         the HTTP method, e.g. GET
+     * @param url            the complete url including the query string
+     * @param endpoint       the API endpoint the request belongs to, one of the {@link com.plenigo.sdk.internal.ApiURLs} constants
+     * @param headers        the request headers
+     * @param body           the request body or null if there is none
+     * @param connectTimeout the connect timeout in milliseconds
+     * @param readTimeout    the read timeout in milliseconds
+     * @param deadline       the deadline of the call the request belongs to, null if there is none
+     */
+    public HttpRequest(String method, String url, String endpoint, Map<String, String> headers, byte[] body, int connectTimeout, int readTimeout,
+                       Deadline deadline) {
+        this.method = method;
+        this.url = url;
+        this.endpoint = endpoint;
+        if (headers == null) {
+            this.headers = Collections.emptyMap();
+        } else {
+            this.headers = Collections.unmodifiableMap(new LinkedHashMap<String, String>(headers));
+        }
+        this.body = body;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Returns the HTTP method.
+     *
+     * @return the HTTP method
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns the complete url including the query string.
+     *
+     * @return the url
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the API endpoint the request belongs to, requests to the same endpoint with different ids share it.
+     *
+     * @return the endpoint
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Returns the request headers.
+     *
+     * @return an unmodifiable map of the headers
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the request body.
+     *
+     * @return the body or null if there is none
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Returns the connect timeout.
+     *
+     * @return the connect timeout in milliseconds
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Returns the read timeout.
+     *
+     * @return the read timeout in milliseconds
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Returns the deadline of the call the request belongs to, the transports do not wait or send attempts beyond it.
+     *
+     * @return the deadline or null if there is none
+     */
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Returns a copy of this request with another deadline.
+     *
+     * @param other the deadline of the copy
+     *
+     * @return the copy
+     */
+    HttpRequest withDeadline(Deadline other) {
+        return new HttpRequest(method, url, endpoint, headers, body, connectTimeout, readTimeout, other);
+    }
+
+    @Override
+    public String toString() {
+        return "HttpRequest{" + "method='" + method + '\'' + ", url='" + url + '\'' + ", endpoint='" + endpoint + '\'' + '}';
+    }
+}
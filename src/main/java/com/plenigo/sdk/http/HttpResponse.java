@@ -0,0 +1,95 @@
+package com.plenigo.sdk.http;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * This represents a completely read HTTP response.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ */
+public class HttpResponse {
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+
+    /**
+     * Required constructor.
+     *
+     * @param statusCode the HTTP status code
+     * @param headers    the response headers, the names are treated case insensitive
+     * @param body       the response body, it can be null
+     */
+    public HttpResponse(int statusCode, Map<String, List<String>> headers, byte[] body) {
+        this.statusCode = statusCode;
+        Map<String, List<String>> headerMap = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+        if (headers != null) {
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                //HttpURLConnection reports the status line with a null name
+                if (header.getKey() != null) {
+                    headerMap.put(header.getKey(), header.getValue());
+                }
+            }
+        }
+        this.headers = Collections.unmodifiableMap(headerMap);
+        if (body == null) {
+            this.body = EMPTY_BODY;
+        } else {
+            this.body = body;
+        }
+    }
+
+    /**
+     * Returns the HTTP status code.
+     *
+     * @return the status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Returns the response headers.
+     *
+     * @return an unmodifiable map of the headers with case insensitive names
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the first value of a header.
+     *
+     * @param name the header name, case insensitive
+     *
+     * @return the first value or null if the header is not present
+     */
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return values.get(0);
+    }
+
+    /**
+     * Returns the response body.
+     *
+     * @return the body, empty if there was none
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpResponse{" + "statusCode=" + statusCode + ", bodyLength=" + body.length + '}';
+    }
+}
@@ -0,0 +1,26 @@
+package com.plenigo.sdk.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * <p>
+ * Reads the body of a response while it is being received, see {@link HttpTransport#execute(HttpRequest, HttpResponseHandler)}.
+ * </p>
+ *
+ * @param <T> the type of the result of the handler
+ */
+public interface HttpResponseHandler<T> {
+
+    /**
+     * Handles the response.
+     *
+     * @param response the status code and headers of the response, its body is empty
+     * @param body     the body of the response, it is closed by the transport once the handler returns
+     *
+     * @return the result of the handler
+     *
+     * @throws IOException if the body could not be read
+     */
+    T handle(HttpResponse response, InputStream body) throws IOException;
+}
@@ -0,0 +1,54 @@
+package com.plenigo.sdk.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * <p>
+ * Executes the HTTP requests of the SDK. The SDK builds the complete request, including the url, the headers, the body and the timeouts,
+ * and takes care of interpreting the response, so an implementation only has to move bytes over the network. This makes it possible to
+ * plug in a tuned HTTP client, e.g. one with its own connection pool, proxy or TLS configuration.
+ * </p>
+ * <p>
+ * Implementations are configured with {@link com.plenigo.sdk.PlenigoManager#configureTransport(HttpTransport)}, the default one is
+ * {@link PooledHttpTransport}.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> Implementations must be thread safe, the same transport is used by all the threads calling the SDK.
+ * </p>
+ */
+public interface HttpTransport {
+
+    /**
+     * Executes the request and reads the complete response.
+     *
+     * @param request the request to execute
+     *
+     * @return the response, for any status code
+     *
+     * @throws java.net.ConnectException     if the connection could not be established
+     * @throws java.net.UnknownHostException if the host could not be resolved
+     * @throws IOException                   if any other I/O error happens
+     */
+    HttpResponse execute(HttpRequest request) throws IOException;
+
+    /**
+     * Executes the request and hands the body to the handler while it is being received, so that it does not have to be held in
+     * memory. The default implementation reads the complete response with {@link #execute(HttpRequest)} first.
+     *
+     * @param request the request to execute
+     * @param handler reads the response, for any status code
+     * @param <T>     the type of the result of the handler
+     *
+     * @return the result of the handler
+     *
+     * @throws java.net.ConnectException     if the connection could not be established
+     * @throws java.net.UnknownHostException if the host could not be resolved
+     * @throws IOException                   if any other I/O error happens, including the ones of the handler
+     */
+    default <T> T execute(HttpRequest request, HttpResponseHandler<T> handler) throws IOException {
+        HttpResponse response = execute(request);
+        return handler.handle(new HttpResponse(response.getStatusCode(), response.getHeaders(), null),
+                new ByteArrayInputStream(response.getBody()));
+    }
+}
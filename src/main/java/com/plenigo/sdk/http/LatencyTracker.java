@@ -0,0 +1,84 @@
+package com.plenigo.sdk.http;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Keeps the latest latencies of an endpoint to estimate their percentiles. The percentiles are recalculated after every
+ * {@link #RECALCULATION_INTERVAL} new samples, reading them in between is a single volatile read.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+final class LatencyTracker {
+    /**
+     * Amount of samples kept.
+     */
+    static final int CAPACITY = 256;
+    /**
+     * Amount of samples needed before a percentile is estimated.
+     */
+    static final int MIN_SAMPLES = 20;
+    /**
+     * Amount of new samples after which the percentile is recalculated.
+     */
+    static final int RECALCULATION_INTERVAL = 16;
+
+    private static final double MAX_PERCENTILE = 100.0;
+
+    private final double percentile;
+    private final long[] samples = new long[CAPACITY];
+    private int count;
+    private int next;
+    private int sinceRecalculation;
+    private volatile long estimate = -1L;
+
+    /**
+     * Builds a tracker.
+     *
+     * @param percentile the percentile to estimate, between 0 and 100
+     */
+    LatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    /**
+     * Returns the percentile the tracker estimates.
+     *
+     * @return the percentile
+     */
+    double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * Adds a latency.
+     *
+     * @param latencyMillis the latency in milliseconds
+     */
+    synchronized void record(long latencyMillis) {
+        samples[next] = latencyMillis;
+        next = (next + 1) % CAPACITY;
+        if (count < CAPACITY) {
+            count++;
+        }
+        sinceRecalculation++;
+        if (count >= MIN_SAMPLES && (estimate < 0 || sinceRecalculation >= RECALCULATION_INTERVAL)) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / MAX_PERCENTILE * count) - 1;
+            estimate = sorted[Math.max(0, Math.min(count - 1, index))];
+            sinceRecalculation = 0;
+        }
+    }
+
+    /**
+     * Returns the estimated percentile of the latencies.
+     *
+     * @return the latency in milliseconds, or -1 if not enough latencies were recorded yet
+     */
+    long getEstimate() {
+        return estimate;
+    }
+}
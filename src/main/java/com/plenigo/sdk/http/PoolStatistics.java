@@ -0,0 +1,111 @@
+package com.plenigo.sdk.http;
+
+/**
+ * <p>
+ * This contains the usage statistics of the connection pool of a {@link PooledHttpTransport} at the moment they were taken.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ */
+public class PoolStatistics {
+    private final int maxConnections;
+    private final int maxConnectionsPerRoute;
+    private final int leasedConnections;
+    private final int peakLeasedConnections;
+    private final long requestCount;
+    private final long waitCount;
+    private final long timeoutCount;
+
+    /**
+     * Required constructor.
+     *
+     * @param maxConnections         the maximum amount of connections used at the same time
+     * @param maxConnectionsPerRoute the maximum amount of connections to the same host used at the same time
+     * @param leasedConnections      the amount of connections in use
+     * @param peakLeasedConnections  the highest amount of connections that were in use at the same time
+     * @param requestCount           the amount of executed requests
+     * @param waitCount              the amount of requests that had to wait for a free connection
+     * @param timeoutCount           the amount of requests that gave up waiting for a free connection
+     */
+    public PoolStatistics(int maxConnections, int maxConnectionsPerRoute, int leasedConnections, int peakLeasedConnections, long requestCount,
+                          long waitCount, long timeoutCount) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.leasedConnections = leasedConnections;
+        this.peakLeasedConnections = peakLeasedConnections;
+        this.requestCount = requestCount;
+        this.waitCount = waitCount;
+        this.timeoutCount = timeoutCount;
+    }
+
+    /**
+     * Returns the maximum amount of connections used at the same time.
+     *
+     * @return the maximum amount of connections
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Returns the maximum amount of connections to the same host used at the same time.
+     *
+     * @return the maximum amount of connections per route
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * Returns the amount of connections in use.
+     *
+     * @return the leased connections
+     */
+    public int getLeasedConnections() {
+        return leasedConnections;
+    }
+
+    /**
+     * Returns the highest amount of connections that were in use at the same time.
+     *
+     * @return the peak of leased connections
+     */
+    public int getPeakLeasedConnections() {
+        return peakLeasedConnections;
+    }
+
+    /**
+     * Returns the amount of executed requests.
+     *
+     * @return the request count
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Returns the amount of requests that had to wait for a free connection.
+     *
+     * @return the wait count
+     */
+    public long getWaitCount() {
+        return waitCount;
+    }
+
+    /**
+     * Returns the amount of requests that gave up waiting for a free connection.
+     *
+     * @return the timeout count
+     */
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStatistics{" + "maxConnections=" + maxConnections + ", maxConnectionsPerRoute=" + maxConnectionsPerRoute + ", leasedConnections="
+                + leasedConnections + ", peakLeasedConnections=" + peakLeasedConnections + ", requestCount=" + requestCount + ", waitCount=" + waitCount
+                + ", timeoutCount=" + timeoutCount + '}';
+    }
+}
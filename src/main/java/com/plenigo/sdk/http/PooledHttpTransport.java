@@ -0,0 +1,333 @@
+package com.plenigo.sdk.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * Default {@link HttpTransport} of the SDK, based on {@link HttpURLConnection} with persistent connections.
+ * </p>
+ * <p>
+ * Connections are kept alive and reused between requests: the response is always read completely and the streams are closed without
+ * disconnecting, which returns the socket to the keep-alive cache of the JDK and avoids a new TCP and TLS handshake for the next
+ * request to the same host. The amount of connections used at the same time is bounded globally and per route (scheme, host and port),
+ * a request waits up to its connect timeout for a free connection before failing with a {@link ConnectException}.
+ * </p>
+ * <p>
+ * The connect and read timeouts of a request with a {@link Deadline} are shortened to the time left, and cancelling the deadline
+ * closes the connection of the request. Requests that fail because of their deadline throw a {@link DeadlineExceededException}.
+ * </p>
+ * <p>
+ * The JDK keeps at most <code>http.maxConnections</code> idle connections per route (5 by default), set this system property to
+ * the maximum amount of connections per route to keep all of them alive between bursts. Socket level options like buffer sizes are
+ * not exposed by {@link HttpURLConnection}, use a custom {@link HttpTransport} if they have to be tuned.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ */
+public class PooledHttpTransport implements HttpTransport {
+    /**
+     * Default maximum amount of connections used at the same time.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 50;
+    /**
+     * Default maximum amount of connections to the same route used at the same time.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+    private static final Logger LOGGER = Logger.getLogger(PooledHttpTransport.class.getName());
+    private static final int BUFFER_SIZE = 8192;
+    private static final int HTTP_ERROR_STATUS = 400;
+
+    private final int maxConnections;
+    private final int maxConnectionsPerRoute;
+    private final Semaphore connections;
+    private final ConcurrentMap<String, Semaphore> routeConnections = new ConcurrentHashMap<String, Semaphore>();
+    private final AtomicInteger leased = new AtomicInteger();
+    private final AtomicInteger peakLeased = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    /**
+     * Builds a transport with the default limits.
+     */
+    public PooledHttpTransport() {
+        this(DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+    }
+
+    /**
+     * Builds a transport with the given limits.
+     *
+     * @param maxConnections         the maximum amount of connections used at the same time
+     * @param maxConnectionsPerRoute the maximum amount of connections to the same route used at the same time
+     */
+    public PooledHttpTransport(int maxConnections, int maxConnectionsPerRoute) {
+        if (maxConnections <= 0 || maxConnectionsPerRoute <= 0) {
+            throw new IllegalArgumentException("The connection limits must be greater than zero");
+        }
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerRoute = Math.min(maxConnectionsPerRoute, maxConnections);
+        this.connections = new Semaphore(maxConnections, true);
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        return execute(request, (response, body) -> new HttpResponse(response.getStatusCode(), response.getHeaders(), readFully(body)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The handler reads directly from the connection, which stays leased until the handler returns. Whatever the handler did not read
+     * is read afterwards so that the connection can be reused, unless the handler failed.
+     * </p>
+     */
+    @Override
+    public <T> T execute(HttpRequest request, HttpResponseHandler<T> handler) throws IOException {
+        URL url = new URL(request.getUrl());
+        Semaphore routePermits = getRoutePermits(url);
+        acquire(connections, request, connectTimeout(request));
+        try {
+            acquire(routePermits, request, connectTimeout(request));
+            try {
+                onLease();
+                try {
+                    return doExecute(url, request, handler);
+                } finally {
+                    leased.decrementAndGet();
+                }
+            } finally {
+                routePermits.release();
+            }
+        } finally {
+            connections.release();
+        }
+    }
+
+    /**
+     * Returns the usage statistics of the connection pool.
+     *
+     * @return the pool statistics
+     */
+    public PoolStatistics getStatistics() {
+        return new PoolStatistics(maxConnections, maxConnectionsPerRoute, leased.get(), peakLeased.get(), requests.get(), waits.get(), timeouts.get());
+    }
+
+    /**
+     * Executes the request on a persistent connection and hands the response to the handler.
+     *
+     * @param url     the parsed url of the request
+     * @param request the request
+     * @param handler reads the response
+     * @param <T>     the type of the result of the handler
+     *
+     * @return the result of the handler
+     *
+     * @throws IOException if an I/O error happens
+     */
+    private <T> T doExecute(URL url, HttpRequest request, HttpResponseHandler<T> handler) throws IOException {
+        requests.incrementAndGet();
+        Deadline deadline = request.getDeadline();
+        int readTimeout = request.getReadTimeout();
+        if (deadline != null) {
+            readTimeout = deadline.timeoutMillis(readTimeout, request);
+        }
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(request.getMethod());
+        connection.setConnectTimeout(connectTimeout(request));
+        connection.setReadTimeout(readTimeout);
+        connection.setUseCaches(false);
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+        Runnable abort = connection::disconnect;
+        if (deadline != null) {
+            deadline.addCancelHook(abort);
+        }
+        try {
+            if (deadline != null) {
+                //a cancellation before the connection was established did not close it
+                connection.connect();
+                if (deadline.isExpired()) {
+                    throw new DeadlineExceededException(deadline, request);
+                }
+            }
+            byte[] body = request.getBody();
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setFixedLengthStreamingMode(body.length);
+                OutputStream out = connection.getOutputStream();
+                try {
+                    out.write(body);
+                } finally {
+                    out.close();
+                }
+            }
+            int statusCode = connection.getResponseCode();
+            InputStream in;
+            if (statusCode >= HTTP_ERROR_STATUS) {
+                in = connection.getErrorStream();
+            } else {
+                in = connection.getInputStream();
+            }
+            if (in == null) {
+                in = new ByteArrayInputStream(new byte[0]);
+            }
+            LOGGER.log(Level.FINEST, "HTTP Response for {0}: {1}", new Object[]{request, statusCode});
+            try {
+                T result = handler.handle(new HttpResponse(statusCode, connection.getHeaderFields(), null), in);
+                //reading the rest of the stream is what allows the JDK to reuse the connection
+                drain(in);
+                return result;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            //the connection is in an unknown state, it must not be reused
+            connection.disconnect();
+            if (deadline != null && (deadline.isExpired() || e instanceof SocketTimeoutException && readTimeout != request.getReadTimeout())) {
+                DeadlineExceededException exceeded = new DeadlineExceededException(deadline, request);
+                exceeded.initCause(e);
+                throw exceeded;
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            connection.disconnect();
+            throw e;
+        } finally {
+            if (deadline != null) {
+                deadline.removeCancelHook(abort);
+            }
+        }
+    }
+
+    /**
+     * Returns the connect timeout of a request, shortened to the time left before its deadline.
+     *
+     * @param request the request
+     *
+     * @return the timeout in milliseconds, 0 for none
+     *
+     * @throws DeadlineExceededException if the deadline of the request expired
+     */
+    private static int connectTimeout(HttpRequest request) throws DeadlineExceededException {
+        if (request.getDeadline() == null) {
+            return request.getConnectTimeout();
+        }
+        return request.getDeadline().timeoutMillis(request.getConnectTimeout(), request);
+    }
+
+    /**
+     * Reads the rest of a stream.
+     *
+     * @param in the stream
+     *
+     * @return the read bytes
+     *
+     * @throws IOException if an I/O error happens
+     */
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads and discards the rest of a stream.
+     *
+     * @param in the stream
+     *
+     * @throws IOException if an I/O error happens
+     */
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (in.read(buffer) != -1) {
+            //discarded
+        }
+    }
+
+    /**
+     * Returns the permits of the route of the url.
+     *
+     * @param url the url
+     *
+     * @return the route permits
+     */
+    private Semaphore getRoutePermits(URL url) {
+        String route = url.getProtocol() + "://" + url.getHost() + ":" + url.getPort();
+        Semaphore permits = routeConnections.get(route);
+        if (permits == null) {
+            Semaphore newPermits = new Semaphore(maxConnectionsPerRoute, true);
+            permits = routeConnections.putIfAbsent(route, newPermits);
+            if (permits == null) {
+                permits = newPermits;
+            }
+        }
+        return permits;
+    }
+
+    /**
+     * Takes a permit, waiting at most the connect timeout of the request.
+     *
+     * @param permits       the permits
+     * @param request       the request
+     * @param timeoutMillis the connect timeout of the request shortened to its deadline, 0 for none
+     *
+     * @throws IOException if no permit got free in time or the thread was interrupted
+     */
+    private void acquire(Semaphore permits, HttpRequest request, int timeoutMillis) throws IOException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        waits.incrementAndGet();
+        try {
+            if (timeoutMillis <= 0) {
+                //no timeout, wait as long as the connection itself would
+                permits.acquire();
+            } else if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                if (request.getDeadline() != null && request.getDeadline().isExpired()) {
+                    throw new DeadlineExceededException(request.getDeadline(), request);
+                }
+                throw new ConnectException("No free connection available for " + request + " within the connect timeout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a free connection");
+        }
+    }
+
+    /**
+     * Updates the leased connection counters.
+     */
+    private void onLease() {
+        int current = leased.incrementAndGet();
+        int peak = peakLeased.get();
+        while (current > peak && !peakLeased.compareAndSet(peak, current)) {
+            peak = peakLeased.get();
+        }
+    }
+}
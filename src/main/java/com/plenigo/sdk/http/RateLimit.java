@@ -0,0 +1,75 @@
+package com.plenigo.sdk.http;
+
+/**
+ * <p>
+ * Budget of requests of a group of API endpoints and a {@link RequestPriority}, enforced by the {@link RateLimitingHttpTransport}
+ * with a token bucket. The bucket holds at most the burst amount of permits and is refilled with the given rate, every request takes
+ * one permit.
+ * </p>
+ * <p>
+ * A request that finds the bucket empty waits for its permit if it becomes available within the maximum wait, otherwise it is
+ * rejected with a {@link RateLimitExceededException}. A maximum wait of zero rejects the requests as soon as the bucket is empty.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is immutable and thread safe.
+ * </p>
+ */
+public final class RateLimit {
+    private final double permitsPerSecond;
+    private final int burst;
+    private final long maxWaitMillis;
+
+    /**
+     * Builds a rate limit.
+     *
+     * @param permitsPerSecond the sustained amount of requests per second, greater than zero
+     * @param burst            the maximum amount of requests that can be sent at once after a quiet period, at least 1
+     * @param maxWaitMillis    the maximum time in milliseconds a request waits for its permit
+     */
+    public RateLimit(double permitsPerSecond, int burst, long maxWaitMillis) {
+        if (!(permitsPerSecond > 0) || Double.isInfinite(permitsPerSecond)) {
+            throw new IllegalArgumentException("The rate must be greater than zero: " + permitsPerSecond);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("The burst must be at least 1: " + burst);
+        }
+        if (maxWaitMillis < 0) {
+            throw new IllegalArgumentException("Invalid maximum wait: " + maxWaitMillis);
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Returns the sustained amount of requests per second.
+     *
+     * @return the rate
+     */
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    /**
+     * Returns the maximum amount of requests that can be sent at once.
+     *
+     * @return the burst
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds a request waits for its permit.
+     *
+     * @return the maximum wait
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimit{permitsPerSecond=" + permitsPerSecond + ", burst=" + burst + ", maxWaitMillis=" + maxWaitMillis + '}';
+    }
+}
@@ -0,0 +1,46 @@
+package com.plenigo.sdk.http;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * Thrown by the {@link RateLimitingHttpTransport} instead of sending a request whose permit is not available within the maximum
+ * wait of its {@link RateLimit}.
+ * </p>
+ */
+public class RateLimitExceededException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final String group;
+    private final RequestPriority priority;
+
+    /**
+     * Required constructor.
+     *
+     * @param group    the endpoint group whose budget is exhausted
+     * @param priority the priority of the request
+     */
+    public RateLimitExceededException(String group, RequestPriority priority) {
+        super("The " + priority + " rate limit of " + group + " is exceeded");
+        this.group = group;
+        this.priority = priority;
+    }
+
+    /**
+     * Returns the endpoint group whose budget is exhausted.
+     *
+     * @return the group
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * Returns the priority of the rejected request.
+     *
+     * @return the priority
+     */
+    public RequestPriority getPriority() {
+        return priority;
+    }
+}
@@ -0,0 +1,323 @@
+package com.plenigo.sdk.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * {@link HttpTransport} that keeps the requests of groups of API endpoints within a {@link RateLimit} per {@link RequestPriority},
+ * e.g. a small budget for the bulk exports of {@link com.plenigo.sdk.internal.ApiURLs#COMPANY_USERS} that runs with
+ * {@link RequestPriority#BATCH} and an own budget for the interactive requests. Every group and priority has its own token bucket,
+ * so batch jobs can use their budget completely without delaying the interactive requests. The requests of the endpoints without
+ * group and of the priorities without limit are passed to the delegate as they are.
+ * </p>
+ * <p>
+ * When the API answers a request of a group with 429 or 503 and a Retry-After header, the requests of all the priorities of the
+ * group wait until that time has passed, or are rejected if that is longer than their maximum wait, and afterwards resume one by
+ * one. Pauses longer than {@link #MAX_PAUSE_MILLIS} are shortened to it.
+ * </p>
+ * <p>
+ * The requests wait for their permits sleeping, the order in which they reserved their permits is kept. A request is also rejected
+ * when its permit is not available before its {@link Deadline}.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+public class RateLimitingHttpTransport implements HttpTransport {
+    /**
+     * The longest pause requested with a Retry-After header that is honoured.
+     */
+    public static final long MAX_PAUSE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final Logger LOGGER = Logger.getLogger(RateLimitingHttpTransport.class.getName());
+
+    private final HttpTransport delegate;
+    private final ConcurrentMap<String, String> groups = new ConcurrentHashMap<String, String>();
+    private final ConcurrentMap<String, Group> limits = new ConcurrentHashMap<String, Group>();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong pauses = new AtomicLong();
+
+    /**
+     * Builds a transport without limits.
+     *
+     * @param delegate the transport that executes the requests
+     */
+    public RateLimitingHttpTransport(HttpTransport delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns the transport that executes the requests.
+     *
+     * @return the delegate transport
+     */
+    public HttpTransport getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Adds API endpoints to a group, an endpoint belongs to one group only.
+     *
+     * @param group     the name of the group
+     * @param endpoints the API endpoints
+     */
+    public void setGroup(String group, String... endpoints) {
+        for (String endpoint : endpoints) {
+            groups.put(endpoint, group);
+        }
+    }
+
+    /**
+     * Returns the groups of the API endpoints.
+     *
+     * @return an unmodifiable view of the groups by endpoint
+     */
+    public Map<String, String> getGroups() {
+        return Collections.unmodifiableMap(groups);
+    }
+
+    /**
+     * Sets the limit of the requests of a group with the given priority, a previous bucket is replaced by a full one.
+     *
+     * @param group    the name of the group
+     * @param priority the priority
+     * @param limit    the limit, null to remove it
+     */
+    public void setLimit(String group, RequestPriority priority, RateLimit limit) {
+        limits.computeIfAbsent(group, name -> new Group()).setLimit(priority, limit);
+    }
+
+    /**
+     * Returns the limit of the requests of a group with the given priority.
+     *
+     * @param group    the name of the group
+     * @param priority the priority
+     *
+     * @return the limit or null if the requests are not limited
+     */
+    public RateLimit getLimit(String group, RequestPriority priority) {
+        Group limited = limits.get(group);
+        if (limited == null) {
+            return null;
+        }
+        return limited.getLimit(priority);
+    }
+
+    /**
+     * Returns the limits of all the groups.
+     *
+     * @return a snapshot of the limits by group and priority
+     */
+    public Map<String, Map<RequestPriority, RateLimit>> getLimits() {
+        Map<String, Map<RequestPriority, RateLimit>> snapshot = new HashMap<String, Map<RequestPriority, RateLimit>>();
+        for (Map.Entry<String, Group> entry : limits.entrySet()) {
+            Map<RequestPriority, RateLimit> groupLimits = new EnumMap<RequestPriority, RateLimit>(RequestPriority.class);
+            for (RequestPriority priority : RequestPriority.values()) {
+                RateLimit limit = entry.getValue().getLimit(priority);
+                if (limit != null) {
+                    groupLimits.put(priority, limit);
+                }
+            }
+            snapshot.put(entry.getKey(), groupLimits);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns how many requests had to wait for their permit.
+     *
+     * @return the amount of delayed requests
+     */
+    public long getThrottledCount() {
+        return throttled.get();
+    }
+
+    /**
+     * Returns how many requests were rejected because their permit was not available within the maximum wait.
+     *
+     * @return the amount of rejected requests
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns how many times the requests of a group were paused because of a Retry-After header.
+     *
+     * @return the amount of pauses
+     */
+    public long getPauseCount() {
+        return pauses.get();
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        Group group = acquire(request);
+        HttpResponse response = delegate.execute(request);
+        if (group != null) {
+            pauseIfThrottled(request, group, response);
+        }
+        return response;
+    }
+
+    @Override
+    public <T> T execute(HttpRequest request, HttpResponseHandler<T> handler) throws IOException {
+        Group group = acquire(request);
+        if (group == null) {
+            return delegate.execute(request, handler);
+        }
+        return delegate.execute(request, (response, body) -> {
+            pauseIfThrottled(request, group, response);
+            return handler.handle(response, body);
+        });
+    }
+
+    /**
+     * Waits for the permit of a request.
+     *
+     * @param request the request
+     *
+     * @return the group of the request, null if its endpoint has no group
+     *
+     * @throws RateLimitExceededException if the permit is not available within the maximum wait or before the deadline
+     * @throws InterruptedIOException     if the thread was interrupted while waiting
+     */
+    private Group acquire(HttpRequest request) throws IOException {
+        String name = request.getEndpoint() == null ? null : groups.get(request.getEndpoint());
+        Group group = name == null ? null : limits.get(name);
+        if (group == null) {
+            return null;
+        }
+        RequestPriority priority = RequestPriority.current();
+        long budget = request.getDeadline() == null ? Long.MAX_VALUE : request.getDeadline().remainingNanos();
+        long wait = group.reserve(priority, System.nanoTime(), budget);
+        if (wait < 0) {
+            rejected.incrementAndGet();
+            throw new RateLimitExceededException(name, priority);
+        }
+        if (wait > 0) {
+            throttled.incrementAndGet();
+            LOGGER.log(Level.FINEST, "Waiting {0} ns for the permit of {1}", new Object[]{wait, request});
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the rate limit of " + name);
+            }
+        }
+        return group;
+    }
+
+    /**
+     * Pauses the requests of a group if the API asked for it with a Retry-After header.
+     *
+     * @param request  the request
+     * @param group    the group of the request
+     * @param response the response
+     */
+    private void pauseIfThrottled(HttpRequest request, Group group, HttpResponse response) {
+        long delay = RetryAfter.getDelayMillis(response);
+        if (delay <= 0) {
+            return;
+        }
+        pauses.incrementAndGet();
+        LOGGER.log(Level.INFO, "The API asked to wait {0} ms after {1}", new Object[]{delay, request});
+        long now = System.nanoTime();
+        group.pause(now, now + TimeUnit.MILLISECONDS.toNanos(Math.min(delay, MAX_PAUSE_MILLIS)));
+    }
+
+    /**
+     * The buckets of a group by priority and the pause requested by the API.
+     */
+    private static final class Group {
+        private final Map<RequestPriority, TokenBucket> buckets = new EnumMap<RequestPriority, TokenBucket>(RequestPriority.class);
+        private boolean paused;
+        private long pausedUntil;
+
+        /**
+         * Sets the limit of a priority.
+         *
+         * @param priority the priority
+         * @param limit    the limit, null to remove it
+         */
+        synchronized void setLimit(RequestPriority priority, RateLimit limit) {
+            if (limit == null) {
+                buckets.remove(priority);
+            } else {
+                long now = System.nanoTime();
+                TokenBucket bucket = new TokenBucket(limit, now);
+                if (paused && pausedUntil - now > 0) {
+                    bucket.pause(now, pausedUntil);
+                }
+                buckets.put(priority, bucket);
+            }
+        }
+
+        /**
+         * Returns the limit of a priority.
+         *
+         * @param priority the priority
+         *
+         * @return the limit or null if there is none
+         */
+        synchronized RateLimit getLimit(RequestPriority priority) {
+            TokenBucket bucket = buckets.get(priority);
+            if (bucket == null) {
+                return null;
+            }
+            return bucket.getLimit();
+        }
+
+        /**
+         * Reserves the permit of a request.
+         *
+         * @param priority    the priority of the request
+         * @param now         the current time in nanoseconds
+         * @param budgetNanos the time left before the deadline of the request in nanoseconds
+         *
+         * @return the time in nanoseconds to wait for the permit, or a negative value if it was rejected
+         */
+        long reserve(RequestPriority priority, long now, long budgetNanos) {
+            TokenBucket bucket;
+            long pauseWait = 0L;
+            synchronized (this) {
+                bucket = buckets.get(priority);
+                if (paused) {
+                    pauseWait = Math.max(0L, pausedUntil - now);
+                    paused = pauseWait > 0;
+                }
+            }
+            if (bucket == null) {
+                return pauseWait > budgetNanos ? -1L : pauseWait;
+            }
+            return bucket.reserve(now, budgetNanos);
+        }
+
+        /**
+         * Pauses the requests of all the priorities.
+         *
+         * @param now   the current time in nanoseconds
+         * @param until the end of the pause in nanoseconds
+         */
+        synchronized void pause(long now, long until) {
+            if (!paused || until - pausedUntil > 0) {
+                paused = true;
+                pausedUntil = until;
+            }
+            for (TokenBucket bucket : buckets.values()) {
+                bucket.pause(now, until);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.plenigo.sdk.http;
+
+import com.plenigo.sdk.PlenigoClient;
+import com.plenigo.sdk.PlenigoException;
+
+/**
+ * <p>
+ * Priority of the requests sent by the calling thread, it selects the budget of the {@link RateLimitingHttpTransport}. Requests are
+ * {@link #INTERACTIVE} unless the call runs with another priority, e.g. a bulk export:
+ * </p>
+ * <pre>
+ * long exported = RequestPriority.BATCH.call(() -&gt; CompanyService.streamUserList(request, exporter));
+ * </pre>
+ * <p>
+ * The priority is bound to the calling thread, the asynchronous variants of the services run with the priority of the thread that
+ * started them.
+ * </p>
+ */
+public enum RequestPriority {
+    /**
+     * Requests a visitor is waiting for, e.g. the product access and paywall checks.
+     */
+    INTERACTIVE,
+    /**
+     * Requests of background and bulk jobs, e.g. exports and mass registrations.
+     */
+    BATCH;
+
+    private static final ThreadLocal<RequestPriority> CURRENT = new ThreadLocal<RequestPriority>();
+
+    /**
+     * Returns the priority of the requests of the calling thread.
+     *
+     * @return the priority, {@link #INTERACTIVE} if none was bound
+     */
+    public static RequestPriority current() {
+        RequestPriority priority = CURRENT.get();
+        if (priority == null) {
+            return INTERACTIVE;
+        }
+        return priority;
+    }
+
+    /**
+     * Runs a call with this priority, the previous priority of the calling thread is restored afterwards.
+     *
+     * @param call the call
+     * @param <T>  the type of the result
+     *
+     * @return the result of the call
+     *
+     * @throws PlenigoException the exception thrown by the call
+     */
+    public <T> T call(PlenigoClient.Call<T> call) throws PlenigoException {
+        RequestPriority previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Wraps a task so that it runs with this priority on whatever thread executes it.
+     *
+     * @param task the task
+     *
+     * @return the wrapped task
+     */
+    public Runnable bind(Runnable task) {
+        return () -> {
+            RequestPriority previous = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Restores the previous priority of the calling thread.
+     *
+     * @param previous the previous priority, null if there was none
+     */
+    private static void restore(RequestPriority previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
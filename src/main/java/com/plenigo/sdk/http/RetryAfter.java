@@ -0,0 +1,59 @@
+package com.plenigo.sdk.http;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Reads the Retry-After header the API sends with the responses of throttled (429) and unavailable (503) requests.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+final class RetryAfter {
+    static final int TOO_MANY_REQUESTS = 429;
+    static final int SERVICE_UNAVAILABLE = 503;
+    private static final String HEADER = "Retry-After";
+
+    /**
+     * Default constructor.
+     */
+    private RetryAfter() {
+    }
+
+    /**
+     * Returns the time the client is asked to wait before it sends the next request.
+     *
+     * @param response the response
+     *
+     * @return the time in milliseconds, or -1 if the response is not throttled or has no valid Retry-After header
+     */
+    static long getDelayMillis(HttpResponse response) {
+        int statusCode = response.getStatusCode();
+        if (statusCode != TOO_MANY_REQUESTS && statusCode != SERVICE_UNAVAILABLE) {
+            return -1L;
+        }
+        String value = response.getHeader(HEADER);
+        if (value == null || value.trim().isEmpty()) {
+            return -1L;
+        }
+        value = value.trim();
+        try {
+            long seconds = Long.parseLong(value);
+            if (seconds < 0) {
+                return -1L;
+            }
+            return TimeUnit.SECONDS.toMillis(seconds);
+        } catch (NumberFormatException e) {
+            try {
+                long date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                return Math.max(0L, date - System.currentTimeMillis());
+            } catch (DateTimeParseException ex) {
+                return -1L;
+            }
+        }
+    }
+}
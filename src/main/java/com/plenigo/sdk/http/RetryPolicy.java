@@ -0,0 +1,195 @@
+package com.plenigo.sdk.http;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>
+ * Describes how the GET requests of an API endpoint are retried and hedged by a {@link RetryingHttpTransport}.
+ * </p>
+ * <p>
+ * A request is retried when the connection fails, when it times out or when the API answers with a status code that signals a
+ * temporary problem (429, 502, 503 or 504). Before every retry the caller waits a random time between zero and an exponentially
+ * growing backoff, capped to a maximum ("full jitter"), so that the retries of many callers do not hit the API at the same time.
+ * If the response asks to wait longer with a Retry-After header the caller waits that long instead, and if that is longer than the
+ * maximum backoff the request is not retried.
+ * </p>
+ * <p>
+ * Optionally a second identical request is sent when the first one has not answered within the given percentile of the latencies
+ * observed for the endpoint, and the first response to arrive is used. Hedging only starts once enough latencies were observed, and
+ * at most the hedge budget, a percentage of the requests of the endpoint, is sent as second requests, so that an API that slows down
+ * does not receive twice the load.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is immutable and thread safe.
+ * </p>
+ */
+public final class RetryPolicy {
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int BAD_GATEWAY = 502;
+    private static final int SERVICE_UNAVAILABLE = 503;
+    private static final int GATEWAY_TIMEOUT = 504;
+    private static final double MAX_PERCENTILE = 100.0;
+    /**
+     * The hedge budget of {@link #withHedging(double)}, in percent of the requests of an endpoint.
+     */
+    public static final double DEFAULT_HEDGE_BUDGET_PERCENT = 10.0;
+    private static final int MAX_SHIFT = 30;
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final double hedgePercentile;
+    private final double hedgeBudgetPercent;
+
+    /**
+     * Builds a policy without hedging.
+     *
+     * @param maxAttempts          the maximum amount of attempts of a request including the first one, at least 1
+     * @param initialBackoffMillis the maximum time in milliseconds to wait before the first retry, it doubles for every further retry
+     * @param maxBackoffMillis     the maximum time in milliseconds to wait before any retry
+     */
+    public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        this(maxAttempts, initialBackoffMillis, maxBackoffMillis, 0.0, DEFAULT_HEDGE_BUDGET_PERCENT);
+    }
+
+    /**
+     * Builds a policy.
+     *
+     * @param maxAttempts          the maximum amount of attempts of a request including the first one
+     * @param initialBackoffMillis the maximum time in milliseconds to wait before the first retry
+     * @param maxBackoffMillis     the maximum time in milliseconds to wait before any retry
+     * @param hedgePercentile      the latency percentile after which a hedged request is sent, 0 to disable hedging
+     * @param hedgeBudgetPercent   the maximum percentage of the requests that are hedged
+     */
+    private RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis, double hedgePercentile, double hedgeBudgetPercent) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is needed: " + maxAttempts);
+        }
+        if (initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("Invalid backoff: " + initialBackoffMillis + ", " + maxBackoffMillis);
+        }
+        if (hedgePercentile < 0 || hedgePercentile >= MAX_PERCENTILE) {
+            throw new IllegalArgumentException("The hedge percentile must be between 0 and 100: " + hedgePercentile);
+        }
+        if (hedgeBudgetPercent <= 0 || hedgeBudgetPercent > MAX_PERCENTILE) {
+            throw new IllegalArgumentException("The hedge budget must be between 0 and 100: " + hedgeBudgetPercent);
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeBudgetPercent = hedgeBudgetPercent;
+    }
+
+    /**
+     * Returns a copy of this policy that hedges the requests that have not answered within the given latency percentile, with the
+     * {@link #DEFAULT_HEDGE_BUDGET_PERCENT default hedge budget}.
+     *
+     * @param latencyPercentile the percentile, e.g. 95.0, or 0 to disable hedging
+     *
+     * @return the new policy
+     */
+    public RetryPolicy withHedging(double latencyPercentile) {
+        return withHedging(latencyPercentile, DEFAULT_HEDGE_BUDGET_PERCENT);
+    }
+
+    /**
+     * Returns a copy of this policy that hedges the requests that have not answered within the given latency percentile, but at most
+     * the given percentage of the requests.
+     *
+     * @param latencyPercentile the percentile, e.g. 95.0, or 0 to disable hedging
+     * @param budgetPercent     the maximum percentage of the requests that are hedged, greater than 0 and at most 100
+     *
+     * @return the new policy
+     */
+    public RetryPolicy withHedging(double latencyPercentile, double budgetPercent) {
+        return new RetryPolicy(maxAttempts, initialBackoffMillis, maxBackoffMillis, latencyPercentile, budgetPercent);
+    }
+
+    /**
+     * Returns the maximum amount of attempts of a request including the first one.
+     *
+     * @return the maximum amount of attempts
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds to wait before the first retry.
+     *
+     * @return the initial backoff
+     */
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds to wait before any retry.
+     *
+     * @return the maximum backoff
+     */
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    /**
+     * Returns the latency percentile after which a hedged request is sent.
+     *
+     * @return the percentile, 0 if hedging is disabled
+     */
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    /**
+     * Returns the maximum percentage of the requests that are hedged.
+     *
+     * @return the hedge budget in percent
+     */
+    public double getHedgeBudgetPercent() {
+        return hedgeBudgetPercent;
+    }
+
+    /**
+     * Returns whether requests are hedged.
+     *
+     * @return true if hedging is enabled
+     */
+    public boolean isHedged() {
+        return hedgePercentile > 0;
+    }
+
+    /**
+     * Returns whether a response with the given status code signals a temporary problem and the request can be retried.
+     *
+     * @param statusCode the status code
+     *
+     * @return true if the request can be retried
+     */
+    public boolean isRetryableStatus(int statusCode) {
+        return statusCode == TOO_MANY_REQUESTS || statusCode == BAD_GATEWAY || statusCode == SERVICE_UNAVAILABLE || statusCode == GATEWAY_TIMEOUT;
+    }
+
+    /**
+     * Returns a random time to wait before a retry.
+     *
+     * @param retry the number of the retry, starting at 1
+     *
+     * @return the time in milliseconds, between 0 and the exponential backoff of the retry
+     */
+    long backoffMillis(int retry) {
+        int shift = Math.min(MAX_SHIFT, Math.max(0, retry - 1));
+        long bound = initialBackoffMillis > maxBackoffMillis >> shift ? maxBackoffMillis : initialBackoffMillis << shift;
+        if (bound <= 0) {
+            return 0L;
+        }
+        return ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{maxAttempts=" + maxAttempts + ", initialBackoffMillis=" + initialBackoffMillis + ", maxBackoffMillis="
+                + maxBackoffMillis + ", hedgePercentile=" + hedgePercentile + ", hedgeBudgetPercent=" + hedgeBudgetPercent + '}';
+    }
+}
@@ -0,0 +1,741 @@
+package com.plenigo.sdk.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * {@link HttpTransport} that retries and optionally hedges the GET requests of the API endpoints that have a {@link RetryPolicy}, e.g.
+ * {@link com.plenigo.sdk.internal.ApiURLs#GET_PRODUCT}. Only GET requests are retried since they are idempotent, every other request
+ * and the requests of the endpoints without policy are passed to the delegate as they are.
+ * </p>
+ * <p>
+ * A hedged request runs on the hedge executor while the caller waits for it. If it has not answered within the configured latency
+ * percentile of its endpoint a second identical request is started, and the first successful response is returned. A response with a
+ * status code that can be retried is only returned when the other request did not succeed either, and is then retried. The second
+ * requests of an endpoint are limited to the hedge budget of its policy. Every request runs with an own copy of the {@link Deadline}
+ * of the caller, the copy of the slower request is cancelled once a response was returned, which aborts it in the
+ * {@link PooledHttpTransport}. Transports that ignore the deadline let it finish, and its response is discarded. Hedged responses are
+ * read completely before they are handed to a {@link HttpResponseHandler}, so hedging should only be enabled for endpoints with small
+ * responses.
+ * </p>
+ * <p>
+ * The default hedge executor has at most {@link #MAX_HEDGE_THREADS} threads. When it has no free thread the request is sent by the
+ * calling thread without hedging, and a second request that does not find a free thread is not sent.
+ * </p>
+ * <p>
+ * A streamed response is only retried if the handler has not started reading it. Hedged requests run with the
+ * {@link RequestPriority} of the caller. A request with a {@link Deadline} is not retried if the deadline would be reached while
+ * waiting before the retry.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+public class RetryingHttpTransport implements HttpTransport {
+    /**
+     * The maximum amount of threads of the default hedge executor.
+     */
+    public static final int MAX_HEDGE_THREADS = 64;
+    private static final Logger LOGGER = Logger.getLogger(RetryingHttpTransport.class.getName());
+    private static final String GET_METHOD = "GET";
+    private static final long HEDGE_THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+    private final HttpTransport delegate;
+    private final Executor hedgeExecutor;
+    private final ConcurrentMap<String, RetryPolicy> policies = new ConcurrentHashMap<String, RetryPolicy>();
+    private final ConcurrentMap<String, LatencyTracker> latencies = new ConcurrentHashMap<String, LatencyTracker>();
+    private final ConcurrentMap<String, HedgeBudget> budgets = new ConcurrentHashMap<String, HedgeBudget>();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong skippedHedges = new AtomicLong();
+
+    /**
+     * Builds a transport that runs the hedged requests on a bounded pool of daemon threads owned by the SDK.
+     *
+     * @param delegate the transport that executes the requests
+     */
+    public RetryingHttpTransport(HttpTransport delegate) {
+        this(delegate, DefaultHedgeExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * Builds a transport.
+     *
+     * @param delegate      the transport that executes the requests
+     * @param hedgeExecutor the executor the hedged requests run on, it blocks on network I/O. If it rejects a request, the request is
+     *                      sent without hedging or the second request is not sent
+     */
+    public RetryingHttpTransport(HttpTransport delegate, Executor hedgeExecutor) {
+        this.delegate = delegate;
+        this.hedgeExecutor = hedgeExecutor;
+    }
+
+    /**
+     * Returns the transport that executes the requests.
+     *
+     * @return the delegate transport
+     */
+    public HttpTransport getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the executor the hedged requests run on.
+     *
+     * @return the hedge executor
+     */
+    public Executor getHedgeExecutor() {
+        return hedgeExecutor;
+    }
+
+    /**
+     * Sets the policy of the GET requests of the given endpoint.
+     *
+     * @param endpoint the API endpoint
+     * @param policy   the policy, null to stop retrying the requests of the endpoint
+     */
+    public void setPolicy(String endpoint, RetryPolicy policy) {
+        if (policy == null) {
+            policies.remove(endpoint);
+        } else {
+            policies.put(endpoint, policy);
+        }
+        latencies.remove(endpoint);
+        budgets.remove(endpoint);
+    }
+
+    /**
+     * Returns the policy of the given endpoint.
+     *
+     * @param endpoint the API endpoint
+     *
+     * @return the policy or null if the requests of the endpoint are not retried
+     */
+    public RetryPolicy getPolicy(String endpoint) {
+        return policies.get(endpoint);
+    }
+
+    /**
+     * Returns the policies of all the endpoints.
+     *
+     * @return an unmodifiable view of the policies by endpoint
+     */
+    public Map<String, RetryPolicy> getPolicies() {
+        return Collections.unmodifiableMap(policies);
+    }
+
+    /**
+     * Returns how many times a request was retried.
+     *
+     * @return the amount of retries
+     */
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    /**
+     * Returns how many hedged requests were sent.
+     *
+     * @return the amount of hedged requests
+     */
+    public long getHedgeCount() {
+        return hedges.get();
+    }
+
+    /**
+     * Returns how many times the response of a hedged request was used because it arrived first.
+     *
+     * @return the amount of won hedged requests
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * Returns how many second requests were not sent because the hedge budget of their endpoint was spent or the hedge executor had
+     * no free thread.
+     *
+     * @return the amount of skipped hedged requests
+     */
+    public long getSkippedHedgeCount() {
+        return skippedHedges.get();
+    }
+
+    /**
+     * Returns the estimated latency percentile after which the requests of the given endpoint are hedged.
+     *
+     * @param endpoint the API endpoint
+     *
+     * @return the latencies in milliseconds, or -1 if the endpoint is not hedged or not enough latencies were observed yet
+     */
+    public long getHedgeDelayMillis(String endpoint) {
+        LatencyTracker tracker = latencies.get(endpoint);
+        if (tracker == null) {
+            return -1L;
+        }
+        return tracker.getEstimate();
+    }
+
+    /**
+     * Returns the estimated hedge delays of all the hedged endpoints.
+     *
+     * @return a snapshot of the hedge delays in milliseconds by endpoint, -1 if not enough latencies were observed yet
+     */
+    public Map<String, Long> getHedgeDelays() {
+        Map<String, Long> delays = new HashMap<String, Long>();
+        for (Map.Entry<String, LatencyTracker> entry : latencies.entrySet()) {
+            delays.put(entry.getKey(), entry.getValue().getEstimate());
+        }
+        return delays;
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        RetryPolicy policy = getPolicy(request);
+        if (policy == null) {
+            return delegate.execute(request);
+        }
+        for (int attempt = 1; ; attempt++) {
+            long wait = policy.backoffMillis(attempt);
+            try {
+                HttpResponse response;
+                if (policy.isHedged()) {
+                    response = executeHedged(request, policy, getTracker(request.getEndpoint(), policy),
+                            getBudget(request.getEndpoint(), policy));
+                } else {
+                    response = delegate.execute(request);
+                }
+                if (attempt >= policy.getMaxAttempts() || !policy.isRetryableStatus(response.getStatusCode())) {
+                    return response;
+                }
+                long retryAfter = RetryAfter.getDelayMillis(response);
+                wait = Math.max(wait, retryAfter);
+                if (retryAfter > policy.getMaxBackoffMillis() || !canWait(request, wait)) {
+                    return response;
+                }
+                LOGGER.log(Level.FINE, "Retrying {0} after status code {1}", new Object[]{request, response.getStatusCode()});
+            } catch (IOException e) {
+                if (attempt >= policy.getMaxAttempts() || !isRetryable(e) || !canWait(request, wait)) {
+                    throw e;
+                }
+                LOGGER.log(Level.FINE, "Retrying " + request + " after a failed attempt", e);
+            }
+            backoff(wait);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Hedged requests are read completely first. All the other requests with a policy are streamed and retried as long as the handler
+     * has not been called, responses with a status code that can be retried are not handed to the handler unless it is the last attempt.
+     * </p>
+     */
+    @Override
+    public <T> T execute(HttpRequest request, HttpResponseHandler<T> handler) throws IOException {
+        RetryPolicy policy = getPolicy(request);
+        if (policy == null) {
+            return delegate.execute(request, handler);
+        }
+        if (policy.isHedged()) {
+            return HttpTransport.super.execute(request, handler);
+        }
+        for (int attempt = 1; ; attempt++) {
+            boolean lastAttempt = attempt >= policy.getMaxAttempts();
+            long wait = policy.backoffMillis(attempt);
+            GuardedHandler<T> guarded = new GuardedHandler<T>(handler, request, policy, lastAttempt, wait);
+            try {
+                return delegate.execute(request, guarded);
+            } catch (RetryableStatusException e) {
+                wait = e.waitMillis;
+                LOGGER.log(Level.FINE, "Retrying {0} after status code {1}", new Object[]{request, e.statusCode});
+            } catch (IOException e) {
+                if (lastAttempt || guarded.started || !isRetryable(e) || !canWait(request, wait)) {
+                    throw e;
+                }
+                LOGGER.log(Level.FINE, "Retrying " + request + " after a failed attempt", e);
+            }
+            backoff(wait);
+        }
+    }
+
+    /**
+     * Returns the policy of a request.
+     *
+     * @param request the request
+     *
+     * @return the policy or null if the request is not retried
+     */
+    private RetryPolicy getPolicy(HttpRequest request) {
+        if (!GET_METHOD.equals(request.getMethod()) || request.getEndpoint() == null) {
+            return null;
+        }
+        return policies.get(request.getEndpoint());
+    }
+
+    /**
+     * Returns the latencies of an endpoint, they are reset when the percentile of its policy changes.
+     *
+     * @param endpoint the API endpoint
+     * @param policy   the policy of the endpoint
+     *
+     * @return the latencies
+     */
+    private LatencyTracker getTracker(String endpoint, RetryPolicy policy) {
+        LatencyTracker tracker = latencies.get(endpoint);
+        if (tracker == null || tracker.getPercentile() != policy.getHedgePercentile()) {
+            LatencyTracker newTracker = new LatencyTracker(policy.getHedgePercentile());
+            if (tracker == null) {
+                tracker = latencies.putIfAbsent(endpoint, newTracker);
+                if (tracker == null) {
+                    tracker = newTracker;
+                }
+            } else if (latencies.replace(endpoint, tracker, newTracker)) {
+                tracker = newTracker;
+            } else {
+                tracker = latencies.getOrDefault(endpoint, newTracker);
+            }
+        }
+        return tracker;
+    }
+
+    /**
+     * Returns the hedge budget of an endpoint, it is reset when the budget of its policy changes.
+     *
+     * @param endpoint the API endpoint
+     * @param policy   the policy of the endpoint
+     *
+     * @return the hedge budget
+     */
+    private HedgeBudget getBudget(String endpoint, RetryPolicy policy) {
+        HedgeBudget budget = budgets.get(endpoint);
+        if (budget == null || budget.percent != policy.getHedgeBudgetPercent()) {
+            HedgeBudget newBudget = new HedgeBudget(policy.getHedgeBudgetPercent());
+            budgets.put(endpoint, newBudget);
+            budget = newBudget;
+        }
+        return budget;
+    }
+
+    /**
+     * Executes a request and sends a second one if the first has not answered within the latency percentile of the endpoint and the
+     * hedge budget allows it. The request still running when the call ends is aborted.
+     *
+     * @param request the request
+     * @param policy  the policy of the endpoint
+     * @param tracker the latencies of the endpoint
+     * @param budget  the hedge budget of the endpoint
+     *
+     * @return the first successful response, or a response with a status code that can be retried if no request succeeded
+     *
+     * @throws IOException if all the requests failed, or the thread was interrupted
+     */
+    private HttpResponse executeHedged(HttpRequest request, RetryPolicy policy, LatencyTracker tracker, HedgeBudget budget)
+            throws IOException {
+        budget.onRequest();
+        HedgedCall call = new HedgedCall(policy);
+        if (!submit(request, tracker, call, false)) {
+            return delegate.execute(request);
+        }
+        try {
+            long delay = tracker.getEstimate();
+            if (delay >= 0) {
+                try {
+                    return call.result.get(delay, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    hedge(request, tracker, call, budget, delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the response");
+                } catch (ExecutionException e) {
+                    throw unwrap(e);
+                }
+            }
+            return await(call.result);
+        } finally {
+            call.cancel();
+        }
+    }
+
+    /**
+     * Sends the second request of a hedged call if the hedge budget allows it.
+     *
+     * @param request the request
+     * @param tracker the latencies of the endpoint
+     * @param call    the hedged call
+     * @param budget  the hedge budget of the endpoint
+     * @param delay   the time waited for the first request in milliseconds
+     */
+    private void hedge(HttpRequest request, LatencyTracker tracker, HedgedCall call, HedgeBudget budget, long delay) {
+        if (!budget.tryAcquire()) {
+            skippedHedges.incrementAndGet();
+            LOGGER.log(Level.FINEST, "Not hedging {0}, the hedge budget is spent", request);
+            return;
+        }
+        if (submit(request, tracker, call, true)) {
+            hedges.incrementAndGet();
+            LOGGER.log(Level.FINEST, "Hedging {0} after {1} ms", new Object[]{request, delay});
+        } else {
+            budget.release();
+            skippedHedges.incrementAndGet();
+        }
+    }
+
+    /**
+     * Starts one of the requests of a hedged call on the hedge executor, with an own copy of the deadline of the request that is
+     * cancelled together with it.
+     *
+     * @param request the request
+     * @param tracker the latencies of the endpoint
+     * @param call    the hedged call
+     * @param hedge   whether this is the hedged request
+     *
+     * @return true if the request was started, false if the hedge executor rejected it
+     */
+    private boolean submit(HttpRequest request, LatencyTracker tracker, HedgedCall call, boolean hedge) {
+        Deadline parent = request.getDeadline();
+        Deadline deadline = parent == null ? Deadline.none() : parent.copy();
+        Runnable propagate = deadline::cancel;
+        if (parent != null) {
+            parent.addCancelHook(propagate);
+        }
+        HttpRequest attempt = request.withDeadline(deadline);
+        call.pending.incrementAndGet();
+        call.deadlines.add(deadline);
+        Runnable task = RequestPriority.current().bind(() -> {
+            long start = System.nanoTime();
+            try {
+                HttpResponse response = delegate.execute(attempt);
+                tracker.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                if (call.policy.isRetryableStatus(response.getStatusCode())) {
+                    call.retryable.set(response);
+                    if (call.pending.decrementAndGet() == 0) {
+                        call.result.complete(response);
+                    }
+                } else {
+                    if (call.answered.compareAndSet(false, true)) {
+                        if (hedge) {
+                            hedgeWins.incrementAndGet();
+                        }
+                        call.result.complete(response);
+                    }
+                    call.pending.decrementAndGet();
+                }
+            } catch (IOException | RuntimeException | Error e) {
+                if (call.pending.decrementAndGet() == 0) {
+                    HttpResponse retryable = call.retryable.get();
+                    if (retryable != null) {
+                        call.result.complete(retryable);
+                    } else {
+                        call.result.completeExceptionally(e);
+                    }
+                }
+            } finally {
+                if (parent != null) {
+                    parent.removeCancelHook(propagate);
+                }
+            }
+        });
+        try {
+            hedgeExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            LOGGER.log(Level.FINE, "The hedge executor rejected " + request, e);
+            call.pending.decrementAndGet();
+            call.deadlines.remove(deadline);
+            if (parent != null) {
+                parent.removeCancelHook(propagate);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Waits before the next attempt.
+     *
+     * @param millis the time to wait in milliseconds
+     *
+     * @throws InterruptedIOException if the thread was interrupted while waiting
+     */
+    private void backoff(long millis) throws InterruptedIOException {
+        retries.incrementAndGet();
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry the request");
+        }
+    }
+
+    /**
+     * Returns whether there is time left for a retry after waiting before it.
+     *
+     * @param request the request
+     * @param millis  the time to wait before the retry in milliseconds
+     *
+     * @return true if the deadline of the request is not reached after the wait
+     */
+    private static boolean canWait(HttpRequest request, long millis) {
+        Deadline deadline = request.getDeadline();
+        return deadline == null || TimeUnit.MILLISECONDS.toNanos(millis) < deadline.remainingNanos();
+    }
+
+    /**
+     * Returns whether a failed request can be retried. Failures to resolve the host are configuration errors and are not retried,
+     * neither are interruptions of the calling thread, expired {@link Deadline}s nor requests rejected by an open {@link CircuitBreaker}
+     * or by the {@link RateLimitingHttpTransport}.
+     *
+     * @param e the failure
+     *
+     * @return true if the request can be retried
+     */
+    private static boolean isRetryable(IOException e) {
+        if (Thread.currentThread().isInterrupted() || e instanceof UnknownHostException || e instanceof CircuitOpenException
+                || e instanceof RateLimitExceededException) {
+            return false;
+        }
+        return !(e instanceof InterruptedIOException) || e instanceof SocketTimeoutException;
+    }
+
+    /**
+     * Waits for the result of a hedged call.
+     *
+     * @param result the result of the call
+     *
+     * @return the response
+     *
+     * @throws IOException if the requests failed or the thread was interrupted
+     */
+    private static HttpResponse await(CompletableFuture<HttpResponse> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response");
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * Rethrows the cause of a failed hedged call.
+     *
+     * @param e the failure
+     *
+     * @return the I/O exception to throw
+     */
+    private static IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException(cause);
+    }
+
+    /**
+     * State of a hedged call: the first successful response, whether it arrived, the last response with a status code that can be
+     * retried, the amount of requests still running and their deadlines. A response with a status code that can be retried only
+     * completes the call when no other request is running anymore.
+     */
+    private static final class HedgedCall {
+        private final RetryPolicy policy;
+        private final CompletableFuture<HttpResponse> result = new CompletableFuture<HttpResponse>();
+        private final AtomicReference<HttpResponse> retryable = new AtomicReference<HttpResponse>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean answered = new AtomicBoolean();
+        private final List<Deadline> deadlines = new CopyOnWriteArrayList<Deadline>();
+
+        /**
+         * Builds the state of a call.
+         *
+         * @param policy the policy of the endpoint
+         */
+        HedgedCall(RetryPolicy policy) {
+            this.policy = policy;
+        }
+
+        /**
+         * Aborts the requests of the call that are still running.
+         */
+        void cancel() {
+            for (Deadline deadline : deadlines) {
+                deadline.cancel();
+            }
+        }
+    }
+
+    /**
+     * Limits the second requests of an endpoint to a percentage of its requests. Every request adds the percentage to the budget and
+     * every second request takes one whole request from it, the budget saves at most {@link #MAX_SAVED} second requests for bursts.
+     */
+    private static final class HedgeBudget {
+        private static final double MAX_SAVED = 10.0;
+        private static final double PERCENT = 100.0;
+
+        private final double percent;
+        private double available;
+
+        /**
+         * Builds an empty budget.
+         *
+         * @param percent the maximum percentage of the requests that are hedged
+         */
+        HedgeBudget(double percent) {
+            this.percent = percent;
+        }
+
+        /**
+         * Adds the share of a request to the budget.
+         */
+        synchronized void onRequest() {
+            available = Math.min(MAX_SAVED, available + percent / PERCENT);
+        }
+
+        /**
+         * Takes a second request from the budget.
+         *
+         * @return true if the budget allows the second request
+         */
+        synchronized boolean tryAcquire() {
+            if (available < 1) {
+                return false;
+            }
+            available -= 1;
+            return true;
+        }
+
+        /**
+         * Gives back a second request that was not sent.
+         */
+        synchronized void release() {
+            available = Math.min(MAX_SAVED, available + 1);
+        }
+    }
+
+    /**
+     * Handler that refuses the responses that can be retried and remembers whether the response was handed to the real handler.
+     *
+     * @param <T> the type of the result of the handler
+     */
+    private static final class GuardedHandler<T> implements HttpResponseHandler<T> {
+        private final HttpResponseHandler<T> handler;
+        private final HttpRequest request;
+        private final RetryPolicy policy;
+        private final boolean lastAttempt;
+        private final long backoffMillis;
+        private volatile boolean started;
+
+        /**
+         * Builds the handler of an attempt.
+         *
+         * @param handler       the real handler
+         * @param request       the request
+         * @param policy        the policy of the request
+         * @param lastAttempt   whether the attempt is the last one
+         * @param backoffMillis the time to wait before the next attempt in milliseconds
+         */
+        GuardedHandler(HttpResponseHandler<T> handler, HttpRequest request, RetryPolicy policy, boolean lastAttempt, long backoffMillis) {
+            this.handler = handler;
+            this.request = request;
+            this.policy = policy;
+            this.lastAttempt = lastAttempt;
+            this.backoffMillis = backoffMillis;
+        }
+
+        @Override
+        public T handle(HttpResponse response, InputStream body) throws IOException {
+            if (!lastAttempt && policy.isRetryableStatus(response.getStatusCode())) {
+                long retryAfter = RetryAfter.getDelayMillis(response);
+                long wait = Math.max(backoffMillis, retryAfter);
+                if (retryAfter <= policy.getMaxBackoffMillis() && canWait(request, wait)) {
+                    throw new RetryableStatusException(response.getStatusCode(), wait);
+                }
+            }
+            started = true;
+            return handler.handle(response, body);
+        }
+    }
+
+    /**
+     * Signals a streamed response whose status code can be retried.
+     */
+    private static final class RetryableStatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+        private final long waitMillis;
+
+        /**
+         * Builds the exception.
+         *
+         * @param statusCode the status code of the response
+         * @param waitMillis the time to wait before the retry in milliseconds
+         */
+        RetryableStatusException(int statusCode, long waitMillis) {
+            super("Retryable status code " + statusCode);
+            this.statusCode = statusCode;
+            this.waitMillis = waitMillis;
+        }
+    }
+
+    /**
+     * Holds the default hedge executor so that it is only created when it is needed. It starts a thread for every request up to
+     * {@link #MAX_HEDGE_THREADS} and rejects the requests beyond that, the idle threads end after a minute.
+     */
+    private static final class DefaultHedgeExecutorHolder {
+        private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(0, MAX_HEDGE_THREADS, HEDGE_THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "plenigo-hedge-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        /**
+         * Default constructor.
+         */
+        private DefaultHedgeExecutorHolder() {
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.plenigo.sdk.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Token bucket of a {@link RateLimit}. A request reserves its permit in advance: if the bucket is empty the permit is taken from
+ * the future refill and the request is told how long to wait for it, so the waiting requests are served in the order of their
+ * reservations and sleep instead of polling the bucket.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+final class TokenBucket {
+    private final RateLimit limit;
+    private final double nanosPerPermit;
+    private double permits;
+    private long refilledAt;
+
+    /**
+     * Builds a full bucket.
+     *
+     * @param limit the rate limit
+     * @param now   the current time in nanoseconds, see {@link System#nanoTime()}
+     */
+    TokenBucket(RateLimit limit, long now) {
+        this.limit = limit;
+        this.nanosPerPermit = TimeUnit.SECONDS.toNanos(1) / limit.getPermitsPerSecond();
+        this.permits = limit.getBurst();
+        this.refilledAt = now;
+    }
+
+    /**
+     * Returns the rate limit of the bucket.
+     *
+     * @return the rate limit
+     */
+    RateLimit getLimit() {
+        return limit;
+    }
+
+    /**
+     * Reserves a permit if it is available within the maximum wait of the limit and the given budget.
+     *
+     * @param now         the current time in nanoseconds
+     * @param budgetNanos the time left before the deadline of the request in nanoseconds
+     *
+     * @return the time in nanoseconds to wait for the permit, or a negative value if no permit was reserved
+     */
+    synchronized long reserve(long now, long budgetNanos) {
+        refill(now);
+        long wait = Math.max(0L, refilledAt - now);
+        if (permits < 1) {
+            wait += (long) Math.ceil((1 - permits) * nanosPerPermit);
+        }
+        if (wait > Math.min(budgetNanos, TimeUnit.MILLISECONDS.toNanos(limit.getMaxWaitMillis()))) {
+            return -1L;
+        }
+        permits -= 1;
+        return wait;
+    }
+
+    /**
+     * Stops refilling the bucket until the given time and keeps at most one permit, so that the requests resume one by one.
+     *
+     * @param now   the current time in nanoseconds
+     * @param until the end of the pause in nanoseconds
+     */
+    synchronized void pause(long now, long until) {
+        refill(now);
+        if (until - refilledAt > 0) {
+            refilledAt = until;
+            permits = Math.min(permits, 1);
+        }
+    }
+
+    /**
+     * Adds the permits accumulated since the last refill.
+     *
+     * @param now the current time in nanoseconds
+     */
+    private void refill(long now) {
+        if (now - refilledAt > 0) {
+            permits = Math.min(limit.getBurst(), permits + (now - refilledAt) / nanosPerPermit);
+            refilledAt = now;
+        }
+    }
+}
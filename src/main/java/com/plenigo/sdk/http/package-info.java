@@ -0,0 +1,10 @@
+/**
+ * <p>
+ * This package contains the HTTP transport used by the plenigo SDK to talk to the plenigo API
+ * and the extension point to replace it, see {@link com.plenigo.sdk.PlenigoManager#configureTransport(HttpTransport)}.
+ * </p>
+ */
+/**
+ *
+ */
+package com.plenigo.sdk.http;
@@ -0,0 +1,80 @@
+package com.plenigo.sdk.internal.cache;
+
+import com.plenigo.sdk.models.CacheStatistics;
+import com.plenigo.sdk.models.CategoryData;
+import com.plenigo.sdk.models.ProductData;
+
+/**
+ * <p>
+ * Caches the product and category data returned by {@link com.plenigo.sdk.services.ProductService}, see {@link RefreshingCache} for
+ * the refresh behaviour. Products and categories are kept in separate caches of the same size.
+ * </p>
+ * <p>
+ * <b>IMPORTANT:</b> This class is part of the internal API, please do not use it, because it can
+ * be removed in future versions of the SDK or access to such elements could
+ * be changed from 'public' to 'default' or less.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ */
+public final class CatalogCache {
+    private final RefreshingCache<String, ProductData> products;
+    private final RefreshingCache<String, CategoryData> categories;
+
+    /**
+     * Builds the catalog cache.
+     *
+     * @param maxSize       the maximum amount of cached products and of cached categories, it must be greater than zero
+     * @param softTtlMillis the time in milliseconds after which a value is refreshed in the background
+     * @param hardTtlMillis the time in milliseconds after which a value is not returned anymore
+     */
+    public CatalogCache(int maxSize, long softTtlMillis, long hardTtlMillis) {
+        this.products = new RefreshingCache<String, ProductData>(maxSize, softTtlMillis, hardTtlMillis);
+        this.categories = new RefreshingCache<String, CategoryData>(maxSize, softTtlMillis, hardTtlMillis);
+    }
+
+    /**
+     * Returns the cache of the product data by product id.
+     *
+     * @return the product cache
+     */
+    public RefreshingCache<String, ProductData> getProducts() {
+        return products;
+    }
+
+    /**
+     * Returns the cache of the category data by category id.
+     *
+     * @return the category cache
+     */
+    public RefreshingCache<String, CategoryData> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Removes all the cached products and categories.
+     */
+    public void clear() {
+        products.clear();
+        categories.clear();
+    }
+
+    /**
+     * Returns the usage statistics of the product cache.
+     *
+     * @return the cache statistics
+     */
+    public CacheStatistics getProductStatistics() {
+        return products.getStatistics();
+    }
+
+    /**
+     * Returns the usage statistics of the category cache.
+     *
+     * @return the cache statistics
+     */
+    public CacheStatistics getCategoryStatistics() {
+        return categories.getStatistics();
+    }
+}
@@ -0,0 +1,155 @@
+package com.plenigo.sdk.internal.cache;
+
+import com.plenigo.sdk.internal.models.ConfigurationSnapshot;
+import com.plenigo.sdk.internal.models.Customer;
+import com.plenigo.sdk.internal.models.MeteredUserData;
+import com.plenigo.sdk.models.CacheStatistics;
+
+/**
+ * <p>
+ * Caches the decoded content of the plenigo cookies by their encrypted value, so that a returning visitor sending the same cookie
+ * does not have to be decrypted and parsed again on every request.
+ * </p>
+ * <p>
+ * Only the decoded data is cached, every check that depends on the current time, like the expiration of the customer session
+ * or the validity of the metered period, is still evaluated by the caller each time the data is used.
+ * </p>
+ * <p>
+ * {@link Customer} is immutable and shared, while {@link MeteredUserData} can be changed by its user, so the cache keeps its own
+ * copy of the metered user data and hands out a new copy on every hit.
+ * </p>
+ * <p>
+ * Every entry is stored together with the {@link ConfigurationSnapshot} whose secret or company id decrypted it, and is only returned
+ * for that same snapshot. An entry decoded with a previous configuration is never returned after the SDK was configured again, even
+ * if it was stored after the cache was cleared.
+ * </p>
+ * <p>
+ * <b>IMPORTANT:</b> This class is part of the internal API, please do not use it, because it can
+ * be removed in future versions of the SDK or access to such elements could
+ * be changed from 'public' to 'default' or less.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ */
+public final class CookieCache {
+    private final LruCache<String, Decoded<Customer>> customers;
+    private final LruCache<String, Decoded<MeteredUserData>> meteredUserData;
+
+    /**
+     * Builds a cache that holds at most the given amount of customers and the same amount of metered user data.
+     *
+     * @param maxSize the maximum amount of entries of every cookie type, it must be greater than zero
+     */
+    public CookieCache(int maxSize) {
+        customers = new LruCache<String, Decoded<Customer>>(maxSize);
+        meteredUserData = new LruCache<String, Decoded<MeteredUserData>>(maxSize);
+    }
+
+    /**
+     * Returns the customer decoded from the given user cookie value.
+     *
+     * @param config      the configuration snapshot the cookie is decrypted with
+     * @param cookieValue the encrypted value of the user cookie
+     *
+     * @return the customer or null if it is not cached for the snapshot
+     */
+    public Customer getCustomer(ConfigurationSnapshot config, String cookieValue) {
+        return valueOf(customers.get(cookieValue), config);
+    }
+
+    /**
+     * Stores the customer decoded from the given user cookie value.
+     *
+     * @param config      the configuration snapshot the cookie was decrypted with
+     * @param cookieValue the encrypted value of the user cookie
+     * @param customer    the decoded customer
+     */
+    public void putCustomer(ConfigurationSnapshot config, String cookieValue, Customer customer) {
+        customers.put(cookieValue, new Decoded<Customer>(config, customer));
+    }
+
+    /**
+     * Returns the metered user data decoded from the given metered cookie value.
+     *
+     * @param config      the configuration snapshot the cookie is decrypted with
+     * @param cookieValue the encrypted value of the metered cookie
+     *
+     * @return a copy of the metered user data or null if it is not cached for the snapshot
+     */
+    public MeteredUserData getMeteredUserData(ConfigurationSnapshot config, String cookieValue) {
+        MeteredUserData data = valueOf(meteredUserData.get(cookieValue), config);
+        if (data == null) {
+            return null;
+        }
+        return new MeteredUserData(data);
+    }
+
+    /**
+     * Stores a copy of the metered user data decoded from the given metered cookie value.
+     *
+     * @param config      the configuration snapshot the cookie was decrypted with
+     * @param cookieValue the encrypted value of the metered cookie
+     * @param data        the decoded metered user data
+     */
+    public void putMeteredUserData(ConfigurationSnapshot config, String cookieValue, MeteredUserData data) {
+        meteredUserData.put(cookieValue, new Decoded<MeteredUserData>(config, data == null ? null : new MeteredUserData(data)));
+    }
+
+    /**
+     * Removes all the cached cookies.
+     */
+    public void clear() {
+        customers.clear();
+        meteredUserData.clear();
+    }
+
+    /**
+     * Returns the statistics of both cookie types together.
+     *
+     * @return the cache statistics
+     */
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(customers.getHitCount() + meteredUserData.getHitCount(),
+                customers.getMissCount() + meteredUserData.getMissCount(),
+                customers.size() + meteredUserData.size(),
+                customers.getMaxSize() + meteredUserData.getMaxSize());
+    }
+
+    /**
+     * Returns the value of an entry if it was decoded with the given snapshot.
+     *
+     * @param entry  the entry, null if there is none
+     * @param config the configuration snapshot
+     * @param <V>    the type of the value
+     *
+     * @return the value or null
+     */
+    private static <V> V valueOf(Decoded<V> entry, ConfigurationSnapshot config) {
+        if (entry == null || entry.config != config) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * A decoded cookie and the configuration snapshot it was decrypted with.
+     *
+     * @param <V> the type of the decoded cookie
+     */
+    private static final class Decoded<V> {
+        private final ConfigurationSnapshot config;
+        private final V value;
+
+        /**
+         * Builds an entry.
+         *
+         * @param config the configuration snapshot
+         * @param value  the decoded cookie
+         */
+        Decoded(ConfigurationSnapshot config, V value) {
+            this.config = config;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.plenigo.sdk.internal.cache;
+
+import com.plenigo.sdk.models.CacheStatistics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Caches the answers of the "has the user bought" checks, so that a customer checking the same products again a few seconds later
+ * does not cause another remote call.
+ * </p>
+ * <p>
+ * Positive and negative answers have their own time to live: a purchase usually stays valid for a long time, while a negative
+ * answer should be short lived so that the customer gets access soon after buying. A time to live of zero or less means that
+ * such answers are not cached at all. When the cache is full the least recently used answers are evicted.
+ * </p>
+ * <p>
+ * Independently of the time to live the latest answer of every check is kept as last known good answer, it is only used while the
+ * API can not be reached, see {@link #getLastKnown(String, Collection, boolean, boolean)}.
+ * </p>
+ * <p>
+ * <b>IMPORTANT:</b> This class is part of the internal API, please do not use it, because it can
+ * be removed in future versions of the SDK or access to such elements could
+ * be changed from 'public' to 'default' or less.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ */
+public final class EntitlementCache {
+    private static final int HASH_MULTIPLIER = 31;
+    private final LruCache<Key, Entry> entries;
+    private final LruCache<Key, Boolean> lastKnown;
+    private final long positiveTtlMillis;
+    private final long negativeTtlMillis;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Builds the entitlement cache.
+     *
+     * @param maxSize           the maximum amount of cached answers, it must be greater than zero
+     * @param positiveTtlMillis the time in milliseconds a positive answer is kept
+     * @param negativeTtlMillis the time in milliseconds a negative answer is kept
+     */
+    public EntitlementCache(int maxSize, long positiveTtlMillis, long negativeTtlMillis) {
+        this.entries = new LruCache<Key, Entry>(maxSize);
+        this.lastKnown = new LruCache<Key, Boolean>(maxSize);
+        this.positiveTtlMillis = positiveTtlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+    }
+
+    /**
+     * Returns the cached answer.
+     *
+     * @param customerId         the customer id
+     * @param productIds         the product ids that were checked
+     * @param testMode           the test mode the check was done with
+     * @param withExternalUserId flag indicating if the customer id is an external customer id
+     *
+     * @return the cached answer or null if there is no answer that is still valid
+     */
+    public Boolean get(String customerId, Collection<String> productIds, boolean testMode, boolean withExternalUserId) {
+        Key key = new Key(customerId, productIds, testMode, withExternalUserId);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.bought;
+    }
+
+    /**
+     * Returns the latest answer of a check even if it expired or was not cached because of its time to live, it is meant to be used
+     * while the API can not be reached. It does not count as a hit or a miss.
+     *
+     * @param customerId         the customer id
+     * @param productIds         the product ids that were checked
+     * @param testMode           the test mode the check was done with
+     * @param withExternalUserId flag indicating if the customer id is an external customer id
+     *
+     * @return the latest answer or null if the check was not done yet, or it was invalidated or evicted
+     */
+    public Boolean getLastKnown(String customerId, Collection<String> productIds, boolean testMode, boolean withExternalUserId) {
+        return lastKnown.get(new Key(customerId, productIds, testMode, withExternalUserId));
+    }
+
+    /**
+     * Stores an answer.
+     *
+     * @param customerId         the customer id
+     * @param productIds         the product ids that were checked
+     * @param testMode           the test mode the check was done with
+     * @param withExternalUserId flag indicating if the customer id is an external customer id
+     * @param bought             the answer
+     */
+    public void put(String customerId, Collection<String> productIds, boolean testMode, boolean withExternalUserId, boolean bought) {
+        Key key = new Key(customerId, productIds, testMode, withExternalUserId);
+        lastKnown.put(key, bought);
+        long ttl;
+        if (bought) {
+            ttl = positiveTtlMillis;
+        } else {
+            ttl = negativeTtlMillis;
+        }
+        if (ttl <= 0) {
+            return;
+        }
+        entries.put(key, new Entry(bought, System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Removes all the cached and last known answers of a customer, e.g. after the customer bought a product.
+     *
+     * @param customerId the customer id
+     *
+     * @return the amount of removed answers
+     */
+    public int invalidate(final String customerId) {
+        LruCache.KeyFilter<Key> filter = new LruCache.KeyFilter<Key>() {
+            @Override
+            public boolean accept(Key key) {
+                return key.customerId.equals(customerId);
+            }
+        };
+        lastKnown.removeMatching(filter);
+        return entries.removeMatching(filter);
+    }
+
+    /**
+     * Removes all the cached and last known answers.
+     */
+    public void clear() {
+        entries.clear();
+        lastKnown.clear();
+    }
+
+    /**
+     * Returns the usage statistics of the cache.
+     *
+     * @return the cache statistics
+     */
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.get(), misses.get(), entries.size(), entries.getMaxSize());
+    }
+
+    /**
+     * The cached answer with its expiration time.
+     */
+    private static final class Entry {
+        private final boolean bought;
+        private final long expiresAt;
+
+        /**
+         * Required constructor.
+         *
+         * @param bought    the answer
+         * @param expiresAt the time in milliseconds when the answer expires
+         */
+        Entry(boolean bought, long expiresAt) {
+            this.bought = bought;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * The parameters of a check, the order of the product ids does not matter.
+     */
+    private static final class Key {
+        private final String customerId;
+        private final Set<String> productIds;
+        private final boolean testMode;
+        private final boolean withExternalUserId;
+        private final int hash;
+
+        /**
+         * Required constructor.
+         *
+         * @param customerId         the customer id
+         * @param productIds         the product ids
+         * @param testMode           the test mode
+         * @param withExternalUserId flag indicating if the customer id is an external customer id
+         */
+        Key(String customerId, Collection<String> productIds, boolean testMode, boolean withExternalUserId) {
+            this.customerId = customerId;
+            if (productIds == null) {
+                this.productIds = Collections.emptySet();
+            } else {
+                this.productIds = new HashSet<String>(productIds);
+            }
+            this.testMode = testMode;
+            this.withExternalUserId = withExternalUserId;
+            int result = customerId.hashCode();
+            result = HASH_MULTIPLIER * result + this.productIds.hashCode();
+            result = HASH_MULTIPLIER * result + (testMode ? 1 : 0);
+            result = HASH_MULTIPLIER * result + (withExternalUserId ? 1 : 0);
+            this.hash = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash && testMode == key.testMode && withExternalUserId == key.withExternalUserId
+                    && customerId.equals(key.customerId) && productIds.equals(key.productIds);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
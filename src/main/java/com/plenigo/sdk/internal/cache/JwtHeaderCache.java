@@ -0,0 +1,270 @@
+package com.plenigo.sdk.internal.cache;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.internal.util.DefaultExecutor;
+import com.plenigo.sdk.internal.util.JWT;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * Keeps the signed JWT authorization header of a company so that it is not built and signed again for every API call.
+ * The header is signed the first time it is needed and reused until shortly before the token it contains expires; the expiration
+ * is read from the issued token, so it follows {@link JWT#setExpirationTime(int)}. Once the refresh window has been reached a
+ * single background refresh is started on the executor of the SDK while the callers keep using the current header; only when
+ * the header is about to expire and no refresh has completed the callers wait for a new signature.
+ * </p>
+ * <p>
+ * Every request sent while a header is cached carries the same token and therefore the same {@code jti}. The token
+ * authenticates the company for the time until its {@code exp} claim and the plenigo API accepts it for every request within
+ * that time, the {@code jti} is not used as a single use nonce.
+ * </p>
+ * <p>
+ * A cache is bound to one company id and secret, a new one is created every time the SDK is configured.
+ * </p>
+ * <p>
+ * <b>IMPORTANT:</b> This class is part of the internal API, please do not use it, because it can
+ * be removed in future versions of the SDK or access to such elements could
+ * be changed from 'public' to 'default' or less.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe, reading a valid header is a single volatile read.
+ * </p>
+ */
+public final class JwtHeaderCache {
+    /**
+     * Time in milliseconds a signed header is assumed to be valid when the expiration of its token cannot be read, the default
+     * expiration time of {@link JWT}.
+     */
+    public static final long DEFAULT_VALIDITY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    /**
+     * Default time in milliseconds before the expiration at which the header is refreshed in the background, it is shortened to
+     * half of the validity of tokens that expire sooner.
+     */
+    public static final long DEFAULT_REFRESH_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    /**
+     * Time in milliseconds before the expiration after which a header is not used anymore, it covers clock skew and
+     * the time the request needs to reach the API. It is shortened to a quarter of the validity of tokens that expire sooner.
+     */
+    static final long EXPIRY_SAFETY_MARGIN_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private static final Logger LOGGER = Logger.getLogger(JwtHeaderCache.class.getName());
+    private static final String TOKEN_HEADER_NAME = "plenigoToken";
+    private static final String EXPIRATION_CLAIM = "exp";
+    private static final int REFRESH_MARGIN_DIVISOR = 2;
+    private static final int SAFETY_MARGIN_DIVISOR = 4;
+
+    private final String companyId;
+    private final String secret;
+    private final long refreshMarginMillis;
+    private final Executor refreshExecutor;
+    private final LongSupplier clock;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicLong signatureCount = new AtomicLong();
+    private volatile SignedHeader current;
+
+    /**
+     * Builds a cache that refreshes the header on the {@link DefaultExecutor} of the SDK.
+     *
+     * @param companyId the company id
+     * @param secret    the company secret
+     */
+    public JwtHeaderCache(String companyId, String secret) {
+        this(companyId, secret, DefaultExecutor.get());
+    }
+
+    /**
+     * Builds a cache.
+     *
+     * @param companyId       the company id
+     * @param secret          the company secret
+     * @param refreshExecutor the executor the background refresh runs on
+     */
+    public JwtHeaderCache(String companyId, String secret, Executor refreshExecutor) {
+        this(companyId, secret, DEFAULT_REFRESH_MARGIN_MILLIS, refreshExecutor, System::currentTimeMillis);
+    }
+
+    /**
+     * Builds a cache.
+     *
+     * @param companyId           the company id
+     * @param secret              the company secret
+     * @param refreshMarginMillis the time in milliseconds before the expiration at which the header is refreshed
+     * @param refreshExecutor     the executor the background refresh runs on
+     * @param clock               the source of the current time in milliseconds
+     */
+    JwtHeaderCache(String companyId, String secret, long refreshMarginMillis, Executor refreshExecutor, LongSupplier clock) {
+        this.companyId = companyId;
+        this.secret = secret;
+        this.refreshMarginMillis = refreshMarginMillis;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the authorization header to send to the API.
+     *
+     * @return an unmodifiable map with the header, it is empty if the company id or the secret are missing
+     *
+     * @throws PlenigoException if the header had to be signed and the signature failed
+     */
+    public Map<String, String> getHeader() throws PlenigoException {
+        SignedHeader header = current;
+        long now = clock.getAsLong();
+        if (header != null && now < header.refreshAt) {
+            return header.header;
+        }
+        if (header != null && now < header.expiresAt) {
+            scheduleRefresh();
+            return header.header;
+        }
+        return signIfNeeded();
+    }
+
+    /**
+     * Returns how many times the header has been signed.
+     *
+     * @return the amount of signatures
+     */
+    public long getSignatureCount() {
+        return signatureCount.get();
+    }
+
+    /**
+     * Signs a new header unless another thread already did while this one was waiting.
+     *
+     * @return the valid header
+     *
+     * @throws PlenigoException if the signature failed
+     */
+    private synchronized Map<String, String> signIfNeeded() throws PlenigoException {
+        SignedHeader header = current;
+        if (header != null && clock.getAsLong() < header.expiresAt) {
+            return header.header;
+        }
+        return sign().header;
+    }
+
+    /**
+     * Starts a background refresh unless one is already running.
+     */
+    private void scheduleRefresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(this::refresh);
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+            LOGGER.log(Level.FINE, "The JWT header refresh was rejected, it will be signed when it expires", e);
+        }
+    }
+
+    /**
+     * Signs a new header in the background.
+     */
+    private void refresh() {
+        try {
+            synchronized (this) {
+                SignedHeader header = current;
+                if (header == null || clock.getAsLong() >= header.refreshAt) {
+                    sign();
+                }
+            }
+        } catch (PlenigoException e) {
+            LOGGER.log(Level.WARNING, "The JWT header could not be refreshed, it will be signed again when it expires", e);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Signs a new header and publishes it, must be called holding the lock of this cache.
+     *
+     * @return the new header
+     *
+     * @throws PlenigoException if the signature failed
+     */
+    private SignedHeader sign() throws PlenigoException {
+        long now = clock.getAsLong();
+        SignedHeader header;
+        if (companyId == null || companyId.isEmpty() || secret == null || secret.isEmpty()) {
+            //same as JWT#generateJWTTokenHeader, there is nothing to sign and nothing that could expire
+            header = new SignedHeader(Collections.<String, String>emptyMap(), Long.MAX_VALUE, Long.MAX_VALUE);
+        } else {
+            Map<String, String> values = new HashMap<String, String>(JWT.generateJWTTokenHeader(companyId, secret));
+            long validity = getValidityMillis(values.get(TOKEN_HEADER_NAME));
+            long expiration = now + validity;
+            header = new SignedHeader(Collections.unmodifiableMap(values),
+                    expiration - Math.min(refreshMarginMillis, validity / REFRESH_MARGIN_DIVISOR),
+                    expiration - Math.min(EXPIRY_SAFETY_MARGIN_MILLIS, validity / SAFETY_MARGIN_DIVISOR));
+            signatureCount.incrementAndGet();
+            LOGGER.log(Level.FINEST, "Signed a new JWT header for the company id {0}", companyId);
+        }
+        current = header;
+        return header;
+    }
+
+    /**
+     * Returns the time in milliseconds the token is still valid, read from its {@code exp} claim.
+     *
+     * @param token the signed token
+     *
+     * @return the remaining validity, or {@link #DEFAULT_VALIDITY_MILLIS} if the claim could not be read
+     */
+    static long getValidityMillis(String token) {
+        int payloadStart = token == null ? -1 : token.indexOf('.');
+        int payloadEnd = payloadStart == -1 ? -1 : token.indexOf('.', payloadStart + 1);
+        if (payloadEnd != -1) {
+            try {
+                byte[] payload = Base64.getUrlDecoder().decode(token.substring(payloadStart + 1, payloadEnd));
+                Object claims = JSONValue.parse(new String(payload, StandardCharsets.UTF_8));
+                Object expiration = claims instanceof JSONObject ? ((JSONObject) claims).get(EXPIRATION_CLAIM) : null;
+                if (expiration instanceof Number) {
+                    return Math.max(0L, TimeUnit.SECONDS.toMillis(((Number) expiration).longValue()) - System.currentTimeMillis());
+                }
+            } catch (IllegalArgumentException e) {
+                LOGGER.log(Level.FINE, "The payload of the JWT token could not be decoded", e);
+            }
+        }
+        LOGGER.log(Level.FINE, "The expiration of the JWT token could not be read, it is assumed to be valid for {0} ms",
+                DEFAULT_VALIDITY_MILLIS);
+        return DEFAULT_VALIDITY_MILLIS;
+    }
+
+    /**
+     * Signed header with the times at which it has to be refreshed and at which it cannot be used anymore.
+     */
+    private static final class SignedHeader {
+        private final Map<String, String> header;
+        private final long refreshAt;
+        private final long expiresAt;
+
+        /**
+         * Builds a signed header.
+         *
+         * @param header    the header
+         * @param refreshAt the time in milliseconds at which it has to be refreshed
+         * @param expiresAt the time in milliseconds at which it cannot be used anymore
+         */
+        SignedHeader(Map<String, String> header, long refreshAt, long expiresAt) {
+            this.header = header;
+            this.refreshAt = refreshAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.plenigo.sdk.internal.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Size bounded cache that evicts the least recently used entries first.
+ * </p>
+ * <p>
+ * The entries are distributed over several segments by the hash of their key, every segment is guarded by its own lock
+ * and evicts independently, so that concurrent callers working on different keys rarely wait on each other. Because of
+ * this the eviction order is only approximately LRU across the whole cache, which is enough for the SDK use cases.
+ * </p>
+ * <p>
+ * <b>IMPORTANT:</b> This class is part of the internal API, please do not use it, because it can
+ * be removed in future versions of the SDK or access to such elements could
+ * be changed from 'public' to 'default' or less.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class LruCache<K, V> {
+    private static final int MAX_SEGMENTS = 16;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int HASH_SPREAD_SHIFT = 16;
+
+    private final int maxSize;
+    private final Segment<K, V>[] segments;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Builds a cache that holds at most the given amount of entries.
+     *
+     * @param maxSize the maximum amount of entries, it must be greater than zero
+     */
+    public LruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The maximum size of the cache must be greater than zero");
+        }
+        this.maxSize = maxSize;
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && segmentCount * 2 <= maxSize) {
+            segmentCount *= 2;
+        }
+        @SuppressWarnings("unchecked")
+        Segment<K, V>[] created = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        segments = created;
+        int segmentSize = maxSize / segmentCount;
+        int remainder = maxSize % segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            int capacity = segmentSize;
+            if (i < remainder) {
+                capacity++;
+            }
+            segments[i] = new Segment<K, V>(capacity);
+        }
+    }
+
+    /**
+     * Returns the cached value of the key and marks it as recently used.
+     *
+     * @param key the key
+     *
+     * @return the cached value or null if there is none
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        V value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Stores a value, evicting the least recently used entry of the segment if it is full.
+     *
+     * @param key   the key
+     * @param value the value, null values are not stored
+     */
+    public void put(K key, V value) {
+        if (value == null) {
+            return;
+        }
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    /**
+     * Replaces the value of the key only if it is still the expected instance, it does not count as a hit or a miss.
+     *
+     * @param key      the key
+     * @param expected the value that is expected to be cached
+     * @param value    the new value
+     *
+     * @return true if the value was replaced
+     */
+    public boolean replace(K key, V expected, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            if (segment.get(key) != expected) {
+                return false;
+            }
+            segment.put(key, value);
+            return true;
+        }
+    }
+
+    /**
+     * Removes the entry of the given key.
+     *
+     * @param key the key
+     *
+     * @return the removed value or null if there was none
+     */
+    public V remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    /**
+     * Removes all the entries whose key is accepted by the filter. This walks the whole cache, so it is meant for infrequent
+     * operations like invalidations.
+     *
+     * @param filter the filter that selects the keys to remove
+     *
+     * @return the amount of removed entries
+     */
+    public int removeMatching(KeyFilter<? super K> filter) {
+        int removed = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                Iterator<K> keys = segment.keySet().iterator();
+                while (keys.hasNext()) {
+                    if (filter.accept(keys.next())) {
+                        keys.remove();
+                        removed++;
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all the entries, the hit and miss counters are kept.
+     */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the current amount of entries.
+     *
+     * @return the amount of entries
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the maximum amount of entries.
+     *
+     * @return the maximum amount of entries
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns how many times {@link #get(Object)} found a value.
+     *
+     * @return the amount of hits
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns how many times {@link #get(Object)} did not find a value.
+     *
+     * @return the amount of misses
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the segment responsible for the key.
+     *
+     * @param key the key
+     *
+     * @return the segment
+     */
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        //spread the higher bits so that similar keys do not end up in the same segment
+        hash ^= hash >>> HASH_SPREAD_SHIFT;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    /**
+     * Selects keys of the cache.
+     *
+     * @param <K> the type of the keys
+     */
+    public interface KeyFilter<K> {
+        /**
+         * Checks if the key is selected.
+         *
+         * @param key the key
+         *
+         * @return true if the key is selected
+         */
+        boolean accept(K key);
+    }
+
+    /**
+     * Access ordered map that removes its eldest entry once it grows over its capacity.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        /**
+         * Builds a segment with the given capacity.
+         *
+         * @param capacity the maximum amount of entries
+         */
+        Segment(int capacity) {
+            super(INITIAL_SEGMENT_CAPACITY, LOAD_FACTOR, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
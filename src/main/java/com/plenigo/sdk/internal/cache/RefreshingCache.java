@@ -0,0 +1,220 @@
+package com.plenigo.sdk.internal.cache;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.models.CacheStatistics;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * Caches values that are loaded remotely and serves them while they are refreshed. Every entry has two ages:
+ * </p>
+ * <ul>
+ * <li>Until the soft time to live the cached value is returned.</li>
+ * <li>Between the soft and the hard time to live the cached value is still returned immediately, and the first caller starts a
+ * single background reload. If the reload fails the value keeps being served and the next caller tries again.</li>
+ * <li>After the hard time to live the value is considered too old and it is reloaded by the caller.</li>
+ * </ul>
+ * <p>
+ * When the cache is full the least recently used values are evicted.
+ * </p>
+ * <p>
+ * <b>IMPORTANT:</b> This class is part of the internal API, please do not use it, because it can
+ * be removed in future versions of the SDK or access to such elements could
+ * be changed from 'public' to 'default' or less.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe, the cached values are shared between threads and must be immutable.
+ * </p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class RefreshingCache<K, V> {
+    private static final Logger LOGGER = Logger.getLogger(RefreshingCache.class.getName());
+
+    private final LruCache<K, Entry<V>> entries;
+    private final long softTtlMillis;
+    private final long hardTtlMillis;
+    private final LongSupplier clock;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+
+    /**
+     * Builds the cache.
+     *
+     * @param maxSize       the maximum amount of cached values, it must be greater than zero
+     * @param softTtlMillis the time in milliseconds after which a value is refreshed in the background
+     * @param hardTtlMillis the time in milliseconds after which a value is not returned anymore
+     */
+    public RefreshingCache(int maxSize, long softTtlMillis, long hardTtlMillis) {
+        this(maxSize, softTtlMillis, hardTtlMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * Builds the cache.
+     *
+     * @param maxSize       the maximum amount of cached values, it must be greater than zero
+     * @param softTtlMillis the time in milliseconds after which a value is refreshed in the background
+     * @param hardTtlMillis the time in milliseconds after which a value is not returned anymore
+     * @param clock         the source of the current time in milliseconds
+     */
+    RefreshingCache(int maxSize, long softTtlMillis, long hardTtlMillis, LongSupplier clock) {
+        this.entries = new LruCache<K, Entry<V>>(maxSize);
+        this.softTtlMillis = softTtlMillis;
+        this.hardTtlMillis = Math.max(softTtlMillis, hardTtlMillis);
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the value of the key, loading it if it is not cached or it is older than the hard time to live.
+     *
+     * @param key             the key
+     * @param loader          the loader of the value
+     * @param refreshExecutor the executor the background refreshes run on
+     *
+     * @return the value
+     *
+     * @throws PlenigoException if the value had to be loaded by the caller and the loader failed
+     */
+    public V get(K key, Loader<? super K, ? extends V> loader, Executor refreshExecutor) throws PlenigoException {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            long age = clock.getAsLong() - entry.loadedAt;
+            if (age < softTtlMillis) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            if (age < hardTtlMillis) {
+                hits.incrementAndGet();
+                scheduleRefresh(key, entry, loader, refreshExecutor);
+                return entry.value;
+            }
+        }
+        misses.incrementAndGet();
+        V value = loader.load(key);
+        entries.put(key, new Entry<V>(value, clock.getAsLong()));
+        return value;
+    }
+
+    /**
+     * Removes the value of the key, the next call loads it again.
+     *
+     * @param key the key
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all the values.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the usage statistics of the cache, values returned while they were refreshed count as hits.
+     *
+     * @return the cache statistics
+     */
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.get(), misses.get(), entries.size(), entries.getMaxSize());
+    }
+
+    /**
+     * Returns how many background refreshes completed successfully.
+     *
+     * @return the amount of refreshes
+     */
+    public long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    /**
+     * Starts the background refresh of a stale entry unless it is already being refreshed.
+     *
+     * @param key             the key
+     * @param entry           the stale entry
+     * @param loader          the loader of the value
+     * @param refreshExecutor the executor the refresh runs on
+     */
+    private void scheduleRefresh(final K key, final Entry<V> entry, final Loader<? super K, ? extends V> loader, Executor refreshExecutor) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> refresh(key, entry, loader));
+        } catch (RejectedExecutionException e) {
+            entry.refreshing.set(false);
+            LOGGER.log(Level.FINE, "The refresh of " + key + " was rejected, it will be retried", e);
+        }
+    }
+
+    /**
+     * Reloads the value of a stale entry, the new value is only stored if the entry was not invalidated or replaced meanwhile.
+     *
+     * @param key    the key
+     * @param entry  the stale entry
+     * @param loader the loader of the value
+     */
+    private void refresh(K key, Entry<V> entry, Loader<? super K, ? extends V> loader) {
+        try {
+            V value = loader.load(key);
+            if (entries.replace(key, entry, new Entry<V>(value, clock.getAsLong()))) {
+                refreshes.incrementAndGet();
+            }
+        } catch (PlenigoException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "The cached value of " + key + " could not be refreshed, the stale value is kept", e);
+            entry.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Loads the values of the cache.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    public interface Loader<K, V> {
+        /**
+         * Loads the value of the key.
+         *
+         * @param key the key
+         *
+         * @return the value
+         *
+         * @throws PlenigoException if the value could not be loaded
+         */
+        V load(K key) throws PlenigoException;
+    }
+
+    /**
+     * The cached value with the time it was loaded.
+     *
+     * @param <V> the type of the value
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        /**
+         * Required constructor.
+         *
+         * @param value    the value
+         * @param loadedAt the time in milliseconds when the value was loaded
+         */
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+/**
+ * <p>
+ * This package contains the caches used internally by the SDK to avoid repeating
+ * expensive work such as decryption or remote calls.
+ * </p>
+ * <p>
+ * These classes are for internal use only and should not be used by any consumer
+ * because they are prone to change.
+ * </p>
+ */
+/**
+ *
+ */
+package com.plenigo.sdk.internal.cache;
@@ -0,0 +1,124 @@
+package com.plenigo.sdk.internal.models;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.internal.cache.JwtHeaderCache;
+import com.plenigo.sdk.internal.util.DefaultExecutor;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>
+ * Immutable copy of a {@link Configuration} together with the signed JWT header derived from it. A new snapshot is published every
+ * time the SDK is configured, a service call reads a single snapshot so that it never mixes the values of two configurations.
+ * </p>
+ * <p>
+ * <b>IMPORTANT:</b> This class is part of the internal API, please do not use it, because it can
+ * be removed in future versions of the SDK or access to such elements could
+ * be changed from 'public' to 'default' or less.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+public final class ConfigurationSnapshot {
+    private final String url;
+    private final String oauthUrl;
+    private final String secret;
+    private final String companyId;
+    private final boolean testMode;
+    private final JwtHeaderCache jwtHeaderCache;
+
+    /**
+     * Builds a snapshot of the current values of a configuration, later changes of the configuration are not reflected. The JWT
+     * header is refreshed on the {@link DefaultExecutor} of the SDK.
+     *
+     * @param configuration the configuration
+     */
+    public ConfigurationSnapshot(Configuration configuration) {
+        this(configuration, DefaultExecutor.get());
+    }
+
+    /**
+     * Builds a snapshot of the current values of a configuration, later changes of the configuration are not reflected.
+     *
+     * @param configuration   the configuration
+     * @param refreshExecutor the executor the JWT header is refreshed on
+     */
+    public ConfigurationSnapshot(Configuration configuration, Executor refreshExecutor) {
+        this.url = configuration.getUrl();
+        this.oauthUrl = configuration.getOauthUrl();
+        this.secret = configuration.getSecret();
+        this.companyId = configuration.getCompanyId();
+        this.testMode = Boolean.TRUE.equals(configuration.isTestMode());
+        this.jwtHeaderCache = new JwtHeaderCache(companyId, secret, refreshExecutor);
+    }
+
+    /**
+     * @return the url
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns an oauth url.
+     *
+     * @return the oauth url
+     */
+    public String getOauthUrl() {
+        return oauthUrl;
+    }
+
+    /**
+     * @return the secret
+     */
+    public String getSecret() {
+        return secret;
+    }
+
+    /**
+     * @return the companyId
+     */
+    public String getCompanyId() {
+        return companyId;
+    }
+
+    /**
+     * @return is in test mode, false if it was not configured
+     */
+    public Boolean isTestMode() {
+        return testMode;
+    }
+
+    /**
+     * Returns the signed JWT authorization header of the company id and secret of this snapshot, see {@link JwtHeaderCache}.
+     *
+     * @return an unmodifiable map with the header, it is empty if the company id or the secret are missing
+     *
+     * @throws PlenigoException if the header had to be signed and the signature failed
+     */
+    public Map<String, String> getJwtHeader() throws PlenigoException {
+        return jwtHeaderCache.getHeader();
+    }
+
+    /**
+     * Creates a mutable configuration with the values of this snapshot, used to build the next snapshot.
+     *
+     * @return the configuration
+     */
+    public Configuration toConfiguration() {
+        Configuration configuration = new Configuration();
+        configuration.setUrl(url);
+        configuration.setOauthUrl(oauthUrl);
+        configuration.setSecret(secret);
+        configuration.setCompanyId(companyId);
+        configuration.setTestMode(testMode);
+        return configuration;
+    }
+
+    @Override
+    public String toString() {
+        return toConfiguration().toString();
+    }
+}
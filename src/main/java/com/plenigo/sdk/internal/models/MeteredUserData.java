@@ -15,13 +15,14 @@ public class MeteredUserData extends BaseUserMeteredData {
     private TimePeriod meteredPeriod = TimePeriod.DAY;
     private boolean startWithFirstDay = true;
     private long cookieCreationTime;
+    private final boolean viewsTakenPresent;
 
     /**
      * Required constructor.
      *
      * @param isMeteredViewActivated indicates if the metered view is activated
      * @param freeViewsAllowed       indicates how many free views are allowed
-     * @param viewsTaken             indicates the amount of views that the user has taken
+     * @param viewsTaken             indicates the amount of views that the user has taken, null if it is unknown
      * @param isLimitReached         indicates if the limit has been reached
      * @param loginFreeViewsAllowed  indicates how many free views are allowed after login
      * @param loginFreeViewsTaken    indicates the amount of views that the user has taken after login
@@ -29,7 +30,37 @@ public class MeteredUserData extends BaseUserMeteredData {
      */
     public MeteredUserData(Boolean isMeteredViewActivated, Long freeViewsAllowed, Long viewsTaken, Boolean isLimitReached, Long loginFreeViewsAllowed,
                            Long loginFreeViewsTaken, Boolean loginLimitReached) {
-        super(isMeteredViewActivated, freeViewsAllowed, viewsTaken, isLimitReached, loginFreeViewsAllowed, loginFreeViewsTaken, loginLimitReached);
+        super(isMeteredViewActivated, freeViewsAllowed, viewsTaken == null ? Long.valueOf(0L) : viewsTaken, isLimitReached, loginFreeViewsAllowed,
+                loginFreeViewsTaken, loginLimitReached);
+        this.viewsTakenPresent = viewsTaken != null;
+    }
+
+    /**
+     * Copy constructor, the copy does not share any mutable state with the original.
+     *
+     * @param original the metered user data to copy
+     */
+    public MeteredUserData(MeteredUserData original) {
+        this(original.isMeteredViewActivated(), original.getFreeViewsAllowed(), original.getViewsTaken(), original.isLimitReached(),
+                original.getLoginFreeViewsAllowed(), original.getLoginFreeViewsTaken(), original.isLoginLimitReached());
+        getUniqueVisitedSites().addAll(original.getUniqueVisitedSites());
+        this.startTime = original.startTime;
+        this.meteredPeriod = original.meteredPeriod;
+        this.startWithFirstDay = original.startWithFirstDay;
+        this.cookieCreationTime = original.cookieCreationTime;
+    }
+
+    /**
+     * Returns the amount of views that the user has taken.
+     *
+     * @return the amount of views taken or null if the cookie did not contain it
+     */
+    @Override
+    public Long getViewsTaken() {
+        if (!viewsTakenPresent) {
+            return null;
+        }
+        return super.getViewsTaken();
     }
 
     /**
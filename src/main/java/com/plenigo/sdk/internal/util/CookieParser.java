@@ -1,10 +1,9 @@
 package com.plenigo.sdk.internal.util;
 
 import java.net.HttpCookie;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * <p>
@@ -30,9 +29,14 @@ public final class CookieParser {
     public static final String PLENIGO_METERED_VIEW_COOKIE_NAME = "plenigo_view";
 
     /**
-     * Regular expression used to match a key-value pair inside a cookie string.
+     * Returned by {@link #findCookieValue(CharSequence, String)} when the cookie is not in the header.
      */
-    private static final Pattern COOKIE_PARSER = Pattern.compile("([^=\\s]+)=([^=;]*)(;?|$)");
+    public static final long NOT_FOUND = -1L;
+
+    /**
+     * Character that separates the cookie value from additional data that is not used.
+     */
+    private static final char VALUE_SEPARATOR = '|';
 
     /**
      * Default constructor.
@@ -88,19 +92,247 @@ public final class CookieParser {
      * @return The cookie value of the given cookie name, or null if it was not found
      */
     public static String extractCookieValue(String cookieName, String rawCookieString) {
-        if (rawCookieString == null || rawCookieString.isEmpty()) {
+        long bounds = findCookieValue(rawCookieString, cookieName);
+        if (bounds == NOT_FOUND) {
             return null;
         }
-        Matcher m = COOKIE_PARSER.matcher(rawCookieString);
-        while (m.find()) {
-            String key = m.group(1);
-            String val = m.group(2);
-            if (key.contains(cookieName)) {
-                LOGGER.log(Level.FINEST, "Found the key {0} in the cookie header, extracting the value from {1}", new Object[]{key, val});
-                String[] split = val.split("\\|");
-                return split[0];
+        LOGGER.log(Level.FINEST, "Found the key {0} in the cookie header", cookieName);
+        return rawCookieString.substring(valueStart(bounds), valueEnd(bounds));
+    }
+
+    /**
+     * Extracts the values of the given cookie names walking the cookie header only once.
+     *
+     * @param rawCookieString The complete cookie header
+     * @param cookieNames     The names of the cookies to extract
+     *
+     * @return an array with the same length and order as the cookie names, containing the value of every cookie or null if it was not found
+     */
+    public static String[] extractCookieValues(String rawCookieString, String... cookieNames) {
+        String[] values = new String[cookieNames.length];
+        if (rawCookieString == null) {
+            return values;
+        }
+        int pending = cookieNames.length;
+        int length = rawCookieString.length();
+        int pos = 0;
+        while (pending > 0 && pos < length) {
+            int nameStart = skipWhitespace(rawCookieString, pos, length);
+            pos = findNameEnd(rawCookieString, nameStart, length);
+            if (pos >= length || rawCookieString.charAt(pos) == ';') {
+                //cookie without value
+                pos++;
+                continue;
+            }
+            int nameEnd = trimTrailingWhitespace(rawCookieString, nameStart, pos);
+            for (int i = 0; i < cookieNames.length; i++) {
+                if (values[i] == null && nameMatches(rawCookieString, nameStart, nameEnd, cookieNames[i])) {
+                    long bounds = findValue(rawCookieString, pos + 1, length);
+                    values[i] = rawCookieString.substring(valueStart(bounds), valueEnd(bounds));
+                    pending--;
+                }
+            }
+            pos = findNextCookie(rawCookieString, pos, length);
+        }
+        return values;
+    }
+
+    /**
+     * Finds the value of the cookie with exactly the given name inside the cookie header. The value is everything after the '='
+     * up to the next ';' or the first '|', whitespace around the value is ignored.
+     *
+     * @param cookieHeader The complete cookie header
+     * @param cookieName   The name of the cookie to find
+     *
+     * @return the start and end offsets of the value packed in a long, use {@link #valueStart(long)} and {@link #valueEnd(long)}
+     * to unpack them, or {@link #NOT_FOUND} if the cookie is not in the header
+     */
+    public static long findCookieValue(CharSequence cookieHeader, String cookieName) {
+        if (cookieHeader == null) {
+            return NOT_FOUND;
+        }
+        int length = cookieHeader.length();
+        int pos = 0;
+        while (pos < length) {
+            int nameStart = skipWhitespace(cookieHeader, pos, length);
+            pos = findNameEnd(cookieHeader, nameStart, length);
+            if (pos >= length || cookieHeader.charAt(pos) == ';') {
+                //cookie without value
+                pos++;
+                continue;
+            }
+            if (nameMatches(cookieHeader, nameStart, trimTrailingWhitespace(cookieHeader, nameStart, pos), cookieName)) {
+                return findValue(cookieHeader, pos + 1, length);
+            }
+            pos = findNextCookie(cookieHeader, pos, length);
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Returns the start offset (inclusive) of a value found with {@link #findCookieValue(CharSequence, String)}.
+     *
+     * @param bounds the packed offsets
+     *
+     * @return the start offset
+     */
+    public static int valueStart(long bounds) {
+        return (int) (bounds >>> Integer.SIZE);
+    }
+
+    /**
+     * Returns the end offset (exclusive) of a value found with {@link #findCookieValue(CharSequence, String)}.
+     *
+     * @param bounds the packed offsets
+     *
+     * @return the end offset
+     */
+    public static int valueEnd(long bounds) {
+        return (int) bounds;
+    }
+
+    /**
+     * Walks the cookie header once and stores the offsets of the values of the given cookie names. For every cookie name at position i,
+     * bounds[2 * i] contains the start offset (inclusive) of the value and bounds[2 * i + 1] the end offset (exclusive), both are -1 if
+     * the cookie was not found. Only the first occurrence of every cookie is taken into account, names are matched exactly.
+     *
+     * @param cookieHeader The complete cookie header
+     * @param cookieNames  The names of the cookies to find
+     * @param bounds       The array where the offsets are stored, it must have at least twice the length of the cookie names
+     */
+    public static void findCookieValues(CharSequence cookieHeader, String[] cookieNames, int[] bounds) {
+        Arrays.fill(bounds, 0, cookieNames.length * 2, -1);
+        if (cookieHeader == null) {
+            return;
+        }
+        int pending = cookieNames.length;
+        int length = cookieHeader.length();
+        int pos = 0;
+        while (pending > 0 && pos < length) {
+            int nameStart = skipWhitespace(cookieHeader, pos, length);
+            pos = findNameEnd(cookieHeader, nameStart, length);
+            if (pos >= length || cookieHeader.charAt(pos) == ';') {
+                //cookie without value
+                pos++;
+                continue;
+            }
+            int nameEnd = trimTrailingWhitespace(cookieHeader, nameStart, pos);
+            for (int i = 0; i < cookieNames.length; i++) {
+                if (bounds[i * 2] == -1 && nameMatches(cookieHeader, nameStart, nameEnd, cookieNames[i])) {
+                    long valueBounds = findValue(cookieHeader, pos + 1, length);
+                    bounds[i * 2] = valueStart(valueBounds);
+                    bounds[i * 2 + 1] = valueEnd(valueBounds);
+                    pending--;
+                }
             }
+            pos = findNextCookie(cookieHeader, pos, length);
+        }
+    }
+
+    /**
+     * Returns the position of the '=' or ';' that ends the cookie name starting at the given position, or the length of the header
+     * if there is none.
+     *
+     * @param cookieHeader The complete cookie header
+     * @param pos          The start of the cookie name
+     * @param length       The length of the header
+     *
+     * @return the end of the cookie name
+     */
+    private static int findNameEnd(CharSequence cookieHeader, int pos, int length) {
+        while (pos < length && cookieHeader.charAt(pos) != '=' && cookieHeader.charAt(pos) != ';') {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Finds the value that starts at the given position. The value ends at the next ';' or the first '|', whitespace around it
+     * is ignored.
+     *
+     * @param cookieHeader The complete cookie header
+     * @param from         The position after the '='
+     * @param length       The length of the header
+     *
+     * @return the start and end offsets of the value packed in a long
+     */
+    private static long findValue(CharSequence cookieHeader, int from, int length) {
+        int valueStart = skipWhitespace(cookieHeader, from, length);
+        int valueEnd = valueStart;
+        while (valueEnd < length && cookieHeader.charAt(valueEnd) != ';' && cookieHeader.charAt(valueEnd) != VALUE_SEPARATOR) {
+            valueEnd++;
+        }
+        valueEnd = trimTrailingWhitespace(cookieHeader, valueStart, valueEnd);
+        return ((long) valueStart << Integer.SIZE) | valueEnd;
+    }
+
+    /**
+     * Returns the position after the ';' that ends the cookie containing the given position.
+     *
+     * @param cookieHeader The complete cookie header
+     * @param pos          A position inside the cookie
+     * @param length       The length of the header
+     *
+     * @return the start of the next cookie, or a position after the end of the header if this is the last one
+     */
+    private static int findNextCookie(CharSequence cookieHeader, int pos, int length) {
+        while (pos < length && cookieHeader.charAt(pos) != ';') {
+            pos++;
+        }
+        return pos + 1;
+    }
+
+    /**
+     * Checks if the region of the header is exactly the given cookie name.
+     *
+     * @param cookieHeader The complete cookie header
+     * @param start        The start of the region
+     * @param end          The end of the region
+     * @param cookieName   The cookie name to compare with
+     *
+     * @return true if the region is equal to the cookie name
+     */
+    private static boolean nameMatches(CharSequence cookieHeader, int start, int end, String cookieName) {
+        if (end - start != cookieName.length()) {
+            return false;
+        }
+        for (int i = 0; i < cookieName.length(); i++) {
+            if (cookieHeader.charAt(start + i) != cookieName.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the position of the first character that is not whitespace.
+     *
+     * @param cookieHeader The complete cookie header
+     * @param pos          The position to start with
+     * @param length       The length of the header
+     *
+     * @return the first position that is not whitespace
+     */
+    private static int skipWhitespace(CharSequence cookieHeader, int pos, int length) {
+        while (pos < length && Character.isWhitespace(cookieHeader.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Returns the end of the region without the trailing whitespace.
+     *
+     * @param cookieHeader The complete cookie header
+     * @param start        The start of the region
+     * @param end          The end of the region
+     *
+     * @return the end of the region without trailing whitespace
+     */
+    private static int trimTrailingWhitespace(CharSequence cookieHeader, int start, int end) {
+        while (end > start && Character.isWhitespace(cookieHeader.charAt(end - 1))) {
+            end--;
         }
-        return null;
+        return end;
     }
 }
@@ -0,0 +1,182 @@
+package com.plenigo.sdk.internal.util;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Parses the dates of the API responses without building a date format for every value.
+ * </p>
+ * <p>
+ * The API always sends a date in the same fixed width layout, so those values are read digit by digit. Anything else, e.g. a
+ * different offset notation or out of range fields, is handed to a {@link SimpleDateFormat} of the pattern kept per thread, so the
+ * result is always the same as parsing with a new {@link SimpleDateFormat}. Dates without an offset are interpreted in the default
+ * time zone, like {@link SimpleDateFormat} does.
+ * </p>
+ * <p>
+ * <b>IMPORTANT:</b> This class is part of the internal API, please do not use it, because it can
+ * be removed in future versions of the SDK or access to such elements could
+ * be changed from 'public' to 'default' or less.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ */
+public final class DateParser {
+    /**
+     * Parses dates like 2017-01-31T10:15:30Z, the Z is a literal and the date is interpreted in the default time zone.
+     */
+    public static final DateParser LITERAL_Z = new DateParser("yyyy-MM-dd'T'HH:mm:ss'Z'", 'T', false);
+    /**
+     * Parses dates like 2017-01-31 10:15:30 +0100.
+     */
+    public static final DateParser WITH_OFFSET = new DateParser("yyyy-MM-dd HH:mm:ss Z", ' ', true);
+
+    private static final int YEAR_END = 4;
+    private static final int MONTH_END = 7;
+    private static final int DAY_END = 10;
+    private static final int HOUR_END = 13;
+    private static final int MINUTE_END = 16;
+    private static final int SECOND_END = 19;
+    private static final int OFFSET_SIGN = 20;
+    private static final int OFFSET_HOURS_END = 23;
+    private static final int OFFSET_END = 25;
+    /**
+     * The first full year of the Gregorian calendar, {@link SimpleDateFormat} uses the Julian calendar before it.
+     */
+    private static final int FIRST_GREGORIAN_YEAR = 1583;
+    private static final int HOURS_PER_DAY = 24;
+    private static final int MINUTES_PER_HOUR = 60;
+    private static final int SECONDS_PER_MINUTE = 60;
+    private static final int RADIX = 10;
+
+    private final String pattern;
+    private final char dateTimeSeparator;
+    private final boolean withOffset;
+    private final ThreadLocal<DateFormat> fallback;
+
+    /**
+     * Builds the parser.
+     *
+     * @param pattern           the {@link SimpleDateFormat} pattern of the dates
+     * @param dateTimeSeparator the character between the date and the time
+     * @param withOffset        true if the dates end with an RFC 822 offset, false if they end with a literal Z
+     */
+    private DateParser(String pattern, char dateTimeSeparator, boolean withOffset) {
+        this.pattern = pattern;
+        this.dateTimeSeparator = dateTimeSeparator;
+        this.withOffset = withOffset;
+        this.fallback = ThreadLocal.withInitial(() -> new SimpleDateFormat(pattern));
+    }
+
+    /**
+     * Returns the {@link SimpleDateFormat} pattern of the dates.
+     *
+     * @return the pattern
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Parses a date.
+     *
+     * @param dateStr the date string
+     *
+     * @return the date
+     *
+     * @throws ParseException if the string is not a date of this pattern
+     */
+    public Date parse(String dateStr) throws ParseException {
+        Long millis = parseFixedWidth(dateStr);
+        if (millis != null) {
+            return new Date(millis);
+        }
+        return fallback.get().parse(dateStr);
+    }
+
+    /**
+     * Parses a date in the fixed width layout.
+     *
+     * @param dateStr the date string
+     *
+     * @return the date in milliseconds, or null if the string does not have the layout or can not be converted unambiguously
+     */
+    private Long parseFixedWidth(String dateStr) {
+        int length = withOffset ? OFFSET_END : SECOND_END + 1;
+        if (dateStr.length() != length || dateStr.charAt(YEAR_END) != '-' || dateStr.charAt(MONTH_END) != '-'
+                || dateStr.charAt(DAY_END) != dateTimeSeparator || dateStr.charAt(HOUR_END) != ':' || dateStr.charAt(MINUTE_END) != ':') {
+            return null;
+        }
+        int year = number(dateStr, 0, YEAR_END);
+        int month = number(dateStr, YEAR_END + 1, MONTH_END);
+        int day = number(dateStr, MONTH_END + 1, DAY_END);
+        int hour = number(dateStr, DAY_END + 1, HOUR_END);
+        int minute = number(dateStr, HOUR_END + 1, MINUTE_END);
+        int second = number(dateStr, MINUTE_END + 1, SECOND_END);
+        if (year < FIRST_GREGORIAN_YEAR || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return null;
+        }
+        try {
+            if (!withOffset) {
+                if (dateStr.charAt(SECOND_END) != 'Z') {
+                    return null;
+                }
+                LocalDateTime dateTime = LocalDateTime.of(year, month, day, hour, minute, second);
+                ZoneId zone = ZoneId.systemDefault();
+                List<?> offsets = zone.getRules().getValidOffsets(dateTime);
+                if (offsets.size() != 1) {
+                    //gaps and overlaps are resolved by SimpleDateFormat
+                    return null;
+                }
+                return dateTime.atZone(zone).toInstant().toEpochMilli();
+            }
+            char sign = dateStr.charAt(OFFSET_SIGN);
+            int offsetHours = number(dateStr, OFFSET_SIGN + 1, OFFSET_HOURS_END);
+            int offsetMinutes = number(dateStr, OFFSET_HOURS_END, OFFSET_END);
+            if (dateStr.charAt(SECOND_END) != ' ' || (sign != '+' && sign != '-') || offsetHours < 0 || offsetHours >= HOURS_PER_DAY
+                    || offsetMinutes < 0 || offsetMinutes >= MINUTES_PER_HOUR) {
+                return null;
+            }
+            LocalDate date = LocalDate.of(year, month, day);
+            if (hour >= HOURS_PER_DAY || minute >= MINUTES_PER_HOUR || second >= SECONDS_PER_MINUTE) {
+                return null;
+            }
+            long offset = TimeUnit.HOURS.toMillis(offsetHours) + TimeUnit.MINUTES.toMillis(offsetMinutes);
+            long millis = TimeUnit.DAYS.toMillis(date.toEpochDay()) + TimeUnit.HOURS.toMillis(hour) + TimeUnit.MINUTES.toMillis(minute)
+                    + TimeUnit.SECONDS.toMillis(second);
+            return sign == '+' ? millis - offset : millis + offset;
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a non negative decimal number.
+     *
+     * @param value the string
+     * @param from  the index of the first digit
+     * @param to    the index after the last digit
+     *
+     * @return the number, or -1 if there is a character that is not a digit
+     */
+    private static int number(String value, int from, int to) {
+        int number = 0;
+        for (int i = from; i < to; i++) {
+            char digit = value.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            number = number * RADIX + digit - '0';
+        }
+        return number;
+    }
+}
@@ -0,0 +1,95 @@
+package com.plenigo.sdk.internal.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * The executor the SDK runs its background work on when no executor was configured with
+ * {@link com.plenigo.sdk.PlenigoManager#configureExecutor(Executor)}: a small pool of daemon threads that is only created
+ * when it is needed and whose threads are released when they are idle. Since the work blocks on network I/O the common
+ * fork join pool is deliberately not used.
+ * </p>
+ * <p>
+ * <b>IMPORTANT:</b> This class is part of the internal API, please do not use it, because it can
+ * be removed in future versions of the SDK or access to such elements could
+ * be changed from 'public' to 'default' or less.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+public final class DefaultExecutor {
+    private static final int THREADS_PER_PROCESSOR = 2;
+    private static final int MIN_THREADS = 4;
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    /**
+     * Default constructor.
+     */
+    private DefaultExecutor() {
+    }
+
+    /**
+     * Returns the default executor of the SDK.
+     *
+     * @return the executor
+     */
+    public static Executor get() {
+        return Holder.EXECUTOR;
+    }
+
+    /**
+     * Returns the configured executor or the default one.
+     *
+     * @param configured the configured executor, it can be null
+     *
+     * @return the executor to use
+     */
+    public static Executor orDefault(Executor configured) {
+        if (configured == null) {
+            return get();
+        }
+        return configured;
+    }
+
+    /**
+     * Holds the default executor so that it is only created when it is needed.
+     */
+    private static final class Holder {
+        private static final ExecutorService EXECUTOR = createDefaultExecutor();
+
+        /**
+         * Default constructor.
+         */
+        private Holder() {
+        }
+
+        /**
+         * Creates a bounded pool of daemon threads that are released when they are idle.
+         *
+         * @return the executor
+         */
+        private static ExecutorService createDefaultExecutor() {
+            int threads = Math.max(MIN_THREADS, Runtime.getRuntime().availableProcessors() * THREADS_PER_PROCESSOR);
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "plenigo-async-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
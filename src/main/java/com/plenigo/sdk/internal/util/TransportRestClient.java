@@ -0,0 +1,475 @@
+package com.plenigo.sdk.internal.util;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.http.CircuitOpenException;
+import com.plenigo.sdk.http.Deadline;
+import com.plenigo.sdk.http.DeadlineExceededException;
+import com.plenigo.sdk.http.HttpRequest;
+import com.plenigo.sdk.http.HttpResponse;
+import com.plenigo.sdk.http.HttpTransport;
+import com.plenigo.sdk.http.PooledHttpTransport;
+import com.plenigo.sdk.http.RateLimitExceededException;
+import com.plenigo.sdk.internal.ErrorCode;
+import com.plenigo.sdk.internal.exceptions.ApiExceptionTranslator;
+import com.plenigo.sdk.json.DefaultJsonCodec;
+import com.plenigo.sdk.json.JsonCodec;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * {@link RestClient} that sends the requests through a {@link HttpTransport} instead of opening and disconnecting a new connection
+ * for every request. The requests, the error translation and the exceptions are the same as the ones of {@link RestClient}.
+ * </p>
+ * <p>
+ * The requests carry the {@link Deadline} of the calling thread, no request is sent once it expired.
+ * </p>
+ * <p>
+ * <b>IMPORTANT:</b> This class is part of the internal API, please do not use it, because it can
+ * be removed in future versions of the SDK or access to such elements could
+ * be changed from 'public' to 'default' or less.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ */
+public class TransportRestClient extends RestClient {
+    private static final Logger LOGGER = Logger.getLogger(TransportRestClient.class.getName());
+    private static final String GET_METHOD = "GET";
+    private static final String POST_METHOD = "POST";
+    private static final String DELETE_METHOD = "DELETE";
+    private static final String PUT_METHOD = "PUT";
+    private static final String ACCEPT_HEADER_NAME = "Accept";
+    private static final String CONTENT_TYPE_HEADER_NAME = "Content-Type";
+    private static final String JSON_MEDIA_TYPE = "application/json";
+
+    private final HttpTransport transport;
+
+    /**
+     * Builds a client that sends the requests through the pipeline of the manager, see {@link PlenigoManager#getPipeline()}, the
+     * pipeline is looked up on every request.
+     */
+    public TransportRestClient() {
+        this(null);
+    }
+
+    /**
+     * Builds a client that always uses the given transport.
+     *
+     * @param transport the transport that executes the requests
+     */
+    public TransportRestClient(HttpTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * Returns the transport that executes the requests.
+     *
+     * @return the transport
+     */
+    public HttpTransport getTransport() {
+        if (transport != null) {
+            return transport;
+        }
+        HttpTransport configured = PlenigoManager.get().getPipeline();
+        if (configured != null) {
+            return configured;
+        }
+        return DefaultTransportHolder.TRANSPORT;
+    }
+
+    @Override
+    public Map<String, Object> get(String url, String apiUrlKey, String path, String queryString, Map<String, String> headers)
+            throws PlenigoException {
+        return call(url, apiUrlKey, GET_METHOD, path, queryString, null, headers);
+    }
+
+    @Override
+    public Map<String, Object> post(String url, String apiUrlKey, String path, String queryString, Map<String, String> body,
+                                   Map<String, String> headers) throws PlenigoException {
+        return call(url, apiUrlKey, POST_METHOD, path, queryString, body, headers);
+    }
+
+    @Override
+    public Map<String, Object> delete(String url, String apiUrlKey, String path, String queryString, Map<String, String> headers)
+            throws PlenigoException {
+        return call(url, apiUrlKey, DELETE_METHOD, path, queryString, null, headers);
+    }
+
+    @Override
+    public Map<String, Object> put(String url, String apiUrlKey, String path, String queryString, Map<String, String> body,
+                                   Map<String, String> headers) throws PlenigoException {
+        return call(url, apiUrlKey, PUT_METHOD, path, queryString, body, headers);
+    }
+
+    /**
+     * Executes a GET request of a single object and binds the response to the model with the configured {@link JsonCodec}.
+     *
+     * @param url         the base url of the API
+     * @param apiUrlKey   the API endpoint, used to translate the errors
+     * @param path        the path of the resource
+     * @param queryString the query string, it can be null
+     * @param headers     the request headers, it can be null
+     * @param type        the type of the model
+     * @param <T>         the type of the model
+     *
+     * @return the model
+     *
+     * @throws PlenigoException if the request failed or the API returned an error
+     */
+    public <T> T getObject(String url, String apiUrlKey, String path, String queryString, Map<String, String> headers, Class<T> type)
+            throws PlenigoException {
+        JsonCodec codec = getCodec();
+        return stream(url, apiUrlKey, path, queryString, headers, reader -> codec.readObject(reader, type));
+    }
+
+    /**
+     * Executes a GET request of a list and binds the elements of the response to the model with the configured {@link JsonCodec},
+     * every element is handed to the consumer while the response is being read. The transport only streams the response if it implements
+     * {@link HttpTransport#execute(HttpRequest, com.plenigo.sdk.http.HttpResponseHandler)}, otherwise it is read completely first.
+     *
+     * @param url         the base url of the API
+     * @param apiUrlKey   the API endpoint, used to translate the errors
+     * @param path        the path of the resource
+     * @param queryString the query string, it can be null
+     * @param headers     the request headers, it can be null
+     * @param elementsKey the key of the element array in the response
+     * @param elementType the type of the elements
+     * @param consumer    consumes the elements, the exceptions it throws are rethrown
+     * @param <T>         the type of the elements
+     *
+     * @return the parsed JSON response without the element array
+     *
+     * @throws PlenigoException if the request failed or the API returned an error
+     */
+    public <T> Map<String, Object> getList(String url, String apiUrlKey, String path, String queryString, Map<String, String> headers,
+                                           String elementsKey, Class<T> elementType, Consumer<? super T> consumer) throws PlenigoException {
+        JsonCodec codec = getCodec();
+        return stream(url, apiUrlKey, path, queryString, headers, reader -> codec.readList(reader, elementsKey, elementType, element -> {
+            try {
+                consumer.accept(element);
+            } catch (RuntimeException e) {
+                throw new ConsumerException(e);
+            }
+        }));
+    }
+
+    /**
+     * Returns the codec that binds the responses to the models.
+     *
+     * @return the codec configured with {@link PlenigoManager#configureCodec(JsonCodec)}, or a default one
+     */
+    public JsonCodec getCodec() {
+        JsonCodec configured = PlenigoManager.get().getCodec();
+        if (configured != null) {
+            return configured;
+        }
+        return DefaultCodecHolder.CODEC;
+    }
+
+    /**
+     * Executes a GET request and reads the successful response with the given parser while it is being received.
+     *
+     * @param url         the base url of the API
+     * @param apiUrlKey   the API endpoint, used to translate the errors
+     * @param path        the path of the resource
+     * @param queryString the query string, it can be null
+     * @param headers     the request headers, it can be null
+     * @param parser      reads the body of a successful response
+     * @param <R>         the type of the result of the parser
+     *
+     * @return the result of the parser
+     *
+     * @throws PlenigoException if the request failed or the API returned an error
+     */
+    private <R> R stream(String url, String apiUrlKey, String path, String queryString, Map<String, String> headers, BodyParser<R> parser)
+            throws PlenigoException {
+        String action = String.format("streamed rest resource call: [apiUrl: %s, method: %s, action: %s]", url, GET_METHOD, path);
+        LOGGER.log(Level.FINE, "Doing a {0}", action);
+        if (url == null || url.isEmpty()) {
+            throw new PlenigoException(ErrorCode.SERVER, "The api url is null or empty, not doing " + action, null);
+        }
+        checkDeadline(action);
+        String endpoint = getEndpoint(apiUrlKey, path);
+        StreamedResponse<R> streamed;
+        try {
+            streamed = getTransport().execute(buildRequest(url, endpoint, GET_METHOD, path, queryString, null, headers), (response, body) -> {
+                int statusCode = response.getStatusCode();
+                LOGGER.log(Level.FINEST, "HTTP Response for resource {0}: {1}", new Object[]{action, statusCode});
+                if (statusCode < INITIAL_CORRECT_STATUS_CODE || statusCode > FINAL_CORRECT_STATUS_CODE) {
+                    return new StreamedResponse<R>(null, ApiExceptionTranslator.get().translate(String.valueOf(statusCode), endpoint, body));
+                }
+                try {
+                    return new StreamedResponse<R>(parser.parse(new InputStreamReader(body, StandardCharsets.UTF_8)), null);
+                } catch (ParseException e) {
+                    LOGGER.log(Level.SEVERE, action + " returned a response that could not be parsed", e);
+                    return new StreamedResponse<R>(null, new PlenigoException(ErrorCode.SERVER, ErrorCode.SERVER.getMsg(), e));
+                }
+            });
+        } catch (ConsumerException e) {
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            throw translateTransportError(e, action);
+        }
+        if (streamed.error != null) {
+            throw streamed.error;
+        }
+        return streamed.result;
+    }
+
+    /**
+     * Executes the request and interprets the response.
+     *
+     * @param url         the base url of the API
+     * @param apiUrlKey   the API endpoint, used to translate the errors
+     * @param method      the HTTP method
+     * @param path        the path of the resource
+     * @param queryString the query string, it can be null
+     * @param body        the body that is sent as JSON object, it can be null
+     * @param headers     the request headers, it can be null
+     *
+     * @return the parsed JSON response
+     *
+     * @throws PlenigoException if the request failed or the API returned an error
+     */
+    private Map<String, Object> call(String url, String apiUrlKey, String method, String path, String queryString, Map<String, String> body,
+                                     Map<String, String> headers) throws PlenigoException {
+        String action = String.format("rest resource call: [apiUrl: %s, method: %s, action: %s]", url, method, path);
+        LOGGER.log(Level.FINE, "Doing a {0}", action);
+        if (url == null || url.isEmpty()) {
+            throw new PlenigoException(ErrorCode.SERVER, "The api url is null or empty, not doing " + action, null);
+        }
+        checkDeadline(action);
+        String endpoint = getEndpoint(apiUrlKey, path);
+        HttpResponse response;
+        try {
+            response = getTransport().execute(buildRequest(url, endpoint, method, path, queryString, body, headers));
+        } catch (IOException | RuntimeException e) {
+            throw translateTransportError(e, action);
+        }
+        return handleResponse(response, endpoint, action);
+    }
+
+    /**
+     * Returns the endpoint used to translate the errors and to identify the request in the transport.
+     *
+     * @param apiUrlKey the API endpoint, it can be null
+     * @param path      the path of the resource
+     *
+     * @return the API endpoint, or the path if there is none
+     */
+    private static String getEndpoint(String apiUrlKey, String path) {
+        if (apiUrlKey == null || apiUrlKey.isEmpty()) {
+            return path;
+        }
+        return apiUrlKey;
+    }
+
+    /**
+     * Checks that the {@link Deadline} of the calling thread, if any, has time left for a request.
+     *
+     * @param action the description of the call used in the messages
+     *
+     * @throws PlenigoException if the deadline expired or was cancelled
+     */
+    private static void checkDeadline(String action) throws PlenigoException {
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.isExpired()) {
+            throw new PlenigoException(ErrorCode.CONNECTION_ERROR, action + " was not sent: " + deadline, null);
+        }
+    }
+
+    /**
+     * Translates an error of the transport.
+     *
+     * @param e      the error
+     * @param action the description of the call used in the messages
+     *
+     * @return the exception to throw
+     */
+    private static PlenigoException translateTransportError(Exception e, String action) {
+        if (e instanceof DeadlineExceededException) {
+            return new PlenigoException(ErrorCode.CONNECTION_ERROR, action + " did not complete: " + e.getMessage(), e);
+        }
+        if (e instanceof CircuitOpenException || e instanceof RateLimitExceededException) {
+            return new PlenigoException(ErrorCode.CONNECTION_ERROR, action + " was not sent: " + e.getMessage(), e);
+        }
+        if (e instanceof ConnectException) {
+            return new PlenigoException(ErrorCode.CONNECTION_ERROR, action + " had a connection error", e);
+        }
+        if (e instanceof UnknownHostException) {
+            return new PlenigoException(ErrorCode.UNKNOWN_HOST, action + " is using an unknown host: ", e);
+        }
+        LOGGER.log(Level.SEVERE, action + " had an unexpected error", e);
+        return new PlenigoException(ErrorCode.SERVER, ErrorCode.SERVER.getMsg(), e);
+    }
+
+    /**
+     * Builds the request for the transport, with the deadline of the calling thread.
+     *
+     * @param url         the base url of the API
+     * @param endpoint    the API endpoint
+     * @param method      the HTTP method
+     * @param path        the path of the resource
+     * @param queryString the query string, it can be null
+     * @param body        the body that is sent as JSON object, it can be null
+     * @param headers     the request headers, it can be null
+     *
+     * @return the request
+     */
+    private HttpRequest buildRequest(String url, String endpoint, String method, String path, String queryString, Map<String, String> body,
+                                     Map<String, String> headers) {
+        StringBuilder fullUrl = new StringBuilder(url);
+        if (path != null) {
+            fullUrl.append(path);
+        }
+        if (queryString != null && !queryString.isEmpty()) {
+            if (fullUrl.indexOf(QUESTION_MARK) == -1 && !queryString.contains(QUESTION_MARK)) {
+                fullUrl.append(QUESTION_MARK);
+            }
+            fullUrl.append(queryString);
+        }
+        Map<String, String> requestHeaders = new LinkedHashMap<String, String>();
+        requestHeaders.put(ACCEPT_HEADER_NAME, JSON_MEDIA_TYPE);
+        if (headers != null) {
+            requestHeaders.putAll(headers);
+        }
+        byte[] requestBody = null;
+        if (body != null) {
+            requestHeaders.put(CONTENT_TYPE_HEADER_NAME, JSON_MEDIA_TYPE);
+            requestBody = new JSONObject(body).toJSONString().getBytes(StandardCharsets.UTF_8);
+        }
+        return new HttpRequest(method, fullUrl.toString(), endpoint, requestHeaders, requestBody, getConnectionTimeout(), getReadTimeout(),
+                Deadline.current());
+    }
+
+    /**
+     * Parses a successful response or translates the error response.
+     *
+     * @param response the response
+     * @param endpoint the API endpoint, used to translate the errors
+     * @param action   the description of the call used in the log messages
+     *
+     * @return the parsed JSON response
+     *
+     * @throws PlenigoException if the API returned an error or the response could not be parsed
+     */
+    private Map<String, Object> handleResponse(HttpResponse response, String endpoint, String action) throws PlenigoException {
+        int statusCode = response.getStatusCode();
+        LOGGER.log(Level.FINEST, "HTTP Response for resource {0}: {1}", new Object[]{action, statusCode});
+        if (statusCode >= INITIAL_CORRECT_STATUS_CODE && statusCode <= FINAL_CORRECT_STATUS_CODE) {
+            try {
+                Map<String, Object> result = SdkUtils.parseJSONObject(new InputStreamReader(new ByteArrayInputStream(response.getBody()),
+                        StandardCharsets.UTF_8));
+                LOGGER.log(Level.FINEST, "Parsed JSON Response for resource {0}: {1}", new Object[]{action, result});
+                return result;
+            } catch (ParseException | IOException e) {
+                LOGGER.log(Level.SEVERE, action + " returned a response that could not be parsed", e);
+                throw new PlenigoException(ErrorCode.SERVER, ErrorCode.SERVER.getMsg(), e);
+            }
+        }
+        throw ApiExceptionTranslator.get().translate(String.valueOf(statusCode), endpoint, new ByteArrayInputStream(response.getBody()));
+    }
+
+    /**
+     * Reads the body of a successful response.
+     *
+     * @param <R> the type of the result
+     */
+    private interface BodyParser<R> {
+
+        /**
+         * Reads the body.
+         *
+         * @param reader the body
+         *
+         * @return the result
+         *
+         * @throws ParseException if the body is not valid JSON
+         * @throws IOException    if the body could not be read or bound
+         */
+        R parse(Reader reader) throws ParseException, IOException;
+    }
+
+    /**
+     * The outcome of a streamed response: the result of the parser or the error to throw.
+     *
+     * @param <R> the type of the result
+     */
+    private static final class StreamedResponse<R> {
+        private final R result;
+        private final PlenigoException error;
+
+        /**
+         * Required constructor.
+         *
+         * @param result the result of the parser, null if there was an error
+         * @param error  the error, null if the response was parsed
+         */
+        private StreamedResponse(R result, PlenigoException error) {
+            this.result = result;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Carries an exception of the consumer of a streamed response through the transport, so that it is not taken for a transport error.
+     */
+    private static final class ConsumerException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Required constructor.
+         *
+         * @param cause the exception of the consumer
+         */
+        private ConsumerException(RuntimeException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized RuntimeException getCause() {
+            return (RuntimeException) super.getCause();
+        }
+    }
+
+    /**
+     * Holder of the codec used when none is configured, it is only created when it is needed.
+     */
+    private static final class DefaultCodecHolder {
+        private static final JsonCodec CODEC = new DefaultJsonCodec();
+
+        /**
+         * Default constructor.
+         */
+        private DefaultCodecHolder() {
+        }
+    }
+
+    /**
+     * Holder of the transport used when none is configured, it is only created when it is needed.
+     */
+    private static final class DefaultTransportHolder {
+        private static final HttpTransport TRANSPORT = new PooledHttpTransport();
+
+        /**
+         * Default constructor.
+         */
+        private DefaultTransportHolder() {
+        }
+    }
+}
@@ -0,0 +1,736 @@
+package com.plenigo.sdk.json;
+
+import com.plenigo.sdk.internal.ApiResults;
+import com.plenigo.sdk.internal.util.DateParser;
+import com.plenigo.sdk.models.ActionPeriod;
+import com.plenigo.sdk.models.AppAccessData;
+import com.plenigo.sdk.models.CategoryData;
+import com.plenigo.sdk.models.CategoryInfo;
+import com.plenigo.sdk.models.CompanyUser;
+import com.plenigo.sdk.models.CompanyUserBillingAddress;
+import com.plenigo.sdk.models.Image;
+import com.plenigo.sdk.models.PaymentMethod;
+import com.plenigo.sdk.models.PricingData;
+import com.plenigo.sdk.models.ProductData;
+import com.plenigo.sdk.models.ProductInfo;
+import com.plenigo.sdk.models.Subscription;
+import com.plenigo.sdk.models.Transaction;
+import com.plenigo.sdk.models.TransactionStatus;
+import com.plenigo.sdk.models.ValidityTime;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * Default {@link JsonCodec}, it reads the response with a pull parser and fills the fields of the models while the response is being
+ * read, without building maps or converting the numbers to strings and back. Every model has a hand written binder, so there is no
+ * reflection involved.
+ * </p>
+ * <p>
+ * The values are interpreted like the mappers of the services do: missing and null strings are empty, missing and null numbers are 0,
+ * strings are accepted for numbers and booleans, unknown entries are skipped and unknown enum values use the default of the enum.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ */
+public class DefaultJsonCodec implements JsonCodec {
+    private static final Logger LOGGER = Logger.getLogger(DefaultJsonCodec.class.getName());
+    private static final String BILLING_ADDRESSES = "billingAddresses";
+    private static final Map<Class<?>, Binder<?>> BINDERS;
+
+    static {
+        Map<Class<?>, Binder<?>> binders = new HashMap<Class<?>, Binder<?>>();
+        binders.put(ProductData.class, DefaultJsonCodec::readProductData);
+        binders.put(CategoryData.class, DefaultJsonCodec::readCategoryData);
+        binders.put(ProductInfo.class, DefaultJsonCodec::readProductInfo);
+        binders.put(CategoryInfo.class, DefaultJsonCodec::readCategoryInfo);
+        binders.put(Transaction.class, DefaultJsonCodec::readTransaction);
+        binders.put(CompanyUser.class, DefaultJsonCodec::readCompanyUser);
+        binders.put(AppAccessData.class, DefaultJsonCodec::readAppAccessData);
+        BINDERS = Collections.unmodifiableMap(binders);
+    }
+
+    @Override
+    public <T> T readObject(Reader reader, Class<T> type) throws IOException {
+        Binder<T> binder = getBinder(type);
+        JsonReader json = new JsonReader(reader);
+        T result = binder.bind(json);
+        json.endDocument();
+        return result;
+    }
+
+    @Override
+    public <T> Map<String, Object> readList(Reader reader, String elementsKey, Class<T> elementType, Consumer<? super T> consumer)
+            throws IOException {
+        Binder<T> binder = getBinder(elementType);
+        JsonReader json = new JsonReader(reader);
+        Map<String, Object> envelope = new LinkedHashMap<String, Object>();
+        if (json.peek() == JsonReader.Token.BEGIN_ARRAY) {
+            readElements(json, binder, consumer);
+        } else {
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if (name.equals(elementsKey) && json.peek() == JsonReader.Token.BEGIN_ARRAY) {
+                    readElements(json, binder, consumer);
+                } else {
+                    envelope.put(name, json.readValue());
+                }
+            }
+            json.endObject();
+        }
+        json.endDocument();
+        return envelope;
+    }
+
+    /**
+     * Returns the binder of a model.
+     *
+     * @param type the type of the model
+     * @param <T>  the type of the model
+     *
+     * @return the binder
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Binder<T> getBinder(Class<T> type) {
+        Binder<T> binder = (Binder<T>) BINDERS.get(type);
+        if (binder == null) {
+            throw new IllegalArgumentException("Unsupported type: " + type);
+        }
+        return binder;
+    }
+
+    /**
+     * Binds the objects of the element array and hands them to the consumer, other values are skipped.
+     *
+     * @param json     the reader, positioned at the element array
+     * @param binder   the binder of the elements
+     * @param consumer consumes the elements
+     * @param <T>      the type of the elements
+     *
+     * @throws IOException if the response could not be read or is not valid JSON
+     */
+    private static <T> void readElements(JsonReader json, Binder<T> binder, Consumer<? super T> consumer) throws IOException {
+        json.beginArray();
+        while (json.hasNext()) {
+            if (json.peek() == JsonReader.Token.BEGIN_OBJECT) {
+                consumer.accept(binder.bind(json));
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endArray();
+    }
+
+    /**
+     * Parses a date, the errors are logged and ignored.
+     *
+     * @param parser the parser of the date format
+     * @param text   the text of the date
+     *
+     * @return the date, null if the text is empty or could not be parsed
+     */
+    private static Date parseDate(DateParser parser, String text) {
+        if (text.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return parser.parse(text);
+        } catch (ParseException e) {
+            LOGGER.log(Level.SEVERE, "Could not parse the following date string: " + text, e);
+            return null;
+        }
+    }
+
+    /**
+     * Binds the product data, the pricing, subscription and action period are entries of the product object.
+     *
+     * @param json the reader
+     *
+     * @return the product data
+     *
+     * @throws IOException if the response could not be read or is not valid JSON
+     */
+    private static ProductData readProductData(JsonReader json) throws IOException {
+        String id = "";
+        String title = "";
+        String description = "";
+        boolean collectible = false;
+        boolean choosePrice = false;
+        double price = 0.0;
+        int taxes = 0;
+        String currency = "";
+        boolean subscription = false;
+        int term = 0;
+        int cancellationPeriod = 0;
+        boolean autoRenewal = false;
+        String actionPeriodName = "";
+        int actionPeriodTerm = 0;
+        double actionPeriodPrice = 0.0;
+        List<Image> images = new LinkedList<Image>();
+        int maxParallelAccess = 0;
+        String customInfo = "";
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case ApiResults.ID:
+                    id = json.nextText();
+                    break;
+                case ApiResults.TITLE:
+                    title = json.nextText();
+                    break;
+                case ApiResults.DESCRIPTION:
+                    description = json.nextText();
+                    break;
+                case ApiResults.COLLECTIBLE:
+                    collectible = json.nextBoolean();
+                    break;
+                case ApiResults.CAN_CHOOSE_PRICE:
+                    choosePrice = json.nextBoolean();
+                    break;
+                case ApiResults.PRICE:
+                    price = json.nextDouble();
+                    break;
+                case ApiResults.TAXES:
+                    taxes = json.nextInt();
+                    break;
+                case ApiResults.CURRENCY:
+                    currency = json.nextText();
+                    break;
+                case ApiResults.SUBSCRIPTION:
+                    subscription = json.nextBoolean();
+                    break;
+                case ApiResults.TERM:
+                    term = json.nextInt();
+                    break;
+                case ApiResults.CANCELLATION_PERIOD:
+                    cancellationPeriod = json.nextInt();
+                    break;
+                case ApiResults.AUTO_RENEWAL:
+                    autoRenewal = json.nextBoolean();
+                    break;
+                case ApiResults.ACTION_PERIOD_NAME:
+                    actionPeriodName = json.nextText();
+                    break;
+                case ApiResults.ACTION_PERIOD_TERM:
+                    actionPeriodTerm = json.nextInt();
+                    break;
+                case ApiResults.ACTION_PERIOD_PRICE:
+                    actionPeriodPrice = json.nextDouble();
+                    break;
+                case ApiResults.IMAGES:
+                    images = readImages(json);
+                    break;
+                case ApiResults.MAX_PARALLEL_APP_ACCESS:
+                    maxParallelAccess = json.nextInt();
+                    break;
+                case ApiResults.CUSTOM_INFO:
+                    customInfo = json.nextText();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return new ProductData(id, new Subscription(subscription, term, cancellationPeriod, autoRenewal), title, description, collectible,
+                new PricingData(choosePrice, price, taxes, currency), new ActionPeriod(actionPeriodName, actionPeriodTerm, actionPeriodPrice),
+                images, maxParallelAccess, customInfo);
+    }
+
+    /**
+     * Binds the images of a product, a value that is not an array is skipped.
+     *
+     * @param json the reader
+     *
+     * @return the images
+     *
+     * @throws IOException if the response could not be read or is not valid JSON
+     */
+    private static List<Image> readImages(JsonReader json) throws IOException {
+        List<Image> images = new LinkedList<Image>();
+        if (json.peek() != JsonReader.Token.BEGIN_ARRAY) {
+            json.skipValue();
+            return images;
+        }
+        json.beginArray();
+        while (json.hasNext()) {
+            if (json.peek() != JsonReader.Token.BEGIN_OBJECT) {
+                json.skipValue();
+                continue;
+            }
+            String url = "";
+            String description = "";
+            String altText = "";
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case ApiResults.URL:
+                        url = json.nextText();
+                        break;
+                    case ApiResults.DESCRIPTION:
+                        description = json.nextText();
+                        break;
+                    case ApiResults.ALT_TEXT:
+                        altText = json.nextText();
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            images.add(new Image(url, description, altText));
+        }
+        json.endArray();
+        return images;
+    }
+
+    /**
+     * Binds the category data, the pricing is part of the category object.
+     *
+     * @param json the reader
+     *
+     * @return the category data
+     *
+     * @throws IOException if the response could not be read or is not valid JSON
+     */
+    private static CategoryData readCategoryData(JsonReader json) throws IOException {
+        String id = "";
+        String validityTime = "";
+        boolean choosePrice = false;
+        double price = 0.0;
+        int taxes = 0;
+        String currency = "";
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case ApiResults.ID:
+                    id = json.nextText();
+                    break;
+                case ApiResults.VALIDITY_TIME:
+                    validityTime = json.nextText();
+                    break;
+                case ApiResults.CAN_CHOOSE_PRICE:
+                    choosePrice = json.nextBoolean();
+                    break;
+                case ApiResults.PRICE:
+                    price = json.nextDouble();
+                    break;
+                case ApiResults.TAXES:
+                    taxes = json.nextInt();
+                    break;
+                case ApiResults.CURRENCY:
+                    currency = json.nextText();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return new CategoryData(id, new PricingData(choosePrice, price, taxes, currency), ValidityTime.get(validityTime));
+    }
+
+    /**
+     * Binds an element of the product list.
+     *
+     * @param json the reader
+     *
+     * @return the product info
+     *
+     * @throws IOException if the response could not be read or is not valid JSON
+     */
+    private static ProductInfo readProductInfo(JsonReader json) throws IOException {
+        String productId = "";
+        String title = "";
+        String description = "";
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case ApiResults.PROD_ID:
+                    productId = json.nextText();
+                    break;
+                case ApiResults.TITLE:
+                    title = json.nextText();
+                    break;
+                case ApiResults.DESCRIPTION:
+                    description = json.nextText();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return new ProductInfo(productId, title, description);
+    }
+
+    /**
+     * Binds an element of the category list.
+     *
+     * @param json the reader
+     *
+     * @return the category info
+     *
+     * @throws IOException if the response could not be read or is not valid JSON
+     */
+    private static CategoryInfo readCategoryInfo(JsonReader json) throws IOException {
+        String categoryId = "";
+        String title = "";
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case ApiResults.CATEGORY_ID:
+                    categoryId = json.nextText();
+                    break;
+                case ApiResults.TITLE:
+                    title = json.nextText();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return new CategoryInfo(categoryId, title);
+    }
+
+    /**
+     * Binds an element of the transaction search.
+     *
+     * @param json the reader
+     *
+     * @return the transaction
+     *
+     * @throws IOException if the response could not be read or is not valid JSON
+     */
+    private static Transaction readTransaction(JsonReader json) throws IOException {
+        String transactionId = "";
+        String customerId = "";
+        String productId = "";
+        String title = "";
+        double price = 0.0;
+        double taxesPercentage = 0.0;
+        double taxesAmount = 0.0;
+        String taxesCountry = "";
+        String currency = "";
+        String paymentMethod = "";
+        String transactionDate = "";
+        String status = "";
+        long billingId = 0;
+        String cancellationTransactionId = "";
+        String cancelledTransactionId = "";
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case ApiResults.TRANSACTION_ID:
+                    transactionId = json.nextText();
+                    break;
+                case ApiResults.CUST_ID:
+                    customerId = json.nextText();
+                    break;
+                case ApiResults.PROD_ID:
+                    productId = json.nextText();
+                    break;
+                case ApiResults.TITLE:
+                    title = json.nextText();
+                    break;
+                case ApiResults.PRICE:
+                    price = json.nextDouble();
+                    break;
+                case ApiResults.TAXES_PERCENTAGE:
+                    taxesPercentage = json.nextDouble();
+                    break;
+                case ApiResults.TAXES_AMOUNT:
+                    taxesAmount = json.nextDouble();
+                    break;
+                case ApiResults.TAXES_COUNTRY:
+                    taxesCountry = json.nextText();
+                    break;
+                case ApiResults.CURRENCY:
+                    currency = json.nextText();
+                    break;
+                case ApiResults.PAYMENT_METHOD:
+                    paymentMethod = json.nextText();
+                    break;
+                case ApiResults.TRANSACTION_DATE:
+                    transactionDate = json.nextText();
+                    break;
+                case ApiResults.TRANSACTION_STATUS:
+                    status = json.nextText();
+                    break;
+                case ApiResults.BILLING_ID:
+                    billingId = json.nextLong();
+                    break;
+                case ApiResults.CANCELLATION_TRANSACTION_ID:
+                    cancellationTransactionId = json.nextText();
+                    break;
+                case ApiResults.CANCELLED_TRANSACTION_ID:
+                    cancelledTransactionId = json.nextText();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return new Transaction(transactionId, customerId, productId, title, price, taxesPercentage, taxesAmount, taxesCountry, currency,
+                PaymentMethod.get(paymentMethod), parseDate(DateParser.LITERAL_Z, transactionDate), TransactionStatus.get(status), billingId,
+                cancellationTransactionId, cancelledTransactionId);
+    }
+
+    /**
+     * Binds a company user, the billing address is the first one of the billing addresses.
+     *
+     * @param json the reader
+     *
+     * @return the company user
+     *
+     * @throws IOException if the response could not be read or is not valid JSON
+     */
+    private static CompanyUser readCompanyUser(JsonReader json) throws IOException {
+        String customerId = "";
+        String email = "";
+        String username = "";
+        String language = "";
+        String gender = "";
+        String firstName = "";
+        String name = "";
+        String mobileNumber = "";
+        String userState = "";
+        String birthday = "";
+        String postCode = "";
+        String street = "";
+        String additionalAddressInfo = "";
+        String city = "";
+        String state = "";
+        String country = "";
+        String agreementState = "";
+        CompanyUserBillingAddress billingAddress = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case ApiResults.CUST_ID:
+                    customerId = json.nextText();
+                    break;
+                case ApiResults.EMAIL:
+                    email = json.nextText();
+                    break;
+                case ApiResults.USERNAME:
+                    username = json.nextText();
+                    break;
+                case ApiResults.LANGUAGE:
+                    language = json.nextText();
+                    break;
+                case ApiResults.GENDER:
+                    gender = json.nextText();
+                    break;
+                case ApiResults.FIRST_NAME:
+                    firstName = json.nextText();
+                    break;
+                case ApiResults.LAST_NAME:
+                    name = json.nextText();
+                    break;
+                case ApiResults.MOBILE_NUMBER:
+                    mobileNumber = json.nextText();
+                    break;
+                case ApiResults.USER_STATE:
+                    userState = json.nextText();
+                    break;
+                case ApiResults.BIRTHDAY:
+                    birthday = json.nextText();
+                    break;
+                case ApiResults.POST_CODE:
+                    postCode = json.nextText();
+                    break;
+                case ApiResults.STREET:
+                    street = json.nextText();
+                    break;
+                case ApiResults.ADDITIONAL_ADDRESS_INFO:
+                    additionalAddressInfo = json.nextText();
+                    break;
+                case ApiResults.CITY:
+                    city = json.nextText();
+                    break;
+                case ApiResults.STATE:
+                    state = json.nextText();
+                    break;
+                case ApiResults.COUNTRY:
+                    country = json.nextText();
+                    break;
+                case ApiResults.AGREEMENT_STATE:
+                    agreementState = json.nextText();
+                    break;
+                case BILLING_ADDRESSES:
+                    billingAddress = readFirstBillingAddress(json);
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return new CompanyUser(customerId, email, username, language, gender, firstName, name, mobileNumber, userState,
+                parseDate(DateParser.WITH_OFFSET, birthday), postCode, street, additionalAddressInfo, city, state, country, agreementState,
+                billingAddress);
+    }
+
+    /**
+     * Binds the first billing address of a company user and skips the other ones.
+     *
+     * @param json the reader
+     *
+     * @return the billing address, null if there is none
+     *
+     * @throws IOException if the response could not be read or is not valid JSON
+     */
+    private static CompanyUserBillingAddress readFirstBillingAddress(JsonReader json) throws IOException {
+        if (json.peek() != JsonReader.Token.BEGIN_ARRAY) {
+            json.skipValue();
+            return null;
+        }
+        CompanyUserBillingAddress billingAddress = null;
+        json.beginArray();
+        if (json.hasNext()) {
+            if (json.peek() == JsonReader.Token.BEGIN_OBJECT) {
+                billingAddress = readBillingAddress(json);
+            } else {
+                json.skipValue();
+            }
+        }
+        while (json.hasNext()) {
+            json.skipValue();
+        }
+        json.endArray();
+        return billingAddress;
+    }
+
+    /**
+     * Binds a billing address.
+     *
+     * @param json the reader
+     *
+     * @return the billing address
+     *
+     * @throws IOException if the response could not be read or is not valid JSON
+     */
+    private static CompanyUserBillingAddress readBillingAddress(JsonReader json) throws IOException {
+        String gender = "";
+        String firstName = "";
+        String name = "";
+        String company = "";
+        String street = "";
+        String additionalAddressInfo = "";
+        String postCode = "";
+        String city = "";
+        String state = "";
+        String country = "";
+        String vatNumber = "";
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case ApiResults.GENDER:
+                    gender = json.nextText();
+                    break;
+                case ApiResults.FIRST_NAME:
+                    firstName = json.nextText();
+                    break;
+                case ApiResults.LAST_NAME:
+                    name = json.nextText();
+                    break;
+                case ApiResults.COMPANY:
+                    company = json.nextText();
+                    break;
+                case ApiResults.STREET:
+                    street = json.nextText();
+                    break;
+                case ApiResults.ADDITIONAL_ADDRESS_INFO:
+                    additionalAddressInfo = json.nextText();
+                    break;
+                case ApiResults.POST_CODE:
+                    postCode = json.nextText();
+                    break;
+                case ApiResults.CITY:
+                    city = json.nextText();
+                    break;
+                case ApiResults.STATE:
+                    state = json.nextText();
+                    break;
+                case ApiResults.COUNTRY:
+                    country = json.nextText();
+                    break;
+                case ApiResults.VAT_NUMBER:
+                    vatNumber = json.nextText();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return new CompanyUserBillingAddress(gender, firstName, name, company, street, additionalAddressInfo, postCode, city, state, country,
+                vatNumber);
+    }
+
+    /**
+     * Binds an element of the customer application list.
+     *
+     * @param json the reader
+     *
+     * @return the application access data
+     *
+     * @throws IOException if the response could not be read or is not valid JSON
+     */
+    private static AppAccessData readAppAccessData(JsonReader json) throws IOException {
+        String customerId = "";
+        String description = "";
+        String customerAppId = "";
+        String productId = "";
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case ApiResults.CUST_ID:
+                    customerId = json.nextText();
+                    break;
+                case ApiResults.DESCRIPTION:
+                    description = json.nextText();
+                    break;
+                case ApiResults.CUSTOMER_APP_ID:
+                    customerAppId = json.nextText();
+                    break;
+                case ApiResults.PROD_ID:
+                    productId = json.nextText();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return new AppAccessData(customerId, description, customerAppId, productId);
+    }
+
+    /**
+     * Binds a model while it is being read.
+     *
+     * @param <T> the type of the model
+     */
+    private interface Binder<T> {
+
+        /**
+         * Binds the object the reader is positioned at.
+         *
+         * @param json the reader
+         *
+         * @return the model
+         *
+         * @throws IOException if the response could not be read or is not valid JSON
+         */
+        T bind(JsonReader json) throws IOException;
+    }
+}
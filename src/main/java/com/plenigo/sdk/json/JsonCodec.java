@@ -0,0 +1,59 @@
+package com.plenigo.sdk.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Binds the JSON responses of the plenigo API directly to the models of the SDK, without building a generic representation of the
+ * response first. The SDK reads the following types with a codec:
+ * {@link com.plenigo.sdk.models.ProductData}, {@link com.plenigo.sdk.models.CategoryData}, {@link com.plenigo.sdk.models.ProductInfo},
+ * {@link com.plenigo.sdk.models.CategoryInfo}, {@link com.plenigo.sdk.models.Transaction}, {@link com.plenigo.sdk.models.CompanyUser}
+ * and {@link com.plenigo.sdk.models.AppAccessData}.
+ * </p>
+ * <p>
+ * Implementations are configured with {@link com.plenigo.sdk.PlenigoManager#configureCodec(JsonCodec)}, the default one is
+ * {@link DefaultJsonCodec}. The codec is only used when the requests are sent through an {@link com.plenigo.sdk.http.HttpTransport},
+ * which is the case unless another rest client was set explicitly.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> Implementations must be thread safe, the same codec is used by all the threads calling the SDK.
+ * </p>
+ */
+public interface JsonCodec {
+
+    /**
+     * Reads a response that is a single JSON object.
+     *
+     * @param reader the response
+     * @param type   the type of the model
+     * @param <T>    the type of the model
+     *
+     * @return the model
+     *
+     * @throws IOException              if the response could not be read or is not valid JSON
+     * @throws IllegalArgumentException if the type is not supported
+     */
+    <T> T readObject(Reader reader, Class<T> type) throws IOException;
+
+    /**
+     * Reads a list response and hands every object of its element array to the consumer as soon as it is bound, so that the elements
+     * do not have to be held in memory. If the response is an array instead of an object, its objects are the elements.
+     *
+     * @param reader      the response
+     * @param elementsKey the key of the element array in the response object
+     * @param elementType the type of the elements
+     * @param consumer    consumes the elements in the order of the response, values of the array that are not objects are skipped
+     * @param <T>         the type of the elements
+     *
+     * @return the other values of the response object, e.g. the paging information, with the same containers as
+     * {@link com.plenigo.sdk.internal.util.SdkUtils#parseJSONObject(Reader)}
+     *
+     * @throws IOException              if the response could not be read or is not valid JSON
+     * @throws IllegalArgumentException if the type is not supported
+     */
+    <T> Map<String, Object> readList(Reader reader, String elementsKey, Class<T> elementType, Consumer<? super T> consumer)
+            throws IOException;
+}
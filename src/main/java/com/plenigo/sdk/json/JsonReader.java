@@ -0,0 +1,750 @@
+package com.plenigo.sdk.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Pull parser that reads a JSON document token by token from its own buffer, so that the values can be bound to the models without
+ * building maps, boxing the numbers or converting them to strings. Names and string values are created directly from the buffer when
+ * they contain no escape sequences, integers of up to {@value #MAX_FAST_DIGITS} digits are accumulated without creating a string.
+ * </p>
+ * <p>
+ * Scalar values can be read in the same lenient way as the mappers of {@link com.plenigo.sdk.internal.util.SdkUtils#getValueIfNotNull},
+ * e.g. {@link #nextText()} returns the text of any value and an empty string for null.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is <b>not</b> thread safe, an instance reads a single document.
+ * </p>
+ */
+final class JsonReader {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_FAST_DIGITS = 18;
+    private static final int INITIAL_DEPTH = 16;
+    private static final int RADIX = 10;
+    private static final int HEX_RADIX = 16;
+    private static final int UNICODE_ESCAPE_LENGTH = 4;
+    private static final int END_OF_INPUT = -1;
+    private static final String TRUE = "true";
+    private static final String FALSE = "false";
+    private static final String NULL = "null";
+
+    /**
+     * Nothing was read yet in the scope.
+     */
+    private static final byte EMPTY = 0;
+    /**
+     * The separator before the next value, or name, was read.
+     */
+    private static final byte READY = 1;
+    /**
+     * The name of an object entry was read, its value is next.
+     */
+    private static final byte NAME = 2;
+    /**
+     * A value was read, the next one needs a separator.
+     */
+    private static final byte NONEMPTY = 3;
+
+    /**
+     * Kinds of tokens.
+     */
+    enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder scratch = new StringBuilder();
+    private int pos;
+    private int limit;
+    private long consumed;
+    private byte[] scopeStates = new byte[INITIAL_DEPTH];
+    private boolean[] objectScopes = new boolean[INITIAL_DEPTH];
+    private int depth;
+    private boolean integral;
+    private long longValue;
+    private String numberText;
+
+    /**
+     * Builds a reader of a document.
+     *
+     * @param in the document
+     */
+    JsonReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Returns the kind of the next token without consuming it.
+     *
+     * @return the kind of the next token
+     *
+     * @throws IOException if the document could not be read or is not valid JSON
+     */
+    Token peek() throws IOException {
+        int c = peekNonWhitespace();
+        if (c == '}') {
+            return Token.END_OBJECT;
+        }
+        if (c == ']') {
+            return Token.END_ARRAY;
+        }
+        if (c == END_OF_INPUT) {
+            return Token.END_DOCUMENT;
+        }
+        beforeValue();
+        c = peekNonWhitespace();
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                return Token.BOOLEAN;
+            case 'n':
+                return Token.NULL;
+            default:
+                if (c == '-' || isDigit(c)) {
+                    return Token.NUMBER;
+                }
+                throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    /**
+     * Consumes the start of an object.
+     *
+     * @throws IOException if the next value is not an object
+     */
+    void beginObject() throws IOException {
+        beforeValue();
+        expect('{');
+        push(true);
+    }
+
+    /**
+     * Consumes the end of the current object.
+     *
+     * @throws IOException if the object has more entries
+     */
+    void endObject() throws IOException {
+        if (depth == 0 || !objectScopes[depth - 1] || scopeStates[depth - 1] == NAME || scopeStates[depth - 1] == READY) {
+            throw syntaxError("Expected a name");
+        }
+        expect('}');
+        depth--;
+        afterValue();
+    }
+
+    /**
+     * Consumes the start of an array.
+     *
+     * @throws IOException if the next value is not an array
+     */
+    void beginArray() throws IOException {
+        beforeValue();
+        expect('[');
+        push(false);
+    }
+
+    /**
+     * Consumes the end of the current array.
+     *
+     * @throws IOException if the array has more values
+     */
+    void endArray() throws IOException {
+        if (depth == 0 || objectScopes[depth - 1] || scopeStates[depth - 1] == READY) {
+            throw syntaxError("Expected a value");
+        }
+        expect(']');
+        depth--;
+        afterValue();
+    }
+
+    /**
+     * Returns whether the current object or array has another entry, and consumes the separator before it.
+     *
+     * @return true if there is another entry
+     *
+     * @throws IOException if the document could not be read or is not valid JSON
+     */
+    boolean hasNext() throws IOException {
+        byte state = scopeStates[depth - 1];
+        if (state == READY || state == NAME) {
+            return true;
+        }
+        int c = peekNonWhitespace();
+        if (c == '}' || c == ']') {
+            return false;
+        }
+        if (state == NONEMPTY) {
+            expect(',');
+        }
+        scopeStates[depth - 1] = READY;
+        return true;
+    }
+
+    /**
+     * Consumes the name of the next object entry.
+     *
+     * @return the name
+     *
+     * @throws IOException if the next token is not a name
+     */
+    String nextName() throws IOException {
+        if (depth == 0 || !objectScopes[depth - 1] || scopeStates[depth - 1] == NAME || !hasNext()) {
+            throw syntaxError("Expected a name");
+        }
+        if (peekNonWhitespace() != '"') {
+            throw syntaxError("Expected a name");
+        }
+        String name = readString();
+        expect(':');
+        scopeStates[depth - 1] = NAME;
+        return name;
+    }
+
+    /**
+     * Consumes the next value and returns its text, the same as the text of the parsed value used by the mappers: strings as they are,
+     * numbers as {@link Long} or {@link Double} text, objects and arrays as the text of their maps and lists, and an empty string for null.
+     *
+     * @return the text of the value
+     *
+     * @throws IOException if the document could not be read or is not valid JSON
+     */
+    String nextText() throws IOException {
+        switch (peek()) {
+            case STRING:
+                String value = readString();
+                afterValue();
+                return value;
+            case NUMBER:
+                readNumber();
+                afterValue();
+                if (integral) {
+                    return Long.toString(longValue);
+                }
+                return Double.toString(Double.parseDouble(numberText));
+            case NULL:
+                nextNull();
+                return "";
+            case BOOLEAN:
+                return String.valueOf(nextBoolean());
+            default:
+                return String.valueOf(readValue());
+        }
+    }
+
+    /**
+     * Consumes the next value as double. Strings are parsed, blank strings and null are 0.
+     *
+     * @return the value
+     *
+     * @throws IOException           if the document could not be read or is not valid JSON
+     * @throws NumberFormatException if the value is not a number
+     */
+    double nextDouble() throws IOException {
+        if (peek() == Token.NUMBER) {
+            readNumber();
+            afterValue();
+            if (integral) {
+                return longValue;
+            }
+            return Double.parseDouble(numberText);
+        }
+        String text = nextText().trim();
+        if (text.isEmpty()) {
+            return 0;
+        }
+        return Double.parseDouble(text);
+    }
+
+    /**
+     * Consumes the next value as long. Strings are parsed, blank strings and null are 0.
+     *
+     * @return the value
+     *
+     * @throws IOException           if the document could not be read or is not valid JSON
+     * @throws NumberFormatException if the value is not an integer
+     */
+    long nextLong() throws IOException {
+        if (peek() == Token.NUMBER) {
+            readNumber();
+            afterValue();
+            if (integral) {
+                return longValue;
+            }
+            return Long.parseLong(numberText);
+        }
+        String text = nextText().trim();
+        if (text.isEmpty()) {
+            return 0;
+        }
+        return Long.parseLong(text);
+    }
+
+    /**
+     * Consumes the next value as int. Strings are parsed, blank strings and null are 0.
+     *
+     * @return the value
+     *
+     * @throws IOException           if the document could not be read or is not valid JSON
+     * @throws NumberFormatException if the value is not an integer that fits an int
+     */
+    int nextInt() throws IOException {
+        long value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of int range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Consumes the next value as boolean. Strings are true if they are "true" ignoring the case, any other value is false.
+     *
+     * @return the value
+     *
+     * @throws IOException if the document could not be read or is not valid JSON
+     */
+    boolean nextBoolean() throws IOException {
+        if (peek() == Token.BOOLEAN) {
+            boolean value = peekNonWhitespace() == 't';
+            consumeLiteral(value ? TRUE : FALSE);
+            afterValue();
+            return value;
+        }
+        return Boolean.parseBoolean(nextText());
+    }
+
+    /**
+     * Consumes a null value.
+     *
+     * @throws IOException if the next value is not null
+     */
+    void nextNull() throws IOException {
+        beforeValue();
+        consumeLiteral(NULL);
+        afterValue();
+    }
+
+    /**
+     * Consumes the next value without binding it.
+     *
+     * @throws IOException if the document could not be read or is not valid JSON
+     */
+    void skipValue() throws IOException {
+        switch (peek()) {
+            case BEGIN_OBJECT:
+                beginObject();
+                while (hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+                break;
+            case BEGIN_ARRAY:
+                beginArray();
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+                break;
+            case STRING:
+                skipString();
+                afterValue();
+                break;
+            case NUMBER:
+                readNumber();
+                afterValue();
+                break;
+            case BOOLEAN:
+                nextBoolean();
+                break;
+            case NULL:
+                nextNull();
+                break;
+            default:
+                throw syntaxError("Expected a value");
+        }
+    }
+
+    /**
+     * Consumes the next value and builds it with the same containers as {@link com.plenigo.sdk.internal.util.SdkUtils#parseJSONObject}:
+     * {@link LinkedHashMap} for objects, {@link LinkedList} for arrays, and {@link Long} or {@link Double} for numbers.
+     *
+     * @return the value, null for null
+     *
+     * @throws IOException if the document could not be read or is not valid JSON
+     */
+    Object readValue() throws IOException {
+        switch (peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> object = new LinkedHashMap<String, Object>();
+                beginObject();
+                while (hasNext()) {
+                    String name = nextName();
+                    object.put(name, readValue());
+                }
+                endObject();
+                return object;
+            case BEGIN_ARRAY:
+                List<Object> array = new LinkedList<Object>();
+                beginArray();
+                while (hasNext()) {
+                    array.add(readValue());
+                }
+                endArray();
+                return array;
+            case STRING:
+                String value = readString();
+                afterValue();
+                return value;
+            case NUMBER:
+                readNumber();
+                afterValue();
+                if (integral) {
+                    return longValue;
+                }
+                return Double.valueOf(numberText);
+            case BOOLEAN:
+                return nextBoolean();
+            case NULL:
+                nextNull();
+                return null;
+            default:
+                throw syntaxError("Expected a value");
+        }
+    }
+
+    /**
+     * Verifies that nothing but whitespace follows the root value.
+     *
+     * @throws IOException if there is more content
+     */
+    void endDocument() throws IOException {
+        if (depth != 0 || peekNonWhitespace() != END_OF_INPUT) {
+            throw syntaxError("Expected the end of the document");
+        }
+    }
+
+    /**
+     * Verifies that a value can be read in the current scope, and consumes the separator before array values.
+     *
+     * @throws IOException if a name is expected or the array has no more values
+     */
+    private void beforeValue() throws IOException {
+        if (depth == 0) {
+            return;
+        }
+        if (objectScopes[depth - 1]) {
+            if (scopeStates[depth - 1] != NAME) {
+                throw syntaxError("Expected a name");
+            }
+        } else if (!hasNext()) {
+            throw syntaxError("Expected a value");
+        }
+    }
+
+    /**
+     * Records that a complete value was read in the current scope.
+     */
+    private void afterValue() {
+        if (depth > 0) {
+            scopeStates[depth - 1] = NONEMPTY;
+        }
+    }
+
+    /**
+     * Opens a new scope.
+     *
+     * @param object true for an object, false for an array
+     */
+    private void push(boolean object) {
+        if (depth == scopeStates.length) {
+            scopeStates = Arrays.copyOf(scopeStates, depth * 2);
+            objectScopes = Arrays.copyOf(objectScopes, depth * 2);
+        }
+        scopeStates[depth] = EMPTY;
+        objectScopes[depth] = object;
+        depth++;
+    }
+
+    /**
+     * Reads a string, the current character is its opening quote.
+     *
+     * @return the string
+     *
+     * @throws IOException if the string is not terminated or has an invalid escape sequence
+     */
+    private String readString() throws IOException {
+        pos++;
+        int start = pos;
+        while (pos < limit) {
+            char c = buffer[pos];
+            if (c == '"') {
+                String value = new String(buffer, start, pos - start);
+                pos++;
+                return value;
+            }
+            if (c == '\\') {
+                break;
+            }
+            pos++;
+        }
+        scratch.setLength(0);
+        scratch.append(buffer, start, pos - start);
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return scratch.toString();
+            }
+            if (c == '\\') {
+                scratch.append(readEscaped());
+            } else if (c == END_OF_INPUT) {
+                throw syntaxError("Unterminated string");
+            } else {
+                scratch.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Skips a string, the current character is its opening quote.
+     *
+     * @throws IOException if the string is not terminated or has an invalid escape sequence
+     */
+    private void skipString() throws IOException {
+        pos++;
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                readEscaped();
+            } else if (c == END_OF_INPUT) {
+                throw syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    /**
+     * Reads the character of an escape sequence, the backslash was already consumed.
+     *
+     * @return the escaped character
+     *
+     * @throws IOException if the escape sequence is invalid
+     */
+    private char readEscaped() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < UNICODE_ESCAPE_LENGTH; i++) {
+                    int digit = Character.digit(read(), HEX_RADIX);
+                    if (digit < 0) {
+                        throw syntaxError("Invalid unicode escape sequence");
+                    }
+                    value = value * HEX_RADIX + digit;
+                }
+                return (char) value;
+            default:
+                throw syntaxError("Invalid escape sequence");
+        }
+    }
+
+    /**
+     * Reads a number, the current character is its first one. Integers of up to {@link #MAX_FAST_DIGITS} digits are kept in
+     * {@link #longValue}, any other number is kept as text in {@link #numberText}.
+     *
+     * @throws IOException if the number is invalid
+     */
+    private void readNumber() throws IOException {
+        scratch.setLength(0);
+        boolean negative = peekChar() == '-';
+        if (negative) {
+            scratch.append((char) read());
+        }
+        long value = 0;
+        int digits = 0;
+        integral = true;
+        while (true) {
+            int c = peekChar();
+            if (isDigit(c)) {
+                value = value * RADIX + (c - '0');
+                digits++;
+            } else if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                integral = false;
+            } else {
+                break;
+            }
+            scratch.append((char) read());
+        }
+        if (digits == 0) {
+            throw syntaxError("Invalid number");
+        }
+        if (integral && digits <= MAX_FAST_DIGITS) {
+            longValue = negative ? -value : value;
+            numberText = null;
+            return;
+        }
+        numberText = scratch.toString();
+        if (integral) {
+            try {
+                longValue = Long.parseLong(numberText);
+            } catch (NumberFormatException e) {
+                integral = false;
+            }
+        }
+        if (!integral) {
+            try {
+                Double.parseDouble(numberText);
+            } catch (NumberFormatException e) {
+                throw syntaxError("Invalid number " + numberText);
+            }
+        }
+    }
+
+    /**
+     * Consumes a literal.
+     *
+     * @param literal the expected literal
+     *
+     * @throws IOException if the input does not match the literal
+     */
+    private void consumeLiteral(String literal) throws IOException {
+        peekNonWhitespace();
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw syntaxError("Expected " + literal);
+            }
+        }
+    }
+
+    /**
+     * Consumes the given character after skipping the whitespace.
+     *
+     * @param expected the expected character
+     *
+     * @throws IOException if the next character is another one
+     */
+    private void expect(char expected) throws IOException {
+        if (peekNonWhitespace() != expected) {
+            throw syntaxError("Expected '" + expected + "'");
+        }
+        pos++;
+    }
+
+    /**
+     * Skips the whitespace and returns the next character without consuming it.
+     *
+     * @return the next character or {@link #END_OF_INPUT}
+     *
+     * @throws IOException if the document could not be read
+     */
+    private int peekNonWhitespace() throws IOException {
+        while (pos < limit || fill()) {
+            char c = buffer[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+            pos++;
+        }
+        return END_OF_INPUT;
+    }
+
+    /**
+     * Returns the next character without consuming it.
+     *
+     * @return the next character or {@link #END_OF_INPUT}
+     *
+     * @throws IOException if the document could not be read
+     */
+    private int peekChar() throws IOException {
+        if (pos < limit || fill()) {
+            return buffer[pos];
+        }
+        return END_OF_INPUT;
+    }
+
+    /**
+     * Consumes the next character.
+     *
+     * @return the next character or {@link #END_OF_INPUT}
+     *
+     * @throws IOException if the document could not be read
+     */
+    private int read() throws IOException {
+        if (pos < limit || fill()) {
+            return buffer[pos++];
+        }
+        return END_OF_INPUT;
+    }
+
+    /**
+     * Reads the next chunk of the document into the buffer, the buffer must be completely consumed.
+     *
+     * @return true if characters were read, false at the end of the document
+     *
+     * @throws IOException if the document could not be read
+     */
+    private boolean fill() throws IOException {
+        consumed += limit;
+        pos = 0;
+        limit = 0;
+        int read;
+        do {
+            read = in.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read > 0) {
+            limit = read;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the character is an ASCII digit.
+     *
+     * @param c the character
+     *
+     * @return true if it is a digit
+     */
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Builds the exception of an invalid document.
+     *
+     * @param message the description of the problem
+     *
+     * @return the exception
+     */
+    private IOException syntaxError(String message) {
+        return new IOException(message + " at position " + (consumed + pos));
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * <p>
+ * This package contains the codec that binds the JSON responses of the plenigo API to the models of the SDK
+ * and the extension point to replace it, see {@link com.plenigo.sdk.PlenigoManager#configureCodec(JsonCodec)}.
+ * </p>
+ */
+/**
+ *
+ */
+package com.plenigo.sdk.json;
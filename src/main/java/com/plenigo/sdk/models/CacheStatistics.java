@@ -0,0 +1,85 @@
+package com.plenigo.sdk.models;
+
+/**
+ * <p>
+ * This contains the usage statistics of a cache used by the SDK at the moment they were taken.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ */
+public class CacheStatistics {
+    private final long hitCount;
+    private final long missCount;
+    private final int size;
+    private final int maxSize;
+
+    /**
+     * Required constructor.
+     *
+     * @param hitCount  the amount of lookups that found a value
+     * @param missCount the amount of lookups that did not find a value
+     * @param size      the current amount of entries
+     * @param maxSize   the maximum amount of entries
+     */
+    public CacheStatistics(long hitCount, long missCount, int size, int maxSize) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.size = size;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the amount of lookups that found a value.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the amount of lookups that did not find a value.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of lookups that found a value.
+     *
+     * @return the hit ratio between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRatio() {
+        long requests = hitCount + missCount;
+        if (requests == 0) {
+            return 0;
+        }
+        return (double) hitCount / requests;
+    }
+
+    /**
+     * Returns the current amount of entries.
+     *
+     * @return the size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum amount of entries.
+     *
+     * @return the maximum size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{" + "hitCount=" + hitCount + ", missCount=" + missCount + ", size=" + size + ", maxSize=" + maxSize + '}';
+    }
+}
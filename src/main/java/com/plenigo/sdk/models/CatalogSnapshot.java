@@ -0,0 +1,88 @@
+package com.plenigo.sdk.models;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * This represents the complete product and category catalog of a company at the moment it was loaded, see
+ * {@link com.plenigo.sdk.services.CatalogSnapshotLoader}. A snapshot never changes, a newer catalog is a new snapshot.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ */
+public class CatalogSnapshot {
+    private final Map<String, ProductData> products;
+    private final Map<String, CategoryData> categories;
+    private final long loadedAt;
+
+    /**
+     * Required constructor.
+     *
+     * @param products   the products by product id
+     * @param categories the categories by category id
+     * @param loadedAt   the time in milliseconds when the catalog was loaded
+     */
+    public CatalogSnapshot(Map<String, ProductData> products, Map<String, CategoryData> categories, long loadedAt) {
+        this.products = Collections.unmodifiableMap(new LinkedHashMap<String, ProductData>(products));
+        this.categories = Collections.unmodifiableMap(new LinkedHashMap<String, CategoryData>(categories));
+        this.loadedAt = loadedAt;
+    }
+
+    /**
+     * Returns the data of a product.
+     *
+     * @param productId the product id
+     *
+     * @return the product data or null if the product is not in the catalog
+     */
+    public ProductData getProduct(String productId) {
+        return products.get(productId);
+    }
+
+    /**
+     * Returns the data of a category.
+     *
+     * @param categoryId the category id
+     *
+     * @return the category data or null if the category is not in the catalog
+     */
+    public CategoryData getCategory(String categoryId) {
+        return categories.get(categoryId);
+    }
+
+    /**
+     * Returns all the products in the order the API listed them.
+     *
+     * @return an unmodifiable collection of products
+     */
+    public Collection<ProductData> getProducts() {
+        return products.values();
+    }
+
+    /**
+     * Returns all the categories in the order the API listed them.
+     *
+     * @return an unmodifiable collection of categories
+     */
+    public Collection<CategoryData> getCategories() {
+        return categories.values();
+    }
+
+    /**
+     * Returns the time the catalog was loaded.
+     *
+     * @return the time in milliseconds, 0 for the empty snapshot used before the first load
+     */
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogSnapshot{" + "products=" + products.size() + ", categories=" + categories.size() + ", loadedAt=" + loadedAt + '}';
+    }
+}
@@ -1,6 +1,8 @@
 package com.plenigo.sdk.models;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -56,7 +58,9 @@ public class ProductData implements Serializable {
             actionPeriod = new ActionPeriod("", 0, 0.0);
         }
         this.actionPeriod = actionPeriod;
-        this.images = images;
+        if (images != null) {
+            this.images = Collections.unmodifiableList(new ArrayList<Image>(images));
+        }
         this.maxParallelAccess = maxParallelAccess;
         this.customInfo = customInfo;
     }
@@ -190,7 +194,7 @@ public class ProductData implements Serializable {
     /**
      * An array of images that refer to information images of the product.
      *
-     * @return The images array
+     * @return The images array, it cannot be modified
      */
     public List<Image> getImages() {
         return images;
@@ -0,0 +1,71 @@
+package com.plenigo.sdk.models;
+
+import com.plenigo.sdk.internal.util.DateUtils;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * <p>
+ * This represents the progress of an incremental transaction synchronization, see {@link com.plenigo.sdk.services.TransactionSync}.
+ * All the transactions older than the last transaction date have been delivered, of the transactions with that date only the ones
+ * with the delivered ids. The next synchronization starts searching on the synced until day. A checkpoint never changes, the
+ * progress of a synchronization is a new checkpoint.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ */
+public class SyncCheckpoint {
+    private final Date syncedUntil;
+    private final Date lastTransactionDate;
+    private final Set<String> deliveredIds;
+
+    /**
+     * Required constructor.
+     *
+     * @param syncedUntil         the first day the next synchronization searches
+     * @param lastTransactionDate the date of the newest delivered transaction, it can be null
+     * @param deliveredIds        the ids of the delivered transactions with the last transaction date
+     */
+    public SyncCheckpoint(Date syncedUntil, Date lastTransactionDate, Set<String> deliveredIds) {
+        this.syncedUntil = DateUtils.copy(syncedUntil);
+        this.lastTransactionDate = DateUtils.copy(lastTransactionDate);
+        this.deliveredIds = Collections.unmodifiableSet(new LinkedHashSet<String>(deliveredIds));
+    }
+
+    /**
+     * Returns the first day the next synchronization searches.
+     *
+     * @return the synced until day
+     */
+    public Date getSyncedUntil() {
+        return DateUtils.copy(syncedUntil);
+    }
+
+    /**
+     * Returns the date of the newest delivered transaction.
+     *
+     * @return the date or null if no transaction has been delivered yet
+     */
+    public Date getLastTransactionDate() {
+        return DateUtils.copy(lastTransactionDate);
+    }
+
+    /**
+     * Returns the ids of the delivered transactions with the last transaction date, they are skipped when that day is fetched again.
+     *
+     * @return an unmodifiable set of transaction ids
+     */
+    public Set<String> getDeliveredIds() {
+        return deliveredIds;
+    }
+
+    @Override
+    public String toString() {
+        return "SyncCheckpoint{" + "syncedUntil=" + syncedUntil + ", lastTransactionDate=" + lastTransactionDate + ", deliveredIds="
+                + deliveredIds.size() + '}';
+    }
+}
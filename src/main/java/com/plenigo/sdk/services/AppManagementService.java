@@ -6,8 +6,8 @@ import com.plenigo.sdk.internal.ApiParams;
 import com.plenigo.sdk.internal.ApiResults;
 import com.plenigo.sdk.internal.ApiURLs;
 import com.plenigo.sdk.internal.ErrorCode;
+import com.plenigo.sdk.internal.models.ConfigurationSnapshot;
 import com.plenigo.sdk.internal.util.HttpConfig;
-import com.plenigo.sdk.internal.util.JWT;
 import com.plenigo.sdk.internal.util.SdkUtils;
 import com.plenigo.sdk.models.AppAccessData;
 import com.plenigo.sdk.models.AppAccessToken;
@@ -21,6 +21,9 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * <p>
@@ -48,16 +51,29 @@ public final class AppManagementService {
      * @throws PlenigoException if any error occured
      */
     public static AppAccessToken requestAppToken(AppTokenRequest request) throws PlenigoException {
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
         Map<String, String> body = new LinkedHashMap<String, String>();
-        body.put(ApiParams.TEST_MODE, PlenigoManager.get().isTestMode().toString());
+        body.put(ApiParams.TEST_MODE, config.isTestMode().toString());
         body.put(ApiParams.PRODUCT_ID, request.getProductId());
         body.put(ApiParams.DESCRIPTION, request.getDescription());
-        Map<String, Object> response = HttpConfig.get().getClient().post(PlenigoManager.get().getUrl(), ApiURLs.ACCESS_APP_TOKEN,
-                String.format(ApiURLs.ACCESS_APP_TOKEN, request.getCustomerId()), null, body, JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(),
-                        PlenigoManager.get().getSecret()));
+        Map<String, Object> response = HttpConfig.get().getClient().post(config.getUrl(), ApiURLs.ACCESS_APP_TOKEN,
+                String.format(ApiURLs.ACCESS_APP_TOKEN, request.getCustomerId()), null, body, config.getJwtHeader());
         return buildAppAccessToken(response);
     }
 
+    /**
+     * Asynchronous variant of {@link #requestAppToken(AppTokenRequest)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param request the request information
+     *
+     * @return a future with the application access token
+     */
+    public static CompletableFuture<AppAccessToken> requestAppTokenAsync(AppTokenRequest request) {
+        return AsyncSupport.supply(() -> requestAppToken(request));
+    }
+
     /**
      * Builds the application access token.
      *
@@ -81,13 +97,62 @@ public final class AppManagementService {
      * @throws PlenigoException if any error occurs
      */
     public static List<AppAccessData> getCustomerApps(CustomerAppRequest request) throws PlenigoException {
+        List<AppAccessData> appAccessDatas = new LinkedList<AppAccessData>();
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        StreamingSupport.get(config, ApiURLs.ACCESS_APP_CUSTOMER, String.format(ApiURLs.ACCESS_APP_CUSTOMER, request.getCustomerId()),
+                buildCustomerAppsQueryString(request, config), ApiResults.APP_LIST, AppAccessData.class, AppManagementService::buildAppAccessData,
+                appAccessDatas::add);
+        return appAccessDatas;
+    }
+
+    /**
+     * Asynchronous variant of {@link #getCustomerApps(CustomerAppRequest)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param request the request information
+     *
+     * @return a future with a list of application accesses
+     */
+    public static CompletableFuture<List<AppAccessData>> getCustomerAppsAsync(CustomerAppRequest request) {
+        return AsyncSupport.supply(() -> getCustomerApps(request));
+    }
+
+    /**
+     * Returns the customer applications one at a time to the consumer while the response is being read, see {@link StreamingSupport}.
+     *
+     * @param request  the request information
+     * @param consumer consumes the application accesses in the order of the response, it is called by the calling thread
+     *
+     * @return the amount of application accesses handed to the consumer
+     *
+     * @throws PlenigoException if any error occurs
+     */
+    public static long streamCustomerApps(CustomerAppRequest request, Consumer<? super AppAccessData> consumer) throws PlenigoException {
+        AtomicLong count = new AtomicLong();
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        StreamingSupport.get(config, ApiURLs.ACCESS_APP_CUSTOMER, String.format(ApiURLs.ACCESS_APP_CUSTOMER, request.getCustomerId()),
+                buildCustomerAppsQueryString(request, config), ApiResults.APP_LIST, AppAccessData.class, AppManagementService::buildAppAccessData,
+                appAccessData -> {
+                    consumer.accept(appAccessData);
+                    count.incrementAndGet();
+                });
+        return count.get();
+    }
+
+    /**
+     * Builds the query string of the customer applications request.
+     *
+     * @param request the request information
+     * @param config  the configuration the request is sent with
+     *
+     * @return the query string
+     */
+    private static String buildCustomerAppsQueryString(CustomerAppRequest request, ConfigurationSnapshot config) {
         Map<String, Object> params = new LinkedHashMap<String, Object>();
         params.put(ApiParams.CUSTOMER_ID, request.getCustomerId());
-        params.put(ApiParams.TEST_MODE, PlenigoManager.get().isTestMode().toString());
-        Map<String, Object> response = HttpConfig.get().getClient().get(PlenigoManager.get().getUrl(), ApiURLs.ACCESS_APP_CUSTOMER,
-                String.format(ApiURLs.ACCESS_APP_CUSTOMER, request.getCustomerId()), SdkUtils.buildUrlQueryString(params),
-                JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
-        return buildAppAccessList(response);
+        params.put(ApiParams.TEST_MODE, config.isTestMode().toString());
+        return SdkUtils.buildUrlQueryString(params);
     }
 
     /**
@@ -100,15 +165,28 @@ public final class AppManagementService {
      * @throws PlenigoException if any error occurs
      */
     public static AppAccessData requestAppId(AppAccessToken request) throws PlenigoException {
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
         Map<String, String> body = new LinkedHashMap<String, String>();
-        body.put(ApiParams.TEST_MODE, PlenigoManager.get().isTestMode().toString());
+        body.put(ApiParams.TEST_MODE, config.isTestMode().toString());
         body.put(ApiParams.APP_ACCESS_TOKEN, request.getToken());
-        Map<String, Object> response = HttpConfig.get().getClient().post(PlenigoManager.get().getUrl(), ApiURLs.ACCESS_APP_CUSTOMER,
-                String.format(ApiURLs.ACCESS_APP_CUSTOMER, request.getCustomerId()), null, body,
-                JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
+        Map<String, Object> response = HttpConfig.get().getClient().post(config.getUrl(), ApiURLs.ACCESS_APP_CUSTOMER,
+                String.format(ApiURLs.ACCESS_APP_CUSTOMER, request.getCustomerId()), null, body, config.getJwtHeader());
         return buildAppIdData(response);
     }
 
+    /**
+     * Asynchronous variant of {@link #requestAppId(AppAccessToken)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param request the application access token
+     *
+     * @return a future with the app access data
+     */
+    public static CompletableFuture<AppAccessData> requestAppIdAsync(AppAccessToken request) {
+        return AsyncSupport.supply(() -> requestAppId(request));
+    }
+
     /**
      * Checks if an user has bought a product.
      *
@@ -119,14 +197,14 @@ public final class AppManagementService {
      * @throws PlenigoException if any error occurs
      */
     public static boolean hasUserBought(ProductAccessRequest request) throws PlenigoException {
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
         Map<String, Object> params = new LinkedHashMap<String, Object>();
         boolean hasAccess = true;
-        params.put(ApiParams.TEST_MODE, PlenigoManager.get().isTestMode().toString());
+        params.put(ApiParams.TEST_MODE, config.isTestMode().toString());
         try {
-            HttpConfig.get().getClient().get(PlenigoManager.get().getUrl(), ApiURLs.VERIFY_CUSTOMER_APP_PRODUCT,
+            HttpConfig.get().getClient().get(config.getUrl(), ApiURLs.VERIFY_CUSTOMER_APP_PRODUCT,
                     String.format(ApiURLs.VERIFY_CUSTOMER_APP_PRODUCT, request.getCustomerId(), request.getProductId(),
-                            request.getCustomerAppId()), SdkUtils.buildUrlQueryString(params), JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(),
-                            PlenigoManager.get().getSecret()));
+                            request.getCustomerAppId()), SdkUtils.buildUrlQueryString(params), config.getJwtHeader());
         } catch (PlenigoException pe) {
             //Forbidden means that the user has not bought the product.
             if (ErrorCode.get(pe.getResponseCode()) == ErrorCode.CANNOT_ACCESS_PRODUCT
@@ -139,6 +217,19 @@ public final class AppManagementService {
         return hasAccess;
     }
 
+    /**
+     * Asynchronous variant of {@link #hasUserBought(ProductAccessRequest)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param request the request information
+     *
+     * @return a future with true if the user bought the product, false otherwise
+     */
+    public static CompletableFuture<Boolean> hasUserBoughtAsync(ProductAccessRequest request) {
+        return AsyncSupport.supply(() -> hasUserBought(request));
+    }
+
     /**
      * Deletes the customer application.
      *
@@ -147,12 +238,13 @@ public final class AppManagementService {
      * @throws PlenigoException if any error occurs
      */
     public static void deleteCustomerApp(DeleteAppIdRequest request) throws PlenigoException {
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
         Map<String, Object> params = new LinkedHashMap<String, Object>();
-        params.put(ApiParams.TEST_MODE, PlenigoManager.get().isTestMode().toString());
+        params.put(ApiParams.TEST_MODE, config.isTestMode().toString());
         try {
-            HttpConfig.get().getClient().delete(PlenigoManager.get().getUrl(), ApiURLs.DELETE_CUSTOMER_APP, String.format(ApiURLs.DELETE_CUSTOMER_APP,
+            HttpConfig.get().getClient().delete(config.getUrl(), ApiURLs.DELETE_CUSTOMER_APP, String.format(ApiURLs.DELETE_CUSTOMER_APP,
                     request.getCustomerId(), request.getCustomerAppId()), SdkUtils.buildUrlQueryString(params),
-                    JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
+                    config.getJwtHeader());
         } catch (PlenigoException pe) {
             if (!(pe.getResponseCode().equals(String.valueOf(HttpURLConnection.HTTP_NO_CONTENT))
                     || ErrorCode.get(pe.getResponseCode()) == ErrorCode.APP_ID_DELETED)) {
@@ -161,6 +253,22 @@ public final class AppManagementService {
         }
     }
 
+    /**
+     * Asynchronous variant of {@link #deleteCustomerApp(DeleteAppIdRequest)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param request request information
+     *
+     * @return a future that completes when the call is done
+     */
+    public static CompletableFuture<Void> deleteCustomerAppAsync(DeleteAppIdRequest request) {
+        return AsyncSupport.supply(() -> {
+            deleteCustomerApp(request);
+            return null;
+        });
+    }
+
     /**
      * Builds the application access data object.
      *
@@ -177,31 +285,18 @@ public final class AppManagementService {
     }
 
     /**
-     * Builds a list of application access data objects.
+     * Builds an application access data object of an element of the application list.
      *
-     * @param response the response
+     * @param element the element of the application list
      *
-     * @return ta list of application access data objects
+     * @return application access data object
      */
-    private static List<AppAccessData> buildAppAccessList(Map<String, Object> response) {
-        Object elementsObj = response.get(ApiResults.APP_LIST);
-        List<AppAccessData> appAccessDatas = new LinkedList<AppAccessData>();
-        //https://code.google.com/p/json-simple/ Json simple library maps arrays as Lists
-        if (elementsObj instanceof List) {
-            List elements = (List) elementsObj;
-            for (Object elementObj : elements) {
-                //and objects as maps
-                if (elementObj instanceof Map) {
-                    Map<String, Object> element = (Map<String, Object>) elementObj;
-                    String customerId = SdkUtils.getValueIfNotNull(element, ApiResults.CUST_ID);
-                    String description = SdkUtils.getValueIfNotNull(element, ApiResults.DESCRIPTION);
-                    String customerAppId = SdkUtils.getValueIfNotNull(element, ApiResults.CUSTOMER_APP_ID);
-                    String prodId = SdkUtils.getValueIfNotNull(element, ApiResults.PROD_ID);
-                    appAccessDatas.add(new AppAccessData(customerId, description, customerAppId, prodId));
-                }
-            }
-        }
-        return appAccessDatas;
+    private static AppAccessData buildAppAccessData(Map<String, Object> element) {
+        String customerId = SdkUtils.getValueIfNotNull(element, ApiResults.CUST_ID);
+        String description = SdkUtils.getValueIfNotNull(element, ApiResults.DESCRIPTION);
+        String customerAppId = SdkUtils.getValueIfNotNull(element, ApiResults.CUSTOMER_APP_ID);
+        String prodId = SdkUtils.getValueIfNotNull(element, ApiResults.PROD_ID);
+        return new AppAccessData(customerId, description, customerAppId, prodId);
     }
 
 }
@@ -0,0 +1,260 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoClient;
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.http.Deadline;
+import com.plenigo.sdk.http.RequestPriority;
+import com.plenigo.sdk.internal.ErrorCode;
+import com.plenigo.sdk.internal.util.DefaultExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * Runs the service calls asynchronously for the async variants of the services.
+ * </p>
+ * <p>
+ * The calls run on the executor configured with {@link PlenigoManager#configureExecutor(Executor)}. If none was configured
+ * the {@link DefaultExecutor} of the SDK is used.
+ * </p>
+ * <p>
+ * The calls run with the {@link RequestPriority} and the {@link Deadline} of the thread that started them, and
+ * can be cancelled through their futures.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+final class AsyncSupport {
+    /**
+     * A call to the plenigo API.
+     *
+     * @param <T> the type of the result
+     */
+    interface PlenigoCall<T> {
+        /**
+         * Executes the call.
+         *
+         * @return the result
+         *
+         * @throws PlenigoException whenever an error happens
+         */
+        T call() throws PlenigoException;
+    }
+
+    /**
+     * A call to the plenigo API for one element of a list.
+     *
+     * @param <I> the type of the input
+     * @param <T> the type of the result
+     */
+    interface PlenigoFunction<I, T> {
+        /**
+         * Executes the call.
+         *
+         * @param input the input element
+         *
+         * @return the result
+         *
+         * @throws PlenigoException whenever an error happens
+         */
+        T apply(I input) throws PlenigoException;
+    }
+
+    /**
+     * Default constructor.
+     */
+    private AsyncSupport() {
+    }
+
+    /**
+     * Runs the call on the configured executor with the {@link Deadline} of the calling thread. Cancelling the returned future
+     * cancels the call: it is not started if it is still queued, otherwise its request in flight is aborted and no more requests
+     * are sent.
+     *
+     * @param call the call to run
+     * @param <T>  the type of the result
+     *
+     * @return a future that completes with the result of the call, or exceptionally with the {@link PlenigoException} it threw
+     */
+    static <T> CompletableFuture<T> supply(PlenigoCall<T> call) {
+        Deadline deadline = Deadline.derive();
+        CancellableCall<T> future = new CancellableCall<T>(deadline);
+        try {
+            getExecutor().execute(deadline.bind(() -> future.run(call)));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new PlenigoException("The asynchronous call was rejected by the executor", e));
+        }
+        return future;
+    }
+
+    /**
+     * Runs the call for every input on the configured executor with at most the given amount of calls in flight, and waits for all of them.
+     * No more calls are started once one of them failed. The calling thread only waits, so it must not be a thread of the executor.
+     *
+     * @param inputs      the inputs
+     * @param parallelism the maximum amount of concurrent calls
+     * @param function    the call to run for every input
+     * @param <I>         the type of the inputs
+     * @param <T>         the type of the results
+     *
+     * @return the results in the order of the inputs
+     *
+     * @throws PlenigoException the exception of the first failed call, or if the thread was interrupted
+     */
+    static <I, T> List<T> invokeAll(List<? extends I> inputs, int parallelism, PlenigoFunction<? super I, ? extends T> function)
+            throws PlenigoException {
+        final Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        final AtomicBoolean failed = new AtomicBoolean();
+        List<CompletableFuture<? extends T>> futures = new ArrayList<CompletableFuture<? extends T>>(inputs.size());
+        try {
+            for (I input : inputs) {
+                permits.acquire();
+                if (failed.get()) {
+                    permits.release();
+                    break;
+                }
+                CompletableFuture<? extends T> future = supply(() -> function.apply(input));
+                future.whenComplete((result, error) -> {
+                    if (error != null) {
+                        failed.set(true);
+                    }
+                    permits.release();
+                });
+                futures.add(future);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PlenigoException(ErrorCode.SERVER, "Interrupted while starting the calls", e);
+        }
+        List<T> results = new ArrayList<T>(futures.size());
+        for (CompletableFuture<? extends T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    /**
+     * Waits for the result of a call.
+     *
+     * @param future the future of the call
+     * @param <T>    the type of the result
+     *
+     * @return the result
+     *
+     * @throws PlenigoException the exception thrown by the call, or if the thread was interrupted
+     */
+    static <T> T await(CompletableFuture<T> future) throws PlenigoException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PlenigoException(ErrorCode.SERVER, "Interrupted while waiting for the call", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof PlenigoException) {
+                throw (PlenigoException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new PlenigoException(ErrorCode.SERVER, ErrorCode.SERVER.getMsg(), cause);
+        }
+    }
+
+    /**
+     * Returns the configured executor or the default one. When a {@link PlenigoClient} or a {@link RequestPriority} other than
+     * {@link RequestPriority#INTERACTIVE} is bound to the calling thread, the returned executor runs the tasks with them bound.
+     *
+     * @return the executor
+     */
+    static Executor getExecutor() {
+        Executor executor = DefaultExecutor.orDefault(PlenigoManager.get().getExecutor());
+        PlenigoClient client = PlenigoClient.current();
+        RequestPriority priority = RequestPriority.current();
+        Executor target = executor;
+        if (priority != RequestPriority.INTERACTIVE) {
+            Executor prioritized = target;
+            target = task -> prioritized.execute(priority.bind(task));
+        }
+        if (client == null) {
+            return target;
+        }
+        Executor bound = target;
+        return task -> bound.execute(client.bind(task));
+    }
+
+    /**
+     * Future of a call started by {@link #supply(PlenigoCall)} that cancels the deadline of the call and interrupts the thread
+     * running it when it is cancelled.
+     *
+     * @param <T> the type of the result
+     */
+    private static final class CancellableCall<T> extends CompletableFuture<T> {
+        private final Deadline deadline;
+        private Thread runner;
+        private boolean interrupted;
+
+        /**
+         * Builds the future of a call.
+         *
+         * @param deadline the deadline the call runs with
+         */
+        CancellableCall(Deadline deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * Runs the call unless the future was cancelled before and completes the future.
+         *
+         * @param call the call
+         */
+        void run(PlenigoCall<T> call) {
+            synchronized (this) {
+                if (isDone()) {
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+            try {
+                complete(call.call());
+            } catch (Throwable e) {
+                completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    if (interrupted) {
+                        //the thread belongs to the executor, the interruption of the cancelled call must not leak into its next task
+                        Thread.interrupted();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                deadline.cancel();
+                synchronized (this) {
+                    if (runner != null) {
+                        interrupted = true;
+                        runner.interrupt();
+                    }
+                }
+            }
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoClient;
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.models.CatalogSnapshot;
+import com.plenigo.sdk.models.CategoryData;
+import com.plenigo.sdk.models.CategoryInfo;
+import com.plenigo.sdk.models.PagedList;
+import com.plenigo.sdk.models.ProductData;
+import com.plenigo.sdk.models.ProductInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * Loads the complete product and category catalog of the company into an immutable {@link CatalogSnapshot}. The product and category
+ * lists are paged through with {@link ProductService#getProductList(int, int)} and {@link ProductService#getCategoryList(int, int)},
+ * and the data of every product and category is loaded with a bounded amount of concurrent calls on the executor configured with
+ * {@link com.plenigo.sdk.PlenigoManager#configureExecutor(java.util.concurrent.Executor)}.
+ * </p>
+ * <p>
+ * A new snapshot is only published once it has been loaded completely, so readers never block and never see a partially loaded catalog.
+ * If a refresh fails the previous snapshot is kept. Product and category data are loaded through {@link ProductService}, so when the
+ * catalog cache is enabled with {@link com.plenigo.sdk.PlenigoManager#configureCatalogCache(int, long, long)} a refresh only calls
+ * the API for the entries that are not cached or whose soft time to live has passed.
+ * </p>
+ * <pre>
+ * CatalogSnapshotLoader loader = new CatalogSnapshotLoader(8);
+ * loader.start(TimeUnit.MINUTES.toMillis(10));
+ * ProductData product = loader.getSnapshot().getProduct(productId);
+ * </pre>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe and can be injected.
+ * </p>
+ */
+public final class CatalogSnapshotLoader {
+    /**
+     * Default maximum amount of concurrent calls used to load the product and category data.
+     */
+    public static final int DEFAULT_PARALLELISM = 8;
+    /**
+     * Page size used to list the products and categories, the largest one supported by the API.
+     */
+    static final int PAGE_SIZE = 100;
+
+    private static final Logger LOGGER = Logger.getLogger(CatalogSnapshotLoader.class.getName());
+    private static final CatalogSnapshot EMPTY_SNAPSHOT = new CatalogSnapshot(Collections.<String, ProductData>emptyMap(),
+            Collections.<String, CategoryData>emptyMap(), 0L);
+
+    private final int parallelism;
+    private final Object refreshLock = new Object();
+    private final AtomicLong failedRefreshes = new AtomicLong();
+    private volatile CatalogSnapshot snapshot = EMPTY_SNAPSHOT;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Builds a loader with the default parallelism.
+     */
+    public CatalogSnapshotLoader() {
+        this(DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Builds a loader.
+     *
+     * @param parallelism the maximum amount of concurrent calls used to load the product and category data
+     */
+    public CatalogSnapshotLoader(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Returns the latest complete snapshot.
+     *
+     * @return the snapshot, it is empty until the first load completed
+     */
+    public CatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Loads the catalog and publishes it as the new snapshot. Concurrent refreshes are executed one after the other.
+     *
+     * @return the new snapshot
+     *
+     * @throws PlenigoException if the catalog could not be loaded, the previous snapshot is kept
+     */
+    public CatalogSnapshot refresh() throws PlenigoException {
+        synchronized (refreshLock) {
+            long start = System.currentTimeMillis();
+            Map<String, ProductData> products = loadProducts();
+            Map<String, CategoryData> categories = loadCategories();
+            CatalogSnapshot loaded = new CatalogSnapshot(products, categories, System.currentTimeMillis());
+            snapshot = loaded;
+            LOGGER.log(Level.FINE, "Catalog snapshot loaded in {0} ms: {1}", new Object[]{loaded.getLoadedAt() - start, loaded});
+            return loaded;
+        }
+    }
+
+    /**
+     * Starts loading the catalog in the background right away and then periodically. Failed refreshes are logged and retried
+     * at the next period. The refreshes use the {@link PlenigoClient} bound to the calling thread, if any.
+     *
+     * @param refreshIntervalMillis the time in milliseconds between the end of a refresh and the start of the next one
+     */
+    public synchronized void start(long refreshIntervalMillis) {
+        if (scheduler != null) {
+            throw new IllegalStateException("The catalog snapshot loader is already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "plenigo-catalog-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runnable refresh = this::refreshQuietly;
+        PlenigoClient client = PlenigoClient.current();
+        if (client != null) {
+            refresh = client.bind(refresh);
+        }
+        scheduler.scheduleWithFixedDelay(refresh, 0L, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic refresh, the current snapshot stays available.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Returns how many refreshes failed.
+     *
+     * @return the amount of failed refreshes
+     */
+    public long getFailedRefreshCount() {
+        return failedRefreshes.get();
+    }
+
+    /**
+     * Refreshes the snapshot, logging the errors instead of throwing them.
+     */
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (PlenigoException | RuntimeException e) {
+            failedRefreshes.incrementAndGet();
+            LOGGER.log(Level.WARNING, "The catalog snapshot could not be refreshed, the previous one is kept", e);
+        }
+    }
+
+    /**
+     * Lists all the products and loads their data.
+     *
+     * @return the product data by product id, in the order of the list
+     *
+     * @throws PlenigoException whenever an error happens
+     */
+    private Map<String, ProductData> loadProducts() throws PlenigoException {
+        List<String> productIds = new ArrayList<String>();
+        int page = 0;
+        PagedList<ProductInfo> products;
+        do {
+            products = ProductService.getProductList(PAGE_SIZE, page++);
+            for (ProductInfo product : products.getList()) {
+                productIds.add(product.getProductId());
+            }
+        } while (hasMorePages(products, productIds.size()));
+        List<ProductData> data = AsyncSupport.invokeAll(productIds, parallelism, ProductService::getProductData);
+        Map<String, ProductData> byId = new LinkedHashMap<String, ProductData>();
+        for (int i = 0; i < productIds.size(); i++) {
+            byId.put(productIds.get(i), data.get(i));
+        }
+        return byId;
+    }
+
+    /**
+     * Lists all the categories and loads their data.
+     *
+     * @return the category data by category id, in the order of the list
+     *
+     * @throws PlenigoException whenever an error happens
+     */
+    private Map<String, CategoryData> loadCategories() throws PlenigoException {
+        List<String> categoryIds = new ArrayList<String>();
+        int page = 0;
+        PagedList<CategoryInfo> categories;
+        do {
+            categories = ProductService.getCategoryList(PAGE_SIZE, page++);
+            for (CategoryInfo category : categories.getList()) {
+                categoryIds.add(category.getCategoryId());
+            }
+        } while (hasMorePages(categories, categoryIds.size()));
+        List<CategoryData> data = AsyncSupport.invokeAll(categoryIds, parallelism, ProductService::getCategoryData);
+        Map<String, CategoryData> byId = new LinkedHashMap<String, CategoryData>();
+        for (int i = 0; i < categoryIds.size(); i++) {
+            byId.put(categoryIds.get(i), data.get(i));
+        }
+        return byId;
+    }
+
+    /**
+     * Checks if there are more pages after the given one.
+     *
+     * @param page     the last page that was read
+     * @param received the amount of elements received so far
+     *
+     * @return true if the next page has to be read
+     */
+    private static boolean hasMorePages(PagedList<?> page, int received) {
+        return page.getList().size() >= PAGE_SIZE && received < page.getTotalElements();
+    }
+}
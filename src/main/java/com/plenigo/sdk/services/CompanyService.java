@@ -5,8 +5,7 @@ import com.plenigo.sdk.PlenigoManager;
 import com.plenigo.sdk.internal.ApiParams;
 import com.plenigo.sdk.internal.ApiResults;
 import com.plenigo.sdk.internal.ApiURLs;
-import com.plenigo.sdk.internal.util.HttpConfig;
-import com.plenigo.sdk.internal.util.JWT;
+import com.plenigo.sdk.internal.util.DateParser;
 import com.plenigo.sdk.internal.util.SdkUtils;
 import com.plenigo.sdk.internal.util.ValidationUtils;
 import com.plenigo.sdk.models.CompanyUser;
@@ -15,12 +14,13 @@ import com.plenigo.sdk.models.ElementList;
 import com.plenigo.sdk.models.PageRequest;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -40,7 +40,6 @@ import static com.plenigo.sdk.internal.util.SdkUtils.toCsv;
  */
 public final class CompanyService {
     private static final Logger LOGGER = Logger.getLogger(CompanyService.class.getName());
-    private static final String RESPONSE_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss Z";
 
 
     /**
@@ -60,14 +59,92 @@ public final class CompanyService {
      * @throws PlenigoException if any error happens
      */
     public static ElementList<CompanyUser> getUserList(PageRequest request) throws PlenigoException {
-        Map<String, Object> params = new HashMap<String, Object>();
+        String queryString = buildPageQueryString(request);
+        List<CompanyUser> companyUsers = new LinkedList<CompanyUser>();
+        Map<String, Object> objectMap = StreamingSupport.get(PlenigoManager.get().getSnapshot(), ApiURLs.COMPANY_USERS, ApiURLs.COMPANY_USERS, queryString,
+                ApiResults.ELEMENTS, CompanyUser.class, CompanyService::buildCompanyUser, companyUsers::add);
+        return buildElementListForCompanyUsers(objectMap, companyUsers, request.getPageNumber());
+    }
+
+    /**
+     * Returns the users of a page and hands them to the consumer one at a time while the response is being read, so that only one user
+     * of the page is held in memory at any time, see {@link StreamingSupport}.
+     *
+     * @param request  the page to load
+     * @param consumer consumes the company users of the page in the order of the response, it is called by the calling thread
+     *
+     * @return the total amount of company users, of all the pages
+     *
+     * @throws PlenigoException if any error happens
+     */
+    public static long streamUserList(PageRequest request, Consumer<? super CompanyUser> consumer) throws PlenigoException {
+        String queryString = buildPageQueryString(request);
+        Map<String, Object> objectMap = StreamingSupport.get(PlenigoManager.get().getSnapshot(), ApiURLs.COMPANY_USERS, ApiURLs.COMPANY_USERS, queryString,
+                ApiResults.ELEMENTS, CompanyUser.class, CompanyService::buildCompanyUser, consumer);
+        return getTotalElements(objectMap);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getUserList(PageRequest)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param request search criteria
+     *
+     * @return a future with an element list of company users
+     */
+    public static CompletableFuture<ElementList<CompanyUser>> getUserListAsync(PageRequest request) {
+        return AsyncSupport.supply(() -> getUserList(request));
+    }
+
+    /**
+     * Returns the company users starting with the page of the request, the pages are loaded with {@link #getUserList(PageRequest)} while
+     * they are iterated and the following page is prefetched, see {@link PageIterable}.
+     *
+     * @param request the page size and the first page to load
+     *
+     * @return the lazily loaded company users
+     */
+    public static PageIterable<CompanyUser> iterateUserList(PageRequest request) {
         ValidationUtils.validate(request);
-        params.put(ApiParams.PAGE_SIZE, request.getPageSize());
-        params.put(ApiParams.PAGE_NUMBER, request.getPageNumber());
-        Map<String, Object> objectMap = HttpConfig.get().getClient().get(PlenigoManager.get().getUrl(), ApiURLs.COMPANY_USERS, ApiURLs.COMPANY_USERS,
-                buildUrlQueryString(params),
-                JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
-        return buildElementListForCompanyUsers(objectMap, request.getPageNumber());
+        int pageSize = request.getPageSize();
+        return new PageIterable<CompanyUser>(pageSize, request.getPageNumber(),
+                page -> PageIterable.Page.of(getUserList(new PageRequest(page, pageSize))));
+    }
+
+    /**
+     * Returns all the company users starting with the page of the request and hands them to the consumer. The first page is loaded
+     * to find out the amount of pages, the remaining pages are loaded concurrently on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The consumer is always called by the calling thread,
+     * which must not be a thread of that executor.
+     *
+     * @param request     the page size and the first page to load
+     * @param parallelism the maximum amount of pages that are loaded or wait to be consumed at the same time
+     * @param ordered     true to hand the users to the consumer in page order, false to hand every page over as soon as it arrives
+     * @param consumer    consumes the company users
+     *
+     * @return the amount of company users handed to the consumer
+     *
+     * @throws PlenigoException if any error happens, no more pages are requested afterwards
+     */
+    public static long forEachUser(PageRequest request, int parallelism, boolean ordered, Consumer<? super CompanyUser> consumer)
+            throws PlenigoException {
+        ElementList<CompanyUser> firstPage = getUserList(request);
+        int pageSize = firstPage.getSize();
+        if (pageSize <= 0) {
+            pageSize = request.getPageSize();
+        }
+        int firstPageNumber = request.getPageNumber();
+        int lastPageNumber = PageFanOut.lastPage(firstPageNumber, firstPage.getTotalElements(), pageSize);
+        LOGGER.log(Level.FINEST, "Loading the company user pages {0} to {1} with a parallelism of {2}",
+                new Object[]{firstPageNumber + 1, lastPageNumber - 1, parallelism});
+        final int requestPageSize = pageSize;
+        return PageFanOut.consume(firstPageNumber, lastPageNumber, parallelism, ordered, page -> {
+            if (page == firstPageNumber) {
+                return firstPage.getElements();
+            }
+            return getUserList(new PageRequest(page, requestPageSize)).getElements();
+        }, consumer);
     }
 
     /**
@@ -82,80 +159,112 @@ public final class CompanyService {
     public static List<CompanyUser> getUserList(List<String> userList) throws PlenigoException {
         Map<String, Object> params = new HashMap<String, Object>();
         params.put(ApiParams.USER_IDS, toCsv(userList));
-        Map<String, Object> objectMap = HttpConfig.get().getClient().get(PlenigoManager.get().getUrl(), ApiURLs.COMPANY_USERS_SELECT,
-                ApiURLs.COMPANY_USERS_SELECT, buildUrlQueryString(params), JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(),
-                        PlenigoManager.get().getSecret()));
-        Object companyUsersObj = objectMap.get(ApiResults.ELEMENTS);
-        return buildCompanyUserList(companyUsersObj);
+        List<CompanyUser> companyUsers = new LinkedList<CompanyUser>();
+        StreamingSupport.get(PlenigoManager.get().getSnapshot(), ApiURLs.COMPANY_USERS_SELECT, ApiURLs.COMPANY_USERS_SELECT, buildUrlQueryString(params),
+                ApiResults.ELEMENTS, CompanyUser.class, CompanyService::buildCompanyUser, companyUsers::add);
+        return companyUsers;
     }
 
     /**
-     * Builds an element list of company users.
+     * Asynchronous variant of {@link #getUserList(List)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
      *
-     * @param objectMap  the json representation
-     * @param pageNumber the page number to use
+     * @param userList user list to find
      *
-     * @return an element list
+     * @return a future with the users found related to the company
+     */
+    public static CompletableFuture<List<CompanyUser>> getUserListAsync(List<String> userList) {
+        return AsyncSupport.supply(() -> getUserList(userList));
+    }
+
+    /**
+     * Validates a page request and builds its query string.
+     *
+     * @param request the page request
+     *
+     * @return the query string
+     */
+    private static String buildPageQueryString(PageRequest request) {
+        Map<String, Object> params = new HashMap<String, Object>();
+        ValidationUtils.validate(request);
+        params.put(ApiParams.PAGE_SIZE, request.getPageSize());
+        params.put(ApiParams.PAGE_NUMBER, request.getPageNumber());
+        return buildUrlQueryString(params);
+    }
+
+    /**
+     * Returns the total amount of elements of a list response.
+     *
+     * @param objectMap the json representation
+     *
+     * @return the total amount of elements
      */
-    private static ElementList<CompanyUser> buildElementListForCompanyUsers(Map<String, Object> objectMap, int pageNumber) {
+    private static long getTotalElements(Map<String, Object> objectMap) {
         String totalElementsStr = SdkUtils.getValueIfNotNull(objectMap, ApiResults.TOTAL_ELEMENTS);
         long totalElements = 0;
         if (!totalElementsStr.isEmpty()) {
             totalElements = Long.parseLong(totalElementsStr);
         }
+        return totalElements;
+    }
+
+    /**
+     * Builds an element list of company users.
+     *
+     * @param objectMap        the json representation without the elements
+     * @param companyUsersList the company users of the page
+     * @param pageNumber       the page number to use
+     *
+     * @return an element list
+     */
+    private static ElementList<CompanyUser> buildElementListForCompanyUsers(Map<String, Object> objectMap, List<CompanyUser> companyUsersList,
+                                                                            int pageNumber) {
+        long totalElements = getTotalElements(objectMap);
         String pageSizeStr = SdkUtils.getValueIfNotNull(objectMap, ApiResults.PAGE_SIZE);
         int pageSize = 0;
         if (!pageSizeStr.isEmpty()) {
             pageSize = Integer.parseInt(pageSizeStr);
         }
-        Object companyUsersObj = objectMap.get(ApiResults.ELEMENTS);
-        List<CompanyUser> companyUsersList = buildCompanyUserList(companyUsersObj);
         return new ElementList<CompanyUser>(pageNumber, pageSize, totalElements, companyUsersList);
     }
 
     /**
-     * Builds a list of company users from the company user json list.
+     * Builds a company user from the company user json representation.
      *
-     * @param companyUsersObj the json list representation
+     * @param companyUser the json representation
      *
-     * @return a list of company users
+     * @return the company user
      */
-    private static List<CompanyUser> buildCompanyUserList(Object companyUsersObj) {
-        List<CompanyUser> companyUsersList = new LinkedList<CompanyUser>();
-        if (companyUsersObj != null && companyUsersObj instanceof List) {
-            List<Map<String, Object>> companyUsers = (List<Map<String, Object>>) companyUsersObj;
-            for (Map<String, Object> companyUser : companyUsers) {
-                String customerId = getValueIfNotNull(companyUser, ApiResults.CUST_ID);
-                String email = getValueIfNotNull(companyUser, ApiResults.EMAIL);
-                String userName = getValueIfNotNull(companyUser, ApiResults.USERNAME);
-                String language = getValueIfNotNull(companyUser, ApiResults.LANGUAGE);
-                String gender = getValueIfNotNull(companyUser, ApiResults.GENDER);
-                String firstName = getValueIfNotNull(companyUser, ApiResults.FIRST_NAME);
-                String name = getValueIfNotNull(companyUser, ApiResults.LAST_NAME);
-                String mobileNumber = getValueIfNotNull(companyUser, ApiResults.MOBILE_NUMBER);
-                String userState = getValueIfNotNull(companyUser, ApiResults.USER_STATE);
-                String birthdayStr = getValueIfNotNull(companyUser, ApiResults.BIRTHDAY);
-                Date birthday = null;
-                if (isNotBlank(birthdayStr)) {
-                    try {
-                        birthday = new SimpleDateFormat(RESPONSE_DATE_FORMAT).parse(birthdayStr);
-                    } catch (ParseException e) {
-                        LOGGER.log(Level.SEVERE, "Could not parse the following date string: " + birthdayStr, e);
-                    }
-                }
-                String postCode = getValueIfNotNull(companyUser, ApiResults.POST_CODE);
-                String street = getValueIfNotNull(companyUser, ApiResults.STREET);
-                String additionalAddressInfo = getValueIfNotNull(companyUser, ApiResults.ADDITIONAL_ADDRESS_INFO);
-                String city = getValueIfNotNull(companyUser, ApiResults.CITY);
-                String state = getValueIfNotNull(companyUser, ApiResults.STATE);
-                String country = getValueIfNotNull(companyUser, ApiResults.COUNTRY);
-                String agreementState = getValueIfNotNull(companyUser, ApiResults.AGREEMENT_STATE);
-                CompanyUserBillingAddress billingAddress = buildBillingAddressInfo(companyUser);
-                companyUsersList.add(new CompanyUser(customerId, email, userName, language, gender, firstName, name, mobileNumber, userState, birthday,
-                        postCode, street, additionalAddressInfo, city, state, country, agreementState, billingAddress));
+    private static CompanyUser buildCompanyUser(Map<String, Object> companyUser) {
+        String customerId = getValueIfNotNull(companyUser, ApiResults.CUST_ID);
+        String email = getValueIfNotNull(companyUser, ApiResults.EMAIL);
+        String userName = getValueIfNotNull(companyUser, ApiResults.USERNAME);
+        String language = getValueIfNotNull(companyUser, ApiResults.LANGUAGE);
+        String gender = getValueIfNotNull(companyUser, ApiResults.GENDER);
+        String firstName = getValueIfNotNull(companyUser, ApiResults.FIRST_NAME);
+        String name = getValueIfNotNull(companyUser, ApiResults.LAST_NAME);
+        String mobileNumber = getValueIfNotNull(companyUser, ApiResults.MOBILE_NUMBER);
+        String userState = getValueIfNotNull(companyUser, ApiResults.USER_STATE);
+        String birthdayStr = getValueIfNotNull(companyUser, ApiResults.BIRTHDAY);
+        Date birthday = null;
+        if (isNotBlank(birthdayStr)) {
+            try {
+                birthday = DateParser.WITH_OFFSET.parse(birthdayStr);
+            } catch (ParseException e) {
+                LOGGER.log(Level.SEVERE, "Could not parse the following date string: " + birthdayStr, e);
             }
         }
-        return companyUsersList;
+        String postCode = getValueIfNotNull(companyUser, ApiResults.POST_CODE);
+        String street = getValueIfNotNull(companyUser, ApiResults.STREET);
+        String additionalAddressInfo = getValueIfNotNull(companyUser, ApiResults.ADDITIONAL_ADDRESS_INFO);
+        String city = getValueIfNotNull(companyUser, ApiResults.CITY);
+        String state = getValueIfNotNull(companyUser, ApiResults.STATE);
+        String country = getValueIfNotNull(companyUser, ApiResults.COUNTRY);
+        String agreementState = getValueIfNotNull(companyUser, ApiResults.AGREEMENT_STATE);
+        CompanyUserBillingAddress billingAddress = buildBillingAddressInfo(companyUser);
+        return new CompanyUser(customerId, email, userName, language, gender, firstName, name, mobileNumber, userState, birthday,
+                postCode, street, additionalAddressInfo, city, state, country, agreementState, billingAddress);
     }
 
     /**
@@ -3,17 +3,16 @@ package com.plenigo.sdk.services;
 
 import com.plenigo.sdk.PlenigoException;
 import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.internal.cache.CookieCache;
+import com.plenigo.sdk.internal.models.ConfigurationSnapshot;
 import com.plenigo.sdk.internal.models.MeteredUserData;
 import com.plenigo.sdk.models.TimePeriod;
 import com.plenigo.sdk.internal.services.InternalMeterService;
-import com.plenigo.sdk.internal.util.CookieParser;
 import com.plenigo.sdk.internal.util.EncryptionUtils;
 import com.plenigo.sdk.internal.util.HexUtils;
 import com.plenigo.sdk.internal.util.SdkUtils;
 
 import java.io.UnsupportedEncodingException;
-import java.net.HttpCookie;
-import java.util.Arrays;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -109,29 +108,37 @@ public final class MeterService {
     }
 
     /**
-     * This method parses the metered view data from the user in the cookie.
+     * This method parses the metered view data from the encrypted value of the metered cookie. If the cookie cache is enabled
+     * the decoded data is taken from it, the validity of the metered period is still checked every time the data is used. The cookie is
+     * decrypted with the company id of one configuration snapshot, the data is cached for that snapshot only.
      *
-     * @param cookieHeader The cookie header
+     * @param cookieValue The encrypted value of the metered view cookie
      *
      * @return The metered user data
      *
      * @throws com.plenigo.sdk.PlenigoException if there was an error decrypting the cookie
      */
-    private static MeteredUserData getMeteredUserData(String cookieHeader) throws PlenigoException {
-        HttpCookie userMeteredDataCookie = CookieParser.getUserMeteredDataCookie(cookieHeader);
-        if (userMeteredDataCookie.getValue() == null || userMeteredDataCookie.getValue().trim().isEmpty()) {
+    static MeteredUserData getMeteredUserDataFromCookieValue(String cookieValue) throws PlenigoException {
+        if (cookieValue == null || cookieValue.trim().isEmpty()) {
             return null;
         }
-        String data = EncryptionUtils.get().decryptWithAES(PlenigoManager.get().getCompanyId(),
-                userMeteredDataCookie.getValue(), //cookie
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        CookieCache cookieCache = PlenigoManager.get().getCookieCache();
+        if (cookieCache != null) {
+            MeteredUserData meteredUserData = cookieCache.getMeteredUserData(config, cookieValue);
+            if (meteredUserData != null) {
+                return meteredUserData;
+            }
+        }
+        String data = EncryptionUtils.get().decryptWithAES(config.getCompanyId(),
+                cookieValue, //cookie
                 METERED_INIT_VECTOR); //init vector
         LOGGER.log(Level.FINEST, "Resulting data from decryption of meter cookie: {0}", data);
-        String[] userData = data.split("\\|");
-        if (userData.length < MIN_EXPECTED_SIZE) {
-            //invalid data that couldnt be parsed
-            return null;
+        MeteredUserData meteredUserData = MeteredUserDataDecoder.decode(data);
+        if (cookieCache != null) {
+            cookieCache.putMeteredUserData(config, cookieValue, meteredUserData);
         }
-        return parseMeteredUserData(userData);
+        return meteredUserData;
     }
 
     /**
@@ -145,14 +152,18 @@ public final class MeterService {
      * @throws PlenigoException If an error happens during cookie parsing
      */
     public static boolean hasFreeViews(String cookieHeader, String requestQueryString) throws PlenigoException {
-        MeteredUserData meteredUserData = getMeteredUserData(cookieHeader);
-        if (meteredUserData == null) {
-            if (isLimitReachedByUrlParam(requestQueryString)) {
-                return false;
-            }
-            return true;
-        }
-        boolean isLoggedIn = UserService.isLoggedIn(cookieHeader);
+        return new PlenigoRequestContext(cookieHeader, requestQueryString).hasFreeViews();
+    }
+
+    /**
+     * Returns a flag indicating if the user still has free views left based on the already parsed metered data.
+     *
+     * @param meteredUserData The metered user data taken from the cookie
+     * @param isLoggedIn      Flag indicating if the user is logged in
+     *
+     * @return True if the user still has free views left, false otherwise
+     */
+    static boolean hasFreeViews(MeteredUserData meteredUserData, boolean isLoggedIn) {
         boolean isCookieValid = checkCookieValidity(meteredUserData);
         return internalMeterService.hasFreeViews(meteredUserData, isLoggedIn, !isCookieValid);
     }
@@ -167,7 +178,7 @@ public final class MeterService {
      *
      * @throws PlenigoException if an encoding error occurs
      */
-    private static boolean isLimitReachedByUrlParam(String requestQueryString) throws PlenigoException {
+    static boolean isLimitReachedByUrlParam(String requestQueryString) throws PlenigoException {
         if (requestQueryString != null && requestQueryString.contains(METERED_LIMIT_REACHED)) {
             try {
                 Map<String, String> stringStringMap = SdkUtils.parseQueryStringToMap(requestQueryString);
@@ -222,50 +233,4 @@ public final class MeterService {
         }
         return isCookieValid;
     }
-
-    /**
-     * Parses the data from the input array.
-     *
-     * @param userData The input array with the metered user data
-     *
-     * @return The metered user data object
-     *
-     * @throws com.plenigo.sdk.PlenigoException when an error during parsing occurs
-     */
-    private static MeteredUserData parseMeteredUserData(String[] userData) throws PlenigoException {
-        Boolean isMeteredViewActivated = SdkUtils.getArrayValueIfExistsOrNull(METERED_VIEW_ACTIVATED_IDX_POS, userData, Boolean.class);
-        Long freeViewsAllowed = SdkUtils.getArrayValueIfExistsOrNull(FREE_VIEWS_ALLOWED_IDX_POS, userData, Long.class);
-        Long viewsTaken = SdkUtils.getArrayValueIfExistsOrNull(FREE_VIEWS_TAKEN_IDX_POS, userData, Long.class);
-        Boolean isLimitReached = SdkUtils.getArrayValueIfExistsOrNull(LIMIT_REACHED_IDX_POS, userData, Boolean.class);
-        Long loginFreeViewsAllowed = SdkUtils.getArrayValueIfExistsOrNull(LOGIN_FREE_VIEWS_ALLOWED_IDX_POS, userData, Long.class);
-        Long loginFreeViewsTaken = SdkUtils.getArrayValueIfExistsOrNull(LOGIN_FREE_VIEWS_TAKEN_IDX_POS, userData, Long.class);
-        Boolean isLoginLimitReached = SdkUtils.getArrayValueIfExistsOrNull(LOGIN_FREE_VIEWS_LIMIT_REACHED_IDX_POS, userData, Boolean.class);
-        String uniqueVisitedSites = SdkUtils.getArrayValueIfExistsOrNull(UNIQUELY_VISITED_SITES_IDX_POS, userData, String.class);
-        MeteredUserData meteredUserData = new MeteredUserData(isMeteredViewActivated, freeViewsAllowed, viewsTaken, isLimitReached, loginFreeViewsAllowed,
-                loginFreeViewsTaken, isLoginLimitReached);
-        if (uniqueVisitedSites != null && !uniqueVisitedSites.trim().isEmpty()) {
-            String[] uniqueVisitedSitesArr = uniqueVisitedSites.split(",");
-            meteredUserData.getUniqueVisitedSites().addAll(Arrays.asList(uniqueVisitedSitesArr));
-        }
-        Long startTime = SdkUtils.getArrayValueIfExistsOrNull(START_TIME_IDX_POS, userData, Long.class);
-        if (startTime != null) {
-            meteredUserData.setStartTime(startTime);
-        }
-
-        String meteredPeriodVal = SdkUtils.getArrayValueIfExistsOrNull(METERED_PERIOD_IDX_POS, userData, String.class);
-        if (meteredPeriodVal != null && !meteredPeriodVal.trim().isEmpty()) {
-            meteredUserData.setMeteredPeriod(meteredPeriodVal.trim());
-        }
-
-        Boolean startWithFirstDay = SdkUtils.getArrayValueIfExistsOrNull(START_WITH_FIRST_DAY_IDX_POS, userData, Boolean.class);
-        if (startWithFirstDay != null) {
-            meteredUserData.setStartWithFirstDay(startWithFirstDay);
-        }
-
-        Long cookieCreationTime = SdkUtils.getArrayValueIfExistsOrNull(COOKIE_CREATION_TIME_IDX_POS, userData, Long.class);
-        if (cookieCreationTime != null) {
-            meteredUserData.setCookieCreationTime(cookieCreationTime);
-        }
-        return meteredUserData;
-    }
 }
@@ -0,0 +1,248 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.internal.models.MeteredUserData;
+
+import java.util.Set;
+
+/**
+ * <p>
+ * Decodes the decrypted value of the metered view cookie into {@link MeteredUserData}.
+ * </p>
+ * <p>
+ * The payload is a list of '|' separated fields whose meaning is given by their position, see
+ * {@link MeterService#FREE_VIEWS_ALLOWED_IDX_POS} and the rest of the index constants. The decoder walks the payload once, keeps the
+ * numeric and boolean fields as primitives until the data object is built and stops as soon as the last known field has been read.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+final class MeteredUserDataDecoder {
+    private static final char FIELD_SEPARATOR = '|';
+    private static final char SITE_SEPARATOR = ',';
+    private static final String TRUE = "true";
+    private static final int RADIX = 10;
+
+    /**
+     * Default constructor.
+     */
+    private MeteredUserDataDecoder() {
+    }
+
+    /**
+     * Decodes the metered user data from the decrypted cookie payload.
+     *
+     * @param data the decrypted cookie payload
+     *
+     * @return the metered user data or null if the payload does not contain enough fields
+     *
+     * @throws PlenigoException if a numeric field could not be parsed
+     */
+    static MeteredUserData decode(String data) throws PlenigoException {
+        boolean meteredViewActivated = false;
+        long freeViewsAllowed = 0;
+        long viewsTaken = 0;
+        boolean limitReached = false;
+        long loginFreeViewsAllowed = 0;
+        long loginFreeViewsTaken = 0;
+        boolean loginLimitReached = false;
+        long startTime = 0;
+        boolean startWithFirstDay = false;
+        long cookieCreationTime = 0;
+        int sitesStart = -1;
+        int sitesEnd = -1;
+        String meteredPeriod = null;
+        //bit n is set when the field at index position n is present and not empty
+        int presentFields = 0;
+        int fieldCount = 0;
+
+        int length = data.length();
+        int fieldStart = 0;
+        int index = 0;
+        while (index <= MeterService.COOKIE_CREATION_TIME_IDX_POS && fieldStart <= length) {
+            int fieldEnd = data.indexOf(FIELD_SEPARATOR, fieldStart);
+            if (fieldEnd == -1) {
+                fieldEnd = length;
+            }
+            if (fieldEnd > fieldStart) {
+                presentFields |= 1 << index;
+                fieldCount = index + 1;
+                switch (index) {
+                    case MeterService.METERED_VIEW_ACTIVATED_IDX_POS:
+                        meteredViewActivated = parseBoolean(data, fieldStart, fieldEnd);
+                        break;
+                    case MeterService.FREE_VIEWS_ALLOWED_IDX_POS:
+                        freeViewsAllowed = parseLong(data, fieldStart, fieldEnd, index);
+                        break;
+                    case MeterService.FREE_VIEWS_TAKEN_IDX_POS:
+                        viewsTaken = parseLong(data, fieldStart, fieldEnd, index);
+                        break;
+                    case MeterService.LIMIT_REACHED_IDX_POS:
+                        limitReached = parseBoolean(data, fieldStart, fieldEnd);
+                        break;
+                    case MeterService.UNIQUELY_VISITED_SITES_IDX_POS:
+                        sitesStart = fieldStart;
+                        sitesEnd = fieldEnd;
+                        break;
+                    case MeterService.LOGIN_FREE_VIEWS_ALLOWED_IDX_POS:
+                        loginFreeViewsAllowed = parseLong(data, fieldStart, fieldEnd, index);
+                        break;
+                    case MeterService.LOGIN_FREE_VIEWS_TAKEN_IDX_POS:
+                        loginFreeViewsTaken = parseLong(data, fieldStart, fieldEnd, index);
+                        break;
+                    case MeterService.LOGIN_FREE_VIEWS_LIMIT_REACHED_IDX_POS:
+                        loginLimitReached = parseBoolean(data, fieldStart, fieldEnd);
+                        break;
+                    case MeterService.START_TIME_IDX_POS:
+                        startTime = parseLong(data, fieldStart, fieldEnd, index);
+                        break;
+                    case MeterService.METERED_PERIOD_IDX_POS:
+                        meteredPeriod = data.substring(fieldStart, fieldEnd).trim();
+                        break;
+                    case MeterService.START_WITH_FIRST_DAY_IDX_POS:
+                        startWithFirstDay = parseBoolean(data, fieldStart, fieldEnd);
+                        break;
+                    case MeterService.COOKIE_CREATION_TIME_IDX_POS:
+                        cookieCreationTime = parseLong(data, fieldStart, fieldEnd, index);
+                        break;
+                    default:
+                        //fields that are not used by the SDK
+                        break;
+                }
+            }
+            fieldStart = fieldEnd + 1;
+            index++;
+        }
+        if (fieldCount < MeterService.MIN_EXPECTED_SIZE) {
+            //invalid data that couldnt be parsed
+            return null;
+        }
+
+        MeteredUserData meteredUserData = new MeteredUserData(
+                isPresent(presentFields, MeterService.METERED_VIEW_ACTIVATED_IDX_POS) ? Boolean.valueOf(meteredViewActivated) : null,
+                isPresent(presentFields, MeterService.FREE_VIEWS_ALLOWED_IDX_POS) ? Long.valueOf(freeViewsAllowed) : null,
+                isPresent(presentFields, MeterService.FREE_VIEWS_TAKEN_IDX_POS) ? Long.valueOf(viewsTaken) : null,
+                isPresent(presentFields, MeterService.LIMIT_REACHED_IDX_POS) ? Boolean.valueOf(limitReached) : null,
+                isPresent(presentFields, MeterService.LOGIN_FREE_VIEWS_ALLOWED_IDX_POS) ? Long.valueOf(loginFreeViewsAllowed) : null,
+                isPresent(presentFields, MeterService.LOGIN_FREE_VIEWS_TAKEN_IDX_POS) ? Long.valueOf(loginFreeViewsTaken) : null,
+                isPresent(presentFields, MeterService.LOGIN_FREE_VIEWS_LIMIT_REACHED_IDX_POS) ? Boolean.valueOf(loginLimitReached) : null);
+        if (sitesStart != -1) {
+            addUniqueVisitedSites(data, sitesStart, sitesEnd, meteredUserData.getUniqueVisitedSites());
+        }
+        if (isPresent(presentFields, MeterService.START_TIME_IDX_POS)) {
+            meteredUserData.setStartTime(startTime);
+        }
+        if (meteredPeriod != null && !meteredPeriod.isEmpty()) {
+            meteredUserData.setMeteredPeriod(meteredPeriod);
+        }
+        if (isPresent(presentFields, MeterService.START_WITH_FIRST_DAY_IDX_POS)) {
+            meteredUserData.setStartWithFirstDay(startWithFirstDay);
+        }
+        if (isPresent(presentFields, MeterService.COOKIE_CREATION_TIME_IDX_POS)) {
+            meteredUserData.setCookieCreationTime(cookieCreationTime);
+        }
+        return meteredUserData;
+    }
+
+    /**
+     * Checks if the field at the given index position was present in the payload.
+     *
+     * @param presentFields the bit set of present fields
+     * @param index         the index position
+     *
+     * @return true if the field was present
+     */
+    private static boolean isPresent(int presentFields, int index) {
+        return (presentFields & (1 << index)) != 0;
+    }
+
+    /**
+     * Adds the ',' separated sites between the given positions of the payload.
+     *
+     * @param data  the decrypted cookie payload
+     * @param start the start of the field (inclusive)
+     * @param end   the end of the field (exclusive)
+     * @param sites the set the sites are added to
+     */
+    private static void addUniqueVisitedSites(String data, int start, int end, Set<String> sites) {
+        int siteStart = start;
+        while (siteStart < end) {
+            int siteEnd = data.indexOf(SITE_SEPARATOR, siteStart);
+            if (siteEnd == -1 || siteEnd > end) {
+                siteEnd = end;
+            }
+            if (siteEnd > siteStart) {
+                sites.add(data.substring(siteStart, siteEnd));
+            }
+            siteStart = siteEnd + 1;
+        }
+    }
+
+    /**
+     * Parses a boolean the same way {@link Boolean#parseBoolean(String)} does without creating a substring.
+     *
+     * @param data  the decrypted cookie payload
+     * @param start the start of the field (inclusive)
+     * @param end   the end of the field (exclusive)
+     *
+     * @return true if the field is equal to "true" ignoring the case
+     */
+    private static boolean parseBoolean(String data, int start, int end) {
+        return end - start == TRUE.length() && data.regionMatches(true, start, TRUE, 0, TRUE.length());
+    }
+
+    /**
+     * Parses a signed decimal long without creating a substring.
+     *
+     * @param data  the decrypted cookie payload
+     * @param start the start of the field (inclusive)
+     * @param end   the end of the field (exclusive)
+     * @param index the index position of the field, used for the error message
+     *
+     * @return the parsed value
+     *
+     * @throws PlenigoException if the field is not a valid number
+     */
+    private static long parseLong(String data, int start, int end, int index) throws PlenigoException {
+        boolean negative = data.charAt(start) == '-';
+        int pos = start;
+        if (negative || data.charAt(start) == '+') {
+            pos++;
+        }
+        if (pos == end) {
+            throw invalidNumber(data, start, end, index);
+        }
+        long result = 0;
+        for (; pos < end; pos++) {
+            int digit = Character.digit(data.charAt(pos), RADIX);
+            if (digit < 0 || result < (Long.MIN_VALUE + digit) / RADIX) {
+                throw invalidNumber(data, start, end, index);
+            }
+            //accumulate negatively so that Long.MIN_VALUE can be parsed
+            result = result * RADIX - digit;
+        }
+        if (!negative) {
+            if (result == Long.MIN_VALUE) {
+                throw invalidNumber(data, start, end, index);
+            }
+            return -result;
+        }
+        return result;
+    }
+
+    /**
+     * Creates the exception thrown when a numeric field could not be parsed.
+     *
+     * @param data  the decrypted cookie payload
+     * @param start the start of the field (inclusive)
+     * @param end   the end of the field (exclusive)
+     * @param index the index position of the field
+     *
+     * @return the exception
+     */
+    private static PlenigoException invalidNumber(String data, int start, int end, int index) {
+        String message = "Could not convert the metered data value " + data.substring(start, end) + " at position " + index + " to a number";
+        return new PlenigoException(message, new NumberFormatException(message));
+    }
+}
@@ -5,13 +5,14 @@ import com.plenigo.sdk.PlenigoManager;
 import com.plenigo.sdk.internal.ApiParams;
 import com.plenigo.sdk.internal.ApiResults;
 import com.plenigo.sdk.internal.ApiURLs;
+import com.plenigo.sdk.internal.models.ConfigurationSnapshot;
 import com.plenigo.sdk.internal.util.HttpConfig;
-import com.plenigo.sdk.internal.util.JWT;
 import com.plenigo.sdk.internal.util.SdkUtils;
 import com.plenigo.sdk.models.MobileSecretInfo;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * <p>
@@ -46,12 +47,27 @@ public final class MobileService {
         Map<String, Object> body = new LinkedHashMap<String, Object>();
         body.put(ApiParams.EMAIL, email);
         body.put(ApiParams.MOBILE_SECRET, mobileSecret);
-        Map<String, Object> response = HttpConfig.get().getClient().get(PlenigoManager.get().getUrl(), ApiURLs.MOBILE_SECRET_VERIFY,
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        Map<String, Object> response = HttpConfig.get().getClient().get(config.getUrl(), ApiURLs.MOBILE_SECRET_VERIFY,
                 ApiURLs.MOBILE_SECRET_VERIFY, SdkUtils.buildUrlQueryString(body),
-                JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
+                config.getJwtHeader());
         return SdkUtils.getValueIfNotNull(response, ApiResults.CUST_ID);
     }
 
+    /**
+     * Asynchronous variant of {@link #verifyMobileSecret(String, String)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param email        the email address
+     * @param mobileSecret the mobile secret
+     *
+     * @return a future with the mobile secret
+     */
+    public static CompletableFuture<String> verifyMobileSecretAsync(String email, String mobileSecret) {
+        return AsyncSupport.supply(() -> verifyMobileSecret(email, mobileSecret));
+    }
+
     /**
      * Returns the mobile secret.
      *
@@ -63,12 +79,26 @@ public final class MobileService {
      */
     public static MobileSecretInfo getMobileSecret(String customerId) throws PlenigoException {
         Map<String, Object> body = new LinkedHashMap<String, Object>();
-        Map<String, Object> response = HttpConfig.get().getClient().get(PlenigoManager.get().getUrl(), ApiURLs.MOBILE_SECRET_URL,
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        Map<String, Object> response = HttpConfig.get().getClient().get(config.getUrl(), ApiURLs.MOBILE_SECRET_URL,
                 String.format(ApiURLs.MOBILE_SECRET_URL, customerId), SdkUtils.buildUrlQueryString(body),
-                JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
+                config.getJwtHeader());
         return buildMobileSecretInfo(response);
     }
 
+    /**
+     * Asynchronous variant of {@link #getMobileSecret(String)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param customerId customer id
+     *
+     * @return a future with the mobile secret info
+     */
+    public static CompletableFuture<MobileSecretInfo> getMobileSecretAsync(String customerId) {
+        return AsyncSupport.supply(() -> getMobileSecret(customerId));
+    }
+
     /**
      * Creates a mobile secret for a specific customer.
      *
@@ -88,12 +118,27 @@ public final class MobileService {
         }
         Map<String, String> body = new LinkedHashMap<String, String>();
         body.put(ApiParams.MOBILE_SECRET_SIZE, String.valueOf(mobileSecretSize));
-        Map<String, Object> response = HttpConfig.get().getClient().post(PlenigoManager.get().getUrl(), ApiURLs.MOBILE_SECRET_URL,
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        Map<String, Object> response = HttpConfig.get().getClient().post(config.getUrl(), ApiURLs.MOBILE_SECRET_URL,
                 String.format(ApiURLs.MOBILE_SECRET_URL, customerId), null, body,
-                JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
+                config.getJwtHeader());
         return buildMobileSecretInfo(response);
     }
 
+    /**
+     * Asynchronous variant of {@link #createMobileSecret(String, int)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param customerId       customer id
+     * @param mobileSecretSize mobile secret size
+     *
+     * @return a future with the mobile secret info
+     */
+    public static CompletableFuture<MobileSecretInfo> createMobileSecretAsync(String customerId, int mobileSecretSize) {
+        return AsyncSupport.supply(() -> createMobileSecret(customerId, mobileSecretSize));
+    }
+
     /**
      * Builds the mobile secret info object.
      *
@@ -117,8 +162,22 @@ public final class MobileService {
      * @throws PlenigoException if any error occurs
      */
     public static boolean deleteMobileSecret(String customerId) throws PlenigoException {
-        HttpConfig.get().getClient().delete(PlenigoManager.get().getUrl(), ApiURLs.MOBILE_SECRET_URL, String.format(ApiURLs.MOBILE_SECRET_URL, customerId),
-                null, JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        HttpConfig.get().getClient().delete(config.getUrl(), ApiURLs.MOBILE_SECRET_URL, String.format(ApiURLs.MOBILE_SECRET_URL, customerId),
+                null, config.getJwtHeader());
         return true;
     }
+
+    /**
+     * Asynchronous variant of {@link #deleteMobileSecret(String)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param customerId customer id
+     *
+     * @return a future with true if the request was successful, false otherwise
+     */
+    public static CompletableFuture<Boolean> deleteMobileSecretAsync(String customerId) {
+        return AsyncSupport.supply(() -> deleteMobileSecret(customerId));
+    }
 }
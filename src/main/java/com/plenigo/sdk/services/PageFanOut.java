@@ -0,0 +1,193 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.internal.ErrorCode;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Loads a known range of pages concurrently and hands their elements to a consumer.
+ * </p>
+ * <p>
+ * The pages are requested on the executor used by the async variants of the services, while the consumer is always called by the
+ * thread that started the fan out, so it does not need to be thread safe. The amount of pages that are being loaded or are waiting
+ * to be consumed never exceeds the parallelism, which bounds both the load on the API and the memory used. When the elements are
+ * consumed in page order, a page that arrives early waits until all the pages before it were consumed.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+final class PageFanOut {
+
+    /**
+     * Default constructor.
+     */
+    private PageFanOut() {
+    }
+
+    /**
+     * Loads the pages from the first page (inclusive) to the last page (exclusive) and consumes their elements. No more pages are requested
+     * once a page failed or the consumer threw an exception. The calling thread must not be a thread of the executor.
+     *
+     * @param firstPage   the first page number, inclusive
+     * @param lastPage    the last page number, exclusive
+     * @param parallelism the maximum amount of pages that are loaded or wait to be consumed at the same time
+     * @param ordered     true to consume the elements in page order, false to consume every page as soon as it arrives
+     * @param loader      loads the elements of a page
+     * @param consumer    consumes the elements
+     * @param <E>         the type of the elements
+     *
+     * @return the amount of consumed elements
+     *
+     * @throws PlenigoException the exception of the first page that failed, or if the thread was interrupted
+     */
+    static <E> long consume(int firstPage, int lastPage, int parallelism, boolean ordered,
+                            AsyncSupport.PlenigoFunction<Integer, ? extends List<? extends E>> loader, Consumer<? super E> consumer)
+            throws PlenigoException {
+        int maxPages = Math.max(1, parallelism);
+        BlockingQueue<LoadedPage<E>> loaded = new LinkedBlockingQueue<LoadedPage<E>>();
+        Map<Integer, List<? extends E>> waiting = new HashMap<Integer, List<? extends E>>();
+        AtomicBoolean stopped = new AtomicBoolean();
+        int nextPage = firstPage;
+        int nextToConsume = firstPage;
+        int consumedPages = 0;
+        int loading = 0;
+        long consumed = 0;
+        try {
+            while (consumedPages < lastPage - firstPage) {
+                while (nextPage < lastPage && loading + waiting.size() < maxPages) {
+                    load(nextPage++, loader, stopped, loaded);
+                    loading++;
+                }
+                LoadedPage<E> page = loaded.take();
+                loading--;
+                if (page.error != null) {
+                    throw page.error;
+                }
+                if (!ordered) {
+                    consumed += consumeAll(page.elements, consumer);
+                    consumedPages++;
+                    continue;
+                }
+                waiting.put(page.pageNumber, page.elements);
+                while (waiting.containsKey(nextToConsume)) {
+                    consumed += consumeAll(waiting.remove(nextToConsume++), consumer);
+                    consumedPages++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PlenigoException(ErrorCode.SERVER, "Interrupted while waiting for the pages", e);
+        } finally {
+            stopped.set(true);
+        }
+        return consumed;
+    }
+
+    /**
+     * Returns the page number after the last page of a list.
+     *
+     * @param firstPage     the number of a page of the list
+     * @param totalElements the total amount of elements of the list
+     * @param pageSize      the page size
+     *
+     * @return the last page number (exclusive), at least the page after the given one
+     */
+    static int lastPage(int firstPage, long totalElements, int pageSize) {
+        if (pageSize <= 0) {
+            return firstPage + 1;
+        }
+        return (int) Math.max(firstPage + 1, (totalElements + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * Starts loading a page, the result is added to the queue of loaded pages.
+     *
+     * @param pageNumber the page number
+     * @param loader     loads the elements of a page
+     * @param stopped    set when the results are not needed anymore
+     * @param loaded     the queue of loaded pages
+     * @param <E>        the type of the elements
+     */
+    private static <E> void load(int pageNumber, AsyncSupport.PlenigoFunction<Integer, ? extends List<? extends E>> loader, AtomicBoolean stopped,
+                                 BlockingQueue<LoadedPage<E>> loaded) {
+        CompletableFuture<List<? extends E>> future = AsyncSupport.supply(() -> {
+            if (stopped.get()) {
+                return null;
+            }
+            return loader.apply(pageNumber);
+        });
+        future.whenComplete((elements, error) -> loaded.add(new LoadedPage<E>(pageNumber, elements, error)));
+    }
+
+    /**
+     * Consumes the elements of a page.
+     *
+     * @param elements the elements, they can be null
+     * @param consumer consumes the elements
+     * @param <E>      the type of the elements
+     *
+     * @return the amount of consumed elements
+     */
+    private static <E> long consumeAll(List<? extends E> elements, Consumer<? super E> consumer) {
+        if (elements == null) {
+            return 0;
+        }
+        for (E element : elements) {
+            consumer.accept(element);
+        }
+        return elements.size();
+    }
+
+    /**
+     * The result of loading a page.
+     *
+     * @param <E> the type of the elements
+     */
+    private static final class LoadedPage<E> {
+        private final int pageNumber;
+        private final List<? extends E> elements;
+        private final PlenigoException error;
+
+        /**
+         * Builds the result.
+         *
+         * @param pageNumber the page number
+         * @param elements   the elements of the page
+         * @param error      the error thrown while loading the page, or null
+         */
+        LoadedPage(int pageNumber, List<? extends E> elements, Throwable error) {
+            this.pageNumber = pageNumber;
+            this.elements = elements;
+            this.error = toPlenigoException(error);
+        }
+
+        /**
+         * Converts the error thrown while loading a page.
+         *
+         * @param error the error, or null
+         *
+         * @return the converted error, or null
+         */
+        private static PlenigoException toPlenigoException(Throwable error) {
+            Throwable cause = error;
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause == null || cause instanceof PlenigoException) {
+                return (PlenigoException) cause;
+            }
+            return new PlenigoException(ErrorCode.SERVER, ErrorCode.SERVER.getMsg(), cause);
+        }
+    }
+}
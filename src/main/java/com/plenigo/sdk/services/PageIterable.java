@@ -0,0 +1,260 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.UncheckedPlenigoException;
+import com.plenigo.sdk.models.ElementList;
+import com.plenigo.sdk.models.PagedList;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>
+ * The elements of a paginated list endpoint that are loaded page by page while they are iterated.
+ * </p>
+ * <p>
+ * Nothing is requested until the iteration starts. Every time a page arrives the request of the following page is started on the
+ * executor used by the async variants of the services, so that it is usually available by the time the current page has been consumed.
+ * At most the current page and the next one are held in memory regardless of the size of the list. The iteration stops once the
+ * amount of elements reported by the API has been reached or an empty page is returned.
+ * </p>
+ * <p>
+ * Since iterators can not throw checked exceptions, a {@link PlenigoException} thrown while loading a page is wrapped in an
+ * {@link UncheckedPlenigoException}. The page that is prefetched when a stream is closed before it was fully consumed is discarded.
+ * </p>
+ * <pre>
+ * for (ProductInfo product : ProductService.iterateProducts(100)) {
+ *     //process the product
+ * }
+ * </pre>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe, every iterator or stream starts a new iteration. The iterators themselves
+ * are <b>not</b> thread safe.
+ * </p>
+ *
+ * @param <E> the type of the elements
+ */
+public final class PageIterable<E> implements Iterable<E> {
+    private static final Logger LOGGER = Logger.getLogger(PageIterable.class.getName());
+
+    private final int pageSize;
+    private final int firstPage;
+    private final PageLoader<E> loader;
+
+    /**
+     * Builds the iterable.
+     *
+     * @param pageSize  the requested page size
+     * @param firstPage the 0 based number of the first page
+     * @param loader    the loader of a single page
+     */
+    PageIterable(int pageSize, int firstPage, PageLoader<E> loader) {
+        this.pageSize = pageSize;
+        this.firstPage = Math.max(0, firstPage);
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the requested page size.
+     *
+     * @return the page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Returns a new iterator that starts loading the pages when it is first used.
+     *
+     * @return the iterator
+     */
+    @Override
+    public PageIterator<E> iterator() {
+        return new PageIterator<E>(firstPage, (long) firstPage * pageSize, loader);
+    }
+
+    /**
+     * Returns a sequential stream of the elements, the pages are loaded while the stream is consumed.
+     *
+     * @return the stream
+     */
+    public Stream<E> stream() {
+        PageIterator<E> iterator = iterator();
+        Spliterator<E> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    /**
+     * Loads a single page.
+     *
+     * @param <E> the type of the elements
+     */
+    interface PageLoader<E> {
+        /**
+         * Loads the page.
+         *
+         * @param pageNumber the 0 based page number
+         *
+         * @return the page
+         *
+         * @throws PlenigoException whenever an error happens
+         */
+        Page<E> load(int pageNumber) throws PlenigoException;
+    }
+
+    /**
+     * The elements of a page and the total amount of elements of the list.
+     *
+     * @param <E> the type of the elements
+     */
+    static final class Page<E> {
+        private final List<E> elements;
+        private final long totalElements;
+
+        /**
+         * Builds the page.
+         *
+         * @param elements      the elements of the page
+         * @param totalElements the total amount of elements of the list
+         */
+        Page(List<E> elements, long totalElements) {
+            if (elements == null) {
+                this.elements = Collections.emptyList();
+            } else {
+                this.elements = elements;
+            }
+            this.totalElements = totalElements;
+        }
+
+        /**
+         * Builds a page from a paged list.
+         *
+         * @param list the paged list
+         * @param <E>  the type of the elements
+         *
+         * @return the page
+         */
+        static <E> Page<E> of(PagedList<E> list) {
+            return new Page<E>(list.getList(), list.getTotalElements());
+        }
+
+        /**
+         * Builds a page from an element list.
+         *
+         * @param list the element list
+         * @param <E>  the type of the elements
+         *
+         * @return the page
+         */
+        static <E> Page<E> of(ElementList<E> list) {
+            return new Page<E>(list.getElements(), list.getTotalElements());
+        }
+    }
+
+    /**
+     * <p>
+     * Iterates over the elements of the pages, requesting the following page as soon as the current one arrived.
+     * </p>
+     * <p>
+     * <strong>Thread safety:</strong> This class is <b>not</b> thread safe.
+     * </p>
+     *
+     * @param <E> the type of the elements
+     */
+    public static final class PageIterator<E> implements Iterator<E> {
+        private final PageLoader<E> loader;
+        private int nextPage;
+        private long received;
+        private boolean lastPageLoaded;
+        private Iterator<E> current = Collections.<E>emptyList().iterator();
+        private CompletableFuture<Page<E>> pending;
+        private volatile boolean closed;
+
+        /**
+         * Builds the iterator.
+         *
+         * @param firstPage the 0 based number of the first page
+         * @param skipped   the amount of elements of the pages before the first one
+         * @param loader    the loader of a single page
+         */
+        PageIterator(int firstPage, long skipped, PageLoader<E> loader) {
+            this.nextPage = firstPage;
+            this.received = skipped;
+            this.loader = loader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (lastPageLoaded) {
+                    return false;
+                }
+                advance();
+            }
+            return true;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        /**
+         * Discards the prefetched page and skips its request if it has not started yet, the iterator has no more elements afterwards.
+         */
+        public void close() {
+            closed = true;
+            lastPageLoaded = true;
+            current = Collections.<E>emptyList().iterator();
+            if (pending != null) {
+                pending.cancel(false);
+                pending = null;
+            }
+        }
+
+        /**
+         * Takes the prefetched page, or loads it if there is none, and starts prefetching the following one.
+         */
+        private void advance() {
+            Page<E> page;
+            try {
+                if (pending == null) {
+                    page = loader.load(nextPage);
+                } else {
+                    page = AsyncSupport.await(pending);
+                    pending = null;
+                }
+            } catch (PlenigoException e) {
+                lastPageLoaded = true;
+                throw new UncheckedPlenigoException(e);
+            }
+            int pageNumber = nextPage++;
+            received += page.elements.size();
+            lastPageLoaded = page.elements.isEmpty() || received >= page.totalElements;
+            LOGGER.log(Level.FINEST, "Loaded page {0} with {1} elements, {2} of {3} elements received",
+                    new Object[]{pageNumber, page.elements.size(), received, page.totalElements});
+            current = page.elements.iterator();
+            if (!lastPageLoaded) {
+                int prefetchedPage = nextPage;
+                pending = AsyncSupport.supply(() -> {
+                    if (closed) {
+                        return null;
+                    }
+                    return loader.load(prefetchedPage);
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.internal.models.Customer;
+import com.plenigo.sdk.internal.models.MeteredUserData;
+import com.plenigo.sdk.internal.util.CookieParser;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * This represents the plenigo related information of a single HTTP request. The cookie header is
+ * scanned once when the context is created and the plenigo cookies are decrypted at most once, the first
+ * time their information is needed, so that all the checks done while rendering a page share the same work.
+ * </p>
+ * <p>
+ * A new context should be created for every HTTP request, e.g.:
+ * </p>
+ * <pre>
+ * PlenigoRequestContext context = new PlenigoRequestContext(request.getHeader("Cookie"), request.getQueryString());
+ * if (!context.hasUserBought(productId) &amp;&amp; !context.hasFreeViews()) {
+ *     //show the paywall
+ * }
+ * </pre>
+ * <p>
+ * <strong>Thread safety:</strong> This class is <b>not</b> thread safe, it is meant to be used by the thread handling the request.
+ * </p>
+ */
+public final class PlenigoRequestContext {
+    private static final Logger LOGGER = Logger.getLogger(PlenigoRequestContext.class.getName());
+
+    private final String requestQueryString;
+    private final String customerCookieValue;
+    private final String meteredCookieValue;
+
+    private boolean customerResolved;
+    private Customer customer;
+    private boolean meteredUserDataResolved;
+    private MeteredUserData meteredUserData;
+
+    /**
+     * Builds the context of a request.
+     *
+     * @param cookieHeader       The raw cookie header of the request
+     * @param requestQueryString The url query string of the request, it can be null
+     */
+    public PlenigoRequestContext(String cookieHeader, String requestQueryString) {
+        this.requestQueryString = requestQueryString;
+        String[] cookieValues = CookieParser.extractCookieValues(cookieHeader, CookieParser.PLENIGO_USER_COOKIE_NAME,
+                CookieParser.PLENIGO_METERED_VIEW_COOKIE_NAME);
+        this.customerCookieValue = cookieValues[0];
+        this.meteredCookieValue = cookieValues[1];
+        LOGGER.log(Level.FINEST, "Request context created, user cookie found: {0}, metered cookie found: {1}",
+                new Object[]{customerCookieValue != null, meteredCookieValue != null});
+    }
+
+    /**
+     * Returns the customer information of the user cookie, the cookie is only decrypted the first time this is called.
+     *
+     * @return the customer information or null if there is no valid user cookie
+     *
+     * @throws PlenigoException if there was an error decrypting the cookie
+     */
+    public Customer getCustomer() throws PlenigoException {
+        if (!customerResolved) {
+            customer = UserService.getCustomerInfoFromCookieValue(customerCookieValue);
+            customerResolved = true;
+        }
+        return customer;
+    }
+
+    /**
+     * Returns a flag indicating if the user is logged in or not.
+     *
+     * @return an indicator saying if the user is logged in or not
+     *
+     * @throws PlenigoException if there was an error decrypting the cookie
+     */
+    public boolean isLoggedIn() throws PlenigoException {
+        return getCustomer() != null;
+    }
+
+    /**
+     * Returns the metered view data of the metered cookie, the cookie is only decrypted the first time this is called.
+     *
+     * @return the metered user data or null if there is no valid metered cookie
+     *
+     * @throws PlenigoException if there was an error decrypting the cookie
+     */
+    public MeteredUserData getMeteredUserData() throws PlenigoException {
+        if (!meteredUserDataResolved) {
+            meteredUserData = MeterService.getMeteredUserDataFromCookieValue(meteredCookieValue);
+            meteredUserDataResolved = true;
+        }
+        return meteredUserData;
+    }
+
+    /**
+     * Returns a flag indicating if the user still has free views left.
+     *
+     * @return True if the user still has free views left, false otherwise
+     *
+     * @throws PlenigoException If an error happens during cookie parsing
+     */
+    public boolean hasFreeViews() throws PlenigoException {
+        MeteredUserData data = getMeteredUserData();
+        if (data == null) {
+            return !MeterService.isLimitReachedByUrlParam(requestQueryString);
+        }
+        return MeterService.hasFreeViews(data, isLoggedIn());
+    }
+
+    /**
+     * Checks if the user can access a product. If there is an error response from the API this will throw a {@link PlenigoException},
+     * in the case of BAD_REQUEST types, the exception will contain a list of {@link com.plenigo.sdk.models.ErrorDetail}.
+     *
+     * @param productId The id of the product to be queried against the user
+     *
+     * @return True if the user in the cookie has bought the product and the session is not expired, false otherwise
+     *
+     * @throws PlenigoException whenever an error happens
+     */
+    public boolean hasUserBought(String productId) throws PlenigoException {
+        return hasUserBought(Collections.singletonList(productId));
+    }
+
+    /**
+     * Checks if the user can access a product. If there is an error response from the API this will throw a {@link PlenigoException},
+     * in the case of BAD_REQUEST types, the exception will contain a list of {@link com.plenigo.sdk.models.ErrorDetail}.
+     *
+     * @param productIds The ids of the products to be queried against the user
+     *
+     * @return True if the user in the cookie has bought at least one of the product ids, otherwise false
+     *
+     * @throws PlenigoException whenever an error happens
+     */
+    public boolean hasUserBought(List<String> productIds) throws PlenigoException {
+        return UserService.hasUserBought(productIds, getCustomer());
+    }
+}
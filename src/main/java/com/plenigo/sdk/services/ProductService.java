@@ -5,9 +5,9 @@ import com.plenigo.sdk.PlenigoManager;
 import com.plenigo.sdk.internal.ApiParams;
 import com.plenigo.sdk.internal.ApiResults;
 import com.plenigo.sdk.internal.ApiURLs;
+import com.plenigo.sdk.internal.cache.CatalogCache;
+import com.plenigo.sdk.internal.models.ConfigurationSnapshot;
 import com.plenigo.sdk.internal.models.PagingInfo;
-import com.plenigo.sdk.internal.util.JWT;
-import com.plenigo.sdk.internal.util.RestClient;
 import com.plenigo.sdk.internal.util.SdkUtils;
 import com.plenigo.sdk.models.ActionPeriod;
 import com.plenigo.sdk.models.CategoryData;
@@ -24,6 +24,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -38,11 +40,6 @@ import java.util.logging.Logger;
 public final class ProductService {
     private static final Logger LOGGER = Logger.getLogger(ProductService.class.getName());
 
-    /**
-     * Rest client used internally.
-     */
-    private static RestClient client = new RestClient();
-
     /**
      * Default constructor.
      */
@@ -61,16 +58,45 @@ public final class ProductService {
      * @throws PlenigoException whenever an error happens
      */
     public static ProductData getProductData(String productId) throws PlenigoException {
+        CatalogCache catalogCache = PlenigoManager.get().getCatalogCache();
+        if (catalogCache != null) {
+            return catalogCache.getProducts().get(productId, ProductService::loadProductData, AsyncSupport.getExecutor());
+        }
+        return loadProductData(productId);
+    }
+
+    /**
+     * Retrieves the product data of a provided product id from the API.
+     *
+     * @param productId The product id to use.
+     *
+     * @return the product data
+     *
+     * @throws PlenigoException whenever an error happens
+     */
+    private static ProductData loadProductData(String productId) throws PlenigoException {
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
         LOGGER.log(Level.FINEST, "Getting the product data for the product id: {0} using the following company id: {1}",
-                new Object[]{productId, PlenigoManager.get().getCompanyId()});
-        Map<String, Object> response = client.get(PlenigoManager.get().getUrl(), ApiURLs.GET_PRODUCT, ApiURLs.GET_PRODUCT + "/" + productId, null,
-                JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
-        LOGGER.log(Level.FINEST, "JSON Data response from product id {0} : {1}", new Object[]{productId, response});
-        ProductData productData = buildProductData(response);
+                new Object[]{productId, config.getCompanyId()});
+        ProductData productData = StreamingSupport.getObject(config, ApiURLs.GET_PRODUCT, ApiURLs.GET_PRODUCT + "/" + productId, null,
+                ProductData.class, ProductService::buildProductData);
         LOGGER.log(Level.FINEST, "Built Product Data from product id {0} : {1}", new Object[]{productId, productData});
         return productData;
     }
 
+    /**
+     * Asynchronous variant of {@link #getProductData(String)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param productId The product id to use.
+     *
+     * @return a future with the product data
+     */
+    public static CompletableFuture<ProductData> getProductDataAsync(String productId) {
+        return AsyncSupport.supply(() -> getProductData(productId));
+    }
+
     /**
      * Obtain a list of product in a paginated way.
      *
@@ -82,15 +108,42 @@ public final class ProductService {
      * @throws PlenigoException If any error happens
      */
     public static PagedList<ProductInfo> getProductList(int pageSize, int page) throws PlenigoException {
-        Map<String, Object> params = new HashMap<String, Object>();
-        params.put(ApiParams.PAGE_SIZE, pageSize);
-        if (page < 0) {
-            page = 0;
-        }
-        params.put(ApiParams.PAGE_NUMBER, page);
-        Map<String, Object> objectMap = client.get(PlenigoManager.get().getUrl(), ApiURLs.LIST_PRODUCTS, ApiURLs.LIST_PRODUCTS,
-                SdkUtils.buildUrlQueryString(params), JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
-        return buildProductList(objectMap);
+        List<ProductInfo> products = new LinkedList<ProductInfo>();
+        Map<String, Object> objectMap = StreamingSupport.get(PlenigoManager.get().getSnapshot(), ApiURLs.LIST_PRODUCTS, ApiURLs.LIST_PRODUCTS,
+                buildPageQueryString(pageSize, page), ApiResults.ELEMENTS, ProductInfo.class, ProductService::buildProductInfo, products::add);
+        return new PagedList<ProductInfo>(products, buildPagingInfo(objectMap, ApiResults.PROD_ID));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getProductList(int, int)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param pageSize The size of the page, it will be trimmed to 10...100
+     * @param page     0 based page number
+     *
+     * @return a future with the paged list
+     */
+    public static CompletableFuture<PagedList<ProductInfo>> getProductListAsync(int pageSize, int page) {
+        return AsyncSupport.supply(() -> getProductList(pageSize, page));
+    }
+
+    /**
+     * Obtains a page of products and hands them to the consumer one at a time while the response is being read, so that only one
+     * element of the page is held in memory at any time, see {@link StreamingSupport}.
+     *
+     * @param pageSize The size of the page, it will be trimmed to 10...100
+     * @param page     0 based page number
+     * @param consumer consumes the products of the page in the order of the response, it is called by the calling thread
+     *
+     * @return the total amount of products, of all the pages
+     *
+     * @throws PlenigoException If any error happens
+     */
+    public static long streamProductList(int pageSize, int page, Consumer<? super ProductInfo> consumer) throws PlenigoException {
+        Map<String, Object> objectMap = StreamingSupport.get(PlenigoManager.get().getSnapshot(), ApiURLs.LIST_PRODUCTS, ApiURLs.LIST_PRODUCTS,
+                buildPageQueryString(pageSize, page), ApiResults.ELEMENTS, ProductInfo.class, ProductService::buildProductInfo, consumer);
+        return buildPagingInfo(objectMap, ApiResults.PROD_ID).getTotalElements();
     }
 
     /**
@@ -104,73 +157,108 @@ public final class ProductService {
      * @throws PlenigoException If any error happens
      */
     public static PagedList<CategoryInfo> getCategoryList(int pageSize, int page) throws PlenigoException {
+        List<CategoryInfo> categories = new LinkedList<CategoryInfo>();
+        Map<String, Object> objectMap = StreamingSupport.get(PlenigoManager.get().getSnapshot(), ApiURLs.LIST_CATEGORIES, ApiURLs.LIST_CATEGORIES,
+                buildPageQueryString(pageSize, page), ApiResults.ELEMENTS, CategoryInfo.class, ProductService::buildCategoryInfo, categories::add);
+        return new PagedList<CategoryInfo>(categories, buildPagingInfo(objectMap, ApiResults.CATEGORY_ID));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getCategoryList(int, int)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param pageSize The size of the page, it will be trimmed to 10...100
+     * @param page     0 based page number
+     *
+     * @return a future with the paged list
+     */
+    public static CompletableFuture<PagedList<CategoryInfo>> getCategoryListAsync(int pageSize, int page) {
+        return AsyncSupport.supply(() -> getCategoryList(pageSize, page));
+    }
+
+    /**
+     * Obtains a page of categories and hands them to the consumer one at a time while the response is being read, so that only one
+     * element of the page is held in memory at any time, see {@link StreamingSupport}.
+     *
+     * @param pageSize The size of the page, it will be trimmed to 10...100
+     * @param page     0 based page number
+     * @param consumer consumes the categories of the page in the order of the response, it is called by the calling thread
+     *
+     * @return the total amount of categories, of all the pages
+     *
+     * @throws PlenigoException If any error happens
+     */
+    public static long streamCategoryList(int pageSize, int page, Consumer<? super CategoryInfo> consumer) throws PlenigoException {
+        Map<String, Object> objectMap = StreamingSupport.get(PlenigoManager.get().getSnapshot(), ApiURLs.LIST_CATEGORIES, ApiURLs.LIST_CATEGORIES,
+                buildPageQueryString(pageSize, page), ApiResults.ELEMENTS, CategoryInfo.class, ProductService::buildCategoryInfo, consumer);
+        return buildPagingInfo(objectMap, ApiResults.CATEGORY_ID).getTotalElements();
+    }
+
+    /**
+     * Returns all the products, the pages are loaded with {@link #getProductList(int, int)} while they are iterated and the following
+     * page is prefetched, see {@link PageIterable}.
+     *
+     * @param pageSize The size of the pages, it will be trimmed to 10...100
+     *
+     * @return the lazily loaded products
+     */
+    public static PageIterable<ProductInfo> iterateProducts(int pageSize) {
+        return new PageIterable<ProductInfo>(pageSize, 0, page -> PageIterable.Page.of(getProductList(pageSize, page)));
+    }
+
+    /**
+     * Returns all the categories, the pages are loaded with {@link #getCategoryList(int, int)} while they are iterated and the following
+     * page is prefetched, see {@link PageIterable}.
+     *
+     * @param pageSize The size of the pages, it will be trimmed to 10...100
+     *
+     * @return the lazily loaded categories
+     */
+    public static PageIterable<CategoryInfo> iterateCategories(int pageSize) {
+        return new PageIterable<CategoryInfo>(pageSize, 0, page -> PageIterable.Page.of(getCategoryList(pageSize, page)));
+    }
+
+    /**
+     * Builds the query string of a page of a list.
+     *
+     * @param pageSize The size of the page
+     * @param page     0 based page number, negative numbers are replaced by 0
+     *
+     * @return the query string
+     */
+    private static String buildPageQueryString(int pageSize, int page) {
         Map<String, Object> params = new HashMap<String, Object>();
         params.put(ApiParams.PAGE_SIZE, pageSize);
-        if (page < 0) {
-            page = 0;
-        }
-        params.put(ApiParams.PAGE_NUMBER, page);
-        Map<String, Object> objectMap = client.get(PlenigoManager.get().getUrl(), ApiURLs.LIST_CATEGORIES, ApiURLs.LIST_CATEGORIES,
-                SdkUtils.buildUrlQueryString(params), JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
-        return buildCategoryList(objectMap);
+        params.put(ApiParams.PAGE_NUMBER, Math.max(0, page));
+        return SdkUtils.buildUrlQueryString(params);
     }
 
     /**
-     * Retrieves the  product list data values provided in the map,.
+     * Builds the category info of a category list element.
      *
-     * @param response The response from the API call
+     * @param element The element of the category list
      *
-     * @return A {@link PagedList} object built from the map
+     * @return the category info
      */
-    @SuppressWarnings("unchecked")
-    private static PagedList<CategoryInfo> buildCategoryList(Map<String, Object> response) {
-        PagingInfo pagingInfo = buildPagingInfo(response, ApiResults.CATEGORY_ID);
-        Object elementsObj = response.get(ApiResults.ELEMENTS);
-        List<CategoryInfo> categories = new LinkedList<CategoryInfo>();
-        //https://code.google.com/p/json-simple/ Json simple library maps arrays as Lists
-        if (elementsObj instanceof List) {
-            List elements = (List) elementsObj;
-            for (Object elementObj : elements) {
-                //and objects as maps
-                if (elementObj instanceof Map) {
-                    Map<String, Object> element = (Map<String, Object>) elementObj;
-                    String catId = SdkUtils.getValueIfNotNull(element, ApiResults.CATEGORY_ID);
-                    String title = SdkUtils.getValueIfNotNull(element, ApiResults.TITLE);
-                    categories.add(new CategoryInfo(catId, title));
-                }
-            }
-        }
-        return new PagedList<CategoryInfo>(categories, pagingInfo);
+    private static CategoryInfo buildCategoryInfo(Map<String, Object> element) {
+        String catId = SdkUtils.getValueIfNotNull(element, ApiResults.CATEGORY_ID);
+        String title = SdkUtils.getValueIfNotNull(element, ApiResults.TITLE);
+        return new CategoryInfo(catId, title);
     }
 
     /**
-     * Retrieves the  product list data values provided in the map,.
+     * Builds the product info of a product list element.
      *
-     * @param response The response from the API call
+     * @param element The element of the product list
      *
-     * @return A {@link PagedList} object built from the map
+     * @return the product info
      */
-
-    @SuppressWarnings("unchecked")
-    private static PagedList<ProductInfo> buildProductList(Map<String, Object> response) {
-        PagingInfo pagingInfo = buildPagingInfo(response, ApiResults.PROD_ID);
-        Object elementsObj = response.get(ApiResults.ELEMENTS);
-        List<ProductInfo> products = new LinkedList<ProductInfo>();
-        //https://code.google.com/p/json-simple/ Json simple library maps arrays as Lists
-        if (elementsObj instanceof List) {
-            List elements = (List) elementsObj;
-            for (Object elementObj : elements) {
-                //and objects as maps
-                if (elementObj instanceof Map) {
-                    Map<String, Object> element = (Map<String, Object>) elementObj;
-                    String prodId = SdkUtils.getValueIfNotNull(element, ApiResults.PROD_ID);
-                    String title = SdkUtils.getValueIfNotNull(element, ApiResults.TITLE);
-                    String description = SdkUtils.getValueIfNotNull(element, ApiResults.DESCRIPTION);
-                    products.add(new ProductInfo(prodId, title, description));
-                }
-            }
-        }
-        return new PagedList<ProductInfo>(products, pagingInfo);
+    private static ProductInfo buildProductInfo(Map<String, Object> element) {
+        String prodId = SdkUtils.getValueIfNotNull(element, ApiResults.PROD_ID);
+        String title = SdkUtils.getValueIfNotNull(element, ApiResults.TITLE);
+        String description = SdkUtils.getValueIfNotNull(element, ApiResults.DESCRIPTION);
+        return new ProductInfo(prodId, title, description);
     }
 
     /**
@@ -288,7 +376,7 @@ public final class ProductService {
     private static PricingData buildPricingData(Map<String, Object> response) {
         String choosePriceStr = SdkUtils.getValueIfNotNull(response, ApiResults.CAN_CHOOSE_PRICE);
         boolean choosePrice = false;
-        if (choosePriceStr.isEmpty()) {
+        if (!choosePriceStr.isEmpty()) {
             choosePrice = Boolean.parseBoolean(choosePriceStr);
         }
         String priceStr = SdkUtils.getValueIfNotNull(response, ApiResults.PRICE);
@@ -367,13 +455,68 @@ public final class ProductService {
      * @throws PlenigoException whenever an error happens
      */
     public static CategoryData getCategoryData(String categoryId) throws PlenigoException {
+        CatalogCache catalogCache = PlenigoManager.get().getCatalogCache();
+        if (catalogCache != null) {
+            return catalogCache.getCategories().get(categoryId, ProductService::loadCategoryData, AsyncSupport.getExecutor());
+        }
+        return loadCategoryData(categoryId);
+    }
+
+    /**
+     * Retrieves the category data of a provided category id from the API.
+     *
+     * @param categoryId The category id to use.
+     *
+     * @return the category data
+     *
+     * @throws PlenigoException whenever an error happens
+     */
+    private static CategoryData loadCategoryData(String categoryId) throws PlenigoException {
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
         LOGGER.log(Level.FINEST, "Getting the category data for the category id: {0} using the following company id: {1}",
-                new Object[]{categoryId, PlenigoManager.get().getCompanyId()});
-        Map<String, Object> response = client.get(PlenigoManager.get().getUrl(), ApiURLs.GET_CATEGORY, ApiURLs.GET_CATEGORY + "/" + categoryId, null,
-                JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
-        LOGGER.log(Level.FINEST, "JSON Data response from category {0} : {1}", new Object[]{categoryId, response});
-        CategoryData categoryData = buildCategoryData(response);
+                new Object[]{categoryId, config.getCompanyId()});
+        CategoryData categoryData = StreamingSupport.getObject(config, ApiURLs.GET_CATEGORY, ApiURLs.GET_CATEGORY + "/" + categoryId, null,
+                CategoryData.class, ProductService::buildCategoryData);
         LOGGER.log(Level.FINEST, "Built Category Data from category id {0} : {1}", new Object[]{categoryId, categoryData});
         return categoryData;
     }
+
+    /**
+     * Asynchronous variant of {@link #getCategoryData(String)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param categoryId The category id to use.
+     *
+     * @return a future with the category data
+     */
+    public static CompletableFuture<CategoryData> getCategoryDataAsync(String categoryId) {
+        return AsyncSupport.supply(() -> getCategoryData(categoryId));
+    }
+
+    /**
+     * Removes the cached data of a product, e.g. after it was changed, so that the next call to {@link #getProductData(String)}
+     * loads it from the API. This does nothing if the catalog cache is disabled.
+     *
+     * @param productId The product id
+     */
+    public static void invalidateProductData(String productId) {
+        CatalogCache catalogCache = PlenigoManager.get().getCatalogCache();
+        if (catalogCache != null) {
+            catalogCache.getProducts().invalidate(productId);
+        }
+    }
+
+    /**
+     * Removes the cached data of a category, e.g. after it was changed, so that the next call to {@link #getCategoryData(String)}
+     * loads it from the API. This does nothing if the catalog cache is disabled.
+     *
+     * @param categoryId The category id
+     */
+    public static void invalidateCategoryData(String categoryId) {
+        CatalogCache catalogCache = PlenigoManager.get().getCatalogCache();
+        if (catalogCache != null) {
+            catalogCache.getCategories().invalidate(categoryId);
+        }
+    }
 }
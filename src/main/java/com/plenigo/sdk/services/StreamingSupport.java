@@ -0,0 +1,101 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.internal.models.ConfigurationSnapshot;
+import com.plenigo.sdk.internal.util.HttpConfig;
+import com.plenigo.sdk.internal.util.RestClient;
+import com.plenigo.sdk.internal.util.TransportRestClient;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Loads the responses of the services and binds them to the models. The elements of list responses are handed over one at a time while
+ * the response is being read.
+ * </p>
+ * <p>
+ * The response is bound directly by the configured {@link com.plenigo.sdk.json.JsonCodec} and streamed if the configured rest client is a
+ * {@link TransportRestClient}, which is the case unless another client was set explicitly. Any other client returns the complete response
+ * as map, which is then bound with the mapper of the service and whose elements are handed over one after the other.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe.
+ * </p>
+ */
+final class StreamingSupport {
+
+    /**
+     * Default constructor.
+     */
+    private StreamingSupport() {
+    }
+
+    /**
+     * Executes a GET request of a list.
+     *
+     * @param config      the configuration the request is sent with
+     * @param apiUrlKey   the API endpoint
+     * @param path        the path of the resource
+     * @param queryString the query string
+     * @param elementsKey the key of the element array in the response
+     * @param type        the type of the elements
+     * @param mapper      builds an element of a response that was returned as map
+     * @param consumer    consumes the elements
+     * @param <T>         the type of the elements
+     *
+     * @return the response without the element array
+     *
+     * @throws PlenigoException if the request failed or the API returned an error
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Map<String, Object> get(ConfigurationSnapshot config, String apiUrlKey, String path, String queryString, String elementsKey,
+                                       Class<T> type, Function<Map<String, Object>, T> mapper, Consumer<? super T> consumer)
+            throws PlenigoException {
+        RestClient client = HttpConfig.get().getClient();
+        String url = config.getUrl();
+        Map<String, String> headers = config.getJwtHeader();
+        if (client instanceof TransportRestClient) {
+            return ((TransportRestClient) client).getList(url, apiUrlKey, path, queryString, headers, elementsKey, type, consumer);
+        }
+        Map<String, Object> response = new LinkedHashMap<String, Object>(client.get(url, apiUrlKey, path, queryString, headers));
+        Object elements = response.remove(elementsKey);
+        if (elements instanceof List) {
+            for (Object element : (List<Object>) elements) {
+                if (element instanceof Map) {
+                    consumer.accept(mapper.apply((Map<String, Object>) element));
+                }
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Executes a GET request of a single object.
+     *
+     * @param config      the configuration the request is sent with
+     * @param apiUrlKey   the API endpoint
+     * @param path        the path of the resource
+     * @param queryString the query string
+     * @param type        the type of the model
+     * @param mapper      builds the model of a response that was returned as map
+     * @param <T>         the type of the model
+     *
+     * @return the model
+     *
+     * @throws PlenigoException if the request failed or the API returned an error
+     */
+    static <T> T getObject(ConfigurationSnapshot config, String apiUrlKey, String path, String queryString, Class<T> type,
+                           Function<Map<String, Object>, T> mapper) throws PlenigoException {
+        RestClient client = HttpConfig.get().getClient();
+        String url = config.getUrl();
+        Map<String, String> headers = config.getJwtHeader();
+        if (client instanceof TransportRestClient) {
+            return ((TransportRestClient) client).getObject(url, apiUrlKey, path, queryString, headers, type);
+        }
+        return mapper.apply(client.get(url, apiUrlKey, path, queryString, headers));
+    }
+}
@@ -5,9 +5,9 @@ import com.plenigo.sdk.PlenigoManager;
 import com.plenigo.sdk.internal.ApiParams;
 import com.plenigo.sdk.internal.ApiResults;
 import com.plenigo.sdk.internal.ApiURLs;
+import com.plenigo.sdk.internal.models.ConfigurationSnapshot;
 import com.plenigo.sdk.internal.util.EncryptionUtils;
-import com.plenigo.sdk.internal.util.JWT;
-import com.plenigo.sdk.internal.util.RestClient;
+import com.plenigo.sdk.internal.util.HttpConfig;
 import com.plenigo.sdk.internal.util.SdkUtils;
 import com.plenigo.sdk.models.AccessTokenRequest;
 import com.plenigo.sdk.models.RefreshTokenRequest;
@@ -17,6 +17,7 @@ import com.plenigo.sdk.models.TokenType;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -31,11 +32,6 @@ import java.util.logging.Logger;
 public final class TokenService {
     private static final Logger LOGGER = Logger.getLogger(TokenService.class.getName());
 
-    /**
-     * Rest client used internally.
-     */
-    private static RestClient client = new RestClient();
-
     /**
      * Default constuctor.
      */
@@ -59,13 +55,27 @@ public final class TokenService {
         params.put(ApiParams.TOKEN_GRANT_TYPE, TokenGrantType.AUTHORIZATION_CODE.getName());
         params.put(ApiParams.OAUTH_ACCESS_CODE, request.getCode());
         params.put(ApiParams.REDIRECT_URI, request.getRedirectUri());
-        params.put(ApiParams.CLIENT_ID, PlenigoManager.get().getCompanyId());
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        params.put(ApiParams.CLIENT_ID, config.getCompanyId());
         SdkUtils.addIfNotNull(params, ApiParams.STATE, request.getCsrfToken());
-        Map<String, Object> result = client.post(PlenigoManager.get().getOauthUrl(), ApiURLs.GET_ACCESS_TOKEN, ApiURLs.GET_ACCESS_TOKEN,
-                SdkUtils.buildUrlQueryString(params), null, JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
+        Map<String, Object> result = HttpConfig.get().getClient().post(config.getOauthUrl(), ApiURLs.GET_ACCESS_TOKEN, ApiURLs.GET_ACCESS_TOKEN,
+                SdkUtils.buildUrlQueryString(params), null, config.getJwtHeader());
         return validateAndBuildResponse(request.getCsrfToken(), result);
     }
 
+    /**
+     * Asynchronous variant of {@link #getAccessToken(AccessTokenRequest)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param request The request object with all the parameters necessary for an access token
+     *
+     * @return a future with the token data that is retrieved from the response
+     */
+    public static CompletableFuture<TokenData> getAccessTokenAsync(AccessTokenRequest request) {
+        return AsyncSupport.supply(() -> getAccessToken(request));
+    }
+
     /**
      * Requests another access token with the provided refresh token, this is usually used
      * when the access token is expired, and with it you can request for user information.
@@ -81,16 +91,29 @@ public final class TokenService {
         Map<String, Object> params = new HashMap<String, Object>();
         params.put(ApiParams.TOKEN_GRANT_TYPE, TokenGrantType.REFRESH_TOKEN.getName());
         params.put(ApiParams.REFRESH_TOKEN, request.getRefreshToken());
-        params.put(ApiParams.CLIENT_ID, PlenigoManager.get().getCompanyId());
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        params.put(ApiParams.CLIENT_ID, config.getCompanyId());
         SdkUtils.addIfNotNull(params, ApiParams.STATE, request.getCsrfToken());
-        Map<String, Object> result = client.post(PlenigoManager.get().getOauthUrl(), ApiURLs.REFRESH_ACCESS_TOKEN, ApiURLs.REFRESH_ACCESS_TOKEN,
-                SdkUtils.buildUrlQueryString(params), null, JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(),
-                        PlenigoManager.get().getSecret()));
+        Map<String, Object> result = HttpConfig.get().getClient().post(config.getOauthUrl(), ApiURLs.REFRESH_ACCESS_TOKEN,
+                ApiURLs.REFRESH_ACCESS_TOKEN, SdkUtils.buildUrlQueryString(params), null, config.getJwtHeader());
 
         result.put(ApiResults.REFRESH_TOKEN, request.getRefreshToken());
         return validateAndBuildResponse(request.getCsrfToken(), result);
     }
 
+    /**
+     * Asynchronous variant of {@link #getNewAccessToken(RefreshTokenRequest)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param request The request information necessary for a refreshed access token
+     *
+     * @return a future with the token data that is retrieved from the response
+     */
+    public static CompletableFuture<TokenData> getNewAccessTokenAsync(RefreshTokenRequest request) {
+        return AsyncSupport.supply(() -> getNewAccessToken(request));
+    }
+
     /**
      * This method validates a given token response and calls the method
      * that builds the {@link TokenData} object.
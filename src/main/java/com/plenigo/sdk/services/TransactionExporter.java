@@ -0,0 +1,325 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.internal.ErrorCode;
+import com.plenigo.sdk.internal.util.ValidationUtils;
+import com.plenigo.sdk.models.PaymentMethod;
+import com.plenigo.sdk.models.TransactionList;
+import com.plenigo.sdk.models.TransactionSearchRequest;
+import com.plenigo.sdk.models.TransactionStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * Exports all the transactions of a period to a file or channel, as newline delimited JSON or as CSV.
+ * </p>
+ * <p>
+ * {@link TransactionService#searchTransactions(TransactionSearchRequest)} only accepts a limited date range and returns a single page,
+ * so the period is split into date windows that are always accepted by the API. The windows are exported one after the other in
+ * chronological order: while the pages of a window are loaded concurrently on the executor configured with
+ * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}, the first page of the next window is already being requested.
+ * The transactions are written in page order by the calling thread as soon as their page is available, so no more than a few pages
+ * are held in memory regardless of the amount of transactions.
+ * </p>
+ * <pre>
+ * long exported = new TransactionExporter(startDate, endDate, TransactionExporter.Format.CSV)
+ *         .setParallelism(8)
+ *         .export(Paths.get("transactions.csv"));
+ * </pre>
+ * <p>
+ * <strong>Thread safety:</strong> This class is <b>not</b> thread safe, an exporter should be configured and used by a single thread.
+ * The calling thread must not be a thread of the configured executor.
+ * </p>
+ */
+public final class TransactionExporter {
+    /**
+     * The default amount of days of every date window.
+     */
+    public static final int DEFAULT_WINDOW_DAYS = 31;
+    /**
+     * The maximum amount of days of a date window, longer windows could exceed the date range accepted by the API.
+     */
+    public static final int MAX_WINDOW_DAYS = 365;
+    /**
+     * The default amount of pages that are loaded or wait to be written at the same time.
+     */
+    public static final int DEFAULT_PARALLELISM = 4;
+    /**
+     * The default page size, the biggest one accepted by the API.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final Logger LOGGER = Logger.getLogger(TransactionExporter.class.getName());
+
+    private final Date startDate;
+    private final Date endDate;
+    private final Format format;
+    private int windowDays = DEFAULT_WINDOW_DAYS;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    private PaymentMethod paymentMethod;
+    private TransactionStatus transactionStatus;
+
+    /**
+     * The format of the exported transactions.
+     */
+    public enum Format {
+        /**
+         * One JSON object per line.
+         */
+        NDJSON,
+        /**
+         * Comma separated values with a header line.
+         */
+        CSV
+    }
+
+    /**
+     * Builds an exporter for the transactions of the given days.
+     *
+     * @param startDate the first day of the period
+     * @param endDate   the last day of the period
+     * @param format    the format of the exported transactions
+     */
+    public TransactionExporter(Date startDate, Date endDate, Format format) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.format = format;
+    }
+
+    /**
+     * Sets the amount of days of every date window, it will be trimmed to 1...{@link #MAX_WINDOW_DAYS}.
+     *
+     * @param windowDays the amount of days
+     *
+     * @return the same exporter
+     */
+    public TransactionExporter setWindowDays(int windowDays) {
+        this.windowDays = Math.min(MAX_WINDOW_DAYS, Math.max(1, windowDays));
+        return this;
+    }
+
+    /**
+     * Sets the maximum amount of pages that are loaded or wait to be written at the same time.
+     *
+     * @param parallelism the parallelism
+     *
+     * @return the same exporter
+     */
+    public TransactionExporter setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * Sets the size of the requested pages.
+     *
+     * @param pageSize the page size
+     *
+     * @return the same exporter
+     */
+    public TransactionExporter setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * Only exports the transactions with the given payment method.
+     *
+     * @param paymentMethod the payment method or null for all of them
+     *
+     * @return the same exporter
+     */
+    public TransactionExporter setPaymentMethod(PaymentMethod paymentMethod) {
+        this.paymentMethod = paymentMethod;
+        return this;
+    }
+
+    /**
+     * Only exports the transactions with the given status.
+     *
+     * @param transactionStatus the status or null for all of them
+     *
+     * @return the same exporter
+     */
+    public TransactionExporter setTransactionStatus(TransactionStatus transactionStatus) {
+        this.transactionStatus = transactionStatus;
+        return this;
+    }
+
+    /**
+     * Exports the transactions to a file, the file is created or replaced.
+     *
+     * @param file the file
+     *
+     * @return the amount of exported transactions
+     *
+     * @throws PlenigoException if a page could not be loaded or the file could not be written
+     */
+    public long export(Path file) throws PlenigoException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            return export(channel);
+        } catch (IOException e) {
+            throw new PlenigoException("Could not write the transactions to " + file, e);
+        }
+    }
+
+    /**
+     * Exports the transactions to a channel, the channel is not closed.
+     *
+     * @param channel the channel
+     *
+     * @return the amount of exported transactions
+     *
+     * @throws PlenigoException if a page could not be loaded or the channel could not be written
+     */
+    public long export(WritableByteChannel channel) throws PlenigoException {
+        List<TransactionSearchRequest> windows = splitIntoWindows();
+        TransactionRecordWriter writer = new TransactionRecordWriter(channel, format);
+        CompletableFuture<TransactionList> nextFirstPage = null;
+        boolean exported = false;
+        try {
+            writer.writeHeader();
+            if (!windows.isEmpty()) {
+                nextFirstPage = loadFirstPage(windows.get(0));
+            }
+            for (int i = 0; i < windows.size(); i++) {
+                TransactionList firstPage = AsyncSupport.await(nextFirstPage);
+                if (i + 1 < windows.size()) {
+                    nextFirstPage = loadFirstPage(windows.get(i + 1));
+                }
+                exportWindow(windows.get(i), firstPage, writer);
+            }
+            writer.flush();
+            exported = true;
+        } catch (IOException e) {
+            throw new PlenigoException("Could not write the transactions", e);
+        } catch (UncheckedIOException e) {
+            throw new PlenigoException("Could not write the transactions", e.getCause());
+        } finally {
+            if (!exported && nextFirstPage != null) {
+                //the first page of the next window is not needed anymore
+                nextFirstPage.cancel(true);
+            }
+        }
+        LOGGER.log(Level.FINE, "Exported {0} transactions in {1} date windows", new Object[]{writer.getRecordCount(), windows.size()});
+        return writer.getRecordCount();
+    }
+
+    /**
+     * Splits the period into date windows of the configured amount of days.
+     *
+     * @return the search requests of the windows in chronological order
+     *
+     * @throws PlenigoException if the period is missing
+     */
+    List<TransactionSearchRequest> splitIntoWindows() throws PlenigoException {
+        if (startDate == null || endDate == null) {
+            throw new PlenigoException(ErrorCode.INVALID_PARAMETERS, "The start and end date of the export are required", null);
+        }
+        List<TransactionSearchRequest> windows = new ArrayList<TransactionSearchRequest>();
+        Calendar windowStart = startOfDay(startDate);
+        Calendar lastDay = startOfDay(endDate);
+        while (!windowStart.after(lastDay)) {
+            Calendar windowEnd = (Calendar) windowStart.clone();
+            windowEnd.add(Calendar.DAY_OF_MONTH, windowDays - 1);
+            if (windowEnd.after(lastDay)) {
+                windowEnd = lastDay;
+            }
+            windows.add(createRequest(windowStart.getTime(), windowEnd.getTime(), 0));
+            windowStart = (Calendar) windowEnd.clone();
+            windowStart.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return windows;
+    }
+
+    /**
+     * Loads and writes the pages of a window.
+     *
+     * @param window    the search request of the window
+     * @param firstPage the first page of the window
+     * @param writer    the writer
+     *
+     * @throws PlenigoException if a page could not be loaded
+     */
+    private void exportWindow(TransactionSearchRequest window, TransactionList firstPage, TransactionRecordWriter writer) throws PlenigoException {
+        int windowPageSize = firstPage.getSize();
+        if (windowPageSize <= 0) {
+            windowPageSize = window.getPageSize();
+        }
+        int lastPage = PageFanOut.lastPage(0, firstPage.getTotalElements(), windowPageSize);
+        LOGGER.log(Level.FINEST, "Exporting {0} transactions in {1} pages from {2} to {3}",
+                new Object[]{firstPage.getTotalElements(), lastPage, window.getStartDate(), window.getEndDate()});
+        PageFanOut.consume(0, lastPage, parallelism, true, page -> {
+            if (page == 0) {
+                return firstPage.getElements();
+            }
+            return TransactionService.searchTransactions(createRequest(window.getStartDate(), window.getEndDate(), page)).getElements();
+        }, transaction -> {
+            try {
+                writer.write(transaction);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Starts loading the first page of a window.
+     *
+     * @param window the search request of the window
+     *
+     * @return the future of the first page
+     */
+    private CompletableFuture<TransactionList> loadFirstPage(TransactionSearchRequest window) {
+        return AsyncSupport.supply(() -> TransactionService.searchTransactions(window));
+    }
+
+    /**
+     * Creates the search request of a page of a window.
+     *
+     * @param windowStart the first day of the window
+     * @param windowEnd   the last day of the window
+     * @param pageNumber  the page number
+     *
+     * @return the search request
+     */
+    private TransactionSearchRequest createRequest(Date windowStart, Date windowEnd, int pageNumber) {
+        TransactionSearchRequest request = new TransactionSearchRequest(pageNumber, pageSize).setStartDate(windowStart).setEndDate(windowEnd)
+                .setPaymentMethod(paymentMethod).setTransactionStatus(transactionStatus);
+        ValidationUtils.validate(request);
+        return request;
+    }
+
+    /**
+     * Returns the start of the day of a date.
+     *
+     * @param date the date
+     *
+     * @return a calendar set to the start of the day
+     */
+    static Calendar startOfDay(Date date) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar;
+    }
+}
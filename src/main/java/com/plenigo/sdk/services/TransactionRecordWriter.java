@@ -0,0 +1,310 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.internal.ApiResults;
+import com.plenigo.sdk.models.Transaction;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * <p>
+ * Writes transactions to a channel, one record per line, either as newline delimited JSON or as CSV with a header line.
+ * </p>
+ * <p>
+ * The records are encoded as UTF-8 into a single reusable buffer that is only written to the channel when it is full or when the writer
+ * is flushed, so no more than one buffer of output is held in memory. The field names are the ones used by the plenigo API, the
+ * amounts are written in plain decimal notation and the transaction date is written in UTC in
+ * {@link TransactionService#RESPONSE_DATE_FORMAT}.
+ * </p>
+ * <p>
+ * <strong>Thread safety:</strong> This class is <b>not</b> thread safe.
+ * </p>
+ */
+final class TransactionRecordWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int RECORD_CAPACITY = 512;
+    private static final char CSV_SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final char ESCAPE = '\\';
+    private static final char LAST_CONTROL_CHAR = 0x1f;
+    private static final String UNICODE_ESCAPE = "\\u";
+    private static final int HEX_DIGITS = 4;
+    private static final int HEX_RADIX = 16;
+    private static final String UTC = "UTC";
+    private static final String[] FIELDS = {ApiResults.TRANSACTION_ID, ApiResults.CUST_ID, ApiResults.PROD_ID, ApiResults.TITLE,
+            ApiResults.PRICE, ApiResults.TAXES_PERCENTAGE, ApiResults.TAXES_AMOUNT, ApiResults.TAXES_COUNTRY, ApiResults.CURRENCY,
+            ApiResults.PAYMENT_METHOD, ApiResults.TRANSACTION_DATE, ApiResults.TRANSACTION_STATUS, ApiResults.BILLING_ID,
+            ApiResults.CANCELLATION_TRANSACTION_ID, ApiResults.CANCELLED_TRANSACTION_ID};
+
+    private final WritableByteChannel channel;
+    private final TransactionExporter.Format format;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final StringBuilder record = new StringBuilder(RECORD_CAPACITY);
+    private final DateFormat dateFormat = createDateFormat();
+    private int fieldCount;
+    private long recordCount;
+
+    /**
+     * Builds the writer.
+     *
+     * @param channel the channel the records are written to, it is not closed by the writer
+     * @param format  the format of the records
+     */
+    TransactionRecordWriter(WritableByteChannel channel, TransactionExporter.Format format) {
+        this.channel = channel;
+        this.format = format;
+    }
+
+    /**
+     * Writes the header line if the format has one.
+     *
+     * @throws IOException if the channel could not be written
+     */
+    void writeHeader() throws IOException {
+        if (format != TransactionExporter.Format.CSV) {
+            return;
+        }
+        record.setLength(0);
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (i > 0) {
+                record.append(CSV_SEPARATOR);
+            }
+            record.append(FIELDS[i]);
+        }
+        record.append('\n');
+        encode(record);
+    }
+
+    /**
+     * Writes a transaction.
+     *
+     * @param transaction the transaction
+     *
+     * @throws IOException if the channel could not be written
+     */
+    void write(Transaction transaction) throws IOException {
+        record.setLength(0);
+        fieldCount = 0;
+        if (format == TransactionExporter.Format.NDJSON) {
+            record.append('{');
+        }
+        appendString(transaction.getTransactionId());
+        appendString(transaction.getCustomerId());
+        appendString(transaction.getProductId());
+        appendString(transaction.getTitle());
+        appendAmount(transaction.getPrice());
+        appendAmount(transaction.getTaxesPercentage());
+        appendAmount(transaction.getTaxesAmount());
+        appendString(transaction.getTaxesCountry());
+        appendString(transaction.getCurrency());
+        appendString(transaction.getPaymentMethod() == null ? null : transaction.getPaymentMethod().name());
+        appendString(formatDate(transaction.getTransactionDate()));
+        appendString(transaction.getStatus() == null ? null : transaction.getStatus().name());
+        appendNumber(Long.toString(transaction.getBillingId()));
+        appendString(transaction.getCancellationTransactionId());
+        appendString(transaction.getCancelledTransactionId());
+        if (format == TransactionExporter.Format.NDJSON) {
+            record.append('}');
+        }
+        record.append('\n');
+        encode(record);
+        recordCount++;
+    }
+
+    /**
+     * Writes the buffered output to the channel.
+     *
+     * @throws IOException if the channel could not be written
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Returns the amount of written transactions.
+     *
+     * @return the amount of transactions
+     */
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Creates the format of the transaction date, its Z is a literal so the date has to be formatted in UTC.
+     *
+     * @return the date format
+     */
+    private static DateFormat createDateFormat() {
+        DateFormat format = new SimpleDateFormat(TransactionService.RESPONSE_DATE_FORMAT);
+        format.setTimeZone(TimeZone.getTimeZone(UTC));
+        return format;
+    }
+
+    /**
+     * Formats the transaction date.
+     *
+     * @param date the date, it can be null
+     *
+     * @return the formatted date or null
+     */
+    private String formatDate(Date date) {
+        if (date == null) {
+            return null;
+        }
+        return dateFormat.format(date);
+    }
+
+    /**
+     * Appends the separator and, for JSON, the name of the next field.
+     */
+    private void appendFieldStart() {
+        if (format == TransactionExporter.Format.NDJSON) {
+            if (fieldCount > 0) {
+                record.append(',');
+            }
+            record.append(QUOTE).append(FIELDS[fieldCount]).append(QUOTE).append(':');
+        } else if (fieldCount > 0) {
+            record.append(CSV_SEPARATOR);
+        }
+        fieldCount++;
+    }
+
+    /**
+     * Appends a numeric field.
+     *
+     * @param value the formatted number
+     */
+    private void appendNumber(String value) {
+        appendFieldStart();
+        record.append(value);
+    }
+
+    /**
+     * Appends an amount in plain decimal notation, without the exponent {@link Double#toString(double)} uses for small and large values.
+     *
+     * @param value the amount
+     */
+    private void appendAmount(double value) {
+        appendNumber(BigDecimal.valueOf(value).toPlainString());
+    }
+
+    /**
+     * Appends a text field, escaped as required by the format. Missing values are written as JSON null or as an empty CSV field.
+     *
+     * @param value the value, it can be null
+     */
+    private void appendString(String value) {
+        appendFieldStart();
+        if (format == TransactionExporter.Format.NDJSON) {
+            appendJsonString(value);
+        } else {
+            appendCsvString(value);
+        }
+    }
+
+    /**
+     * Appends a JSON string.
+     *
+     * @param value the value, it can be null
+     */
+    private void appendJsonString(String value) {
+        if (value == null) {
+            record.append("null");
+            return;
+        }
+        record.append(QUOTE);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE || c == ESCAPE) {
+                record.append(ESCAPE).append(c);
+            } else if (c == '\n') {
+                record.append("\\n");
+            } else if (c == '\r') {
+                record.append("\\r");
+            } else if (c == '\t') {
+                record.append("\\t");
+            } else if (c <= LAST_CONTROL_CHAR) {
+                String hex = Integer.toString(c, HEX_RADIX);
+                record.append(UNICODE_ESCAPE);
+                for (int j = hex.length(); j < HEX_DIGITS; j++) {
+                    record.append('0');
+                }
+                record.append(hex);
+            } else {
+                record.append(c);
+            }
+        }
+        record.append(QUOTE);
+    }
+
+    /**
+     * Appends a CSV field, quoting it if it contains a separator, a quote or a line break.
+     *
+     * @param value the value, it can be null
+     */
+    private void appendCsvString(String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == CSV_SEPARATOR || c == QUOTE || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            record.append(value);
+            return;
+        }
+        record.append(QUOTE);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE) {
+                record.append(QUOTE);
+            }
+            record.append(c);
+        }
+        record.append(QUOTE);
+    }
+
+    /**
+     * Encodes the characters into the buffer, writing the buffer to the channel whenever it is full.
+     *
+     * @param chars the characters
+     *
+     * @throws IOException if the channel could not be written
+     */
+    private void encode(CharSequence chars) throws IOException {
+        CharBuffer input = CharBuffer.wrap(chars);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(input, buffer, true);
+            if (result.isOverflow()) {
+                flush();
+            } else if (result.isError()) {
+                result.throwException();
+            } else {
+                break;
+            }
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            flush();
+        }
+    }
+}
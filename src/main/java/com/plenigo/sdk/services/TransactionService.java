@@ -5,8 +5,8 @@ import com.plenigo.sdk.PlenigoManager;
 import com.plenigo.sdk.internal.ApiParams;
 import com.plenigo.sdk.internal.ApiResults;
 import com.plenigo.sdk.internal.ApiURLs;
-import com.plenigo.sdk.internal.util.HttpConfig;
-import com.plenigo.sdk.internal.util.JWT;
+import com.plenigo.sdk.internal.models.ConfigurationSnapshot;
+import com.plenigo.sdk.internal.util.DateParser;
 import com.plenigo.sdk.internal.util.SdkUtils;
 import com.plenigo.sdk.internal.util.ValidationUtils;
 import com.plenigo.sdk.models.PaymentMethod;
@@ -23,6 +23,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -61,6 +63,71 @@ public final class TransactionService {
      * @throws PlenigoException if any error happens
      */
     public static TransactionList searchTransactions(TransactionSearchRequest request) throws PlenigoException {
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        String queryString = buildSearchQueryString(request, config);
+        List<Transaction> transactions = new LinkedList<Transaction>();
+        Map<String, Object> objectMap = StreamingSupport.get(config, ApiURLs.TX_SEARCH, ApiURLs.TX_SEARCH, queryString,
+                ApiResults.ELEMENTS, Transaction.class, TransactionService::buildTransaction, transactions::add);
+        return buildTransactionList(objectMap, transactions, request);
+    }
+
+    /**
+     * Searches transactions with the provided criteria and hands them to the consumer one at a time while the response is being read,
+     * so that only one transaction of the page is held in memory at any time, see {@link StreamingSupport}.
+     *
+     * @param request  search criteria
+     * @param consumer consumes the transactions of the page in the order of the response, it is called by the calling thread
+     *
+     * @return the total amount of transactions matching the criteria, of all the pages
+     *
+     * @throws PlenigoException if any error happens
+     */
+    public static long streamTransactions(TransactionSearchRequest request, Consumer<? super Transaction> consumer) throws PlenigoException {
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        String queryString = buildSearchQueryString(request, config);
+        Map<String, Object> objectMap = StreamingSupport.get(config, ApiURLs.TX_SEARCH, ApiURLs.TX_SEARCH, queryString,
+                ApiResults.ELEMENTS, Transaction.class, TransactionService::buildTransaction, consumer);
+        return getTotalElements(objectMap);
+    }
+
+    /**
+     * Asynchronous variant of {@link #searchTransactions(TransactionSearchRequest)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param request search criteria
+     *
+     * @return a future with the transaction list
+     */
+    public static CompletableFuture<TransactionList> searchTransactionsAsync(TransactionSearchRequest request) {
+        return AsyncSupport.supply(() -> searchTransactions(request));
+    }
+
+    /**
+     * Returns the transactions matching the criteria starting with the page of the request, the pages are loaded with
+     * {@link #searchTransactions(TransactionSearchRequest)} while they are iterated and the following page is prefetched,
+     * see {@link PageIterable}.
+     *
+     * @param request search criteria, the page size and the first page to load
+     *
+     * @return the lazily loaded transactions
+     */
+    public static PageIterable<Transaction> iterateTransactions(TransactionSearchRequest request) {
+        ValidationUtils.validate(request);
+        int pageSize = request.getPageSize();
+        return new PageIterable<Transaction>(pageSize, request.getPageNumber(),
+                page -> PageIterable.Page.of(searchTransactions(copyForPage(request, page))));
+    }
+
+    /**
+     * Validates the search criteria and builds the query string of the search.
+     *
+     * @param request search criteria
+     * @param config  the configuration the search is sent with
+     *
+     * @return the query string
+     */
+    private static String buildSearchQueryString(TransactionSearchRequest request, ConfigurationSnapshot config) {
         Map<String, Object> params = new HashMap<String, Object>();
         ValidationUtils.validate(request);
         ValidationUtils.validateDateRange(request);
@@ -71,97 +138,113 @@ public final class TransactionService {
         params.put(ApiParams.PAGE_SIZE, request.getPageSize());
         SdkUtils.addIfNotNull(params, ApiParams.TRANSACTION_STATUS, request.getTransactionStatus());
         SdkUtils.addIfNotNull(params, ApiParams.PAYMENT_METHOD, request.getPaymentMethod());
-        params.put(ApiParams.TEST_MODE, PlenigoManager.get().isTestMode());
-        Map<String, Object> objectMap = HttpConfig.get().getClient().get(PlenigoManager.get().getUrl(), ApiURLs.TX_SEARCH, ApiURLs.TX_SEARCH,
-                buildUrlQueryString(params), JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
-        return buildTransactionList(objectMap, request);
+        params.put(ApiParams.TEST_MODE, config.isTestMode());
+        return buildUrlQueryString(params);
+    }
+
+    /**
+     * Copies the search criteria of a request for another page.
+     *
+     * @param request    search criteria
+     * @param pageNumber the page number of the copy
+     *
+     * @return the copy
+     */
+    private static TransactionSearchRequest copyForPage(TransactionSearchRequest request, int pageNumber) {
+        return new TransactionSearchRequest(pageNumber, request.getPageSize()).setStartDate(request.getStartDate()).setEndDate(request.getEndDate())
+                .setPaymentMethod(request.getPaymentMethod()).setTransactionStatus(request.getTransactionStatus());
     }
 
     /**
      * Builds a transaction list from the json representation.
      *
-     * @param objectMap json representation
-     * @param request   search request
+     * @param objectMap       json representation without the elements
+     * @param transactionList the transactions of the page
+     * @param request         search request
      *
      * @return transaction list
      */
-    private static TransactionList buildTransactionList(Map<String, Object> objectMap, TransactionSearchRequest request) {
-        String totalElementsStr = SdkUtils.getValueIfNotNull(objectMap, ApiResults.TOTAL_ELEMENTS);
-        long totalElements = 0;
-        if (!totalElementsStr.isEmpty()) {
-            totalElements = Long.parseLong(totalElementsStr);
-        }
+    private static TransactionList buildTransactionList(Map<String, Object> objectMap, List<Transaction> transactionList,
+                                                        TransactionSearchRequest request) {
+        long totalElements = getTotalElements(objectMap);
         String pageSizeStr = SdkUtils.getValueIfNotNull(objectMap, ApiResults.PAGE_SIZE);
         int pageSize = 0;
         if (!pageSizeStr.isEmpty()) {
             pageSize = Integer.parseInt(pageSizeStr);
         }
-        Object companyUsersObj = objectMap.get(ApiResults.ELEMENTS);
-        List<Transaction> transactionList = buildTransactionList(companyUsersObj);
         return new TransactionList(request.getPageNumber(), pageSize, totalElements, transactionList, request.getStartDate(), request.getEndDate());
     }
 
     /**
-     * Builds a transaction list from the json representation.
+     * Returns the total amount of elements of a list response.
      *
-     * @param companyUsersObj json representation
+     * @param objectMap json representation
      *
-     * @return transaction list
+     * @return the total amount of elements
      */
-    private static List<Transaction> buildTransactionList(Object companyUsersObj) {
-        List<Transaction> transactionList = new LinkedList<Transaction>();
-        if (companyUsersObj != null && companyUsersObj instanceof List) {
-            List<Map<String, Object>> companyUsers = (List<Map<String, Object>>) companyUsersObj;
-            for (Map<String, Object> companyUser : companyUsers) {
-                String transactionId = getValueIfNotNull(companyUser, ApiResults.TRANSACTION_ID);
-                String customerId = getValueIfNotNull(companyUser, ApiResults.CUST_ID);
-                String productId = getValueIfNotNull(companyUser, ApiResults.PROD_ID);
-                String title = getValueIfNotNull(companyUser, ApiResults.TITLE);
-                String priceStr = getValueIfNotNull(companyUser, ApiResults.PRICE);
-                double price = 0.0;
-                if (isNotBlank(priceStr)) {
-                    price = Double.parseDouble(priceStr);
-                }
-
-                String taxesPercentageStr = getValueIfNotNull(companyUser, ApiResults.TAXES_PERCENTAGE);
-                double taxesPercentage = 0.0;
-                if (isNotBlank(taxesPercentageStr)) {
-                    taxesPercentage = Double.parseDouble(taxesPercentageStr);
-                }
-                String taxesAmountStr = getValueIfNotNull(companyUser, ApiResults.TAXES_AMOUNT);
-                double taxesAmount = 0.0;
-                if (isNotBlank(taxesAmountStr)) {
-                    taxesAmount = Double.parseDouble(taxesAmountStr);
-                }
-                String taxesCountry = getValueIfNotNull(companyUser, ApiResults.TAXES_COUNTRY);
-
-                String currency = getValueIfNotNull(companyUser, ApiResults.CURRENCY);
-                String paymentMethodStr = getValueIfNotNull(companyUser, ApiResults.PAYMENT_METHOD);
-                PaymentMethod paymentMethod = PaymentMethod.get(paymentMethodStr);
-                String transactionDateStr = getValueIfNotNull(companyUser, ApiResults.TRANSACTION_DATE);
-                Date transactionDate = null;
-                if (isNotBlank(transactionDateStr)) {
-                    try {
-                        transactionDate = new SimpleDateFormat(RESPONSE_DATE_FORMAT).parse(transactionDateStr);
-                    } catch (ParseException e) {
-                        LOGGER.log(Level.SEVERE, "Could not parse the transaction date string: " + transactionDateStr, e);
-                    }
-                }
-                String transactionStatusStr = getValueIfNotNull(companyUser, ApiResults.TRANSACTION_STATUS);
-                TransactionStatus status = TransactionStatus.get(transactionStatusStr);
-
-
-                String billingIdStr = getValueIfNotNull(companyUser, ApiResults.BILLING_ID);
-                long billingId = 0;
-                if (isNotBlank(billingIdStr)) {
-                    billingId = Long.parseLong(billingIdStr);
-                }
-                String cancellationTransactionId = getValueIfNotNull(companyUser, ApiResults.CANCELLATION_TRANSACTION_ID);
-                String cancelledTransactionId = getValueIfNotNull(companyUser, ApiResults.CANCELLED_TRANSACTION_ID);
-                transactionList.add(new Transaction(transactionId, customerId, productId, title, price, taxesPercentage, taxesAmount, taxesCountry, currency,
-                        paymentMethod, transactionDate, status, billingId, cancellationTransactionId, cancelledTransactionId));
+    private static long getTotalElements(Map<String, Object> objectMap) {
+        String totalElementsStr = SdkUtils.getValueIfNotNull(objectMap, ApiResults.TOTAL_ELEMENTS);
+        long totalElements = 0;
+        if (!totalElementsStr.isEmpty()) {
+            totalElements = Long.parseLong(totalElementsStr);
+        }
+        return totalElements;
+    }
+
+    /**
+     * Builds a transaction from the json representation.
+     *
+     * @param element json representation
+     *
+     * @return the transaction
+     */
+    private static Transaction buildTransaction(Map<String, Object> element) {
+        String transactionId = getValueIfNotNull(element, ApiResults.TRANSACTION_ID);
+        String customerId = getValueIfNotNull(element, ApiResults.CUST_ID);
+        String productId = getValueIfNotNull(element, ApiResults.PROD_ID);
+        String title = getValueIfNotNull(element, ApiResults.TITLE);
+        String priceStr = getValueIfNotNull(element, ApiResults.PRICE);
+        double price = 0.0;
+        if (isNotBlank(priceStr)) {
+            price = Double.parseDouble(priceStr);
+        }
+
+        String taxesPercentageStr = getValueIfNotNull(element, ApiResults.TAXES_PERCENTAGE);
+        double taxesPercentage = 0.0;
+        if (isNotBlank(taxesPercentageStr)) {
+            taxesPercentage = Double.parseDouble(taxesPercentageStr);
+        }
+        String taxesAmountStr = getValueIfNotNull(element, ApiResults.TAXES_AMOUNT);
+        double taxesAmount = 0.0;
+        if (isNotBlank(taxesAmountStr)) {
+            taxesAmount = Double.parseDouble(taxesAmountStr);
+        }
+        String taxesCountry = getValueIfNotNull(element, ApiResults.TAXES_COUNTRY);
+
+        String currency = getValueIfNotNull(element, ApiResults.CURRENCY);
+        String paymentMethodStr = getValueIfNotNull(element, ApiResults.PAYMENT_METHOD);
+        PaymentMethod paymentMethod = PaymentMethod.get(paymentMethodStr);
+        String transactionDateStr = getValueIfNotNull(element, ApiResults.TRANSACTION_DATE);
+        Date transactionDate = null;
+        if (isNotBlank(transactionDateStr)) {
+            try {
+                transactionDate = DateParser.LITERAL_Z.parse(transactionDateStr);
+            } catch (ParseException e) {
+                LOGGER.log(Level.SEVERE, "Could not parse the transaction date string: " + transactionDateStr, e);
             }
         }
-        return transactionList;
+        String transactionStatusStr = getValueIfNotNull(element, ApiResults.TRANSACTION_STATUS);
+        TransactionStatus status = TransactionStatus.get(transactionStatusStr);
+
+
+        String billingIdStr = getValueIfNotNull(element, ApiResults.BILLING_ID);
+        long billingId = 0;
+        if (isNotBlank(billingIdStr)) {
+            billingId = Long.parseLong(billingIdStr);
+        }
+        String cancellationTransactionId = getValueIfNotNull(element, ApiResults.CANCELLATION_TRANSACTION_ID);
+        String cancelledTransactionId = getValueIfNotNull(element, ApiResults.CANCELLED_TRANSACTION_ID);
+        return new Transaction(transactionId, customerId, productId, title, price, taxesPercentage, taxesAmount, taxesCountry, currency,
+                paymentMethod, transactionDate, status, billingId, cancellationTransactionId, cancelledTransactionId);
     }
 }
@@ -0,0 +1,548 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.models.PaymentMethod;
+import com.plenigo.sdk.models.Transaction;
+import com.plenigo.sdk.models.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>
+ * Keeps transactions in memory column by column so that they can be aggregated quickly.
+ * </p>
+ * <p>
+ * The amounts are kept in primitive arrays and the product id, currency, payment method, status and day of every transaction are
+ * dictionary encoded, every distinct value is stored once and the transactions only keep its int code. Grouping is therefore a pass
+ * over int and double arrays that accumulates into arrays indexed by code, without any boxing or hashing per transaction. Large
+ * stores can be aggregated in parallel on the common fork join pool, every task aggregates a range of rows and the partial results
+ * are merged.
+ * </p>
+ * <pre>
+ * TransactionStore store = new TransactionStore();
+ * store.addAll(TransactionService.iterateTransactions(request));
+ * Map&lt;String, Double&gt; revenueByProduct = store.sum(TransactionStore.Dimension.PRODUCT, TransactionStore.Measure.PRICE, true);
+ * </pre>
+ * <p>
+ * <strong>Thread safety:</strong> This class is <b>not</b> thread safe, no transactions may be added while it is being aggregated.
+ * </p>
+ */
+public final class TransactionStore {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+    private static final int NO_VALUE = -1;
+
+    private final Dictionary<String> products = new Dictionary<String>();
+    private final Dictionary<String> currencies = new Dictionary<String>();
+    private final Dictionary<PaymentMethod> paymentMethods = new Dictionary<PaymentMethod>();
+    private final Dictionary<TransactionStatus> statuses = new Dictionary<TransactionStatus>();
+    private final Dictionary<Date> days = new Dictionary<Date>();
+    private final Map<Long, Integer> dayCodes = new HashMap<Long, Integer>();
+    private final Calendar calendar = Calendar.getInstance();
+
+    private int size;
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private double[] taxesAmounts = new double[INITIAL_CAPACITY];
+    private double[] taxesPercentages = new double[INITIAL_CAPACITY];
+    private long[] dates = new long[INITIAL_CAPACITY];
+    private int[] productCodes = new int[INITIAL_CAPACITY];
+    private int[] currencyCodes = new int[INITIAL_CAPACITY];
+    private int[] paymentMethodCodes = new int[INITIAL_CAPACITY];
+    private int[] statusCodes = new int[INITIAL_CAPACITY];
+    private int[] dayCodeColumn = new int[INITIAL_CAPACITY];
+
+    /**
+     * An amount of a transaction that can be summed up.
+     */
+    public enum Measure {
+        /**
+         * The price.
+         */
+        PRICE,
+        /**
+         * The taxes amount.
+         */
+        TAXES_AMOUNT,
+        /**
+         * The taxes percentage.
+         */
+        TAXES_PERCENTAGE
+    }
+
+    /**
+     * <p>
+     * A value of a transaction the transactions can be grouped by. Transactions without the value are not part of any group.
+     * </p>
+     *
+     * @param <K> the type of the value
+     */
+    public static final class Dimension<K> {
+        /**
+         * The product id.
+         */
+        public static final Dimension<String> PRODUCT = new Dimension<String>(0);
+        /**
+         * The currency.
+         */
+        public static final Dimension<String> CURRENCY = new Dimension<String>(1);
+        /**
+         * The payment method.
+         */
+        public static final Dimension<PaymentMethod> PAYMENT_METHOD = new Dimension<PaymentMethod>(2);
+        /**
+         * The status.
+         */
+        public static final Dimension<TransactionStatus> STATUS = new Dimension<TransactionStatus>(3);
+        /**
+         * The start of the day of the transaction date, in the default time zone.
+         */
+        public static final Dimension<Date> DAY = new Dimension<Date>(4);
+
+        private final int column;
+
+        /**
+         * Builds the dimension.
+         *
+         * @param column the index of the column
+         */
+        private Dimension(int column) {
+            this.column = column;
+        }
+    }
+
+    /**
+     * Adds a transaction.
+     *
+     * @param transaction the transaction
+     */
+    public void add(Transaction transaction) {
+        if (size == prices.length) {
+            grow();
+        }
+        prices[size] = transaction.getPrice();
+        taxesAmounts[size] = transaction.getTaxesAmount();
+        taxesPercentages[size] = transaction.getTaxesPercentage();
+        Date date = transaction.getTransactionDate();
+        dates[size] = date == null ? Long.MIN_VALUE : date.getTime();
+        productCodes[size] = products.encode(transaction.getProductId());
+        currencyCodes[size] = currencies.encode(transaction.getCurrency());
+        paymentMethodCodes[size] = paymentMethods.encode(transaction.getPaymentMethod());
+        statusCodes[size] = statuses.encode(transaction.getStatus());
+        dayCodeColumn[size] = encodeDay(date);
+        size++;
+    }
+
+    /**
+     * Adds transactions, e.g. all the transactions of {@link TransactionService#iterateTransactions}.
+     *
+     * @param transactions the transactions
+     */
+    public void addAll(Iterable<? extends Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            add(transaction);
+        }
+    }
+
+    /**
+     * Returns the amount of transactions.
+     *
+     * @return the amount of transactions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the transaction date of a row.
+     *
+     * @param row the row, 0 based in the order the transactions were added
+     *
+     * @return the transaction date in milliseconds, or {@link Long#MIN_VALUE} if the transaction has no date
+     */
+    public long getTransactionDate(int row) {
+        checkRow(row);
+        return dates[row];
+    }
+
+    /**
+     * Returns an amount of a row.
+     *
+     * @param row     the row, 0 based in the order the transactions were added
+     * @param measure the amount
+     *
+     * @return the amount
+     */
+    public double get(int row, Measure measure) {
+        checkRow(row);
+        return column(measure)[row];
+    }
+
+    /**
+     * Returns a value of a row.
+     *
+     * @param row       the row, 0 based in the order the transactions were added
+     * @param dimension the value
+     * @param <K>       the type of the value
+     *
+     * @return the value or null if the transaction does not have it
+     */
+    public <K> K get(int row, Dimension<K> dimension) {
+        checkRow(row);
+        int code = codes(dimension)[row];
+        if (code == NO_VALUE) {
+            return null;
+        }
+        return dictionary(dimension).decode(code);
+    }
+
+    /**
+     * Sums up an amount of all the transactions.
+     *
+     * @param measure the amount
+     *
+     * @return the sum
+     */
+    public double sum(Measure measure) {
+        double[] values = column(measure);
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Sums up an amount of the transactions of every group.
+     *
+     * @param dimension the value the transactions are grouped by
+     * @param measure   the amount
+     * @param parallel  true to aggregate on the common fork join pool
+     * @param <K>       the type of the value
+     *
+     * @return the sum of every group, in the order the groups were first added
+     */
+    public <K> Map<K, Double> sum(Dimension<K> dimension, Measure measure, boolean parallel) {
+        Aggregate aggregate = aggregate(dimension, column(measure), parallel);
+        Dictionary<K> dictionary = dictionary(dimension);
+        Map<K, Double> sums = new LinkedHashMap<K, Double>();
+        for (int code = 0; code < aggregate.counts.length; code++) {
+            if (aggregate.counts[code] > 0) {
+                sums.put(dictionary.decode(code), aggregate.sums[code]);
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Counts the transactions of every group.
+     *
+     * @param dimension the value the transactions are grouped by
+     * @param parallel  true to aggregate on the common fork join pool
+     * @param <K>       the type of the value
+     *
+     * @return the amount of transactions of every group, in the order the groups were first added
+     */
+    public <K> Map<K, Long> count(Dimension<K> dimension, boolean parallel) {
+        Aggregate aggregate = aggregate(dimension, null, parallel);
+        Dictionary<K> dictionary = dictionary(dimension);
+        Map<K, Long> counts = new LinkedHashMap<K, Long>();
+        for (int code = 0; code < aggregate.counts.length; code++) {
+            if (aggregate.counts[code] > 0) {
+                counts.put(dictionary.decode(code), aggregate.counts[code]);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Aggregates the rows of every group.
+     *
+     * @param dimension the value the transactions are grouped by
+     * @param values    the values to sum up, or null to only count
+     * @param parallel  true to aggregate on the common fork join pool
+     *
+     * @return the aggregate indexed by group code
+     */
+    private Aggregate aggregate(Dimension<?> dimension, double[] values, boolean parallel) {
+        int[] codes = codes(dimension);
+        int groups = dictionary(dimension).size();
+        if (parallel && size > PARALLEL_THRESHOLD) {
+            return ForkJoinPool.commonPool().invoke(new AggregateTask(codes, values, groups, 0, size));
+        }
+        return Aggregate.of(codes, values, groups, 0, size);
+    }
+
+    /**
+     * Returns the column of an amount.
+     *
+     * @param measure the amount
+     *
+     * @return the column
+     */
+    private double[] column(Measure measure) {
+        switch (measure) {
+            case TAXES_AMOUNT:
+                return taxesAmounts;
+            case TAXES_PERCENTAGE:
+                return taxesPercentages;
+            default:
+                return prices;
+        }
+    }
+
+    /**
+     * Returns the code column of a dimension.
+     *
+     * @param dimension the dimension
+     *
+     * @return the column
+     */
+    private int[] codes(Dimension<?> dimension) {
+        switch (dimension.column) {
+            case 0:
+                return productCodes;
+            case 1:
+                return currencyCodes;
+            case 2:
+                return paymentMethodCodes;
+            case 3:
+                return statusCodes;
+            default:
+                return dayCodeColumn;
+        }
+    }
+
+    /**
+     * Returns the dictionary of a dimension.
+     *
+     * @param dimension the dimension
+     * @param <K>       the type of the values
+     *
+     * @return the dictionary
+     */
+    @SuppressWarnings("unchecked")
+    private <K> Dictionary<K> dictionary(Dimension<K> dimension) {
+        switch (dimension.column) {
+            case 0:
+                return (Dictionary<K>) products;
+            case 1:
+                return (Dictionary<K>) currencies;
+            case 2:
+                return (Dictionary<K>) paymentMethods;
+            case 3:
+                return (Dictionary<K>) statuses;
+            default:
+                return (Dictionary<K>) days;
+        }
+    }
+
+    /**
+     * Encodes the day of a transaction date.
+     *
+     * @param date the date, it can be null
+     *
+     * @return the code of the day
+     */
+    private int encodeDay(Date date) {
+        if (date == null) {
+            return NO_VALUE;
+        }
+        calendar.setTime(date);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        Long dayStart = calendar.getTimeInMillis();
+        Integer code = dayCodes.get(dayStart);
+        if (code == null) {
+            code = days.encode(new Date(dayStart));
+            dayCodes.put(dayStart, code);
+        }
+        return code;
+    }
+
+    /**
+     * Doubles the capacity of the columns.
+     */
+    private void grow() {
+        int capacity = prices.length * 2;
+        prices = Arrays.copyOf(prices, capacity);
+        taxesAmounts = Arrays.copyOf(taxesAmounts, capacity);
+        taxesPercentages = Arrays.copyOf(taxesPercentages, capacity);
+        dates = Arrays.copyOf(dates, capacity);
+        productCodes = Arrays.copyOf(productCodes, capacity);
+        currencyCodes = Arrays.copyOf(currencyCodes, capacity);
+        paymentMethodCodes = Arrays.copyOf(paymentMethodCodes, capacity);
+        statusCodes = Arrays.copyOf(statusCodes, capacity);
+        dayCodeColumn = Arrays.copyOf(dayCodeColumn, capacity);
+    }
+
+    /**
+     * Checks that a row exists.
+     *
+     * @param row the row
+     */
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", size: " + size);
+        }
+    }
+
+    /**
+     * Assigns a dense int code to every distinct value.
+     *
+     * @param <T> the type of the values
+     */
+    private static final class Dictionary<T> {
+        private final Map<T, Integer> codes = new HashMap<T, Integer>();
+        private final List<T> values = new ArrayList<T>();
+
+        /**
+         * Returns the code of a value, the value is added if it is new.
+         *
+         * @param value the value, it can be null
+         *
+         * @return the code or {@link #NO_VALUE} for null
+         */
+        int encode(T value) {
+            if (value == null) {
+                return NO_VALUE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        /**
+         * Returns the value of a code.
+         *
+         * @param code the code
+         *
+         * @return the value
+         */
+        T decode(int code) {
+            return values.get(code);
+        }
+
+        /**
+         * Returns the amount of distinct values.
+         *
+         * @return the amount of values
+         */
+        int size() {
+            return values.size();
+        }
+    }
+
+    /**
+     * The sums and counts of the groups of a range of rows, indexed by group code.
+     */
+    private static final class Aggregate {
+        private final double[] sums;
+        private final long[] counts;
+
+        /**
+         * Builds an empty aggregate.
+         *
+         * @param groups the amount of groups
+         */
+        private Aggregate(int groups) {
+            this.sums = new double[groups];
+            this.counts = new long[groups];
+        }
+
+        /**
+         * Aggregates a range of rows.
+         *
+         * @param codes  the group codes of the rows
+         * @param values the values to sum up, or null to only count
+         * @param groups the amount of groups
+         * @param from   the first row, inclusive
+         * @param to     the last row, exclusive
+         *
+         * @return the aggregate
+         */
+        static Aggregate of(int[] codes, double[] values, int groups, int from, int to) {
+            Aggregate aggregate = new Aggregate(groups);
+            for (int i = from; i < to; i++) {
+                int code = codes[i];
+                if (code != NO_VALUE) {
+                    aggregate.counts[code]++;
+                    if (values != null) {
+                        aggregate.sums[code] += values[i];
+                    }
+                }
+            }
+            return aggregate;
+        }
+
+        /**
+         * Adds the sums and counts of another aggregate of the same groups.
+         *
+         * @param other the other aggregate
+         *
+         * @return this aggregate
+         */
+        Aggregate merge(Aggregate other) {
+            for (int code = 0; code < counts.length; code++) {
+                sums[code] += other.sums[code];
+                counts[code] += other.counts[code];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Aggregates a range of rows, splitting it in halves until it is small enough.
+     */
+    private static final class AggregateTask extends RecursiveTask<Aggregate> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] codes;
+        private final double[] values;
+        private final int groups;
+        private final int from;
+        private final int to;
+
+        /**
+         * Builds the task.
+         *
+         * @param codes  the group codes of the rows
+         * @param values the values to sum up, or null to only count
+         * @param groups the amount of groups
+         * @param from   the first row, inclusive
+         * @param to     the last row, exclusive
+         */
+        AggregateTask(int[] codes, double[] values, int groups, int from, int to) {
+            this.codes = codes;
+            this.values = values;
+            this.groups = groups;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Aggregate compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return Aggregate.of(codes, values, groups, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(codes, values, groups, from, middle);
+            left.fork();
+            Aggregate right = new AggregateTask(codes, values, groups, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
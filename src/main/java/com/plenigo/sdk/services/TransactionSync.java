@@ -0,0 +1,337 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.UncheckedPlenigoException;
+import com.plenigo.sdk.internal.ErrorCode;
+import com.plenigo.sdk.internal.util.ValidationUtils;
+import com.plenigo.sdk.models.SyncCheckpoint;
+import com.plenigo.sdk.models.Transaction;
+import com.plenigo.sdk.models.TransactionSearchRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * Synchronizes the transactions incrementally, every run only delivers the transactions that were not delivered by the previous runs.
+ * </p>
+ * <p>
+ * The progress is kept in a {@link SyncCheckpoint} that is persisted in a local file: the date of the newest delivered transaction and
+ * the ids of the delivered transactions with that date. A run searches the transactions from the day of that date until today and
+ * delivers the newer ones, and the ones with the same date that are not among the ids, so the transactions of the boundary day are
+ * fetched again but only delivered once. The transactions of a search are expected in the order of their date, as the API returns
+ * them. The checkpoint stays small however many days a run covers.
+ * </p>
+ * <p>
+ * The checkpoint is written to a temporary file that is synced to disk and then atomically moved over the previous one, every time a
+ * page worth of transactions was delivered and at the end of every date window. Where the platform allows it, the directory is synced
+ * as well so that the move itself survives a crash. If a run is interrupted by a crash or an error, the next run resumes from the last
+ * written checkpoint, only the transactions delivered after it are delivered again, and removes the temporary files left behind.
+ * </p>
+ * <pre>
+ * TransactionSync sync = new TransactionSync(Paths.get("transactions.checkpoint"), firstDay);
+ * long newTransactions = sync.synchronize(transaction -&gt; ledger.add(transaction));
+ * </pre>
+ * <p>
+ * <strong>Thread safety:</strong> This class is thread safe, runs of the same instance never overlap. The checkpoint file must not be
+ * shared with other instances or processes.
+ * </p>
+ */
+public final class TransactionSync {
+    /**
+     * The default amount of days searched with a single request.
+     */
+    public static final int DEFAULT_WINDOW_DAYS = 1;
+
+    private static final Logger LOGGER = Logger.getLogger(TransactionSync.class.getName());
+    private static final String DAY_FORMAT = "yyyy-MM-dd";
+    private static final String SYNCED_UNTIL = "syncedUntil";
+    private static final String LAST_TRANSACTION_DATE = "lastTransactionDate";
+    private static final String DELIVERED_IDS = "deliveredIds";
+    private static final String ID_SEPARATOR = ",";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final Path checkpointFile;
+    private final Date initialStartDate;
+    private final LongSupplier clock;
+    private int pageSize = TransactionExporter.DEFAULT_PAGE_SIZE;
+    private int windowDays = DEFAULT_WINDOW_DAYS;
+
+    /**
+     * Builds the synchronization.
+     *
+     * @param checkpointFile   the file the checkpoint is persisted in
+     * @param initialStartDate the first day to synchronize if there is no checkpoint yet
+     */
+    public TransactionSync(Path checkpointFile, Date initialStartDate) {
+        this(checkpointFile, initialStartDate, System::currentTimeMillis);
+    }
+
+    /**
+     * Builds the synchronization with the given clock.
+     *
+     * @param checkpointFile   the file the checkpoint is persisted in
+     * @param initialStartDate the first day to synchronize if there is no checkpoint yet
+     * @param clock            the clock used to find out the current day
+     */
+    TransactionSync(Path checkpointFile, Date initialStartDate, LongSupplier clock) {
+        this.checkpointFile = checkpointFile;
+        this.initialStartDate = initialStartDate;
+        this.clock = clock;
+    }
+
+    /**
+     * Sets the size of the requested pages, it is also the amount of delivered transactions after which the checkpoint is written.
+     *
+     * @param pageSize the page size, it will be trimmed to 10...100
+     *
+     * @return the same synchronization
+     */
+    public synchronized TransactionSync setPageSize(int pageSize) {
+        TransactionSearchRequest request = new TransactionSearchRequest(0, pageSize);
+        ValidationUtils.validate(request);
+        this.pageSize = request.getPageSize();
+        return this;
+    }
+
+    /**
+     * Sets the amount of days searched with a single request, it will be trimmed to 1...{@link TransactionExporter#MAX_WINDOW_DAYS}.
+     *
+     * @param windowDays the amount of days
+     *
+     * @return the same synchronization
+     */
+    public synchronized TransactionSync setWindowDays(int windowDays) {
+        this.windowDays = Math.min(TransactionExporter.MAX_WINDOW_DAYS, Math.max(1, windowDays));
+        return this;
+    }
+
+    /**
+     * Returns the persisted checkpoint, or the initial one if nothing has been synchronized yet.
+     *
+     * @return the checkpoint
+     *
+     * @throws PlenigoException if the checkpoint file could not be read, or there is none and no initial start date was given
+     */
+    public synchronized SyncCheckpoint getCheckpoint() throws PlenigoException {
+        if (!Files.exists(checkpointFile)) {
+            if (initialStartDate == null) {
+                throw new PlenigoException(ErrorCode.INVALID_PARAMETERS, "There is no checkpoint in " + checkpointFile
+                        + " and no initial start date", null);
+            }
+            return new SyncCheckpoint(TransactionExporter.startOfDay(initialStartDate).getTime(), null, Collections.<String>emptySet());
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(checkpointFile)) {
+            properties.load(in);
+            Date syncedUntil = new SimpleDateFormat(DAY_FORMAT).parse(properties.getProperty(SYNCED_UNTIL, ""));
+            String lastTransactionDate = properties.getProperty(LAST_TRANSACTION_DATE, "");
+            Set<String> deliveredIds = new LinkedHashSet<String>();
+            for (String id : properties.getProperty(DELIVERED_IDS, "").split(ID_SEPARATOR)) {
+                if (!id.isEmpty()) {
+                    deliveredIds.add(id);
+                }
+            }
+            return new SyncCheckpoint(syncedUntil, lastTransactionDate.isEmpty() ? null : new Date(Long.parseLong(lastTransactionDate)),
+                    deliveredIds);
+        } catch (IOException | ParseException | NumberFormatException e) {
+            throw new PlenigoException("Could not read the transaction checkpoint " + checkpointFile, e);
+        }
+    }
+
+    /**
+     * Delivers the transactions that were not delivered yet, from the day of the checkpoint until today. If the consumer throws an
+     * exception the run stops and the exception is thrown, the transaction will be delivered again by the next run.
+     *
+     * @param consumer consumes the new transactions
+     *
+     * @return the amount of delivered transactions
+     *
+     * @throws PlenigoException if a page could not be loaded or the checkpoint could not be read or written
+     */
+    public synchronized long synchronize(Consumer<? super Transaction> consumer) throws PlenigoException {
+        deleteStaleTempFiles();
+        SyncCheckpoint checkpoint = getCheckpoint();
+        Calendar today = TransactionExporter.startOfDay(new Date(clock.getAsLong()));
+        Calendar windowStart = TransactionExporter.startOfDay(checkpoint.getSyncedUntil());
+        Date resumeDate = checkpoint.getLastTransactionDate();
+        Set<String> resumeIds = checkpoint.getDeliveredIds();
+        Date lastTransactionDate = resumeDate;
+        Set<String> boundaryIds = new LinkedHashSet<String>(resumeIds);
+        long delivered = 0;
+        while (!windowStart.after(today)) {
+            Calendar windowEnd = (Calendar) windowStart.clone();
+            windowEnd.add(Calendar.DAY_OF_MONTH, windowDays - 1);
+            if (windowEnd.after(today)) {
+                windowEnd = today;
+            }
+            TransactionSearchRequest request = new TransactionSearchRequest(0, pageSize).setStartDate(windowStart.getTime())
+                    .setEndDate(windowEnd.getTime());
+            int sinceCheckpoint = 0;
+            try {
+                for (Transaction transaction : TransactionService.iterateTransactions(request)) {
+                    Date transactionDate = transaction.getTransactionDate();
+                    if (wasDelivered(transaction, resumeDate, resumeIds)) {
+                        continue;
+                    }
+                    consumer.accept(transaction);
+                    delivered++;
+                    if (transactionDate != null && (lastTransactionDate == null || transactionDate.after(lastTransactionDate))) {
+                        lastTransactionDate = transactionDate;
+                        boundaryIds.clear();
+                    }
+                    if (transactionDate == null || transactionDate.equals(lastTransactionDate)) {
+                        boundaryIds.add(transaction.getTransactionId());
+                    }
+                    if (++sinceCheckpoint >= pageSize) {
+                        save(new SyncCheckpoint(windowStart.getTime(), lastTransactionDate, boundaryIds));
+                        sinceCheckpoint = 0;
+                    }
+                }
+            } catch (UncheckedPlenigoException e) {
+                throw e.getCause();
+            }
+            if (!windowEnd.before(today)) {
+                break;
+            }
+            windowStart = (Calendar) windowEnd.clone();
+            windowStart.add(Calendar.DAY_OF_MONTH, 1);
+            save(new SyncCheckpoint(windowStart.getTime(), lastTransactionDate, boundaryIds));
+        }
+        if (lastTransactionDate != null && lastTransactionDate.after(windowStart.getTime())) {
+            windowStart = TransactionExporter.startOfDay(lastTransactionDate);
+        }
+        save(new SyncCheckpoint(windowStart.getTime(), lastTransactionDate, boundaryIds));
+        LOGGER.log(Level.FINE, "Delivered {0} new transactions, synchronized until {1}", new Object[]{delivered, windowStart.getTime()});
+        return delivered;
+    }
+
+    /**
+     * Returns whether a transaction was delivered by a previous run: it is older than the checkpoint, or has its date and one of its ids.
+     * Transactions without date are only recognized by their id.
+     *
+     * @param transaction the transaction
+     * @param resumeDate  the date of the newest transaction of the checkpoint, null if there is none
+     * @param resumeIds   the ids of the checkpoint
+     *
+     * @return true if the transaction must be skipped
+     */
+    private static boolean wasDelivered(Transaction transaction, Date resumeDate, Set<String> resumeIds) {
+        Date transactionDate = transaction.getTransactionDate();
+        if (transactionDate == null || transactionDate.equals(resumeDate)) {
+            return transaction.getTransactionId() != null && resumeIds.contains(transaction.getTransactionId());
+        }
+        return resumeDate != null && transactionDate.before(resumeDate);
+    }
+
+    /**
+     * Persists a checkpoint, it is written to a temporary file that is synced to disk and moved over the previous checkpoint.
+     *
+     * @param checkpoint the checkpoint
+     *
+     * @throws PlenigoException if the checkpoint could not be written
+     */
+    private void save(SyncCheckpoint checkpoint) throws PlenigoException {
+        Properties properties = new Properties();
+        DateFormat dayFormat = new SimpleDateFormat(DAY_FORMAT);
+        properties.setProperty(SYNCED_UNTIL, dayFormat.format(checkpoint.getSyncedUntil()));
+        if (checkpoint.getLastTransactionDate() != null) {
+            properties.setProperty(LAST_TRANSACTION_DATE, Long.toString(checkpoint.getLastTransactionDate().getTime()));
+        }
+        properties.setProperty(DELIVERED_IDS, String.join(ID_SEPARATOR, checkpoint.getDeliveredIds()));
+        Path directory = checkpointFile.toAbsolutePath().getParent();
+        Path tempFile = null;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            properties.store(out, "plenigo transaction synchronization checkpoint");
+            tempFile = Files.createTempFile(directory, checkpointFile.getFileName().toString(), TEMP_FILE_SUFFIX);
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(tempFile, checkpointFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                LOGGER.log(Level.FINEST, "Atomic moves are not supported, replacing the checkpoint", e);
+                Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            syncDirectory(directory);
+        } catch (IOException e) {
+            throw new PlenigoException("Could not write the transaction checkpoint " + checkpointFile, e);
+        } finally {
+            deleteQuietly(tempFile);
+        }
+        LOGGER.log(Level.FINEST, "Checkpoint written: {0}", checkpoint);
+    }
+
+    /**
+     * Syncs a directory to disk so that the entries moved into it are persisted. Not every platform can open a directory, e.g. Windows,
+     * there the directory is not synced.
+     *
+     * @param directory the directory
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINEST, "The directory " + directory + " could not be synced", e);
+        }
+    }
+
+    /**
+     * Deletes the temporary checkpoints left behind by a run that was interrupted while writing one.
+     */
+    private void deleteStaleTempFiles() {
+        Path directory = checkpointFile.toAbsolutePath().getParent();
+        String glob = checkpointFile.getFileName() + "*" + TEMP_FILE_SUFFIX;
+        try (DirectoryStream<Path> tempFiles = Files.newDirectoryStream(directory, glob)) {
+            for (Path tempFile : tempFiles) {
+                LOGGER.log(Level.FINE, "Deleting the stale temporary checkpoint {0}", tempFile);
+                deleteQuietly(tempFile);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not look for stale temporary checkpoints in " + directory, e);
+        }
+    }
+
+    /**
+     * Deletes a file if it exists, errors are only logged.
+     *
+     * @param file the file, it can be null
+     */
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not delete the temporary checkpoint " + file, e);
+        }
+    }
+}
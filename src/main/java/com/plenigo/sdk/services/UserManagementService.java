@@ -5,12 +5,13 @@ import com.plenigo.sdk.PlenigoManager;
 import com.plenigo.sdk.internal.ApiParams;
 import com.plenigo.sdk.internal.ApiResults;
 import com.plenigo.sdk.internal.ApiURLs;
+import com.plenigo.sdk.internal.models.ConfigurationSnapshot;
 import com.plenigo.sdk.internal.util.HttpConfig;
-import com.plenigo.sdk.internal.util.JWT;
 import com.plenigo.sdk.internal.util.SdkUtils;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * <p>
@@ -49,12 +50,27 @@ public final class UserManagementService {
         }
         body.put(ApiParams.LANGUAGE, language);
         body.put("externalUserId", String.valueOf(externalUserId));
-        Map<String, Object> response = HttpConfig.get().getClient().post(PlenigoManager.get().getUrl(), ApiURLs.REGISTER_EXTERNAL_USER_URL,
-                ApiURLs.REGISTER_EXTERNAL_USER_URL, null, body, JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(),
-                        PlenigoManager.get().getSecret()));
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        Map<String, Object> response = HttpConfig.get().getClient().post(config.getUrl(), ApiURLs.REGISTER_EXTERNAL_USER_URL,
+                ApiURLs.REGISTER_EXTERNAL_USER_URL, null, body, config.getJwtHeader());
         return SdkUtils.getValueIfNotNull(response, ApiResults.CUST_ID);
     }
 
+    /**
+     * Asynchronous variant of {@link #registerUser(String, String, long)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param email          email address of the user to register
+     * @param language       Language of the user as two digit ISO code(e.g. en), if left null, en(english) will be used.
+     * @param externalUserId external user id
+     *
+     * @return a future with the customer id
+     */
+    public static CompletableFuture<String> registerUserAsync(String email, String language, long externalUserId) {
+        return AsyncSupport.supply(() -> registerUser(email, language, externalUserId));
+    }
+
     /**
      * Change email address of an existing user. This functionality is only available for companies with closed user groups.
      *
@@ -68,12 +84,27 @@ public final class UserManagementService {
     public static boolean changeEmail(String customerId, String email) throws PlenigoException {
         Map<String, String> body = new LinkedHashMap<String, String>();
         body.put(ApiParams.EMAIL, email);
-        HttpConfig.get().getClient().put(PlenigoManager.get().getUrl(), ApiURLs.EXTERNAL_USER_EMAIL_CHANGE_URL,
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        HttpConfig.get().getClient().put(config.getUrl(), ApiURLs.EXTERNAL_USER_EMAIL_CHANGE_URL,
                 String.format(ApiURLs.EXTERNAL_USER_EMAIL_CHANGE_URL, customerId), null, body,
-                JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
+                config.getJwtHeader());
         return true;
     }
 
+    /**
+     * Asynchronous variant of {@link #changeEmail(String, String)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param customerId customer id of the user to change email address for
+     * @param email      new email address of user
+     *
+     * @return a future with true if the email address has changed
+     */
+    public static CompletableFuture<Boolean> changeEmailAsync(String customerId, String email) {
+        return AsyncSupport.supply(() -> changeEmail(customerId, email));
+    }
+
     /**
      * Create a login token for an existing user. This functionality is only available for companies with closed user groups.
      *
@@ -84,9 +115,23 @@ public final class UserManagementService {
      * @throws PlenigoException if any error occurs
      */
     public static String createLoginToken(String customerId) throws PlenigoException {
-        Map<String, Object> response = HttpConfig.get().getClient().post(PlenigoManager.get().getUrl(), ApiURLs.EXTERNAL_USER_CREATE_LOGIN_TOKEN_URL,
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        Map<String, Object> response = HttpConfig.get().getClient().post(config.getUrl(), ApiURLs.EXTERNAL_USER_CREATE_LOGIN_TOKEN_URL,
                 String.format(ApiURLs.EXTERNAL_USER_CREATE_LOGIN_TOKEN_URL, customerId), null, null,
-                JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
+                config.getJwtHeader());
         return SdkUtils.getValueIfNotNull(response, ApiResults.LOGIN_TOKEN);
     }
+
+    /**
+     * Asynchronous variant of {@link #createLoginToken(String)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param customerId the customer id
+     *
+     * @return a future with the login token
+     */
+    public static CompletableFuture<String> createLoginTokenAsync(String customerId) {
+        return AsyncSupport.supply(() -> createLoginToken(customerId));
+    }
 }
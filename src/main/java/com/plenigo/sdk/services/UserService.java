@@ -2,15 +2,21 @@ package com.plenigo.sdk.services;
 
 import com.plenigo.sdk.PlenigoException;
 import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.http.CircuitBreakerPolicy;
+import com.plenigo.sdk.http.CircuitOpenException;
 import com.plenigo.sdk.internal.ApiParams;
 import com.plenigo.sdk.internal.ApiResults;
 import com.plenigo.sdk.internal.ApiURLs;
+import com.plenigo.sdk.internal.ErrorCode;
+import com.plenigo.sdk.internal.models.Address;
+import com.plenigo.sdk.internal.cache.CookieCache;
+import com.plenigo.sdk.internal.cache.EntitlementCache;
+import com.plenigo.sdk.internal.models.ConfigurationSnapshot;
 import com.plenigo.sdk.internal.models.Customer;
-import com.plenigo.sdk.internal.services.InternalUserApiService;
 import com.plenigo.sdk.internal.util.CookieParser;
+import com.plenigo.sdk.internal.util.DateParser;
 import com.plenigo.sdk.internal.util.EncryptionUtils;
-import com.plenigo.sdk.internal.util.JWT;
-import com.plenigo.sdk.internal.util.RestClient;
+import com.plenigo.sdk.internal.util.HttpConfig;
 import com.plenigo.sdk.internal.util.SdkUtils;
 import com.plenigo.sdk.models.ProductsBought;
 import com.plenigo.sdk.models.SinglePaymentProduct;
@@ -18,15 +24,14 @@ import com.plenigo.sdk.models.SubscriptionProduct;
 import com.plenigo.sdk.models.UserData;
 
 import java.net.HttpCookie;
-import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -46,15 +51,6 @@ public final class UserService {
      */
     private static final long TS_EXP_TIME_LAPSE_IN_MILLIS = 60/*secs*/ * 60/*mins*/ * 24/*hours*/ * 1000/*millis*/;
 
-    /**
-     * Rest client used internally.
-     */
-    private static RestClient client = new RestClient();
-
-    private static InternalUserApiService internalUserApiService = new InternalUserApiService();
-
-    private static final String EXPECTED_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss Z";
-
 
     /**
      * Default constructor.
@@ -73,8 +69,48 @@ public final class UserService {
      * @throws com.plenigo.sdk.PlenigoException whenever an error happens
      */
     public static UserData getUserData(String accessToken) throws PlenigoException {
-        return internalUserApiService.getUserData(PlenigoManager.get().getUrl(), PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret(),
-                accessToken);
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put(ApiParams.ACCESS_TOKEN, accessToken);
+        params.put(ApiParams.COMPANY_ID, config.getCompanyId());
+        LOGGER.log(Level.FINEST, "Seeking user information for company: {0}", config.getCompanyId());
+        Map<String, Object> response = HttpConfig.get().getClient().get(config.getUrl(), ApiURLs.USER_PROFILE, ApiURLs.USER_PROFILE,
+                SdkUtils.buildUrlQueryString(params), config.getJwtHeader());
+        if (response.containsKey(ApiResults.ERROR)) {
+            throw new PlenigoException(String.valueOf(response.get(ApiResults.ERROR)), String.valueOf(response.get(ApiResults.DESCRIPTION)));
+        }
+        return buildUserData(response);
+    }
+
+    /**
+     * Builds the user data of a user profile response.
+     *
+     * @param response the user profile
+     *
+     * @return the user data
+     */
+    private static UserData buildUserData(Map<String, Object> response) {
+        Address address = new Address(SdkUtils.getValueIfNotNull(response, ApiResults.STREET),
+                SdkUtils.getValueIfNotNull(response, ApiResults.ADDITIONAL_ADDRESS_INFO), SdkUtils.getValueIfNotNull(response, ApiResults.POST_CODE),
+                SdkUtils.getValueIfNotNull(response, ApiResults.CITY), SdkUtils.getValueIfNotNull(response, ApiResults.COUNTRY));
+        UserData userData = new UserData(SdkUtils.getValueIfNotNull(response, ApiResults.USER_ID), SdkUtils.getValueIfNotNull(response, ApiResults.EMAIL),
+                SdkUtils.getValueIfNotNull(response, ApiResults.GENDER), SdkUtils.getValueIfNotNull(response, ApiResults.LAST_NAME),
+                SdkUtils.getValueIfNotNull(response, ApiResults.FIRST_NAME), address, SdkUtils.getValueIfNotNull(response, ApiResults.USERNAME));
+        LOGGER.log(Level.FINEST, "User data to return: {0}", userData);
+        return userData;
+    }
+
+    /**
+     * Asynchronous variant of {@link #getUserData(String)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param accessToken The provided access token.
+     *
+     * @return a future with the user data related to the access token
+     */
+    public static CompletableFuture<UserData> getUserDataAsync(String accessToken) {
+        return AsyncSupport.supply(() -> getUserData(accessToken));
     }
 
     /**
@@ -92,6 +128,20 @@ public final class UserService {
         return hasUserBought(Collections.singletonList(productId), cookieHeader);
     }
 
+    /**
+     * Asynchronous variant of {@link #hasUserBought(String, String)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param productId    The id of the product to be queried against the user
+     * @param cookieHeader The cookie header of the user
+     *
+     * @return a future with true if the user in the cookie has bought the product and the session is not expired, false otherwise
+     */
+    public static CompletableFuture<Boolean> hasUserBoughtAsync(String productId, String cookieHeader) {
+        return AsyncSupport.supply(() -> hasUserBought(productId, cookieHeader));
+    }
+
     /**
      * Checks if the user can access a product. If there is an error response from the API this will throw a {@link PlenigoException},
      * in the case of BAD_REQUEST types, the exception will contain a list of {@link com.plenigo.sdk.models.ErrorDetail}.
@@ -108,6 +158,21 @@ public final class UserService {
         return hasUserBoughtByCustomerId(Collections.singletonList(productId), customerId, withExternalUserId);
     }
 
+    /**
+     * Asynchronous variant of {@link #hasUserBoughtByCustomerId(String, String, boolean)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param productId          The id of the product to be queried against the user
+     * @param customerId         The customer id
+     * @param withExternalUserId Flag indicating if the customer id parameter is an internal plenigo id or an external customer id
+     *
+     * @return a future with true if the external customer has bought the product, otherwise false
+     */
+    public static CompletableFuture<Boolean> hasUserBoughtByCustomerIdAsync(String productId, String customerId, boolean withExternalUserId) {
+        return AsyncSupport.supply(() -> hasUserBoughtByCustomerId(productId, customerId, withExternalUserId));
+    }
+
     /**
      * Checks if the user can access a product. If there is an error response from the API this will throw a {@link PlenigoException},
      * in the case of BAD_REQUEST types, the exception will contain a list of {@link com.plenigo.sdk.models.ErrorDetail}.
@@ -122,12 +187,38 @@ public final class UserService {
     public static boolean hasUserBought(List<String> productIds, String cookieHeader) throws PlenigoException {
         LOGGER.log(Level.FINEST, "Checking if an user has bought a product with the ids: {0} and the cookie header: {1}",
                 new Object[]{productIds, cookieHeader});
-        Customer customer = getCustomerInfo(cookieHeader);
+        return new PlenigoRequestContext(cookieHeader, null).hasUserBought(productIds);
+    }
+
+    /**
+     * Asynchronous variant of {@link #hasUserBought(List, String)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param productIds   The ids of the products to be queried against the user
+     * @param cookieHeader The cookie header of the user
+     *
+     * @return a future with true if the user in the cookie has bought at least one of the product ids, otherwise false
+     */
+    public static CompletableFuture<Boolean> hasUserBoughtAsync(List<String> productIds, String cookieHeader) {
+        return AsyncSupport.supply(() -> hasUserBought(productIds, cookieHeader));
+    }
+
+    /**
+     * Checks if the given customer can access a product, the customer is usually the one that has been decrypted from the cookie.
+     *
+     * @param productIds The ids of the products to be queried against the user
+     * @param customer   The customer information, it can be null
+     *
+     * @return True if the customer has not expired and has bought at least one of the product ids, otherwise false
+     *
+     * @throws com.plenigo.sdk.PlenigoException whenever an error happens
+     */
+    static boolean hasUserBought(List<String> productIds, Customer customer) throws PlenigoException {
         if (hasExpired(customer)) {
             return false;
         }
-        return internalUserApiService.hasUserBought(PlenigoManager.get().getUrl(), customer.getCustomerId(), PlenigoManager.get().getSecret(),
-                PlenigoManager.get().getCompanyId(), PlenigoManager.get().isTestMode(), productIds, false);
+        return checkProductAccess(productIds, customer.getCustomerId(), false);
     }
 
     /**
@@ -145,24 +236,133 @@ public final class UserService {
     public static boolean hasUserBoughtByCustomerId(List<String> productIds, String customerId, boolean withExternalUserId) throws PlenigoException {
         LOGGER.log(Level.FINEST, "Checking if an user has bought a product with the ids: {0} and the customer id: {1}",
                 new Object[]{productIds, customerId});
-        return internalUserApiService.hasUserBought(PlenigoManager.get().getUrl(), customerId, PlenigoManager.get().getSecret(),
-                PlenigoManager.get().getCompanyId(), PlenigoManager.get().isTestMode(), productIds, withExternalUserId);
+        return checkProductAccess(productIds, customerId, withExternalUserId);
     }
 
     /**
-     * Retrieves the user info from the cookie.
+     * Asynchronous variant of {@link #hasUserBoughtByCustomerId(List, String, boolean)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param productIds         The ids of the products to be queried against the user.
+     * @param customerId         The customer id of the user.
+     * @param withExternalUserId Flag indicating if the customer id parameter is an internal plenigo id or an external customer id
      *
-     * @param userCookie The user information cookie.
+     * @return a future with true if the user has bought at least one of the product id, otherwise false
+     */
+    public static CompletableFuture<Boolean> hasUserBoughtByCustomerIdAsync(List<String> productIds, String customerId, boolean withExternalUserId) {
+        return AsyncSupport.supply(() -> hasUserBoughtByCustomerId(productIds, customerId, withExternalUserId));
+    }
+
+    /**
+     * Removes the cached product access checks of a customer, this should be called when the customer buys or cancels a product
+     * and the entitlement cache is enabled with {@link PlenigoManager#configureEntitlementCache(int, long, long)}.
+     *
+     * @param customerId The customer id, internal or external, used for the checks
+     */
+    public static void invalidateEntitlements(String customerId) {
+        EntitlementCache entitlementCache = PlenigoManager.get().getEntitlementCache();
+        if (entitlementCache != null && customerId != null) {
+            int removed = entitlementCache.invalidate(customerId);
+            LOGGER.log(Level.FINEST, "Removed {0} cached product access checks of the customer {1}", new Object[]{removed, customerId});
+        }
+    }
+
+    /**
+     * Asks the API if the customer can access the products, the answer is taken from and stored in the entitlement cache if it is enabled.
+     * While the circuit breaker of {@link ApiURLs#USER_PRODUCT_ACCESS} is open the last known answer of the cache is returned.
+     *
+     * @param productIds         The ids of the products to be queried against the user
+     * @param customerId         The customer id of the user
+     * @param withExternalUserId Flag indicating if the customer id parameter is an internal plenigo id or an external customer id
+     *
+     * @return True if the user has bought at least one of the product ids, otherwise false
+     *
+     * @throws com.plenigo.sdk.PlenigoException whenever an error happens
+     */
+    private static boolean checkProductAccess(List<String> productIds, String customerId, boolean withExternalUserId) throws PlenigoException {
+        PlenigoManager plenigoManager = PlenigoManager.get();
+        ConfigurationSnapshot config = plenigoManager.getSnapshot();
+        boolean testMode = config.isTestMode();
+        EntitlementCache entitlementCache = plenigoManager.getEntitlementCache();
+        if (entitlementCache != null && customerId != null) {
+            Boolean cachedAnswer = entitlementCache.get(customerId, productIds, testMode, withExternalUserId);
+            if (cachedAnswer != null) {
+                LOGGER.log(Level.FINEST, "Using the cached product access check of the customer {0}: {1}", new Object[]{customerId, cachedAnswer});
+                return cachedAnswer;
+            }
+        }
+        boolean hasBought;
+        try {
+            hasBought = requestProductAccess(config, productIds, customerId, withExternalUserId);
+        } catch (PlenigoException e) {
+            Boolean lastKnown = null;
+            if (entitlementCache != null && customerId != null) {
+                lastKnown = entitlementCache.getLastKnown(customerId, productIds, testMode, withExternalUserId);
+            }
+            return answerWhileCircuitOpen(e, lastKnown, true);
+        }
+        if (entitlementCache != null && customerId != null) {
+            entitlementCache.put(customerId, productIds, testMode, withExternalUserId, hasBought);
+        }
+        return hasBought;
+    }
+
+    /**
+     * Asks the API if the customer can access the products, the request is authorized with the cached JWT header of the snapshot.
+     *
+     * @param config             the configuration snapshot of the call
+     * @param productIds         The ids of the products to be queried against the user
+     * @param customerId         The customer id of the user
+     * @param withExternalUserId Flag indicating if the customer id parameter is an internal plenigo id or an external customer id
+     *
+     * @return True if the user has bought at least one of the product ids, false if the API denied the access
+     *
+     * @throws com.plenigo.sdk.PlenigoException whenever an error happens
+     */
+    private static boolean requestProductAccess(ConfigurationSnapshot config, List<String> productIds, String customerId,
+                                                boolean withExternalUserId) throws PlenigoException {
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put(ApiParams.CUSTOMER_ID, customerId);
+        params.put(ApiParams.PRODUCT_ID, productIds);
+        params.put(ApiParams.TEST_MODE, config.isTestMode());
+        params.put(ApiParams.USE_EXTERNAL_CUSTOMER_ID, withExternalUserId);
+        try {
+            HttpConfig.get().getClient().get(config.getUrl(), ApiURLs.USER_PRODUCT_ACCESS, ApiURLs.USER_PRODUCT_ACCESS,
+                    SdkUtils.buildUrlQueryString(params), config.getJwtHeader());
+        } catch (PlenigoException e) {
+            if (ErrorCode.get(e.getResponseCode()) == ErrorCode.CANNOT_ACCESS_PRODUCT) {
+                return false;
+            }
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the user info from the cookie value. If the cookie cache is enabled the decoded customer is taken from it, the expiration
+     * of the customer still has to be checked with {@link #hasExpired(Customer)} every time. The cookie is decrypted with the secret
+     * of one configuration snapshot, the customer is cached for that snapshot only.
+     *
+     * @param cookieValue The encrypted value of the user information cookie.
      *
      * @return The Customer information from the cookie.
      *
      * @throws com.plenigo.sdk.PlenigoException whenever an error happens
      */
-    private static Customer getCustomerInfo(HttpCookie userCookie) throws PlenigoException {
-        if (userCookie.getValue() == null) {
+    static Customer getCustomerInfoFromCookieValue(String cookieValue) throws PlenigoException {
+        if (cookieValue == null) {
             return null;
         }
-        String data = EncryptionUtils.get().decryptWithAES(PlenigoManager.get().getSecret(), userCookie.getValue());
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        CookieCache cookieCache = PlenigoManager.get().getCookieCache();
+        if (cookieCache != null) {
+            Customer customer = cookieCache.getCustomer(config, cookieValue);
+            if (customer != null) {
+                return customer;
+            }
+        }
+        String data = EncryptionUtils.get().decryptWithAES(config.getSecret(), cookieValue);
         Map<String, String> userData = SdkUtils.getMapFromString(data);
         String timestamp = userData.get(ApiResults.TIMESTAMP);
         String customerId = userData.get(ApiResults.CUSTOMER_ID);
@@ -172,7 +372,11 @@ public final class UserService {
             return null;
         }
         long timestampInMillis = Long.parseLong(timestamp);
-        return new Customer(customerId, timestampInMillis);
+        Customer customer = new Customer(customerId, timestampInMillis);
+        if (cookieCache != null) {
+            cookieCache.putCustomer(config, cookieValue, customer);
+        }
+        return customer;
     }
 
     /**
@@ -186,7 +390,7 @@ public final class UserService {
      */
     public static Customer getCustomerInfo(String cookieHeader) throws PlenigoException {
         HttpCookie customerCookie = CookieParser.getCustomerCookie(cookieHeader);
-        return getCustomerInfo(customerCookie);
+        return getCustomerInfoFromCookieValue(customerCookie.getValue());
     }
 
     /**
@@ -196,7 +400,7 @@ public final class UserService {
      *
      * @return A boolean if the cookie has not expired.
      */
-    private static boolean hasExpired(Customer customer) {
+    static boolean hasExpired(Customer customer) {
         if (customer == null) {
             return true;
         }
@@ -207,7 +411,9 @@ public final class UserService {
     }
 
     /**
-     * Queries the paywall service to check if its enabled, if disabled all product paywall should be disabled.
+     * Queries the paywall service to check if its enabled, if disabled all product paywall should be disabled. While the circuit
+     * breaker of {@link ApiURLs#PAYWALL_STATE} is open the last known state is returned, see
+     * {@link PlenigoManager#configureCircuitBreaker(CircuitBreakerPolicy, String...)}.
      *
      * @return a boolean, true if its enabled an false otherwise
      *
@@ -215,16 +421,67 @@ public final class UserService {
      */
     public static boolean isPaywallEnabled() throws PlenigoException {
         Map<String, Object> params = new HashMap<String, Object>();
-        Map<String, Object> objectMap = client.get(PlenigoManager.get().getUrl(), ApiURLs.PAYWALL_STATE, ApiURLs.PAYWALL_STATE,
-                SdkUtils.buildUrlQueryString(params), JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(), PlenigoManager.get().getSecret()));
+        PlenigoManager plenigoManager = PlenigoManager.get();
+        ConfigurationSnapshot config = plenigoManager.getSnapshot();
+        Map<String, Object> objectMap;
+        try {
+            objectMap = HttpConfig.get().getClient().get(config.getUrl(), ApiURLs.PAYWALL_STATE, ApiURLs.PAYWALL_STATE,
+                    SdkUtils.buildUrlQueryString(params), config.getJwtHeader());
+        } catch (PlenigoException e) {
+            return answerWhileCircuitOpen(e, plenigoManager.getLastPaywallState(), false);
+        }
         Object paywallState = objectMap.get(ApiResults.PAYWALL_STATE);
         boolean isEnabled = false;
         if (paywallState != null) {
             isEnabled = Boolean.valueOf(paywallState.toString());
         }
+        plenigoManager.setLastPaywallState(isEnabled);
         return isEnabled;
     }
 
+    /**
+     * Answers a check whose request was rejected by an open circuit breaker, see
+     * {@link PlenigoManager#configureCircuitBreaker(CircuitBreakerPolicy, String...)}.
+     *
+     * @param e              the exception of the request
+     * @param lastKnown      the last known good answer, null if there is none
+     * @param failOpenAnswer the answer that lets the reader through
+     *
+     * @return the last known good answer, or the answer of the fallback of the breaker
+     *
+     * @throws PlenigoException the exception of the request if it was not rejected by a breaker, or if the breaker fails fast and
+     *                          there is no last known good answer
+     */
+    private static boolean answerWhileCircuitOpen(PlenigoException e, Boolean lastKnown, boolean failOpenAnswer) throws PlenigoException {
+        CircuitOpenException circuitOpen = CircuitOpenException.find(e);
+        if (circuitOpen == null) {
+            throw e;
+        }
+        if (lastKnown != null) {
+            LOGGER.log(Level.FINE, "Using the last known answer {0} of {1}", new Object[]{lastKnown, circuitOpen.getEndpoint()});
+            return lastKnown;
+        }
+        CircuitBreakerPolicy.Fallback fallback = circuitOpen.getFallback();
+        if (fallback == CircuitBreakerPolicy.Fallback.FAIL_OPEN) {
+            return failOpenAnswer;
+        }
+        if (fallback == CircuitBreakerPolicy.Fallback.FAIL_CLOSED) {
+            return !failOpenAnswer;
+        }
+        throw e;
+    }
+
+    /**
+     * Asynchronous variant of {@link #isPaywallEnabled()}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @return a future with true if the paywall is enabled, false otherwise
+     */
+    public static CompletableFuture<Boolean> isPaywallEnabledAsync() {
+        return AsyncSupport.supply(() -> isPaywallEnabled());
+    }
+
     /**
      * Returns a flag indicating if the user is logged in or not.
      *
@@ -235,11 +492,7 @@ public final class UserService {
      * @throws PlenigoException if any parsing error occurs
      */
     public static boolean isLoggedIn(String cookieHeader) throws PlenigoException {
-        Customer customer = getCustomerInfo(cookieHeader);
-        if (customer == null) {
-            return false;
-        }
-        return true;
+        return new PlenigoRequestContext(cookieHeader, null).isLoggedIn();
     }
 
     /**
@@ -261,14 +514,28 @@ public final class UserService {
         }
 
         Map<String, Object> params = new HashMap<String, Object>();
-        params.put(ApiParams.TEST_MODE, PlenigoManager.get().isTestMode());
-        Map<String, Object> stringObjectMap = client.get(PlenigoManager.get().getUrl(), ApiURLs.USER_PRODUCTS, String.format(ApiURLs.USER_PRODUCTS,
-                customer.getCustomerId()), SdkUtils.buildUrlQueryString(params), JWT.generateJWTTokenHeader(PlenigoManager.get().getCompanyId(),
-                PlenigoManager.get().getSecret()));
+        ConfigurationSnapshot config = PlenigoManager.get().getSnapshot();
+        params.put(ApiParams.TEST_MODE, config.isTestMode());
+        Map<String, Object> stringObjectMap = HttpConfig.get().getClient().get(config.getUrl(), ApiURLs.USER_PRODUCTS,
+                String.format(ApiURLs.USER_PRODUCTS, customer.getCustomerId()), SdkUtils.buildUrlQueryString(params),
+                config.getJwtHeader());
         fillProductsBoughtObject(stringObjectMap, singlePaymentProducts, subscriptionProducts);
         return new ProductsBought(subscriptionProducts, singlePaymentProducts);
     }
 
+    /**
+     * Asynchronous variant of {@link #getProductsBought(String)}, the call runs on the executor configured with
+     * {@link PlenigoManager#configureExecutor(java.util.concurrent.Executor)}. The future completes exceptionally with the
+     * {@link PlenigoException} thrown by the call.
+     *
+     * @param cookieHeader the cookie information
+     *
+     * @return a future with the products the user has bought
+     */
+    public CompletableFuture<ProductsBought> getProductsBoughtAsync(String cookieHeader) {
+        return AsyncSupport.supply(() -> getProductsBought(cookieHeader));
+    }
+
     /**
      * Fills the products bought object with the given object map.
      *
@@ -281,14 +548,13 @@ public final class UserService {
                                           List<SubscriptionProduct> subscriptionProductsList) {
         Object subscriptionsObj = stringObjectMap.get(ApiResults.SUBSCRIPTIONS_LIST);
         Object singlePaymentProductObj = stringObjectMap.get(ApiResults.SINGLE_PAYMENT_PRODUCT_LIST);
-        DateFormat dateFormat = new SimpleDateFormat(EXPECTED_DATE_FORMAT);
         if (subscriptionsObj != null && subscriptionsObj instanceof List) {
             List<Map<String, String>> subscriptions = (List<Map<String, String>>) subscriptionsObj;
             for (Map<String, String> subscription : subscriptions) {
                 String productId = subscription.get(ApiResults.PROD_ID);
                 String title = subscription.get(ApiResults.TITLE);
-                Date buyDate = parseDate(dateFormat, subscription.get(ApiResults.BUY_DATE));
-                Date endDate = parseDate(dateFormat, subscription.get(ApiResults.END_DATE));
+                Date buyDate = parseDate(subscription.get(ApiResults.BUY_DATE));
+                Date endDate = parseDate(subscription.get(ApiResults.END_DATE));
                 subscriptionProductsList.add(new SubscriptionProduct(productId, title, buyDate, endDate));
             }
         }
@@ -298,25 +564,24 @@ public final class UserService {
             for (Map<String, String> subscription : singlePaymentProducts) {
                 String productId = subscription.get(ApiResults.PROD_ID);
                 String title = subscription.get(ApiResults.TITLE);
-                Date buyDate = parseDate(dateFormat, subscription.get(ApiResults.BUY_DATE));
+                Date buyDate = parseDate(subscription.get(ApiResults.BUY_DATE));
                 singlePaymentProductsList.add(new SinglePaymentProduct(productId, title, buyDate));
             }
         }
     }
 
     /**
-     * Parses the given date with the date format, if it can't be parsed it returns null.
+     * Parses the given date, if it can't be parsed it returns null.
      *
-     * @param dateFormat the date format object
-     * @param dateStr    the date to format
+     * @param dateStr the date to parse
      *
      * @return the date
      */
-    private Date parseDate(DateFormat dateFormat, String dateStr) {
+    private Date parseDate(String dateStr) {
         Date buyDate = null;
         if (dateStr != null && !dateStr.isEmpty()) {
             try {
-                buyDate = dateFormat.parse(dateStr);
+                buyDate = DateParser.WITH_OFFSET.parse(dateStr);
             } catch (ParseException e) {
                 LOGGER.warning("The buy date could not be parsed, given string= " + dateStr);
             }
@@ -0,0 +1,112 @@
+package com.plenigo.sdk;
+
+import com.plenigo.sdk.http.HttpTransport;
+import com.plenigo.sdk.http.PooledHttpTransport;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link PlenigoClient}.
+ */
+public class PlenigoClientTest {
+    private static final String SECRET = "THE_SECRET";
+    private static final String OTHER_SECRET = "OTHER_SECRET";
+    private static final String COMPANY_ID = "COMPANY";
+    private static final String OTHER_COMPANY_ID = "OTHER_COMPANY";
+
+    @Test
+    public void testClientsAreIsolated() throws PlenigoException {
+        PlenigoClient first = PlenigoClient.builder(SECRET, COMPANY_ID).testMode(true).catalogCache(10, 1000L, 2000L).build();
+        PlenigoClient second = PlenigoClient.builder(OTHER_SECRET, OTHER_COMPANY_ID).url("http://localhost").build();
+
+        assertEquals(COMPANY_ID, first.call(() -> PlenigoManager.get().getCompanyId()));
+        assertEquals(SECRET, first.call(() -> PlenigoManager.get().getSecret()));
+        assertTrue(first.call(() -> PlenigoManager.get().isTestMode()));
+        assertNotNull(first.getManager().getCatalogCache());
+        assertEquals(OTHER_COMPANY_ID, second.call(() -> PlenigoManager.get().getCompanyId()));
+        assertEquals("http://localhost", second.call(() -> PlenigoManager.get().getUrl()));
+        assertNull(second.getManager().getCatalogCache());
+        assertNotSame(first.getManager().getTransport(), second.getManager().getTransport());
+        assertNotSame(first.getManager().getJwtHeader(), second.getManager().getJwtHeader());
+    }
+
+    @Test
+    public void testDefaultManagerWithoutBinding() {
+        PlenigoClient client = PlenigoClient.builder(SECRET, COMPANY_ID).build();
+
+        assertNull(PlenigoClient.current());
+        assertNotSame(client.getManager(), PlenigoManager.get());
+    }
+
+    @Test
+    public void testNestedBindingIsRestored() throws PlenigoException {
+        PlenigoClient outer = PlenigoClient.builder(SECRET, COMPANY_ID).build();
+        PlenigoClient inner = PlenigoClient.builder(OTHER_SECRET, OTHER_COMPANY_ID).build();
+
+        String companies = outer.call(() -> {
+            String nested = inner.call(() -> PlenigoManager.get().getCompanyId());
+            return nested + "," + PlenigoManager.get().getCompanyId();
+        });
+
+        assertEquals(OTHER_COMPANY_ID + "," + COMPANY_ID, companies);
+        assertNull(PlenigoClient.current());
+    }
+
+    @Test
+    public void testBindingIsRestoredWhenTheCallFails() {
+        PlenigoClient client = PlenigoClient.builder(SECRET, COMPANY_ID).build();
+        try {
+            client.call(() -> {
+                throw new PlenigoException("failed", (Throwable) null);
+            });
+            fail("The exception of the call should be thrown");
+        } catch (PlenigoException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertNull(PlenigoClient.current());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testConfigurationIsSealed() {
+        PlenigoClient client = PlenigoClient.builder(SECRET, COMPANY_ID).build();
+        client.getManager().configure(OTHER_SECRET, OTHER_COMPANY_ID);
+    }
+
+    @Test
+    public void testConfiguredTransportIsUsed() {
+        HttpTransport transport = new PooledHttpTransport();
+        PlenigoClient client = PlenigoClient.builder(SECRET, COMPANY_ID).transport(transport).build();
+
+        assertSame(transport, client.getManager().getTransport());
+    }
+
+    @Test
+    public void testBindPropagatesToOtherThreads() throws Exception {
+        PlenigoClient client = PlenigoClient.builder(SECRET, COMPANY_ID).build();
+        AtomicReference<String> companyId = new AtomicReference<String>();
+        AtomicReference<PlenigoClient> afterwards = new AtomicReference<PlenigoClient>(client);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.execute(client.bind(() -> companyId.set(PlenigoManager.get().getCompanyId())));
+            executor.execute(() -> afterwards.set(PlenigoClient.current()));
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(COMPANY_ID, companyId.get());
+        assertNull(afterwards.get());
+    }
+}
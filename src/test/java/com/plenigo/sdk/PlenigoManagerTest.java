@@ -1,21 +1,38 @@
 package com.plenigo.sdk;
 
+import com.plenigo.sdk.http.CircuitBreaker;
+import com.plenigo.sdk.http.CircuitBreakerPolicy;
+import com.plenigo.sdk.http.CircuitBreakingHttpTransport;
+import com.plenigo.sdk.http.CoalescingHttpTransport;
+import com.plenigo.sdk.http.HttpRequest;
+import com.plenigo.sdk.http.HttpResponse;
+import com.plenigo.sdk.http.HttpTransport;
+import com.plenigo.sdk.http.RateLimit;
+import com.plenigo.sdk.http.RateLimitingHttpTransport;
+import com.plenigo.sdk.http.RequestPriority;
+import com.plenigo.sdk.http.RetryPolicy;
+import com.plenigo.sdk.http.RetryingHttpTransport;
 import com.plenigo.sdk.internal.ApiURLs;
 import com.plenigo.sdk.internal.util.CookieParser;
 import com.plenigo.sdk.internal.util.SdkUtils;
-import com.plenigo.sdk.internal.models.Configuration;
+import com.plenigo.sdk.internal.models.ConfigurationSnapshot;
+import com.plenigo.sdk.internal.models.Customer;
 import com.plenigo.sdk.internal.util.EncryptionUtils;
+import com.plenigo.sdk.internal.util.HttpConfig;
+import com.plenigo.sdk.internal.util.TransportRestClient;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.reflect.Whitebox;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
 
 import static org.junit.Assert.assertTrue;
@@ -25,6 +42,7 @@ import static org.junit.Assert.assertTrue;
  */
 @RunWith(PowerMockRunner.class)
 @PrepareForTest(EncryptionUtils.class)
+@PowerMockIgnore({"javax.crypto.*"})
 public class PlenigoManagerTest {
     private static final String COOKIE_TPL = "%s=%s;Skin=new;";
     private static final String SECRET = "THE_KEY";
@@ -50,7 +68,7 @@ public class PlenigoManagerTest {
     public void testConfigureWithUrl() throws Exception {
         PlenigoManager instance = Whitebox.invokeConstructor(PlenigoManager.class);
         instance.configure(ApiURLs.DEFAULT_PLENIGO_URL, SECRET, SAMPLE_COMPANY_KEY, true, "http://plenigo.com");
-        Configuration config = (Configuration) ReflectionTestUtils.getField(instance, "config");
+        ConfigurationSnapshot config = instance.getSnapshot();
         assertTrue("URL was not set correctly", ApiURLs.DEFAULT_PLENIGO_URL.equals(config.getUrl()));
         assertTrue("Secret was not set correctly", SECRET.equals(config.getSecret()));
         assertTrue("Company was not set correctly", SAMPLE_COMPANY_KEY.equals(config.getCompanyId()));
@@ -63,4 +81,195 @@ public class PlenigoManagerTest {
         instance.configure("http://url", SECRET, SAMPLE_COMPANY_KEY, true, "http://plenigo.com");
         Assert.assertTrue(instance.isTestMode());
     }
+
+    @Test
+    public void testConfigureCookieCache() throws Exception {
+        PlenigoManager instance = Whitebox.invokeConstructor(PlenigoManager.class);
+        Assert.assertNull(instance.getCookieCache());
+        Assert.assertNull(instance.getCookieCacheStatistics());
+        instance.configureCookieCache(10);
+        Assert.assertNotNull(instance.getCookieCache());
+        instance.getCookieCache().putCustomer(instance.getSnapshot(), "cookie", new Customer("1234", 1L));
+        Assert.assertEquals(1, instance.getCookieCacheStatistics().getSize());
+        Assert.assertEquals(20, instance.getCookieCacheStatistics().getMaxSize());
+        instance.configure(SECRET, SAMPLE_COMPANY_KEY);
+        Assert.assertEquals("Reconfiguring must clear the cookie cache", 0, instance.getCookieCacheStatistics().getSize());
+        ConfigurationSnapshot previous = instance.getSnapshot();
+        instance.configure(SECRET, "OTHER_COMPANY");
+        instance.getCookieCache().putCustomer(previous, "cookie", new Customer("1234", 1L));
+        Assert.assertNull("A cookie decoded with a replaced configuration must not be returned",
+                instance.getCookieCache().getCustomer(instance.getSnapshot(), "cookie"));
+        instance.configureCookieCache(0);
+        Assert.assertNull(instance.getCookieCache());
+    }
+
+    @Test
+    public void testConfigureEntitlementCache() throws Exception {
+        PlenigoManager instance = Whitebox.invokeConstructor(PlenigoManager.class);
+        Assert.assertNull(instance.getEntitlementCache());
+        Assert.assertNull(instance.getEntitlementCacheStatistics());
+        instance.configureEntitlementCache(10, 1000L, 100L);
+        instance.getEntitlementCache().put("1234", Collections.singletonList("prod"), false, false, true);
+        Assert.assertEquals(1, instance.getEntitlementCacheStatistics().getSize());
+        instance.configure(SECRET, SAMPLE_COMPANY_KEY, true);
+        Assert.assertEquals("Reconfiguring must clear the entitlement cache", 0, instance.getEntitlementCacheStatistics().getSize());
+        instance.configureEntitlementCache(0, 1000L, 100L);
+        Assert.assertNull(instance.getEntitlementCache());
+    }
+
+    @Test
+    public void testConfigureTransport() throws Exception {
+        PlenigoManager instance = Whitebox.invokeConstructor(PlenigoManager.class);
+        Assert.assertNotNull(instance.getTransport());
+        Assert.assertNotNull(instance.getPoolStatistics());
+        Assert.assertTrue(HttpConfig.get().getClient() instanceof TransportRestClient);
+        HttpTransport transport = new HttpTransport() {
+            @Override
+            public HttpResponse execute(HttpRequest request) {
+                return new HttpResponse(200, null, null);
+            }
+        };
+        instance.configureTransport(transport);
+        Assert.assertSame(transport, instance.getTransport());
+        Assert.assertNull(instance.getPoolStatistics());
+        instance.configureTransport(null);
+        Assert.assertNotNull(instance.getPoolStatistics());
+    }
+
+    @Test
+    public void testConfigureTransportKeepsThePipeline() throws Exception {
+        PlenigoManager instance = Whitebox.invokeConstructor(PlenigoManager.class);
+        HttpTransport pipeline = instance.getPipeline();
+        instance.configureCircuitBreaker(new CircuitBreakerPolicy(100.0, 1, 60000L), ApiURLs.USER_PRODUCT_ACCESS);
+        CircuitBreakingHttpTransport breaking = instance.getCircuitBreakingTransport();
+        instance.configureTransport(request -> new HttpResponse(503, null, new byte[0]));
+        HttpRequest request = new HttpRequest("GET", "https://api.plenigo.com" + ApiURLs.USER_PRODUCT_ACCESS, ApiURLs.USER_PRODUCT_ACCESS,
+                null, null, 1000, 1000);
+        Assert.assertEquals(503, pipeline.execute(request).getStatusCode());
+
+        instance.configureTransport(r -> new HttpResponse(200, null, new byte[0]));
+        Assert.assertSame(pipeline, instance.getPipeline());
+        Assert.assertSame(breaking, instance.getCircuitBreakingTransport());
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaking.getCircuitBreaker(ApiURLs.USER_PRODUCT_ACCESS).getState());
+        Assert.assertEquals(200, pipeline.execute(new HttpRequest("GET", "https://api.plenigo.com" + ApiURLs.GET_PRODUCT,
+                ApiURLs.GET_PRODUCT, null, null, 1000, 1000)).getStatusCode());
+    }
+
+    @Test
+    public void testJwtHeaderIsReplacedOnConfigure() throws Exception {
+        PlenigoManager instance = Whitebox.invokeConstructor(PlenigoManager.class);
+        Assert.assertTrue(instance.getJwtHeader().isEmpty());
+        instance.configure(SECRET, SAMPLE_COMPANY_KEY);
+        Map<String, String> header = instance.getJwtHeader();
+        Assert.assertSame(header, instance.getJwtHeader());
+        instance.configure(SECRET, SAMPLE_COMPANY_KEY);
+        Assert.assertNotSame(header, instance.getJwtHeader());
+    }
+
+    @Test
+    public void testConfigurePublishesNewSnapshot() throws Exception {
+        PlenigoManager instance = Whitebox.invokeConstructor(PlenigoManager.class);
+        instance.configure(SECRET, SAMPLE_COMPANY_KEY, false);
+        ConfigurationSnapshot previous = instance.getSnapshot();
+        Map<String, String> previousHeader = previous.getJwtHeader();
+        instance.configure("http://other", "OTHER_KEY", "OTHER_COMPANY", true, "http://oauth");
+        ConfigurationSnapshot current = instance.getSnapshot();
+        Assert.assertNotSame(previous, current);
+        Assert.assertEquals(SAMPLE_COMPANY_KEY, previous.getCompanyId());
+        Assert.assertEquals(SECRET, previous.getSecret());
+        Assert.assertFalse(previous.isTestMode());
+        Assert.assertSame(previousHeader, previous.getJwtHeader());
+        Assert.assertEquals("OTHER_COMPANY", current.getCompanyId());
+        Assert.assertEquals("OTHER_KEY", current.getSecret());
+        Assert.assertEquals("http://other", current.getUrl());
+        Assert.assertEquals("http://oauth", current.getOauthUrl());
+        Assert.assertTrue(current.isTestMode());
+        Assert.assertNotSame(previousHeader, current.getJwtHeader());
+    }
+
+    @Test
+    public void testConfigureRequestCoalescing() throws Exception {
+        PlenigoManager instance = Whitebox.invokeConstructor(PlenigoManager.class);
+        HttpTransport pipeline = instance.getPipeline();
+        CoalescingHttpTransport coalescing = instance.getCoalescingTransport();
+        Assert.assertSame(coalescing, pipeline);
+        Assert.assertTrue(coalescing.getEndpoints().isEmpty());
+        instance.configureRequestCoalescing(ApiURLs.GET_PRODUCT, ApiURLs.GET_CATEGORY);
+        Assert.assertEquals(new HashSet<String>(Arrays.asList(ApiURLs.GET_PRODUCT, ApiURLs.GET_CATEGORY)), coalescing.getEndpoints());
+        Assert.assertNotNull(instance.getPoolStatistics());
+        instance.configureRequestCoalescing(ApiURLs.GET_PRODUCT);
+        Assert.assertEquals(Collections.singleton(ApiURLs.GET_PRODUCT), coalescing.getEndpoints());
+        instance.configureRequestCoalescing();
+        Assert.assertTrue(coalescing.getEndpoints().isEmpty());
+        Assert.assertSame(pipeline, instance.getPipeline());
+    }
+
+    @Test
+    public void testPipelineOrder() throws Exception {
+        PlenigoManager instance = Whitebox.invokeConstructor(PlenigoManager.class);
+        CoalescingHttpTransport coalescing = (CoalescingHttpTransport) instance.getPipeline();
+        RetryingHttpTransport retrying = (RetryingHttpTransport) coalescing.getDelegate();
+        RateLimitingHttpTransport limiting = (RateLimitingHttpTransport) retrying.getDelegate();
+        CircuitBreakingHttpTransport breaking = (CircuitBreakingHttpTransport) limiting.getDelegate();
+        Assert.assertSame(retrying, instance.getRetryingTransport());
+        Assert.assertSame(limiting, instance.getRateLimitingTransport());
+        Assert.assertSame(breaking, instance.getCircuitBreakingTransport());
+        Assert.assertTrue(retrying.getPolicies().isEmpty());
+        Assert.assertTrue(limiting.getGroups().isEmpty());
+        Assert.assertTrue(breaking.getCircuitBreakers().isEmpty());
+    }
+
+    @Test
+    public void testConfigureCircuitBreaker() throws Exception {
+        PlenigoManager instance = Whitebox.invokeConstructor(PlenigoManager.class);
+        HttpTransport pipeline = instance.getPipeline();
+        instance.configureRequestCoalescing(ApiURLs.GET_PRODUCT);
+        instance.configureRetryPolicy(new RetryPolicy(3, 10L, 100L), ApiURLs.GET_PRODUCT);
+        instance.configureCircuitBreaker(new CircuitBreakerPolicy(50.0, 10, 1000L), ApiURLs.USER_PRODUCT_ACCESS, ApiURLs.PAYWALL_STATE);
+
+        CircuitBreakingHttpTransport breaking = instance.getCircuitBreakingTransport();
+        Assert.assertSame(pipeline, instance.getPipeline());
+        Assert.assertNotNull(instance.getRetryingTransport().getPolicy(ApiURLs.GET_PRODUCT));
+        Assert.assertEquals(2, breaking.getCircuitBreakers().size());
+        Assert.assertNotNull(instance.getPoolStatistics());
+        CircuitBreaker breaker = breaking.getCircuitBreaker(ApiURLs.PAYWALL_STATE);
+        instance.configureRateLimit("export", RequestPriority.BATCH, new RateLimit(5.0, 10, 1000L), ApiURLs.COMPANY_USERS);
+        instance.configureRetryPolicy(new RetryPolicy(2, 10L, 100L), ApiURLs.GET_CATEGORY);
+        Assert.assertSame(breaker, instance.getCircuitBreakingTransport().getCircuitBreaker(ApiURLs.PAYWALL_STATE));
+
+        instance.setLastPaywallState(true);
+        instance.configure("secret", "company");
+        Assert.assertNull(instance.getLastPaywallState());
+    }
+
+    @Test
+    public void testConfigureRateLimit() throws Exception {
+        PlenigoManager instance = Whitebox.invokeConstructor(PlenigoManager.class);
+        instance.configureRetryPolicy(new RetryPolicy(3, 10L, 100L), ApiURLs.GET_PRODUCT);
+        instance.configureRateLimit("export", RequestPriority.BATCH, new RateLimit(5.0, 10, 1000L), ApiURLs.COMPANY_USERS);
+        RateLimitingHttpTransport limiting = instance.getRateLimitingTransport();
+        instance.configureCircuitBreaker(new CircuitBreakerPolicy(50.0, 10, 1000L), ApiURLs.USER_PRODUCT_ACCESS);
+
+        Assert.assertSame(limiting, instance.getRateLimitingTransport());
+        Assert.assertNotNull(instance.getRetryingTransport().getPolicy(ApiURLs.GET_PRODUCT));
+        Assert.assertEquals("export", limiting.getGroups().get(ApiURLs.COMPANY_USERS));
+        Assert.assertEquals(5.0, limiting.getLimit("export", RequestPriority.BATCH).getPermitsPerSecond(), 0.0);
+        Assert.assertNull(limiting.getLimit("export", RequestPriority.INTERACTIVE));
+    }
+
+    @Test
+    public void testConfigureCatalogCache() throws Exception {
+        PlenigoManager instance = Whitebox.invokeConstructor(PlenigoManager.class);
+        Assert.assertNull(instance.getCatalogCache());
+        Assert.assertNull(instance.getProductCacheStatistics());
+        Assert.assertNull(instance.getCategoryCacheStatistics());
+        instance.configureCatalogCache(10, 1000L, 5000L);
+        instance.getCatalogCache().getProducts().get("prod", key -> null, Runnable::run);
+        Assert.assertEquals(1, instance.getProductCacheStatistics().getMissCount());
+        Assert.assertEquals(0, instance.getCategoryCacheStatistics().getMissCount());
+        instance.configure(SECRET, SAMPLE_COMPANY_KEY);
+        Assert.assertEquals("Reconfiguring must clear the catalog cache", 0, instance.getProductCacheStatistics().getSize());
+        instance.configureCatalogCache(0, 1000L, 5000L);
+        Assert.assertNull(instance.getCatalogCache());
+    }
 }
@@ -0,0 +1,260 @@
+package com.plenigo.sdk.http;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests for {@link CircuitBreakingHttpTransport}.
+ * </p>
+ */
+public class CircuitBreakingHttpTransportTest {
+    private static final String ENDPOINT = "/api/v2/user/product";
+    private static final String URL = "https://api.plenigo.com" + ENDPOINT;
+    private static final int TIMEOUT = 5000;
+    private static final long OPEN_MILLIS = 30L;
+
+    @Test
+    public void testBreakerOpensOnFailureRate() throws Exception {
+        FakeTransport delegate = new FakeTransport();
+        CircuitBreakingHttpTransport transport = new CircuitBreakingHttpTransport(delegate);
+        List<String> changes = listen(transport);
+        transport.setPolicy(ENDPOINT, new CircuitBreakerPolicy(50.0, 4, 60000L)
+                .withFallback(CircuitBreakerPolicy.Fallback.FAIL_OPEN));
+
+        delegate.statusCode = 200;
+        transport.execute(get());
+        transport.execute(get());
+        delegate.statusCode = 503;
+        transport.execute(get());
+        assertEquals(CircuitBreaker.State.CLOSED, transport.getCircuitBreaker(ENDPOINT).getState());
+        delegate.failure = new ConnectException("refused");
+        assertFails(transport, ConnectException.class);
+        assertEquals(CircuitBreaker.State.OPEN, transport.getCircuitBreaker(ENDPOINT).getState());
+
+        CircuitOpenException rejected = assertFails(transport, CircuitOpenException.class);
+        assertEquals(ENDPOINT, rejected.getEndpoint());
+        assertEquals(CircuitBreakerPolicy.Fallback.FAIL_OPEN, rejected.getFallback());
+        assertEquals(4, delegate.calls.get());
+        assertEquals(1L, transport.getCircuitBreaker(ENDPOINT).getRejectedCount());
+        assertEquals("CLOSED>OPEN", String.join(",", changes));
+    }
+
+    @Test
+    public void testClientErrorsAndOtherEndpointsAreNotCounted() throws Exception {
+        FakeTransport delegate = new FakeTransport();
+        CircuitBreakingHttpTransport transport = new CircuitBreakingHttpTransport(delegate);
+        transport.setPolicy(ENDPOINT, new CircuitBreakerPolicy(50.0, 2, 60000L));
+        delegate.statusCode = 404;
+        transport.execute(get());
+        transport.execute(get());
+        delegate.failure = new ConnectException("refused");
+        for (int i = 0; i < 3; i++) {
+            assertFails(transport, new HttpRequest("GET", URL, "/api/v2/other", null, null, TIMEOUT, TIMEOUT), ConnectException.class);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, transport.getCircuitBreaker(ENDPOINT).getState());
+        assertNull(transport.getCircuitBreaker("/api/v2/other"));
+    }
+
+    @Test
+    public void testSuccessfulProbesCloseTheBreaker() throws Exception {
+        FakeTransport delegate = new FakeTransport();
+        CircuitBreakingHttpTransport transport = new CircuitBreakingHttpTransport(delegate);
+        List<String> changes = listen(transport);
+        transport.setPolicy(ENDPOINT, new CircuitBreakerPolicy(100.0, 1, OPEN_MILLIS).withHalfOpenProbes(2));
+        delegate.failure = new ConnectException("refused");
+        assertFails(transport, ConnectException.class);
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        delegate.failure = null;
+        delegate.statusCode = 200;
+        transport.execute(get());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, transport.getCircuitBreaker(ENDPOINT).getState());
+        transport.execute(get());
+        assertEquals(CircuitBreaker.State.CLOSED, transport.getCircuitBreaker(ENDPOINT).getState());
+        assertEquals("CLOSED>OPEN,OPEN>HALF_OPEN,HALF_OPEN>CLOSED", String.join(",", changes));
+    }
+
+    @Test
+    public void testFailedProbeOpensTheBreakerAgain() throws Exception {
+        FakeTransport delegate = new FakeTransport();
+        CircuitBreakingHttpTransport transport = new CircuitBreakingHttpTransport(delegate);
+        transport.setPolicy(ENDPOINT, new CircuitBreakerPolicy(100.0, 1, OPEN_MILLIS));
+        delegate.statusCode = 502;
+        transport.execute(get());
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        transport.execute(get());
+        assertEquals(CircuitBreaker.State.OPEN, transport.getCircuitBreaker(ENDPOINT).getState());
+        assertFails(transport, CircuitOpenException.class);
+        assertEquals(2, delegate.calls.get());
+    }
+
+    @Test
+    public void testBreakerOpensOnSlowCalls() throws Exception {
+        FakeTransport delegate = new FakeTransport();
+        CircuitBreakingHttpTransport transport = new CircuitBreakingHttpTransport(delegate);
+        transport.setPolicy(ENDPOINT, new CircuitBreakerPolicy(100.0, 2, 60000L).withSlowCalls(10L, 50.0));
+        delegate.statusCode = 200;
+        transport.execute(get());
+        delegate.delayMillis = 20L;
+        transport.execute(get());
+
+        assertEquals(CircuitBreaker.State.OPEN, transport.getCircuitBreaker(ENDPOINT).getState());
+    }
+
+    @Test
+    public void testExpiredDeadlinesAreCountedAsSlowCalls() throws Exception {
+        FakeTransport delegate = new FakeTransport();
+        CircuitBreakingHttpTransport transport = new CircuitBreakingHttpTransport(delegate);
+        transport.setPolicy(ENDPOINT, new CircuitBreakerPolicy(100.0, 2, 60000L).withSlowCalls(200L, 100.0));
+        delegate.delayMillis = 20L;
+        assertFails(transport, get(Deadline.after(5L, TimeUnit.MILLISECONDS)), DeadlineExceededException.class);
+        assertEquals(CircuitBreaker.State.CLOSED, transport.getCircuitBreaker(ENDPOINT).getState());
+        assertFails(transport, get(Deadline.after(5L, TimeUnit.MILLISECONDS)), DeadlineExceededException.class);
+
+        assertEquals(CircuitBreaker.State.OPEN, transport.getCircuitBreaker(ENDPOINT).getState());
+        assertFails(transport, get(Deadline.after(5L, TimeUnit.MILLISECONDS)), CircuitOpenException.class);
+    }
+
+    @Test
+    public void testAbandonedCallsAreNotCounted() throws Exception {
+        FakeTransport delegate = new FakeTransport();
+        CircuitBreakingHttpTransport transport = new CircuitBreakingHttpTransport(delegate);
+        transport.setPolicy(ENDPOINT, new CircuitBreakerPolicy(100.0, 1, 60000L).withSlowCalls(200L, 100.0));
+        Deadline cancelled = Deadline.none();
+        cancelled.cancel();
+        assertFails(transport, get(cancelled), DeadlineExceededException.class);
+        assertFails(transport, get(Deadline.after(0L, TimeUnit.MILLISECONDS)), DeadlineExceededException.class);
+        assertEquals(CircuitBreaker.State.CLOSED, transport.getCircuitBreaker(ENDPOINT).getState());
+
+        transport.setPolicy(ENDPOINT, new CircuitBreakerPolicy(100.0, 1, 60000L));
+        delegate.delayMillis = 20L;
+        assertFails(transport, get(Deadline.after(5L, TimeUnit.MILLISECONDS)), DeadlineExceededException.class);
+        assertEquals("Without slow calls an expired deadline is not recorded", CircuitBreaker.State.CLOSED,
+                transport.getCircuitBreaker(ENDPOINT).getState());
+    }
+
+    @Test
+    public void testHandlerFailuresAreNotCounted() throws Exception {
+        FakeTransport delegate = new FakeTransport();
+        CircuitBreakingHttpTransport transport = new CircuitBreakingHttpTransport(delegate);
+        transport.setPolicy(ENDPOINT, new CircuitBreakerPolicy(100.0, 1, 60000L));
+        delegate.statusCode = 200;
+        IllegalStateException failure = new IllegalStateException("consumer failed");
+        try {
+            transport.execute(get(), (response, in) -> {
+                throw failure;
+            });
+            fail("The failure of the handler should be thrown");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, transport.getCircuitBreaker(ENDPOINT).getState());
+
+        IOException readFailure = new IOException("truncated body");
+        try {
+            transport.execute(get(), (response, in) -> {
+                throw readFailure;
+            });
+            fail("The failure of the handler should be thrown");
+        } catch (IOException e) {
+            assertSame(readFailure, e);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, transport.getCircuitBreaker(ENDPOINT).getState());
+
+        delegate.statusCode = 500;
+        assertEquals(Integer.valueOf(500), transport.execute(get(), (response, in) -> response.getStatusCode()));
+        assertEquals(CircuitBreaker.State.OPEN, transport.getCircuitBreaker(ENDPOINT).getState());
+    }
+
+    @Test
+    public void testStreamedTransportFailuresAreCounted() throws Exception {
+        FakeTransport delegate = new FakeTransport();
+        CircuitBreakingHttpTransport transport = new CircuitBreakingHttpTransport(delegate);
+        transport.setPolicy(ENDPOINT, new CircuitBreakerPolicy(100.0, 1, 60000L));
+        delegate.failure = new ConnectException("refused");
+        try {
+            transport.execute(get(), (response, in) -> response.getStatusCode());
+            fail("The failure of the transport should be thrown");
+        } catch (ConnectException e) {
+            assertSame(delegate.failure, e);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, transport.getCircuitBreaker(ENDPOINT).getState());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPolicy() {
+        new CircuitBreakerPolicy(0.0, 10, 1000L);
+    }
+
+    private static List<String> listen(CircuitBreakingHttpTransport transport) {
+        List<String> changes = new CopyOnWriteArrayList<String>();
+        transport.addListener((endpoint, from, to) -> changes.add(from + ">" + to));
+        return changes;
+    }
+
+    private static <E extends IOException> E assertFails(HttpTransport transport, Class<E> type) {
+        return assertFails(transport, get(), type);
+    }
+
+    private static <E extends IOException> E assertFails(HttpTransport transport, HttpRequest request, Class<E> type) {
+        try {
+            transport.execute(request);
+        } catch (IOException e) {
+            assertSame(type, e.getClass());
+            return type.cast(e);
+        }
+        fail("The request should have failed");
+        return null;
+    }
+
+    private static HttpRequest get() {
+        return new HttpRequest("GET", URL, ENDPOINT, null, null, TIMEOUT, TIMEOUT);
+    }
+
+    private static HttpRequest get(Deadline deadline) {
+        return new HttpRequest("GET", URL, ENDPOINT, null, null, TIMEOUT, TIMEOUT, deadline);
+    }
+
+    /**
+     * Transport that answers every request with the configured status code or failure, or fails like the
+     * {@link PooledHttpTransport} when the deadline of the request is over after the delay.
+     */
+    private static final class FakeTransport implements HttpTransport {
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile int statusCode = 200;
+        private volatile IOException failure;
+        private volatile long delayMillis;
+
+        @Override
+        public HttpResponse execute(HttpRequest request) throws IOException {
+            calls.incrementAndGet();
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (request.getDeadline() != null && request.getDeadline().remainingNanos() <= 0) {
+                throw new DeadlineExceededException(request.getDeadline(), request);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return new HttpResponse(statusCode, null, new byte[0]);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.plenigo.sdk.http;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests for {@link CoalescingHttpTransport}.
+ * </p>
+ */
+public class CoalescingHttpTransportTest {
+    private static final String ENDPOINT = "/api/v2/product";
+    private static final String URL = "https://api.plenigo.com" + ENDPOINT + "/1";
+    private static final int CALLERS = 8;
+    private static final int TIMEOUT = 5000;
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(CALLERS);
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testIdenticalRequestsShareTheResponse() throws Exception {
+        BlockingTransport delegate = new BlockingTransport(null);
+        CoalescingHttpTransport transport = new CoalescingHttpTransport(delegate, ENDPOINT);
+        List<Future<HttpResponse>> futures = submit(transport, get(ENDPOINT, URL));
+        waitForCollapsed(transport, CALLERS - 1);
+        delegate.release.countDown();
+        HttpResponse response = futures.get(0).get(TIMEOUT, TimeUnit.MILLISECONDS);
+        for (Future<HttpResponse> future : futures) {
+            assertSame(response, future.get(TIMEOUT, TimeUnit.MILLISECONDS));
+        }
+        assertEquals(1, delegate.calls.get());
+        assertEquals(1, transport.getExecutedCount());
+        assertEquals(Long.valueOf(CALLERS - 1), transport.getCollapsedCounts().get(ENDPOINT));
+
+        transport.execute(get(ENDPOINT, URL));
+        assertEquals("Completed responses must not be reused", 2, delegate.calls.get());
+    }
+
+    @Test
+    public void testFailureIsSharedWithWaitingCallers() throws Exception {
+        BlockingTransport delegate = new BlockingTransport(new ConnectException("refused"));
+        CoalescingHttpTransport transport = new CoalescingHttpTransport(delegate, ENDPOINT);
+        List<Future<HttpResponse>> futures = submit(transport, get(ENDPOINT, URL));
+        waitForCollapsed(transport, CALLERS - 1);
+        delegate.release.countDown();
+        for (Future<HttpResponse> future : futures) {
+            try {
+                future.get(TIMEOUT, TimeUnit.MILLISECONDS);
+                fail("The failure should have been shared");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof ConnectException);
+            }
+        }
+        assertEquals(1, delegate.calls.get());
+    }
+
+    @Test
+    public void testOnlyEnabledGetRequestsAreCoalesced() throws Exception {
+        BlockingTransport delegate = new BlockingTransport(null);
+        delegate.release.countDown();
+        CoalescingHttpTransport transport = new CoalescingHttpTransport(delegate);
+        transport.execute(get(ENDPOINT, URL));
+        transport.execute(new HttpRequest("POST", URL, ENDPOINT, null, new byte[0], TIMEOUT, TIMEOUT));
+        transport.enableEndpoint(ENDPOINT);
+        assertTrue(transport.getEndpoints().contains(ENDPOINT));
+        transport.execute(get(ENDPOINT, URL));
+        transport.disableEndpoint(ENDPOINT);
+        transport.execute(get(ENDPOINT, URL));
+        assertEquals(4, delegate.calls.get());
+        assertEquals(1, transport.getExecutedCount());
+        assertEquals(0, transport.getCollapsedCount());
+    }
+
+    private List<Future<HttpResponse>> submit(final CoalescingHttpTransport transport, final HttpRequest request) {
+        List<Future<HttpResponse>> futures = new ArrayList<Future<HttpResponse>>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(executorService.submit(() -> transport.execute(request)));
+        }
+        return futures;
+    }
+
+    private static void waitForCollapsed(CoalescingHttpTransport transport, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (transport.getCollapsedCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, transport.getCollapsedCount());
+    }
+
+    private static HttpRequest get(String endpoint, String url) {
+        return new HttpRequest("GET", url, endpoint, null, null, TIMEOUT, TIMEOUT);
+    }
+
+    /**
+     * Transport that blocks every request until it is released.
+     */
+    private static final class BlockingTransport implements HttpTransport {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger calls = new AtomicInteger();
+        private final IOException failure;
+
+        BlockingTransport(IOException failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request) throws IOException {
+            calls.incrementAndGet();
+            try {
+                release.await(TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return new HttpResponse(200, null, new byte[0]);
+        }
+    }
+}
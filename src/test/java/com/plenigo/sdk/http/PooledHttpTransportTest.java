@@ -0,0 +1,247 @@
+package com.plenigo.sdk.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests for {@link PooledHttpTransport}.
+ * </p>
+ */
+public class PooledHttpTransportTest {
+    private static final int TIMEOUT = 5000;
+
+    private HttpServer server;
+    private String baseUrl;
+    private volatile CountDownLatch release;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/echo", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = read(exchange.getRequestBody());
+                String answer = exchange.getRequestMethod() + ":" + exchange.getRequestHeaders().getFirst("X-Test") + ":"
+                        + new String(body, StandardCharsets.UTF_8);
+                respond(exchange, 200, answer);
+            }
+        });
+        server.createContext("/error", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange, 404, "{\"error\":\"not found\"}");
+            }
+        });
+        server.createContext("/slow", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    release.await(TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                respond(exchange, 200, "done");
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    public void testExecute() throws IOException {
+        PooledHttpTransport transport = new PooledHttpTransport();
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        HttpResponse response = transport.execute(new HttpRequest("POST", baseUrl + "/echo", "echo",
+                Collections.singletonMap("X-Test", "value"), body, TIMEOUT, TIMEOUT));
+        assertEquals(200, response.getStatusCode());
+        assertEquals("POST:value:{}", new String(response.getBody(), StandardCharsets.UTF_8));
+        assertEquals("text/plain", response.getHeader("content-type"));
+        PoolStatistics statistics = transport.getStatistics();
+        assertEquals(1, statistics.getRequestCount());
+        assertEquals(0, statistics.getLeasedConnections());
+        assertEquals(1, statistics.getPeakLeasedConnections());
+    }
+
+    @Test
+    public void testErrorResponse() throws IOException {
+        PooledHttpTransport transport = new PooledHttpTransport();
+        HttpResponse response = transport.execute(new HttpRequest("GET", baseUrl + "/error", "error", null, null, TIMEOUT, TIMEOUT));
+        assertEquals(404, response.getStatusCode());
+        assertEquals("{\"error\":\"not found\"}", new String(response.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testStreamingHandler() throws IOException {
+        PooledHttpTransport transport = new PooledHttpTransport(1, 1);
+        HttpRequest request = new HttpRequest("POST", baseUrl + "/echo", "echo", null, "streamed".getBytes(StandardCharsets.UTF_8),
+                TIMEOUT, TIMEOUT);
+        //the handler only reads the beginning, the rest is discarded by the transport
+        String method = transport.execute(request, (response, body) -> {
+            assertEquals(200, response.getStatusCode());
+            byte[] start = new byte[4];
+            assertEquals(4, body.read(start));
+            return new String(start, StandardCharsets.UTF_8);
+        });
+        assertEquals("POST", method);
+        try {
+            transport.execute(request, (response, body) -> {
+                throw new IOException("handler failed");
+            });
+            fail("the handler error should be thrown");
+        } catch (IOException e) {
+            assertEquals("handler failed", e.getMessage());
+        }
+        //the single connection was released both times
+        assertEquals("POST:null:streamed", new String(transport.execute(request).getBody(), StandardCharsets.UTF_8));
+        assertEquals(0, transport.getStatistics().getLeasedConnections());
+    }
+
+    @Test
+    public void testRouteLimitTimesOut() throws Exception {
+        final PooledHttpTransport transport = new PooledHttpTransport(2, 1);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Future<HttpResponse> slow = executorService.submit(() -> transport.execute(
+                    new HttpRequest("GET", baseUrl + "/slow", "slow", null, null, TIMEOUT, TIMEOUT)));
+            while (transport.getStatistics().getLeasedConnections() == 0) {
+                Thread.sleep(10);
+            }
+            try {
+                transport.execute(new HttpRequest("GET", baseUrl + "/echo", "echo", null, null, 100, TIMEOUT));
+                fail("The route limit should have been reached");
+            } catch (ConnectException e) {
+                assertTrue(e.getMessage().contains("connection"));
+            }
+            release.countDown();
+            assertEquals(200, slow.get(TIMEOUT, TimeUnit.MILLISECONDS).getStatusCode());
+            PoolStatistics statistics = transport.getStatistics();
+            assertEquals(1, statistics.getWaitCount());
+            assertEquals(1, statistics.getTimeoutCount());
+            assertEquals(0, statistics.getLeasedConnections());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReadTimeoutIsShortenedToTheDeadline() throws Exception {
+        PooledHttpTransport transport = new PooledHttpTransport();
+        Deadline deadline = Deadline.after(100, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        try {
+            transport.execute(new HttpRequest("GET", baseUrl + "/slow", "slow", null, null, TIMEOUT, TIMEOUT, deadline));
+            fail("The deadline should have expired");
+        } catch (DeadlineExceededException e) {
+            assertFalse(e.isCancelled());
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < TIMEOUT / 2);
+        try {
+            transport.execute(new HttpRequest("GET", baseUrl + "/echo", "echo", null, null, TIMEOUT, TIMEOUT, deadline));
+            fail("No request should be sent after the deadline");
+        } catch (DeadlineExceededException e) {
+            assertEquals(1, transport.getStatistics().getRequestCount());
+        }
+    }
+
+    @Test
+    public void testCancelledDeadlineAbortsTheRequest() throws Exception {
+        PooledHttpTransport transport = new PooledHttpTransport();
+        Deadline deadline = Deadline.none();
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Future<HttpResponse> slow = executorService.submit(() -> transport.execute(
+                    new HttpRequest("GET", baseUrl + "/slow", "slow", null, null, TIMEOUT, TIMEOUT, deadline)));
+            while (transport.getStatistics().getLeasedConnections() == 0) {
+                Thread.sleep(10);
+            }
+            deadline.cancel();
+            try {
+                slow.get(TIMEOUT / 2, TimeUnit.MILLISECONDS);
+                fail("The request should have been aborted");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof DeadlineExceededException);
+                assertTrue(((DeadlineExceededException) e.getCause()).isCancelled());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        final PooledHttpTransport transport = new PooledHttpTransport(4, 4);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            Map<Integer, Future<HttpResponse>> futures = new HashMap<Integer, Future<HttpResponse>>();
+            for (int i = 0; i < 40; i++) {
+                final String value = String.valueOf(i);
+                futures.put(i, executorService.submit(() -> transport.execute(new HttpRequest("GET", baseUrl + "/echo", "echo",
+                        Collections.singletonMap("X-Test", value), null, TIMEOUT, TIMEOUT))));
+            }
+            for (Map.Entry<Integer, Future<HttpResponse>> entry : futures.entrySet()) {
+                HttpResponse response = entry.getValue().get(TIMEOUT, TimeUnit.MILLISECONDS);
+                assertEquals("GET:" + entry.getKey() + ":", new String(response.getBody(), StandardCharsets.UTF_8));
+            }
+            PoolStatistics statistics = transport.getStatistics();
+            assertEquals(40, statistics.getRequestCount());
+            assertTrue(statistics.getPeakLeasedConnections() <= 4);
+            assertEquals(0, statistics.getLeasedConnections());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(status, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        out.close();
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
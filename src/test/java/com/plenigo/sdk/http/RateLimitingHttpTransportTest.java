@@ -0,0 +1,153 @@
+package com.plenigo.sdk.http;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests for {@link RateLimitingHttpTransport}.
+ * </p>
+ */
+public class RateLimitingHttpTransportTest {
+    private static final String ENDPOINT = "/api/v2/company/users";
+    private static final String OTHER_ENDPOINT = "/api/v2/user/product";
+    private static final String GROUP = "export";
+    private static final int TIMEOUT = 5000;
+
+    @Test
+    public void testRequestsWaitWhenTheBurstIsUsed() throws Exception {
+        FakeTransport delegate = new FakeTransport();
+        RateLimitingHttpTransport transport = new RateLimitingHttpTransport(delegate);
+        transport.setGroup(GROUP, ENDPOINT);
+        transport.setLimit(GROUP, RequestPriority.INTERACTIVE, new RateLimit(20.0, 2, 1000L));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            transport.execute(get(ENDPOINT));
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("Two requests should have waited 50 ms each, took " + elapsed + " ms", elapsed >= 90L);
+        assertEquals(4, delegate.calls.get());
+        assertEquals(2L, transport.getThrottledCount());
+        assertEquals(0L, transport.getRejectedCount());
+    }
+
+    @Test
+    public void testRequestIsRejectedAfterTheMaximumWait() throws Exception {
+        FakeTransport delegate = new FakeTransport();
+        RateLimitingHttpTransport transport = new RateLimitingHttpTransport(delegate);
+        transport.setGroup(GROUP, ENDPOINT);
+        transport.setLimit(GROUP, RequestPriority.INTERACTIVE, new RateLimit(1.0, 1, 0L));
+        transport.execute(get(ENDPOINT));
+
+        RateLimitExceededException rejected = assertRejected(transport);
+        assertEquals(GROUP, rejected.getGroup());
+        assertEquals(RequestPriority.INTERACTIVE, rejected.getPriority());
+        assertEquals(1, delegate.calls.get());
+        assertEquals(1L, transport.getRejectedCount());
+    }
+
+    @Test
+    public void testPrioritiesHaveOwnBudgets() throws Exception {
+        FakeTransport delegate = new FakeTransport();
+        RateLimitingHttpTransport transport = new RateLimitingHttpTransport(delegate);
+        transport.setGroup(GROUP, ENDPOINT);
+        transport.setLimit(GROUP, RequestPriority.BATCH, new RateLimit(1.0, 1, 0L));
+        transport.setLimit(GROUP, RequestPriority.INTERACTIVE, new RateLimit(1.0, 1, 0L));
+
+        AtomicReference<IOException> batchFailure = new AtomicReference<IOException>();
+        RequestPriority.BATCH.bind(() -> {
+            try {
+                transport.execute(get(ENDPOINT));
+                transport.execute(get(ENDPOINT));
+            } catch (IOException e) {
+                batchFailure.set(e);
+            }
+        }).run();
+        transport.execute(get(ENDPOINT));
+
+        assertSame(RateLimitExceededException.class, batchFailure.get().getClass());
+        assertEquals(RequestPriority.BATCH, ((RateLimitExceededException) batchFailure.get()).getPriority());
+        assertEquals(RequestPriority.INTERACTIVE, RequestPriority.current());
+        assertEquals(2, delegate.calls.get());
+    }
+
+    @Test
+    public void testRetryAfterPausesTheGroup() throws Exception {
+        FakeTransport delegate = new FakeTransport();
+        RateLimitingHttpTransport transport = new RateLimitingHttpTransport(delegate);
+        transport.setGroup(GROUP, ENDPOINT);
+        transport.setLimit(GROUP, RequestPriority.INTERACTIVE, new RateLimit(100.0, 10, 0L));
+        delegate.statusCode = 429;
+        delegate.headers = Collections.singletonMap("Retry-After", Collections.singletonList("1"));
+
+        assertEquals(429, transport.execute(get(ENDPOINT)).getStatusCode());
+        assertEquals(1L, transport.getPauseCount());
+        assertRejected(transport);
+        assertEquals(1, delegate.calls.get());
+    }
+
+    @Test
+    public void testOtherEndpointsAreNotLimited() throws Exception {
+        FakeTransport delegate = new FakeTransport();
+        RateLimitingHttpTransport transport = new RateLimitingHttpTransport(delegate);
+        transport.setGroup(GROUP, ENDPOINT);
+        transport.setLimit(GROUP, RequestPriority.INTERACTIVE, new RateLimit(1.0, 1, 0L));
+        for (int i = 0; i < 3; i++) {
+            transport.execute(get(OTHER_ENDPOINT));
+        }
+        assertEquals(3, delegate.calls.get());
+        assertNull(transport.getLimit(GROUP, RequestPriority.BATCH));
+        assertEquals(1, transport.getLimits().get(GROUP).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLimit() {
+        new RateLimit(10.0, 0, 100L);
+    }
+
+    private static RateLimitExceededException assertRejected(HttpTransport transport) {
+        try {
+            transport.execute(get(ENDPOINT));
+        } catch (RateLimitExceededException e) {
+            return e;
+        } catch (IOException e) {
+            fail("Unexpected failure " + e);
+        }
+        fail("The request should have been rejected");
+        return null;
+    }
+
+    private static HttpRequest get(String endpoint) {
+        return new HttpRequest("GET", "https://api.plenigo.com" + endpoint, endpoint, null, null, TIMEOUT, TIMEOUT);
+    }
+
+    /**
+     * Transport that answers every request with the configured status code and headers.
+     */
+    private static final class FakeTransport implements HttpTransport {
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile int statusCode = 200;
+        private volatile Map<String, List<String>> headers;
+
+        @Override
+        public HttpResponse execute(HttpRequest request) {
+            calls.incrementAndGet();
+            return new HttpResponse(statusCode, headers, new byte[0]);
+        }
+    }
+}
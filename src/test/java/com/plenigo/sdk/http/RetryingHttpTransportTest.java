@@ -0,0 +1,430 @@
+package com.plenigo.sdk.http;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests for {@link RetryingHttpTransport}.
+ * </p>
+ */
+public class RetryingHttpTransportTest {
+    private static final String ENDPOINT = "/api/v2/product";
+    private static final String URL = "https://api.plenigo.com" + ENDPOINT + "/1";
+    private static final int TIMEOUT = 5000;
+    private static final RetryPolicy POLICY = new RetryPolicy(3, 1L, 5L);
+    private static final long WARM_UP_MILLIS = 5L;
+
+    private final ExecutorService hedgeExecutor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        hedgeExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testFailedRequestIsRetried() throws Exception {
+        ScriptedTransport delegate = new ScriptedTransport();
+        delegate.fail(new ConnectException("refused")).fail(new SocketTimeoutException("read timed out")).respond(200, "ok");
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, hedgeExecutor);
+        transport.setPolicy(ENDPOINT, POLICY);
+
+        HttpResponse response = transport.execute(get());
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(3, delegate.calls.get());
+        assertEquals(2, transport.getRetryCount());
+    }
+
+    @Test
+    public void testTemporaryStatusIsRetried() throws Exception {
+        ScriptedTransport delegate = new ScriptedTransport();
+        delegate.respond(503, "busy").respond(200, "ok");
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, hedgeExecutor);
+        transport.setPolicy(ENDPOINT, POLICY);
+
+        assertEquals(200, transport.execute(get()).getStatusCode());
+        assertEquals(2, delegate.calls.get());
+    }
+
+    @Test
+    public void testLastFailureIsThrown() throws Exception {
+        ScriptedTransport delegate = new ScriptedTransport();
+        ConnectException last = new ConnectException("refused");
+        delegate.fail(new ConnectException("refused")).fail(new ConnectException("refused")).fail(last).respond(200, "ok");
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, hedgeExecutor);
+        transport.setPolicy(ENDPOINT, POLICY);
+        try {
+            transport.execute(get());
+            fail("The request should have failed");
+        } catch (ConnectException e) {
+            assertSame(last, e);
+        }
+        assertEquals(POLICY.getMaxAttempts(), delegate.calls.get());
+    }
+
+    @Test
+    public void testLastTemporaryStatusIsReturned() throws Exception {
+        ScriptedTransport delegate = new ScriptedTransport();
+        delegate.respond(502, "a").respond(503, "b").respond(504, "c").respond(200, "ok");
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, hedgeExecutor);
+        transport.setPolicy(ENDPOINT, POLICY);
+
+        assertEquals(504, transport.execute(get()).getStatusCode());
+    }
+
+    @Test
+    public void testThrottledRequestIsRetriedUnlessAskedToWaitLonger() throws Exception {
+        ScriptedTransport delegate = new ScriptedTransport();
+        delegate.throttle(null).throttle("60").respond(200, "ok");
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, hedgeExecutor);
+        transport.setPolicy(ENDPOINT, POLICY);
+
+        HttpResponse response = transport.execute(get());
+
+        assertEquals(429, response.getStatusCode());
+        assertEquals("60", response.getHeader("Retry-After"));
+        assertEquals(2, delegate.calls.get());
+        assertEquals(1, transport.getRetryCount());
+    }
+
+    @Test
+    public void testNoRetryIsStartedAfterTheDeadline() throws Exception {
+        ScriptedTransport delegate = new ScriptedTransport();
+        ConnectException failure = new ConnectException("refused");
+        delegate.respond(503, "busy").fail(failure).respond(200, "ok");
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, hedgeExecutor);
+        transport.setPolicy(ENDPOINT, POLICY);
+        Deadline expired = Deadline.after(0, TimeUnit.MILLISECONDS);
+        HttpRequest request = new HttpRequest("GET", URL, ENDPOINT, null, null, TIMEOUT, TIMEOUT, expired);
+
+        assertEquals(503, transport.execute(request).getStatusCode());
+        try {
+            transport.execute(request);
+            fail("The request should have failed");
+        } catch (ConnectException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(2, delegate.calls.get());
+        assertEquals(0, transport.getRetryCount());
+    }
+
+    @Test
+    public void testOnlyGetRequestsWithPolicyAreRetried() throws Exception {
+        ScriptedTransport delegate = new ScriptedTransport();
+        delegate.fail(new ConnectException("refused")).fail(new ConnectException("refused")).fail(new UnknownHostException("api"));
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, hedgeExecutor);
+        transport.setPolicy(ENDPOINT, POLICY);
+        assertFails(transport, new HttpRequest("POST", URL, ENDPOINT, null, new byte[0], TIMEOUT, TIMEOUT));
+        assertFails(transport, new HttpRequest("GET", URL, "/api/v2/other", null, null, TIMEOUT, TIMEOUT));
+        assertFails(transport, get());
+        assertEquals("Unknown hosts must not be retried", 3, delegate.calls.get());
+        assertEquals(0, transport.getRetryCount());
+
+        transport.setPolicy(ENDPOINT, null);
+        assertNull(transport.getPolicy(ENDPOINT));
+    }
+
+    @Test
+    public void testStreamedResponseIsRetriedBeforeTheHandlerReadsIt() throws Exception {
+        ScriptedTransport delegate = new ScriptedTransport();
+        delegate.respond(503, "busy").fail(new ConnectException("refused")).respond(200, "ok");
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, hedgeExecutor);
+        transport.setPolicy(ENDPOINT, POLICY);
+        List<Integer> handled = new ArrayList<Integer>();
+
+        String body = transport.execute(get(), (response, in) -> {
+            handled.add(response.getStatusCode());
+            return new String(readAll(in), StandardCharsets.UTF_8);
+        });
+
+        assertEquals("ok", body);
+        assertEquals(1, handled.size());
+        assertEquals(Integer.valueOf(200), handled.get(0));
+    }
+
+    @Test
+    public void testStreamedResponseIsNotRetriedOnceTheHandlerStarted() throws Exception {
+        ScriptedTransport delegate = new ScriptedTransport();
+        delegate.respond(200, "partial").respond(200, "ok");
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, hedgeExecutor);
+        transport.setPolicy(ENDPOINT, POLICY);
+        try {
+            transport.execute(get(), (response, in) -> {
+                throw new IOException("connection reset while reading");
+            });
+            fail("The failure of the handler should be thrown");
+        } catch (IOException e) {
+            assertEquals("connection reset while reading", e.getMessage());
+        }
+        assertEquals(1, delegate.calls.get());
+    }
+
+    @Test
+    public void testSlowRequestIsHedged() throws Exception {
+        ScriptedTransport delegate = new ScriptedTransport();
+        CountDownLatch released = new CountDownLatch(0);
+        for (int i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+            delegate.block(released, WARM_UP_MILLIS, "fast");
+        }
+        CountDownLatch slowRelease = new CountDownLatch(1);
+        delegate.block(slowRelease, 0L, "slow").respond(200, "hedged");
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, hedgeExecutor);
+        transport.setPolicy(ENDPOINT, POLICY.withHedging(90.0));
+        for (int i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+            transport.execute(get());
+        }
+        assertTrue(transport.getHedgeDelayMillis(ENDPOINT) >= 0);
+
+        HttpResponse response = transport.execute(get());
+        slowRelease.countDown();
+
+        assertArrayEquals("hedged".getBytes(StandardCharsets.UTF_8), response.getBody());
+        assertEquals(1, transport.getHedgeCount());
+        assertEquals(1, transport.getHedgeWinCount());
+        assertEquals(LatencyTracker.MIN_SAMPLES + 2, delegate.calls.get());
+    }
+
+    @Test
+    public void testRequestsAreNotHedgedWithoutEnoughLatencies() throws Exception {
+        ScriptedTransport delegate = new ScriptedTransport();
+        delegate.respond(200, "ok");
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, hedgeExecutor);
+        transport.setPolicy(ENDPOINT, POLICY.withHedging(99.0));
+
+        assertEquals(200, transport.execute(get()).getStatusCode());
+        assertEquals(0, transport.getHedgeCount());
+        assertEquals(-1L, transport.getHedgeDelayMillis(ENDPOINT));
+    }
+
+    @Test
+    public void testLosingRequestIsAborted() throws Exception {
+        ScriptedTransport delegate = warmedUp();
+        CountDownLatch slowRelease = new CountDownLatch(1);
+        delegate.block(slowRelease, 0L, "slow").respond(200, "hedged");
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, hedgeExecutor);
+        transport.setPolicy(ENDPOINT, POLICY.withHedging(90.0));
+        warmUp(transport);
+
+        HttpResponse response = transport.execute(get());
+        slowRelease.countDown();
+
+        assertArrayEquals("hedged".getBytes(StandardCharsets.UTF_8), response.getBody());
+        HttpRequest slow = delegate.requests.get(LatencyTracker.MIN_SAMPLES);
+        HttpRequest hedged = delegate.requests.get(LatencyTracker.MIN_SAMPLES + 1);
+        assertTrue(slow.getDeadline().isCancelled());
+        assertTrue(slow.getDeadline() != hedged.getDeadline());
+    }
+
+    @Test
+    public void testFastRetryableResponseDoesNotWinTheHedge() throws Exception {
+        ScriptedTransport delegate = warmedUp();
+        delegate.block(new CountDownLatch(0), WARM_UP_MILLIS * 20, "slow").respond(503, "unavailable");
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, hedgeExecutor);
+        transport.setPolicy(ENDPOINT, POLICY.withHedging(90.0));
+        warmUp(transport);
+
+        HttpResponse response = transport.execute(get());
+
+        assertEquals(200, response.getStatusCode());
+        assertArrayEquals("slow".getBytes(StandardCharsets.UTF_8), response.getBody());
+        assertEquals(1, transport.getHedgeCount());
+        assertEquals(0, transport.getHedgeWinCount());
+        assertEquals(LatencyTracker.MIN_SAMPLES + 2, delegate.calls.get());
+    }
+
+    @Test
+    public void testRequestsRunWithACopyOfTheDeadline() throws Exception {
+        ScriptedTransport delegate = new ScriptedTransport();
+        delegate.respond(200, "ok");
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, hedgeExecutor);
+        transport.setPolicy(ENDPOINT, POLICY.withHedging(90.0));
+        Deadline deadline = Deadline.after(TIMEOUT, TimeUnit.MILLISECONDS);
+
+        transport.execute(new HttpRequest("GET", URL, ENDPOINT, null, null, TIMEOUT, TIMEOUT, deadline));
+
+        Deadline attempt = delegate.requests.get(0).getDeadline();
+        assertTrue(attempt != deadline);
+        assertTrue(attempt.isCancelled());
+        assertTrue(!deadline.isCancelled());
+    }
+
+    @Test
+    public void testHedgesAreLimitedByTheBudget() throws Exception {
+        ScriptedTransport delegate = warmedUp();
+        delegate.block(new CountDownLatch(0), WARM_UP_MILLIS * 20, "slow").respond(200, "hedged");
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, hedgeExecutor);
+        transport.setPolicy(ENDPOINT, POLICY.withHedging(90.0, 1.0));
+        warmUp(transport);
+
+        HttpResponse response = transport.execute(get());
+
+        assertArrayEquals("slow".getBytes(StandardCharsets.UTF_8), response.getBody());
+        assertEquals(0, transport.getHedgeCount());
+        assertEquals(1, transport.getSkippedHedgeCount());
+        assertEquals(LatencyTracker.MIN_SAMPLES + 1, delegate.calls.get());
+    }
+
+    @Test
+    public void testHedgeIsSkippedWhenTheExecutorIsFull() throws Exception {
+        ScriptedTransport delegate = warmedUp();
+        delegate.block(new CountDownLatch(0), WARM_UP_MILLIS * 20, "slow").respond(200, "hedged");
+        AtomicInteger free = new AtomicInteger(LatencyTracker.MIN_SAMPLES + 1);
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, command -> {
+            if (free.getAndDecrement() <= 0) {
+                throw new RejectedExecutionException("full");
+            }
+            hedgeExecutor.execute(command);
+        });
+        transport.setPolicy(ENDPOINT, POLICY.withHedging(90.0, 100.0));
+        warmUp(transport);
+
+        HttpResponse response = transport.execute(get());
+
+        assertArrayEquals("slow".getBytes(StandardCharsets.UTF_8), response.getBody());
+        assertEquals(0, transport.getHedgeCount());
+        assertEquals(1, transport.getSkippedHedgeCount());
+    }
+
+    @Test
+    public void testRequestRejectedByTheExecutorIsSentWithoutHedging() throws Exception {
+        ScriptedTransport delegate = new ScriptedTransport();
+        delegate.respond(200, "ok");
+        RetryingHttpTransport transport = new RetryingHttpTransport(delegate, command -> {
+            throw new RejectedExecutionException("full");
+        });
+        transport.setPolicy(ENDPOINT, POLICY.withHedging(90.0));
+
+        assertEquals(200, transport.execute(get()).getStatusCode());
+        assertEquals(1, delegate.calls.get());
+        assertEquals(0, transport.getHedgeCount());
+    }
+
+    private static ScriptedTransport warmedUp() {
+        ScriptedTransport delegate = new ScriptedTransport();
+        CountDownLatch released = new CountDownLatch(0);
+        for (int i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+            delegate.block(released, WARM_UP_MILLIS, "fast");
+        }
+        return delegate;
+    }
+
+    private static void warmUp(RetryingHttpTransport transport) throws IOException {
+        for (int i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+            transport.execute(get());
+        }
+        assertTrue(transport.getHedgeDelayMillis(ENDPOINT) >= 0);
+    }
+
+    private static void assertFails(HttpTransport transport, HttpRequest request) {
+        try {
+            transport.execute(request);
+            fail("The request should have failed");
+        } catch (IOException e) {
+            assertTrue(e.getMessage() != null);
+        }
+    }
+
+    private static HttpRequest get() {
+        return new HttpRequest("GET", URL, ENDPOINT, null, null, TIMEOUT, TIMEOUT);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Transport that answers the requests with a scripted sequence of outcomes.
+     */
+    private static final class ScriptedTransport implements HttpTransport {
+        private final ConcurrentLinkedQueue<Outcome> outcomes = new ConcurrentLinkedQueue<Outcome>();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final List<HttpRequest> requests = new CopyOnWriteArrayList<HttpRequest>();
+
+        ScriptedTransport respond(int statusCode, String body) {
+            outcomes.add(() -> new HttpResponse(statusCode, null, body.getBytes(StandardCharsets.UTF_8)));
+            return this;
+        }
+
+        ScriptedTransport throttle(String retryAfter) {
+            Map<String, List<String>> headers = null;
+            if (retryAfter != null) {
+                headers = Collections.singletonMap("Retry-After", Collections.singletonList(retryAfter));
+            }
+            Map<String, List<String>> responseHeaders = headers;
+            outcomes.add(() -> new HttpResponse(429, responseHeaders, new byte[0]));
+            return this;
+        }
+
+        ScriptedTransport fail(IOException failure) {
+            outcomes.add(() -> {
+                throw failure;
+            });
+            return this;
+        }
+
+        ScriptedTransport block(CountDownLatch release, long minMillis, String body) {
+            outcomes.add(() -> {
+                try {
+                    Thread.sleep(minMillis);
+                    release.await(TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new HttpResponse(200, null, body.getBytes(StandardCharsets.UTF_8));
+            });
+            return this;
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request) throws IOException {
+            calls.incrementAndGet();
+            requests.add(request);
+            Outcome outcome = outcomes.poll();
+            if (outcome == null) {
+                throw new ConnectException("no scripted outcome");
+            }
+            return outcome.get();
+        }
+    }
+
+    /**
+     * Scripted outcome of a request.
+     */
+    private interface Outcome {
+        HttpResponse get() throws IOException;
+    }
+}
@@ -0,0 +1,74 @@
+package com.plenigo.sdk.internal.cache;
+
+import com.plenigo.sdk.internal.models.ConfigurationSnapshot;
+import com.plenigo.sdk.internal.models.Customer;
+import com.plenigo.sdk.internal.models.MeteredUserData;
+import com.plenigo.sdk.util.TestUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * Tests for {@link CookieCache}.
+ * </p>
+ */
+public class CookieCacheTest {
+    private final ConfigurationSnapshot config = TestUtil.snapshot(null, TestUtil.COMPANY_ID, TestUtil.SECRET, false);
+
+    @Test
+    public void testCustomerIsShared() {
+        CookieCache cache = new CookieCache(10);
+        Customer customer = new Customer("customerId", 1L);
+        cache.putCustomer(config, "cookie", customer);
+        assertSame(customer, cache.getCustomer(config, "cookie"));
+        assertNull(cache.getCustomer(config, "other"));
+    }
+
+    @Test
+    public void testMeteredUserDataIsCopied() {
+        CookieCache cache = new CookieCache(10);
+        MeteredUserData data = new MeteredUserData(true, 5L, 2L, false, null, null, null);
+        data.getUniqueVisitedSites().add("site");
+        data.setStartTime(10L).setMeteredPeriod("MONTH");
+        cache.putMeteredUserData(config, "cookie", data);
+        data.getUniqueVisitedSites().add("changedAfterPut");
+
+        MeteredUserData first = cache.getMeteredUserData(config, "cookie");
+        assertNotSame(data, first);
+        first.getUniqueVisitedSites().add("changedByCaller");
+        first.setStartTime(20L);
+
+        MeteredUserData second = cache.getMeteredUserData(config, "cookie");
+        assertNotSame(first, second);
+        assertEquals(1, second.getUniqueVisitedSites().size());
+        assertTrue(second.getUniqueVisitedSites().contains("site"));
+        assertEquals(10L, second.getStartTime());
+        assertEquals(first.getMeteredPeriod(), second.getMeteredPeriod());
+        assertEquals(Long.valueOf(2L), second.getViewsTaken());
+        assertNull(second.getLoginFreeViewsAllowed());
+    }
+
+    @Test
+    public void testEntriesOfAnotherConfigurationAreNotReturned() {
+        CookieCache cache = new CookieCache(10);
+        ConfigurationSnapshot replaced = TestUtil.snapshot(null, "OTHER_ID", TestUtil.SECRET, false);
+        cache.putCustomer(replaced, "cookie", new Customer("customerId", 1L));
+        cache.putMeteredUserData(replaced, "cookie", new MeteredUserData(true, 5L, 2L, false, null, null, null));
+        assertNull(cache.getCustomer(config, "cookie"));
+        assertNull(cache.getMeteredUserData(config, "cookie"));
+        assertNotNull(cache.getCustomer(replaced, "cookie"));
+    }
+
+    @Test
+    public void testMissingMeteredUserData() {
+        CookieCache cache = new CookieCache(10);
+        cache.putMeteredUserData(config, "cookie", null);
+        assertNull(cache.getMeteredUserData(config, "cookie"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.plenigo.sdk.internal.cache;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * Tests for {@link EntitlementCache}.
+ * </p>
+ */
+public class EntitlementCacheTest {
+
+    @Test
+    public void testKeyIgnoresProductOrder() {
+        EntitlementCache cache = new EntitlementCache(10, 60000L, 60000L);
+        cache.put("customer", Arrays.asList("a", "b"), false, false, true);
+        assertTrue(cache.get("customer", Arrays.asList("b", "a"), false, false));
+        assertNull(cache.get("customer", Arrays.asList("b", "a"), true, false));
+        assertNull(cache.get("customer", Arrays.asList("b", "a"), false, true));
+        assertNull(cache.get("customer", Collections.singletonList("a"), false, false));
+        assertNull(cache.get("other", Arrays.asList("a", "b"), false, false));
+        assertEquals(1, cache.getStatistics().getHitCount());
+        assertEquals(4, cache.getStatistics().getMissCount());
+    }
+
+    @Test
+    public void testSeparateTtls() throws InterruptedException {
+        EntitlementCache cache = new EntitlementCache(10, 60000L, 1L);
+        cache.put("customer", Collections.singletonList("bought"), false, false, true);
+        cache.put("customer", Collections.singletonList("notBought"), false, false, false);
+        Thread.sleep(10);
+        assertTrue(cache.get("customer", Collections.singletonList("bought"), false, false));
+        assertNull(cache.get("customer", Collections.singletonList("notBought"), false, false));
+        assertEquals(1, cache.getStatistics().getSize());
+    }
+
+    @Test
+    public void testLastKnownAnswerOutlivesTtl() throws InterruptedException {
+        EntitlementCache cache = new EntitlementCache(10, 1L, 0L);
+        cache.put("customer", Collections.singletonList("bought"), false, false, true);
+        cache.put("customer", Collections.singletonList("notBought"), false, false, false);
+        Thread.sleep(10);
+        assertNull(cache.get("customer", Collections.singletonList("bought"), false, false));
+        assertTrue(cache.getLastKnown("customer", Collections.singletonList("bought"), false, false));
+        assertFalse(cache.getLastKnown("customer", Collections.singletonList("notBought"), false, false));
+        assertEquals(0, cache.getStatistics().getSize());
+        cache.invalidate("customer");
+        assertNull(cache.getLastKnown("customer", Collections.singletonList("bought"), false, false));
+    }
+
+    @Test
+    public void testNegativeAnswersNotCachedWithoutTtl() {
+        EntitlementCache cache = new EntitlementCache(10, 60000L, 0L);
+        cache.put("customer", Collections.singletonList("prod"), false, false, false);
+        assertNull(cache.get("customer", Collections.singletonList("prod"), false, false));
+        cache.put("customer", Collections.singletonList("prod"), false, false, true);
+        assertTrue(cache.get("customer", Collections.singletonList("prod"), false, false));
+    }
+
+    @Test
+    public void testInvalidate() {
+        EntitlementCache cache = new EntitlementCache(10, 60000L, 60000L);
+        cache.put("customer", Collections.singletonList("a"), false, false, true);
+        cache.put("customer", Collections.singletonList("b"), true, true, false);
+        cache.put("other", Collections.singletonList("a"), false, false, true);
+        assertEquals(2, cache.invalidate("customer"));
+        assertNull(cache.get("customer", Collections.singletonList("a"), false, false));
+        assertTrue(cache.get("other", Collections.singletonList("a"), false, false));
+    }
+
+    @Test
+    public void testMaxSize() {
+        EntitlementCache cache = new EntitlementCache(2, 60000L, 60000L);
+        for (int i = 0; i < 10; i++) {
+            cache.put("customer" + i, Collections.singletonList("a"), false, false, true);
+        }
+        assertTrue(cache.getStatistics().getSize() <= 2);
+        cache.clear();
+        assertEquals(0, cache.getStatistics().getSize());
+    }
+}
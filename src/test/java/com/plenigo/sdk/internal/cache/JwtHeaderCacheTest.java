@@ -0,0 +1,145 @@
+package com.plenigo.sdk.internal.cache;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.internal.util.JWT;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * Tests for {@link JwtHeaderCache}.
+ * </p>
+ */
+public class JwtHeaderCacheTest {
+    private static final String COMPANY_ID = "12NuCmdZUTRRkQiCqP2Q";
+    private static final String SECRET = "RrrDfmzUTcQiY8PpLyc7VIj8UqwjwnbiiyRM7FAx";
+    /**
+     * The default expiration of the tokens, the remaining validity of a token is up to a second shorter since its expiration
+     * is rounded down to seconds.
+     */
+    private static final long VALIDITY = 300000L;
+    private static final long ROUNDING = 1000L;
+    private static final long REFRESH_MARGIN = 60000L;
+
+    private final AtomicLong now = new AtomicLong(1000000L);
+    private final List<Runnable> scheduled = new ArrayList<Runnable>();
+
+    @Test
+    public void testHeaderIsSignedOnce() throws PlenigoException {
+        JwtHeaderCache cache = new JwtHeaderCache(COMPANY_ID, SECRET, REFRESH_MARGIN, scheduled::add, now::get);
+        Map<String, String> header = cache.getHeader();
+        assertNotNull(header.get("plenigoToken"));
+        now.addAndGet(VALIDITY - REFRESH_MARGIN - ROUNDING - 1);
+        assertSame(header, cache.getHeader());
+        assertEquals(1, cache.getSignatureCount());
+        assertTrue(scheduled.isEmpty());
+    }
+
+    @Test
+    public void testHeaderIsRefreshedInTheBackground() throws PlenigoException {
+        JwtHeaderCache cache = new JwtHeaderCache(COMPANY_ID, SECRET, REFRESH_MARGIN, scheduled::add, now::get);
+        Map<String, String> header = cache.getHeader();
+        now.addAndGet(VALIDITY - REFRESH_MARGIN);
+        assertSame(header, cache.getHeader());
+        assertSame(header, cache.getHeader());
+        assertEquals("Only one refresh must be scheduled", 1, scheduled.size());
+        now.addAndGet(1000L);
+        scheduled.get(0).run();
+        Map<String, String> refreshed = cache.getHeader();
+        assertNotSame(header, refreshed);
+        assertEquals(2, cache.getSignatureCount());
+    }
+
+    @Test
+    public void testExpiredHeaderIsSignedSynchronously() throws PlenigoException {
+        JwtHeaderCache cache = new JwtHeaderCache(COMPANY_ID, SECRET, REFRESH_MARGIN, scheduled::add, now::get);
+        Map<String, String> header = cache.getHeader();
+        now.addAndGet(VALIDITY - JwtHeaderCache.EXPIRY_SAFETY_MARGIN_MILLIS);
+        assertNotSame(header, cache.getHeader());
+        assertEquals(2, cache.getSignatureCount());
+        assertTrue(scheduled.isEmpty());
+    }
+
+    @Test
+    public void testRejectedRefreshIsRetried() throws PlenigoException {
+        JwtHeaderCache cache = new JwtHeaderCache(COMPANY_ID, SECRET, REFRESH_MARGIN, command -> {
+            scheduled.add(command);
+            throw new RejectedExecutionException();
+        }, now::get);
+        cache.getHeader();
+        now.addAndGet(VALIDITY - REFRESH_MARGIN);
+        cache.getHeader();
+        cache.getHeader();
+        assertEquals(2, scheduled.size());
+        assertEquals(1, cache.getSignatureCount());
+    }
+
+    @Test
+    public void testValidityFollowsTheExpirationOfTheToken() throws PlenigoException {
+        JWT.setExpirationTime(30);
+        try {
+            JwtHeaderCache cache = new JwtHeaderCache(COMPANY_ID, SECRET, REFRESH_MARGIN, scheduled::add, now::get);
+            Map<String, String> header = cache.getHeader();
+            now.addAndGet(15000L - ROUNDING - 1);
+            assertSame(header, cache.getHeader());
+            assertTrue(scheduled.isEmpty());
+            now.addAndGet(ROUNDING + 1);
+            assertSame(header, cache.getHeader());
+            assertEquals(1, scheduled.size());
+            now.addAndGet(15000L);
+            assertNotSame(header, cache.getHeader());
+            assertEquals(2, cache.getSignatureCount());
+        } finally {
+            JWT.setExpirationTime((int) TimeUnit.MILLISECONDS.toSeconds(VALIDITY));
+        }
+    }
+
+    @Test
+    public void testUnreadableExpiration() {
+        assertEquals(JwtHeaderCache.DEFAULT_VALIDITY_MILLIS, JwtHeaderCache.getValidityMillis("header.e30.signature"));
+        assertEquals(JwtHeaderCache.DEFAULT_VALIDITY_MILLIS, JwtHeaderCache.getValidityMillis("header.%%.signature"));
+        assertEquals(JwtHeaderCache.DEFAULT_VALIDITY_MILLIS, JwtHeaderCache.getValidityMillis("invalid"));
+    }
+
+    @Test
+    public void testMissingCredentials() throws PlenigoException {
+        JwtHeaderCache cache = new JwtHeaderCache(null, SECRET);
+        assertTrue(cache.getHeader().isEmpty());
+        assertEquals(0, cache.getSignatureCount());
+    }
+
+    @Test
+    public void testConcurrentCallers() throws Exception {
+        final JwtHeaderCache cache = new JwtHeaderCache(COMPANY_ID, SECRET);
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Map<String, String>>> futures = new ArrayList<Future<Map<String, String>>>();
+            for (int i = 0; i < 1000; i++) {
+                futures.add(executorService.submit((Callable<Map<String, String>>) cache::getHeader));
+            }
+            Map<String, String> header = futures.get(0).get();
+            for (Future<Map<String, String>> future : futures) {
+                assertSame(header, future.get());
+            }
+            assertEquals(1, cache.getSignatureCount());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
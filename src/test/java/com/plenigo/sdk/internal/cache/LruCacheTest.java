@@ -0,0 +1,93 @@
+package com.plenigo.sdk.internal.cache;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * Tests for {@link LruCache}.
+ * </p>
+ */
+public class LruCacheTest {
+
+    @Test
+    public void testGetAndPut() {
+        LruCache<String, String> cache = new LruCache<String, String>(10);
+        assertNull(cache.get("key"));
+        cache.put("key", "value");
+        cache.put("nullValue", null);
+        assertEquals("value", cache.get("key"));
+        assertNull(cache.get("nullValue"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        LruCache<Integer, Integer> cache = new LruCache<Integer, Integer>(1);
+        cache.put(1, 1);
+        cache.put(2, 2);
+        assertNull(cache.get(1));
+        assertEquals(Integer.valueOf(2), cache.get(2));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getMaxSize());
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        LruCache<Integer, Integer> cache = new LruCache<Integer, Integer>(50);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i);
+        }
+        assertTrue(cache.size() <= 50);
+        assertEquals(Integer.valueOf(999), cache.get(999));
+    }
+
+    @Test
+    public void testRemoveAndClear() {
+        LruCache<String, String> cache = new LruCache<String, String>(10);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.remove("a"));
+        assertNull(cache.get("a"));
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() {
+        new LruCache<String, String>(0);
+    }
+
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        final LruCache<Integer, Integer> cache = new LruCache<Integer, Integer>(100);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        final CountDownLatch latch = new CountDownLatch(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        cache.put(i % 200, i);
+                        cache.get(i % 150);
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(cache.size() <= 100);
+        assertEquals(40000, cache.getHitCount() + cache.getMissCount());
+    }
+}
@@ -0,0 +1,107 @@
+package com.plenigo.sdk.internal.cache;
+
+import com.plenigo.sdk.PlenigoException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests for {@link RefreshingCache}.
+ * </p>
+ */
+public class RefreshingCacheTest {
+    private static final long SOFT_TTL = 1000L;
+    private static final long HARD_TTL = 5000L;
+
+    private final AtomicLong now = new AtomicLong(100000L);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<Runnable> scheduled = new ArrayList<Runnable>();
+    private final RefreshingCache.Loader<String, String> loader = key -> key + "-" + loads.incrementAndGet();
+    private final RefreshingCache<String, String> cache = new RefreshingCache<String, String>(10, SOFT_TTL, HARD_TTL, now::get);
+
+    @Test
+    public void testFreshValueIsCached() throws PlenigoException {
+        assertEquals("a-1", cache.get("a", loader, scheduled::add));
+        now.addAndGet(SOFT_TTL - 1);
+        assertEquals("a-1", cache.get("a", loader, scheduled::add));
+        assertEquals(1, loads.get());
+        assertTrue(scheduled.isEmpty());
+        assertEquals(1, cache.getStatistics().getHitCount());
+        assertEquals(1, cache.getStatistics().getMissCount());
+    }
+
+    @Test
+    public void testStaleValueIsServedWhileRefreshing() throws PlenigoException {
+        cache.get("a", loader, scheduled::add);
+        now.addAndGet(SOFT_TTL);
+        assertEquals("a-1", cache.get("a", loader, scheduled::add));
+        assertEquals("a-1", cache.get("a", loader, scheduled::add));
+        assertEquals("Only one refresh must be started", 1, scheduled.size());
+        scheduled.get(0).run();
+        assertEquals("a-2", cache.get("a", loader, scheduled::add));
+        assertEquals(1, cache.getRefreshCount());
+        assertEquals(1, scheduled.size());
+    }
+
+    @Test
+    public void testFailedRefreshKeepsTheStaleValue() throws PlenigoException {
+        cache.get("a", loader, scheduled::add);
+        now.addAndGet(SOFT_TTL);
+        cache.get("a", key -> {
+            throw new PlenigoException("500", "unavailable");
+        }, scheduled::add);
+        scheduled.get(0).run();
+        assertEquals("a-1", cache.get("a", loader, scheduled::add));
+        assertEquals("The refresh must be retried", 2, scheduled.size());
+        assertEquals(0, cache.getRefreshCount());
+    }
+
+    @Test
+    public void testExpiredValueIsLoadedByTheCaller() throws PlenigoException {
+        cache.get("a", loader, scheduled::add);
+        now.addAndGet(HARD_TTL);
+        assertEquals("a-2", cache.get("a", loader, scheduled::add));
+        assertTrue(scheduled.isEmpty());
+    }
+
+    @Test
+    public void testLoaderErrorIsThrownOnMiss() {
+        try {
+            cache.get("a", key -> {
+                throw new PlenigoException("404", "not found");
+            }, scheduled::add);
+            fail("The loader error should have been thrown");
+        } catch (PlenigoException e) {
+            assertEquals("404", e.getResponseCode());
+        }
+        assertEquals(0, cache.getStatistics().getSize());
+    }
+
+    @Test
+    public void testInvalidatedValueIsNotOverwrittenByRefresh() throws PlenigoException {
+        cache.get("a", loader, scheduled::add);
+        now.addAndGet(SOFT_TTL);
+        cache.get("a", loader, scheduled::add);
+        cache.invalidate("a");
+        scheduled.get(0).run();
+        assertEquals(0, cache.getStatistics().getSize());
+        assertEquals("a-3", cache.get("a", loader, scheduled::add));
+    }
+
+    @Test
+    public void testClear() throws PlenigoException {
+        cache.get("a", loader, scheduled::add);
+        cache.get("b", loader, scheduled::add);
+        assertEquals(2, cache.getStatistics().getSize());
+        cache.clear();
+        assertEquals(0, cache.getStatistics().getSize());
+    }
+}
@@ -0,0 +1,67 @@
+package com.plenigo.sdk.internal.models;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * Tests for {@link ConfigurationSnapshot}.
+ * </p>
+ */
+public class ConfigurationSnapshotTest {
+
+    @Test
+    public void testLaterChangesAreNotReflected() {
+        Configuration config = new Configuration();
+        config.setCompanyId("compId");
+        config.setSecret("secret");
+        config.setTestMode(true);
+        config.setUrl("sampleUrl");
+        ConfigurationSnapshot snapshot = new ConfigurationSnapshot(config);
+        config.setCompanyId("otherId");
+        config.setSecret("otherSecret");
+        config.setTestMode(false);
+        config.setUrl("otherUrl");
+        assertEquals("compId", snapshot.getCompanyId());
+        assertEquals("secret", snapshot.getSecret());
+        assertTrue(snapshot.isTestMode());
+        assertEquals("sampleUrl", snapshot.getUrl());
+    }
+
+    @Test
+    public void testToConfigurationCopiesTheValues() {
+        Configuration config = new Configuration();
+        config.setCompanyId("compId");
+        config.setSecret("secret");
+        ConfigurationSnapshot snapshot = new ConfigurationSnapshot(config);
+        Configuration copy = snapshot.toConfiguration();
+        assertNotSame(config, copy);
+        assertEquals(config.getUrl(), copy.getUrl());
+        assertEquals(config.getOauthUrl(), copy.getOauthUrl());
+        assertEquals("compId", copy.getCompanyId());
+        assertEquals("secret", copy.getSecret());
+        assertFalse(copy.isTestMode());
+    }
+
+    @Test
+    public void testJwtHeaderIsSignedOnce() throws Exception {
+        Configuration config = new Configuration();
+        config.setCompanyId("compId");
+        config.setSecret("secret");
+        ConfigurationSnapshot snapshot = new ConfigurationSnapshot(config);
+        assertSame(snapshot.getJwtHeader(), snapshot.getJwtHeader());
+        assertFalse(snapshot.getJwtHeader().isEmpty());
+    }
+
+    @Test
+    public void testToStringHidesTheSecret() {
+        Configuration config = new Configuration();
+        config.setSecret("topSecretValue");
+        assertFalse(new ConfigurationSnapshot(config).toString().contains("topSecretValue"));
+    }
+}
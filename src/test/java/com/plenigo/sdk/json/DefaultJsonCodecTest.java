@@ -0,0 +1,332 @@
+package com.plenigo.sdk.json;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.http.HttpResponse;
+import com.plenigo.sdk.internal.util.EncryptionUtils;
+import com.plenigo.sdk.internal.util.HttpConfig;
+import com.plenigo.sdk.internal.util.RestClient;
+import com.plenigo.sdk.internal.util.SdkUtils;
+import com.plenigo.sdk.internal.util.TransportRestClient;
+import com.plenigo.sdk.models.AppAccessData;
+import com.plenigo.sdk.models.CategoryData;
+import com.plenigo.sdk.models.CompanyUser;
+import com.plenigo.sdk.models.CustomerAppRequest;
+import com.plenigo.sdk.models.ElementList;
+import com.plenigo.sdk.models.PageRequest;
+import com.plenigo.sdk.models.PagedList;
+import com.plenigo.sdk.models.ProductData;
+import com.plenigo.sdk.models.ProductInfo;
+import com.plenigo.sdk.models.TransactionList;
+import com.plenigo.sdk.models.TransactionSearchRequest;
+import com.plenigo.sdk.models.ValidityTime;
+import com.plenigo.sdk.services.AppManagementService;
+import com.plenigo.sdk.services.CompanyService;
+import com.plenigo.sdk.services.ProductService;
+import com.plenigo.sdk.services.TransactionService;
+import com.plenigo.sdk.util.TestUtil;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.support.SuppressCode.suppressConstructor;
+
+/**
+ * <p>
+ * Tests for {@link DefaultJsonCodec}. The models bound by the codec are compared with the ones the mappers of the services build
+ * from the same response.
+ * </p>
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({EncryptionUtils.class, PlenigoManager.class, RestClient.class})
+public class DefaultJsonCodecTest {
+    private static final String MODELS_PACKAGE = "com.plenigo.sdk.models";
+    private static final int LARGE_PAGE_SIZE = 1000;
+
+    static final String PRODUCT = "{\"id\":\"P1\",\"title\":\"T\\u00edtulo \\\"quoted\\\"\",\"description\":null,\"collectible\":true,"
+            + "\"choosePrice\":\"true\",\"price\":12.99,\"taxes\":\"19\",\"currency\":\"EUR\",\"subscription\":true,\"term\":12,"
+            + "\"cancellationPeriod\":3,\"autoRenewal\":\"false\",\"actionPeriodName\":\"Spring\",\"actionPeriodTerm\":\"2\","
+            + "\"actionPeriodPrice\":\"1.5\",\"images\":[{\"url\":\"http://img/1\",\"description\":\"one\",\"altText\":\"alt\"},"
+            + "{\"url\":\"http://img/2\",\"unknown\":[1,{\"a\":null}]}],\"maxParallelAppAccess\":5,"
+            + "\"customInfo\":{\"key\":\"value\",\"count\":3},\"unknown\":{\"nested\":[true,false,null,-1.5e3]}}";
+    private static final String CATEGORY = "{\"id\":\"C1\",\"validityTime\":\"31\",\"choosePrice\":false,\"price\":\"3.5\","
+            + "\"taxes\":7,\"currency\":\"USD\"}";
+    private static final String COMPANY_USERS = "{\"totalElements\":2,\"size\":10,\"elements\":["
+            + "{\"customerId\":\"U1\",\"email\":\"a@b.c\",\"username\":\"user\",\"language\":\"de\",\"gender\":\"FEMALE\",\"firstName\":\"Ann\","
+            + "\"name\":\"Smith\",\"mobileNumber\":12345,\"userState\":\"ACTIVE\",\"birthday\":\"1990-05-17 00:00:00 +0200\","
+            + "\"postCode\":\"10115\",\"street\":\"Main 1\",\"city\":\"Berlin\",\"state\":null,\"country\":\"DE\",\"agreementState\":\"OK\","
+            + "\"billingAddresses\":[{\"gender\":\"FEMALE\",\"firstName\":\"Ann\",\"name\":\"Smith\",\"company\":\"ACME\",\"vatNumber\":\"DE1\"},"
+            + "{\"firstName\":\"Other\"}]},"
+            + "{\"customerId\":\"U2\",\"birthday\":\"invalid\",\"billingAddresses\":[]}]}";
+    private static final String APPS = "{\"apps\":[{\"customerId\":\"U1\",\"description\":\"Phone\",\"customerAppId\":\"A1\","
+            + "\"productId\":\"P1\"},{\"customerId\":\"U1\",\"customerAppId\":\"A2\"}]}";
+
+    @Before
+    public void setup() throws PlenigoException {
+        suppressConstructor(PlenigoManager.class);
+        mockStatic(PlenigoManager.class);
+        PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
+        PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
+        PowerMockito.when(mockedMgr.getCompanyId()).thenReturn("CP_ID");
+        PowerMockito.when(mockedMgr.getUrl()).thenReturn("https://api.plenigo.com/api/v2");
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot("https://api.plenigo.com/api/v2", "CP_ID", null, false));
+    }
+
+    @Test
+    public void testProductDataMatchesMapper() throws Exception {
+        useMapper(PRODUCT);
+        ProductData expected = ProductService.getProductData("P1");
+        useCodec(PRODUCT);
+        ProductData actual = ProductService.getProductData("P1");
+        assertSameFields(expected, actual);
+        assertEquals("Título \"quoted\"", actual.getTitle());
+        assertTrue(actual.isPriceChosen());
+        assertEquals(2, actual.getImages().size());
+        assertEquals("{key=value, count=3}", actual.getCustomInfo());
+    }
+
+    @Test
+    public void testCategoryDataMatchesMapper() throws Exception {
+        useMapper(CATEGORY);
+        CategoryData expected = ProductService.getCategoryData("C1");
+        useCodec(CATEGORY);
+        CategoryData actual = ProductService.getCategoryData("C1");
+        assertSameFields(expected, actual);
+        assertEquals(ValidityTime.MONTH, actual.getValidityTime());
+    }
+
+    @Test
+    public void testProductListMatchesMapper() throws Exception {
+        String json = "{\"totalElements\":12,\"size\":2,\"lastId\":{\"productId\":\"P2\"},\"elements\":["
+                + "{\"productId\":\"P1\",\"title\":\"One\",\"description\":\"First\"},{\"productId\":\"P2\",\"title\":\"Two\"}]}";
+        useMapper(json);
+        PagedList<ProductInfo> expected = ProductService.getProductList(2, 0);
+        useCodec(json);
+        PagedList<ProductInfo> actual = ProductService.getProductList(2, 0);
+        assertSameFields(expected.getList(), actual.getList());
+        assertEquals(12, actual.getTotalElements());
+        assertEquals("P2", actual.getLastId());
+    }
+
+    @Test
+    public void testCompanyUsersMatchMapper() throws Exception {
+        useMapper(COMPANY_USERS);
+        ElementList<CompanyUser> expected = CompanyService.getUserList(new PageRequest(0, 10));
+        useCodec(COMPANY_USERS);
+        ElementList<CompanyUser> actual = CompanyService.getUserList(new PageRequest(0, 10));
+        assertSameFields(expected.getElements(), actual.getElements());
+        assertEquals(2, actual.getTotalElements());
+        assertEquals("ACME", actual.getElements().get(0).getCompanyUserBillingAddress().getCompany());
+        assertEquals("12345", actual.getElements().get(0).getMobileNumber());
+        assertNull(actual.getElements().get(1).getBirthday());
+        assertNull(actual.getElements().get(1).getCompanyUserBillingAddress());
+    }
+
+    @Test
+    public void testCustomerAppsMatchMapper() throws Exception {
+        CustomerAppRequest request = new CustomerAppRequest("U1");
+        useMapper(APPS);
+        List<AppAccessData> expected = AppManagementService.getCustomerApps(request);
+        useCodec(APPS);
+        List<AppAccessData> actual = AppManagementService.getCustomerApps(request);
+        assertSameFields(expected, actual);
+        assertEquals("", actual.get(1).getDescription());
+    }
+
+    @Test
+    public void testLargeTransactionListMatchesMapper() throws Exception {
+        String json = buildTransactions(LARGE_PAGE_SIZE);
+        TransactionSearchRequest request = new TransactionSearchRequest(0, LARGE_PAGE_SIZE);
+        useMapper(json);
+        TransactionList expected = TransactionService.searchTransactions(request);
+        useCodec(json);
+        TransactionList actual = TransactionService.searchTransactions(request);
+        assertEquals(LARGE_PAGE_SIZE, actual.getTotalElements());
+        assertEquals(LARGE_PAGE_SIZE, actual.getElements().size());
+        assertSameFields(expected.getElements(), actual.getElements());
+    }
+
+    @Test
+    public void testReadListOfRootArray() throws Exception {
+        List<ProductInfo> products = new ArrayList<ProductInfo>();
+        Map<String, Object> envelope = new DefaultJsonCodec().readList(new StringReader(" [{\"productId\":\"P1\"}, 1, \"x\", {\"productId\":\"P2\"}] "),
+                "elements", ProductInfo.class, products::add);
+        assertTrue(envelope.isEmpty());
+        assertEquals(2, products.size());
+        assertEquals("P2", products.get(1).getProductId());
+    }
+
+    @Test
+    public void testReadListKeepsEnvelopeLikeParser() throws Exception {
+        String json = "{\"totalElements\":3,\"ratio\":0.5,\"lastId\":{\"productId\":\"P3\"},\"tags\":[\"a\",1],\"elements\":[],\"flag\":null}";
+        Map<String, Object> envelope = new DefaultJsonCodec().readList(new StringReader(json), "elements", ProductInfo.class,
+                product -> {
+                });
+        Map<String, Object> parsed = SdkUtils.parseJSONObject(new StringReader(json));
+        parsed.remove("elements");
+        assertEquals(parsed, envelope);
+        assertEquals(Arrays.asList("totalElements", "ratio", "lastId", "tags", "flag"), new ArrayList<String>(envelope.keySet()));
+    }
+
+    @Test
+    public void testLongStringsAcrossBuffers() throws Exception {
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            title.append(i % 10);
+            if (i % 1000 == 0) {
+                title.append("\\n");
+            }
+        }
+        String json = "{\"productId\":\"P1\",\"title\":\"" + title + "\"}";
+        List<ProductInfo> products = new ArrayList<ProductInfo>();
+        new DefaultJsonCodec().readList(new StringReader("[" + json + "," + json + "]"), "elements", ProductInfo.class, products::add);
+        assertEquals(2, products.size());
+        assertEquals(title.toString().replace("\\n", "\n"), products.get(1).getTitle());
+    }
+
+    @Test
+    public void testInvalidJson() {
+        String[] invalid = {"{\"productId\":}", "{\"productId\":\"P1\",}", "{\"productId\" \"P1\"}", "{\"productId\":\"P1\"} x",
+                "{\"productId\":\"P1", "{\"productId\":tru}", "{\"productId\":-}", "{\"productId\":\"\\x\"}", "[1,]"};
+        for (String json : invalid) {
+            try {
+                new DefaultJsonCodec().readList(new StringReader(json), "elements", ProductInfo.class, product -> {
+                });
+                throw new AssertionError("Accepted invalid JSON: " + json);
+            } catch (IOException e) {
+                assertFalse(e.getMessage().isEmpty());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedType() throws Exception {
+        new DefaultJsonCodec().readObject(new StringReader("{}"), String.class);
+    }
+
+    @Test
+    public void testConsumerErrorIsRethrown() throws Exception {
+        useCodec(APPS);
+        IllegalStateException error = new IllegalStateException("stop");
+        try {
+            AppManagementService.streamCustomerApps(new CustomerAppRequest("U1"), app -> {
+                throw error;
+            });
+            throw new AssertionError("The error of the consumer was swallowed");
+        } catch (IllegalStateException e) {
+            assertTrue(e == error);
+        }
+    }
+
+    @Test
+    public void testInvalidResponseIsServerError() throws Exception {
+        useCodec("{\"id\":");
+        try {
+            ProductService.getProductData("P1");
+            throw new AssertionError("Accepted an invalid response");
+        } catch (PlenigoException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    /**
+     * Makes the services read the response with the map parser and their mappers.
+     *
+     * @param json the response
+     *
+     * @throws Exception if the response could not be parsed
+     */
+    private static void useMapper(String json) throws Exception {
+        RestClient client = Mockito.mock(RestClient.class);
+        Map<String, Object> response = SdkUtils.parseJSONObject(new StringReader(json));
+        Mockito.when(client.get(anyString(), anyString(), anyString(), anyString(), anyMap())).thenReturn(response);
+        HttpConfig.get().setClient(client);
+    }
+
+    /**
+     * Makes the services read the response with the codec.
+     *
+     * @param json the response
+     */
+    private static void useCodec(String json) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        HttpConfig.get().setClient(new TransportRestClient(request -> new HttpResponse(200, null, body)));
+    }
+
+    /**
+     * Builds a transaction search response.
+     *
+     * @param size the amount of transactions
+     *
+     * @return the response
+     */
+    static String buildTransactions(int size) {
+        StringBuilder json = new StringBuilder("{\"totalElements\":").append(size).append(",\"size\":").append(size).append(",\"elements\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"transactionId\":\"T").append(i).append("\",\"customerId\":\"C").append(i % 97)
+                    .append("\",\"productId\":\"P").append(i % 13).append("\",\"title\":\"Product ").append(i % 13)
+                    .append("\",\"price\":").append(i % 50).append('.').append(i % 100)
+                    .append(",\"taxesPercentage\":\"19.0\",\"taxesAmount\":").append(i % 7).append(".25,\"taxesCountry\":\"DE\"")
+                    .append(",\"currency\":\"EUR\",\"paymentMethod\":\"CREDIT_CARD\",\"transactionDate\":\"2017-0").append(1 + i % 9)
+                    .append("-1").append(i % 10).append("T10:15:30Z\",\"status\":\"DONE\",\"billingId\":").append(1000000L + i)
+                    .append(",\"cancellationTransactionId\":null}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Verifies that two models, or lists of models, have equal fields.
+     *
+     * @param expected the expected model
+     * @param actual   the actual model
+     *
+     * @throws IllegalAccessException if a field could not be read
+     */
+    private static void assertSameFields(Object expected, Object actual) throws IllegalAccessException {
+        if (expected instanceof List && actual instanceof List) {
+            List<?> expectedList = (List<?>) expected;
+            List<?> actualList = (List<?>) actual;
+            assertEquals(expectedList.size(), actualList.size());
+            Iterator<?> actualElements = actualList.iterator();
+            for (Object expectedElement : expectedList) {
+                assertSameFields(expectedElement, actualElements.next());
+            }
+        } else if (expected != null && actual != null && expected.getClass().getPackage().getName().equals(MODELS_PACKAGE)
+                && !expected.getClass().isEnum()) {
+            assertEquals(expected.getClass(), actual.getClass());
+            for (Field field : expected.getClass().getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    assertSameFields(field.get(expected), field.get(actual));
+                }
+            }
+        } else {
+            assertEquals(expected, actual);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.plenigo.sdk.json;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.http.HttpResponse;
+import com.plenigo.sdk.internal.util.HttpConfig;
+import com.plenigo.sdk.internal.util.RestClient;
+import com.plenigo.sdk.internal.util.SdkUtils;
+import com.plenigo.sdk.internal.util.TransportRestClient;
+import com.plenigo.sdk.models.ProductData;
+import com.plenigo.sdk.models.TransactionList;
+import com.plenigo.sdk.models.TransactionSearchRequest;
+import com.plenigo.sdk.services.ProductService;
+import com.plenigo.sdk.services.TransactionService;
+import com.plenigo.sdk.util.TestUtil;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Compares the two ways the services decode a response: binding it with the {@link DefaultJsonCodec} while it is read, as done with
+ * the {@link TransportRestClient}, and parsing it into maps with json-simple and building the models with the mappers of the
+ * services, as done with any other rest client. Both decode the same response bytes through the public service calls, a transaction
+ * search page of the given size and a product.
+ * </p>
+ * <p>
+ * It is not run by the build, run its main method from the test classpath after {@code mvn test-compile}, or
+ * {@code org.openjdk.jmh.Main JsonCodecBenchmark} to pass JMH options.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+    private byte[] product;
+
+    /**
+     * Configures the SDK and builds the product response.
+     */
+    @Setup
+    public void setup() {
+        PlenigoManager.get().configure(TestUtil.SECRET, TestUtil.COMPANY_ID);
+        product = DefaultJsonCodecTest.PRODUCT.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public TransactionList transactionsWithCodec(TransactionPage page) throws PlenigoException {
+        HttpConfig.get().setClient(new TransportRestClient(httpRequest -> new HttpResponse(200, null, page.response)));
+        return TransactionService.searchTransactions(page.request);
+    }
+
+    @Benchmark
+    public TransactionList transactionsWithMappers(TransactionPage page) throws PlenigoException {
+        HttpConfig.get().setClient(new MapRestClient(page.response));
+        return TransactionService.searchTransactions(page.request);
+    }
+
+    @Benchmark
+    public ProductData productWithCodec() throws PlenigoException {
+        HttpConfig.get().setClient(new TransportRestClient(httpRequest -> new HttpResponse(200, null, product)));
+        return ProductService.getProductData("P1");
+    }
+
+    @Benchmark
+    public ProductData productWithMappers() throws PlenigoException {
+        HttpConfig.get().setClient(new MapRestClient(product));
+        return ProductService.getProductData("P1");
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the arguments are ignored
+     *
+     * @throws RunnerException if the benchmark could not be run
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JsonCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * A transaction search page of the given size.
+     */
+    @State(Scope.Benchmark)
+    public static class TransactionPage {
+        @Param({"10", "100", "1000"})
+        private int pageSize;
+
+        private byte[] response;
+        private TransactionSearchRequest request;
+
+        /**
+         * Builds the response and the request of the page.
+         */
+        @Setup
+        public void setup() {
+            response = DefaultJsonCodecTest.buildTransactions(pageSize).getBytes(StandardCharsets.UTF_8);
+            request = new TransactionSearchRequest(0, pageSize);
+        }
+    }
+
+    /**
+     * Rest client that parses a fixed response with json-simple, like the rest client of the commons library does after reading it.
+     */
+    private static final class MapRestClient extends RestClient {
+        private final byte[] response;
+
+        /**
+         * Builds the client.
+         *
+         * @param response the response of every request
+         */
+        MapRestClient(byte[] response) {
+            this.response = response;
+        }
+
+        @Override
+        public Map<String, Object> get(String url, String apiUrlKey, String path, String queryString, Map<String, String> headers)
+                throws PlenigoException {
+            try {
+                return SdkUtils.parseJSONObject(new InputStreamReader(new ByteArrayInputStream(response), StandardCharsets.UTF_8));
+            } catch (IOException | ParseException e) {
+                throw new PlenigoException("Could not parse the response", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.plenigo.sdk.models;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * <p>
+ * Tests for {@link CacheStatistics}.
+ * </p>
+ */
+public class CacheStatisticsTest {
+
+    @Test
+    public void testGetters() {
+        CacheStatistics statistics = new CacheStatistics(3, 1, 2, 10);
+        assertEquals(3, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+        assertEquals(2, statistics.getSize());
+        assertEquals(10, statistics.getMaxSize());
+        assertEquals(0.75, statistics.getHitRatio(), 0.0001);
+        assertNotNull(statistics.toString());
+    }
+
+    @Test
+    public void testHitRatioWithoutLookups() {
+        assertEquals(0, new CacheStatistics(0, 0, 0, 10).getHitRatio(), 0.0001);
+    }
+}
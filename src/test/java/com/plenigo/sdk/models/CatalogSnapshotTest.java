@@ -0,0 +1,42 @@
+package com.plenigo.sdk.models;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * <p>
+ * Tests for {@link CatalogSnapshot}.
+ * </p>
+ */
+public class CatalogSnapshotTest {
+
+    @Test
+    public void testGetters() {
+        ProductData product = new ProductData("prod", null, "title", "desc", false, null, null, null, 0, null);
+        CategoryData category = new CategoryData("cat", null, null);
+        Map<String, ProductData> products = new HashMap<String, ProductData>();
+        products.put("prod", product);
+        CatalogSnapshot snapshot = new CatalogSnapshot(products, Collections.singletonMap("cat", category), 123L);
+        products.clear();
+        assertSame(product, snapshot.getProduct("prod"));
+        assertNull(snapshot.getProduct("other"));
+        assertSame(category, snapshot.getCategory("cat"));
+        assertEquals(1, snapshot.getProducts().size());
+        assertEquals(1, snapshot.getCategories().size());
+        assertEquals(123L, snapshot.getLoadedAt());
+        assertNotNull(snapshot.toString());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testIsImmutable() {
+        new CatalogSnapshot(new HashMap<String, ProductData>(), new HashMap<String, CategoryData>(), 0L).getProducts().clear();
+    }
+}
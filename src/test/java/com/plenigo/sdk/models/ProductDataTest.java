@@ -3,10 +3,13 @@ package com.plenigo.sdk.models;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 /**
  * <p>
@@ -29,4 +32,26 @@ public class ProductDataTest {
         ProductData data = new ProductData("id", null, "title", "desc", false, null, null, null, 1, "custom text");
         assertNotNull(data.toString());
     }
+
+    @Test
+    public void testImagesAreCopied() {
+        List<Image> images = new ArrayList<Image>();
+        images.add(new Image("url", "desc", "alt"));
+        ProductData data = new ProductData("id", null, "title", "desc", false, null, null, images, 1, null);
+        images.clear();
+        assertEquals(1, data.getImages().size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImagesCannotBeModified() {
+        List<Image> images = Collections.singletonList(new Image("url", "desc", "alt"));
+        ProductData data = new ProductData("id", null, "title", "desc", false, null, null, images, 1, null);
+        data.getImages().clear();
+    }
+
+    @Test
+    public void testNullImagesAreKept() {
+        ProductData data = new ProductData("id", null, "title", "desc", false, null, null, null, 1, null);
+        assertNull(data.getImages());
+    }
 }
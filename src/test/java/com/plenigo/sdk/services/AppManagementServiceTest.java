@@ -2,16 +2,23 @@ package com.plenigo.sdk.services;
 
 import com.plenigo.sdk.PlenigoException;
 import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.http.HttpRequest;
+import com.plenigo.sdk.http.HttpResponse;
 import com.plenigo.sdk.internal.ApiResults;
+import com.plenigo.sdk.internal.ApiURLs;
 import com.plenigo.sdk.internal.util.EncryptionUtils;
 import com.plenigo.sdk.internal.util.HttpConfig;
 import com.plenigo.sdk.internal.util.RestClient;
+import com.plenigo.sdk.internal.util.TransportRestClient;
 import com.plenigo.sdk.models.AppAccessData;
 import com.plenigo.sdk.models.AppAccessToken;
 import com.plenigo.sdk.models.AppTokenRequest;
 import com.plenigo.sdk.models.CustomerAppRequest;
 import com.plenigo.sdk.models.DeleteAppIdRequest;
 import com.plenigo.sdk.models.ProductAccessRequest;
+import com.plenigo.sdk.util.TestUtil;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -26,6 +33,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.anyString;
@@ -46,6 +54,7 @@ public class AppManagementServiceTest {
         PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn("CP_ID");
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot("https://api.plenigo.com", "CP_ID", null, false));
 
     }
 
@@ -127,4 +136,24 @@ public class AppManagementServiceTest {
         Boolean hasUserBought = AppManagementService.hasUserBought(new ProductAccessRequest("customerId", "productId", "customerAppId"));
         assertTrue(hasUserBought);
     }
+
+    @Test
+    public void testGetCustomerAppsThroughTheCodec() throws Exception {
+        String json = "{\"apps\":[{\"customerId\":\"U1\",\"description\":\"Phone\",\"customerAppId\":\"A1\",\"productId\":\"P1\"},"
+                + "{\"customerId\":\"U1\",\"customerAppId\":\"A2\"}]}";
+        AtomicReference<HttpRequest> sent = new AtomicReference<HttpRequest>();
+        HttpConfig.get().setClient(new TransportRestClient(request -> {
+            sent.set(request);
+            return new HttpResponse(200, null, json.getBytes(StandardCharsets.UTF_8));
+        }));
+        List<AppAccessData> apps = AppManagementService.getCustomerApps(new CustomerAppRequest("U1"));
+        assertEquals("GET", sent.get().getMethod());
+        assertEquals(ApiURLs.ACCESS_APP_CUSTOMER, sent.get().getEndpoint());
+        assertTrue(sent.get().getUrl().startsWith("https://api.plenigo.com" + String.format(ApiURLs.ACCESS_APP_CUSTOMER, "U1")));
+        assertEquals(2, apps.size());
+        assertEquals("Phone", apps.get(0).getDescription());
+        assertEquals("A1", apps.get(0).getCustomerAppId());
+        assertEquals("P1", apps.get(0).getProductId());
+        assertEquals("A2", apps.get(1).getCustomerAppId());
+    }
 }
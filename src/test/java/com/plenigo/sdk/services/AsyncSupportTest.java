@@ -0,0 +1,175 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.http.Deadline;
+import com.plenigo.sdk.http.RequestPriority;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests for {@link AsyncSupport}.
+ * </p>
+ */
+public class AsyncSupportTest {
+
+    @After
+    public void tearDown() {
+        PlenigoManager.get().configureExecutor(null);
+    }
+
+    @Test
+    public void testSupplyWithDefaultExecutor() throws Exception {
+        CompletableFuture<String> future = AsyncSupport.supply(() -> Thread.currentThread().getName());
+        assertTrue(future.get(10, TimeUnit.SECONDS).startsWith("plenigo-async-"));
+    }
+
+    @Test
+    public void testSupplyWithConfiguredExecutor() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        Executor executor = command -> {
+            executions.incrementAndGet();
+            command.run();
+        };
+        PlenigoManager.get().configureExecutor(executor);
+        assertSame(executor, AsyncSupport.getExecutor());
+        assertEquals("result", AsyncSupport.supply(() -> "result").get());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    public void testSupplyRunsWithThePriorityOfTheCaller() throws Exception {
+        CompletableFuture<RequestPriority> future = RequestPriority.BATCH.call(() -> AsyncSupport.supply(RequestPriority::current));
+        assertEquals(RequestPriority.BATCH, future.get(10, TimeUnit.SECONDS));
+        assertEquals(RequestPriority.INTERACTIVE, AsyncSupport.supply(RequestPriority::current).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancelInterruptsTheCall() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicReference<Deadline> deadline = new AtomicReference<Deadline>();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        CompletableFuture<String> future = AsyncSupport.supply(() -> {
+            deadline.set(Deadline.current());
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            finished.countDown();
+            return "late";
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        assertTrue(future.cancel(true));
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertTrue(interrupted.get());
+        assertTrue(deadline.get().isCancelled());
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    public void testSupplyRunsWithTheDeadlineOfTheCaller() throws Exception {
+        Deadline deadline = Deadline.after(10, TimeUnit.SECONDS);
+        CompletableFuture<Long> remaining = deadline.call(() -> AsyncSupport.supply(() -> Deadline.current().getRemaining(TimeUnit.SECONDS)));
+        long seconds = remaining.get(10, TimeUnit.SECONDS);
+        assertTrue(seconds > 0 && seconds <= 10);
+        assertEquals(Long.MAX_VALUE, (long) AsyncSupport.supply(() -> Deadline.current().getRemaining(TimeUnit.SECONDS)).get());
+    }
+
+    @Test
+    public void testSupplyCompletesExceptionally() throws Exception {
+        PlenigoException exception = new PlenigoException("error", (Throwable) null);
+        CompletableFuture<String> future = AsyncSupport.supply(() -> {
+            throw exception;
+        });
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("The future should have completed exceptionally");
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+
+    @Test
+    public void testSupplyRejected() throws Exception {
+        PlenigoManager.get().configureExecutor(command -> {
+            throw new RejectedExecutionException("full");
+        });
+        CompletableFuture<String> future = AsyncSupport.supply(() -> "result");
+        assertTrue(future.isCompletedExceptionally());
+        try {
+            future.get();
+            fail("The future should have completed exceptionally");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof PlenigoException);
+        }
+    }
+
+    @Test
+    public void testInvokeAllKeepsTheOrderAndBoundsTheParallelism() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Integer> inputs = new ArrayList<Integer>();
+        for (int i = 0; i < 50; i++) {
+            inputs.add(i);
+        }
+        List<String> results = AsyncSupport.invokeAll(inputs, 3, input -> {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            return "value" + input;
+        });
+        assertEquals(50, results.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("value" + i, results.get(i));
+        }
+        assertTrue(maxInFlight.get() <= 3);
+    }
+
+    @Test
+    public void testInvokeAllStopsAfterAFailure() throws Exception {
+        PlenigoManager.get().configureExecutor(Runnable::run);
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            AsyncSupport.invokeAll(Arrays.asList(1, 2, 3, 4), 1, input -> {
+                calls.incrementAndGet();
+                if (input == 2) {
+                    throw new PlenigoException("404", "not found");
+                }
+                return input;
+            });
+            fail("The failure should have been thrown");
+        } catch (PlenigoException e) {
+            assertEquals("404", e.getResponseCode());
+        }
+        assertEquals(2, calls.get());
+    }
+}
@@ -0,0 +1,164 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.internal.ApiResults;
+import com.plenigo.sdk.internal.ApiURLs;
+import com.plenigo.sdk.internal.util.EncryptionUtils;
+import com.plenigo.sdk.internal.util.HttpConfig;
+import com.plenigo.sdk.internal.util.RestClient;
+import com.plenigo.sdk.models.CatalogSnapshot;
+import com.plenigo.sdk.util.TestUtil;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.support.SuppressCode.suppressConstructor;
+
+/**
+ * Tests for {@link CatalogSnapshotLoader}.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({EncryptionUtils.class, PlenigoManager.class, RestClient.class})
+public class CatalogSnapshotLoaderTest {
+    private static final int PRODUCTS = 250;
+    private static final int CATEGORIES = 3;
+
+    @Test
+    public void testRefreshLoadsAllPages() throws Exception {
+        mockPlenigoManager();
+        FakeApi api = new FakeApi(null);
+        CatalogSnapshotLoader loader = new CatalogSnapshotLoader(4);
+        assertTrue(loader.getSnapshot().getProducts().isEmpty());
+        CatalogSnapshot snapshot = loader.refresh();
+        assertSame(snapshot, loader.getSnapshot());
+        assertEquals(PRODUCTS, snapshot.getProducts().size());
+        assertEquals(CATEGORIES, snapshot.getCategories().size());
+        assertEquals("prod249", snapshot.getProduct("prod249").getId());
+        assertEquals("cat2", snapshot.getCategory("cat2").getId());
+        assertEquals("3 product pages and 1 category page", 4, api.listCalls);
+        assertTrue(snapshot.getLoadedAt() > 0);
+    }
+
+    @Test
+    public void testFailedRefreshKeepsThePreviousSnapshot() throws Exception {
+        mockPlenigoManager();
+        FakeApi api = new FakeApi(null);
+        CatalogSnapshotLoader loader = new CatalogSnapshotLoader();
+        CatalogSnapshot snapshot = loader.refresh();
+        api.failingProductId = "prod7";
+        try {
+            loader.refresh();
+            fail("The refresh should have failed");
+        } catch (PlenigoException e) {
+            assertEquals("500", e.getResponseCode());
+        }
+        assertSame(snapshot, loader.getSnapshot());
+    }
+
+    @Test
+    public void testPeriodicRefresh() throws Exception {
+        mockPlenigoManager();
+        new FakeApi("prod1");
+        CatalogSnapshotLoader loader = new CatalogSnapshotLoader();
+        loader.start(TimeUnit.HOURS.toMillis(1));
+        try {
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (loader.getFailedRefreshCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, loader.getFailedRefreshCount());
+            assertNotNull(loader.getSnapshot());
+        } finally {
+            loader.stop();
+        }
+    }
+
+    private void mockPlenigoManager() {
+        suppressConstructor(PlenigoManager.class);
+        mockStatic(PlenigoManager.class);
+        PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
+        PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
+        PowerMockito.when(mockedMgr.getExecutor()).thenReturn(Runnable::run);
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, null, null, false));
+    }
+
+    /**
+     * Answers the list and detail calls of a catalog of {@link #PRODUCTS} products and {@link #CATEGORIES} categories.
+     */
+    private static final class FakeApi implements Answer<Map<String, Object>> {
+        private volatile String failingProductId;
+        private int listCalls;
+
+        FakeApi(String failingProductId) throws PlenigoException {
+            this.failingProductId = failingProductId;
+            RestClient client = Mockito.mock(RestClient.class);
+            Mockito.when(client.get(anyString(), anyString(), anyString(), anyString(), anyMap())).thenAnswer(this);
+            HttpConfig.get().setClient(client);
+        }
+
+        @Override
+        public Map<String, Object> answer(InvocationOnMock invocation) throws Throwable {
+            String apiUrlKey = (String) invocation.getArguments()[1];
+            String path = (String) invocation.getArguments()[2];
+            String query = (String) invocation.getArguments()[3];
+            Map<String, Object> result = new HashMap<String, Object>();
+            if (ApiURLs.LIST_PRODUCTS.equals(apiUrlKey)) {
+                listCalls++;
+                return page(getPage(query), PRODUCTS, "prod", ApiResults.PROD_ID);
+            } else if (ApiURLs.LIST_CATEGORIES.equals(apiUrlKey)) {
+                listCalls++;
+                return page(getPage(query), CATEGORIES, "cat", ApiResults.CATEGORY_ID);
+            }
+            String id = path.substring(path.lastIndexOf('/') + 1);
+            if (id.equals(failingProductId)) {
+                throw new PlenigoException("500", "server error");
+            }
+            result.put(ApiResults.ID, id);
+            return result;
+        }
+
+        private static int getPage(String query) {
+            for (String param : query.split("&")) {
+                if (param.startsWith("page=")) {
+                    return Integer.parseInt(param.substring("page=".length()));
+                }
+            }
+            return 0;
+        }
+
+        private static Map<String, Object> page(int page, int total, String prefix, String idKey) {
+            List<Map<String, String>> elements = new ArrayList<Map<String, String>>();
+            for (int i = page * CatalogSnapshotLoader.PAGE_SIZE; i < Math.min(total, (page + 1) * CatalogSnapshotLoader.PAGE_SIZE); i++) {
+                Map<String, String> element = new HashMap<String, String>();
+                element.put(idKey, prefix + i);
+                element.put(ApiResults.TITLE, "title" + i);
+                elements.add(element);
+            }
+            Map<String, Object> map = new HashMap<String, Object>();
+            map.put(ApiResults.TOTAL_ELEMENTS, total);
+            map.put(ApiResults.PAGE_SIZE, CatalogSnapshotLoader.PAGE_SIZE);
+            map.put(ApiResults.ELEMENTS, elements);
+            return map;
+        }
+    }
+}
@@ -2,12 +2,21 @@ package com.plenigo.sdk.services;
 
 import com.plenigo.sdk.PlenigoException;
 import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.http.HttpRequest;
+import com.plenigo.sdk.http.HttpResponse;
+import com.plenigo.sdk.internal.ApiResults;
+import com.plenigo.sdk.internal.ApiURLs;
 import com.plenigo.sdk.internal.util.EncryptionUtils;
 import com.plenigo.sdk.internal.util.HttpConfig;
 import com.plenigo.sdk.internal.util.RestClient;
+import com.plenigo.sdk.internal.util.TransportRestClient;
 import com.plenigo.sdk.models.CompanyUser;
 import com.plenigo.sdk.models.ElementList;
 import com.plenigo.sdk.models.PageRequest;
+import com.plenigo.sdk.util.TestUtil;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -18,13 +27,16 @@ import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.contains;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.support.SuppressCode.suppressConstructor;
 
@@ -42,7 +54,7 @@ public class CompanyServiceTest {
         PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn("CP_ID");
-
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot("https://api.plenigo.com", "CP_ID", null, false));
     }
 
     @Test
@@ -74,4 +86,78 @@ public class CompanyServiceTest {
         List<CompanyUser> list = CompanyService.getUserList(Collections.singletonList("userId"));
         assertNotNull(list);
     }
+
+    @Test
+    public void testIterateUserList() throws Exception {
+        RestClient client = Mockito.mock(RestClient.class);
+        Mockito.when(client.get(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), contains("page=0"), Mockito.anyMap()))
+                .thenReturn(buildUserPage(13, 0, 10));
+        Mockito.when(client.get(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), contains("page=1"), Mockito.anyMap()))
+                .thenReturn(buildUserPage(13, 10, 13));
+        HttpConfig.get().setClient(client);
+        List<String> customerIds = new ArrayList<String>();
+        for (CompanyUser user : CompanyService.iterateUserList(new PageRequest(0, 10))) {
+            customerIds.add(user.getCustomerId());
+        }
+        assertEquals(13, customerIds.size());
+        assertEquals("12", customerIds.get(12));
+        Mockito.verify(client, Mockito.times(2)).get(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString(),
+                Mockito.anyMap());
+    }
+
+    private Map<String, Object> buildUserPage(long totalElements, int fromCustomerId, int toCustomerId) {
+        List<Map<String, Object>> users = new ArrayList<Map<String, Object>>();
+        for (int customerId = fromCustomerId; customerId < toCustomerId; customerId++) {
+            Map<String, Object> user = new HashMap<String, Object>();
+            user.put(ApiResults.CUST_ID, String.valueOf(customerId));
+            users.add(user);
+        }
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put(ApiResults.TOTAL_ELEMENTS, totalElements);
+        map.put(ApiResults.ELEMENTS, users);
+        return map;
+    }
+
+    @Test
+    public void testForEachUser() throws Exception {
+        RestClient client = Mockito.mock(RestClient.class);
+        Mockito.when(client.get(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), contains("page=0"), Mockito.anyMap()))
+                .thenReturn(buildUserPage(25, 0, 10));
+        Mockito.when(client.get(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), contains("page=1"), Mockito.anyMap()))
+                .thenReturn(buildUserPage(25, 10, 20));
+        Mockito.when(client.get(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), contains("page=2"), Mockito.anyMap()))
+                .thenReturn(buildUserPage(25, 20, 25));
+        HttpConfig.get().setClient(client);
+        List<String> customerIds = new ArrayList<String>();
+        long count = CompanyService.forEachUser(new PageRequest(0, 10), 2, true, user -> customerIds.add(user.getCustomerId()));
+        assertEquals(25, count);
+        for (int i = 0; i < customerIds.size(); i++) {
+            assertEquals(String.valueOf(i), customerIds.get(i));
+        }
+        Mockito.verify(client, Mockito.times(3)).get(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString(),
+                Mockito.anyMap());
+    }
+
+    @Test
+    public void testGetUserListByIdsThroughTheCodec() throws Exception {
+        String json = "{\"elements\":[{\"customerId\":\"U1\",\"email\":\"a@b.c\",\"firstName\":\"Ann\",\"name\":\"Smith\","
+                + "\"birthday\":\"1990-05-17 00:00:00 +0200\",\"billingAddresses\":[{\"company\":\"ACME\"}]},{\"customerId\":\"U2\"}]}";
+        AtomicReference<HttpRequest> sent = new AtomicReference<HttpRequest>();
+        HttpConfig.get().setClient(new TransportRestClient(request -> {
+            sent.set(request);
+            return new HttpResponse(200, null, json.getBytes(StandardCharsets.UTF_8));
+        }));
+        List<CompanyUser> users = CompanyService.getUserList(Arrays.asList("U1", "U2"));
+        assertEquals("GET", sent.get().getMethod());
+        assertEquals(ApiURLs.COMPANY_USERS_SELECT, sent.get().getEndpoint());
+        assertTrue(sent.get().getUrl().startsWith("https://api.plenigo.com" + ApiURLs.COMPANY_USERS_SELECT + "?"));
+        assertTrue(sent.get().getUrl().contains("userIds=U1"));
+        assertEquals(2, users.size());
+        assertEquals("U1", users.get(0).getCustomerId());
+        assertEquals("a@b.c", users.get(0).getEmail());
+        assertEquals("Smith", users.get(0).getName());
+        assertNotNull(users.get(0).getBirthday());
+        assertEquals("ACME", users.get(0).getCompanyUserBillingAddress().getCompany());
+        assertEquals("U2", users.get(1).getCustomerId());
+    }
 }
@@ -1,6 +1,8 @@
 package com.plenigo.sdk.services;
 
 import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.internal.cache.CookieCache;
+import com.plenigo.sdk.internal.models.ConfigurationSnapshot;
 import com.plenigo.sdk.internal.util.CookieParser;
 import com.plenigo.sdk.internal.util.EncryptionUtils;
 import com.plenigo.sdk.internal.util.HashUtils;
@@ -18,6 +20,8 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.support.SuppressCode.suppressConstructor;
@@ -49,6 +53,7 @@ public class MeterServiceTest {
         PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn(TestUtil.COMPANY_ID);
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, TestUtil.COMPANY_ID, TestUtil.SECRET, false));
         PowerMockito.when(mockedMgr.getSecret()).thenReturn(TestUtil.SECRET);
         assertTrue(MeterService.hasFreeViews(cookie, ""));
     }
@@ -65,6 +70,7 @@ public class MeterServiceTest {
         PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn(TestUtil.COMPANY_ID);
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, TestUtil.COMPANY_ID, TestUtil.SECRET, false));
         PowerMockito.when(mockedMgr.getSecret()).thenReturn(TestUtil.SECRET);
         assertTrue(MeterService.hasFreeViews(cookie, ""));
     }
@@ -81,6 +87,7 @@ public class MeterServiceTest {
         PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn(TestUtil.COMPANY_ID);
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, TestUtil.COMPANY_ID, TestUtil.SECRET, false));
         PowerMockito.when(mockedMgr.getSecret()).thenReturn(TestUtil.SECRET);
         assertTrue(MeterService.hasFreeViews(cookie, ""));
     }
@@ -97,6 +104,7 @@ public class MeterServiceTest {
         PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn(TestUtil.COMPANY_ID);
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, TestUtil.COMPANY_ID, TestUtil.SECRET, false));
         PowerMockito.when(mockedMgr.getSecret()).thenReturn(TestUtil.SECRET);
         assertTrue(MeterService.hasFreeViews(cookie, ""));
     }
@@ -113,6 +121,7 @@ public class MeterServiceTest {
         PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn(TestUtil.COMPANY_ID);
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, TestUtil.COMPANY_ID, TestUtil.SECRET, false));
         assertTrue(MeterService.hasFreeViews("", ""));
     }
 
@@ -124,6 +133,7 @@ public class MeterServiceTest {
         PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn(TestUtil.COMPANY_ID);
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, TestUtil.COMPANY_ID, TestUtil.SECRET, false));
         assertTrue(MeterService.hasFreeViews("asdasdasd", ""));
     }
 
@@ -135,6 +145,25 @@ public class MeterServiceTest {
         PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn(TestUtil.COMPANY_ID);
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, TestUtil.COMPANY_ID, TestUtil.SECRET, false));
         assertTrue(MeterService.hasFreeViews("plenigo_view=aefaef", ""));
     }
+
+    @Test
+    public void testDataDecodedWithAReplacedConfigurationIsNotReturned() throws Exception {
+        long currentTimeMillis = System.currentTimeMillis();
+        String cookieValue = "browserId|true|2|2|false|1,2,3,4,5|6|7|8|9|123|100|" + currentTimeMillis + "|DAY|false|" + currentTimeMillis + "|etc";
+        String encodedData = EncryptionUtils.get().encryptWithAES(TestUtil.COMPANY_ID, cookieValue, MeterService.METERED_INIT_VECTOR);
+        CookieCache cookieCache = new CookieCache(10);
+        suppressConstructor(PlenigoManager.class);
+        mockStatic(PlenigoManager.class);
+        PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
+        PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
+        PowerMockito.when(mockedMgr.getCookieCache()).thenReturn(cookieCache);
+        ConfigurationSnapshot decoding = TestUtil.snapshot(null, TestUtil.COMPANY_ID, TestUtil.SECRET, false);
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(decoding);
+        assertNotNull(MeterService.getMeteredUserDataFromCookieValue(encodedData));
+        assertNotNull(cookieCache.getMeteredUserData(decoding, encodedData));
+        assertNull(cookieCache.getMeteredUserData(TestUtil.snapshot(null, "OTHER_ID", TestUtil.SECRET, false), encodedData));
+    }
 }
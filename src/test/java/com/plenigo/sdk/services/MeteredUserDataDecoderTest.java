@@ -0,0 +1,78 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.internal.models.MeteredUserData;
+import com.plenigo.sdk.models.TimePeriod;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * Tests for {@link MeteredUserDataDecoder}.
+ * </p>
+ */
+public class MeteredUserDataDecoderTest {
+
+    @Test
+    public void testDecodeAllFields() throws PlenigoException {
+        MeteredUserData data = MeteredUserDataDecoder.decode("browserId|true|20|5|false|1,2,,3|6|7|8|9|10|TRUE|1400000000000|WEEK |false|1400000000001|etc|more");
+        assertTrue(data.isMeteredViewActivated());
+        assertEquals(Long.valueOf(20), data.getFreeViewsAllowed());
+        assertEquals(Long.valueOf(5), data.getViewsTaken());
+        assertFalse(data.isLimitReached());
+        assertEquals(new HashSet<String>(Arrays.asList("1", "2", "3")), data.getUniqueVisitedSites());
+        assertEquals(Long.valueOf(9), data.getLoginFreeViewsAllowed());
+        assertEquals(Long.valueOf(10), data.getLoginFreeViewsTaken());
+        assertTrue(data.isLoginLimitReached());
+        assertEquals(1400000000000L, data.getStartTime());
+        assertEquals(TimePeriod.WEEK, data.getMeteredPeriod());
+        assertFalse(data.getStartWithFirstDay());
+        assertEquals(1400000000001L, data.getCookieCreationTime());
+    }
+
+    @Test
+    public void testDecodeMissingFields() throws PlenigoException {
+        MeteredUserData data = MeteredUserDataDecoder.decode("browserId|true||-3");
+        assertTrue(data.isMeteredViewActivated());
+        assertNull(data.getFreeViewsAllowed());
+        assertEquals(Long.valueOf(-3), data.getViewsTaken());
+        assertNull(data.isLimitReached());
+        assertNull(data.getLoginFreeViewsAllowed());
+        assertTrue(data.getUniqueVisitedSites().isEmpty());
+        assertEquals(TimePeriod.DAY, data.getMeteredPeriod());
+        assertTrue(data.getStartWithFirstDay());
+        assertEquals(0L, data.getCookieCreationTime());
+    }
+
+    @Test
+    public void testDecodeMissingViewsTaken() throws PlenigoException {
+        MeteredUserData data = MeteredUserDataDecoder.decode("browserId|true|2||false");
+        assertEquals(Long.valueOf(2), data.getFreeViewsAllowed());
+        assertNull(data.getViewsTaken());
+        assertFalse(data.isLimitReached());
+    }
+
+    @Test
+    public void testDecodeTooFewFields() throws PlenigoException {
+        assertNull(MeteredUserDataDecoder.decode("browserId"));
+        assertNull(MeteredUserDataDecoder.decode("browserId||"));
+        assertNull(MeteredUserDataDecoder.decode(""));
+    }
+
+    @Test(expected = PlenigoException.class)
+    public void testDecodeInvalidNumber() throws PlenigoException {
+        MeteredUserDataDecoder.decode("browserId|true|2a|1");
+    }
+
+    @Test(expected = PlenigoException.class)
+    public void testDecodeNumberOverflow() throws PlenigoException {
+        MeteredUserDataDecoder.decode("browserId|true|1|1|false||||||||99999999999999999999");
+    }
+}
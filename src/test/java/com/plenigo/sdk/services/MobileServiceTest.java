@@ -7,6 +7,7 @@ import com.plenigo.sdk.internal.util.EncryptionUtils;
 import com.plenigo.sdk.internal.util.HttpConfig;
 import com.plenigo.sdk.internal.util.RestClient;
 import com.plenigo.sdk.models.MobileSecretInfo;
+import com.plenigo.sdk.util.TestUtil;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -40,6 +41,7 @@ public class MobileServiceTest {
         PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn("CP_ID");
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, "CP_ID", null, false));
 
     }
 
@@ -0,0 +1,122 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.PlenigoManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests for {@link PageFanOut}.
+ * </p>
+ */
+public class PageFanOutTest {
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newCachedThreadPool();
+        PlenigoManager.get().configureExecutor(executor);
+    }
+
+    @After
+    public void tearDown() {
+        PlenigoManager.get().configureExecutor(null);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConsumesInPageOrder() throws Exception {
+        CountDownLatch lastPageLoaded = new CountDownLatch(1);
+        List<Integer> elements = new ArrayList<Integer>();
+        long consumed = PageFanOut.consume(0, 3, 3, true, page -> {
+            if (page == 0) {
+                await(lastPageLoaded);
+            } else if (page == 2) {
+                lastPageLoaded.countDown();
+            }
+            return Arrays.asList(page * 2, page * 2 + 1);
+        }, elements::add);
+        assertEquals(6, consumed);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), elements);
+    }
+
+    @Test
+    public void testConsumesUnorderedAsPagesArrive() throws Exception {
+        CountDownLatch lastPageConsumed = new CountDownLatch(1);
+        List<Integer> elements = new ArrayList<Integer>();
+        PageFanOut.consume(0, 3, 3, false, page -> {
+            if (page != 2) {
+                await(lastPageConsumed);
+            }
+            return Arrays.asList(page);
+        }, element -> {
+            elements.add(element);
+            lastPageConsumed.countDown();
+        });
+        assertEquals(3, elements.size());
+        assertEquals(Integer.valueOf(2), elements.get(0));
+    }
+
+    @Test
+    public void testParallelismIsBounded() throws Exception {
+        AtomicInteger loading = new AtomicInteger();
+        AtomicInteger maxLoading = new AtomicInteger();
+        long consumed = PageFanOut.consume(5, 25, 3, true, page -> {
+            maxLoading.accumulateAndGet(loading.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            loading.decrementAndGet();
+            return Arrays.asList(page);
+        }, element -> {
+        });
+        assertEquals(20, consumed);
+        assertTrue(maxLoading.get() <= 3);
+    }
+
+    @Test
+    public void testFailedPageStopsTheFanOut() throws Exception {
+        PlenigoException exception = new PlenigoException("error", (Throwable) null);
+        AtomicInteger loadedPages = new AtomicInteger();
+        try {
+            PageFanOut.consume(0, 100, 2, false, page -> {
+                loadedPages.incrementAndGet();
+                if (page == 3) {
+                    throw exception;
+                }
+                return Arrays.asList(page);
+            }, element -> {
+            });
+            fail("the exception of the failed page should have been thrown");
+        } catch (PlenigoException e) {
+            assertSame(exception, e);
+        }
+        assertTrue(loadedPages.get() < 100);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.UncheckedPlenigoException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests for {@link PageIterable}.
+ * </p>
+ */
+public class PageIterableTest {
+    private static final int PAGE_SIZE = 3;
+
+    private final Queue<Runnable> tasks = new LinkedList<Runnable>();
+    private final List<Integer> loadedPages = new ArrayList<Integer>();
+
+    @Before
+    public void setup() {
+        PlenigoManager.get().configureExecutor(tasks::add);
+    }
+
+    @After
+    public void tearDown() {
+        PlenigoManager.get().configureExecutor(null);
+    }
+
+    @Test
+    public void testIteratesAllPagesUntilTotalElements() {
+        PageIterable<Integer> iterable = new PageIterable<Integer>(PAGE_SIZE, 0, page -> load(page, 7));
+        List<Integer> elements = new ArrayList<Integer>();
+        for (Integer element : iterable) {
+            runTasks();
+            elements.add(element);
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6), elements);
+        assertEquals(Arrays.asList(0, 1, 2), loadedPages);
+    }
+
+    @Test
+    public void testNothingIsLoadedUntilIterationStarts() {
+        PageIterable<Integer> iterable = new PageIterable<Integer>(PAGE_SIZE, 0, page -> load(page, 7));
+        Iterator<Integer> iterator = iterable.iterator();
+        assertTrue(loadedPages.isEmpty());
+        assertTrue(iterator.hasNext());
+        assertEquals(Collections.singletonList(0), loadedPages);
+    }
+
+    @Test
+    public void testNextPageIsPrefetchedOnlyOnce() {
+        PageIterable<Integer> iterable = new PageIterable<Integer>(PAGE_SIZE, 0, page -> load(page, 100));
+        Iterator<Integer> iterator = iterable.iterator();
+        assertEquals(Integer.valueOf(0), iterator.next());
+        assertEquals(1, tasks.size());
+        assertEquals(Integer.valueOf(1), iterator.next());
+        assertEquals(Integer.valueOf(2), iterator.next());
+        //the current page and the prefetched one, nothing else has been requested
+        assertEquals(1, tasks.size());
+        runTasks();
+        assertEquals(Arrays.asList(0, 1), loadedPages);
+        assertEquals(Integer.valueOf(3), iterator.next());
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    public void testStopsOnEmptyPage() {
+        PageIterable<Integer> iterable = new PageIterable<Integer>(PAGE_SIZE, 0, page -> {
+            loadedPages.add(page);
+            if (page == 0) {
+                return new PageIterable.Page<Integer>(Arrays.asList(1, 2, 3), 10);
+            }
+            return new PageIterable.Page<Integer>(null, 10);
+        });
+        List<Integer> elements = new ArrayList<Integer>();
+        for (Integer element : iterable) {
+            runTasks();
+            elements.add(element);
+        }
+        assertEquals(Arrays.asList(1, 2, 3), elements);
+        assertEquals(Arrays.asList(0, 1), loadedPages);
+    }
+
+    @Test
+    public void testStartsWithFirstPage() {
+        PageIterable<Integer> iterable = new PageIterable<Integer>(PAGE_SIZE, 1, page -> load(page, 5));
+        List<Integer> elements = new ArrayList<Integer>();
+        for (Integer element : iterable) {
+            runTasks();
+            elements.add(element);
+        }
+        assertEquals(Arrays.asList(3, 4), elements);
+        assertEquals(Collections.singletonList(1), loadedPages);
+    }
+
+    @Test
+    public void testStream() {
+        PageIterable<Integer> iterable = new PageIterable<Integer>(PAGE_SIZE, 0, page -> load(page, 8));
+        PlenigoManager.get().configureExecutor(Runnable::run);
+        assertEquals(Arrays.asList(0, 2, 4, 6), iterable.stream().filter(element -> element % 2 == 0).collect(Collectors.toList()));
+        //every stream starts a new iteration
+        assertEquals(8, iterable.stream().count());
+    }
+
+    @Test
+    public void testClosingStreamDiscardsPrefetchedPage() {
+        PageIterable<Integer> iterable = new PageIterable<Integer>(PAGE_SIZE, 0, page -> load(page, 100));
+        try (Stream<Integer> stream = iterable.stream()) {
+            assertEquals(Arrays.asList(0, 1), stream.limit(2).collect(Collectors.toList()));
+        }
+        runTasks();
+        assertEquals(Collections.singletonList(0), loadedPages);
+    }
+
+    @Test
+    public void testErrorIsWrapped() {
+        PlenigoException exception = new PlenigoException("error", (Throwable) null);
+        PageIterable<Integer> iterable = new PageIterable<Integer>(PAGE_SIZE, 0, page -> {
+            if (page > 0) {
+                throw exception;
+            }
+            return load(page, 100);
+        });
+        PageIterable.PageIterator<Integer> iterator = iterable.iterator();
+        PlenigoManager.get().configureExecutor(Runnable::run);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            iterator.next();
+        }
+        try {
+            iterator.hasNext();
+            fail("the error of the page should have been thrown");
+        } catch (UncheckedPlenigoException e) {
+            assertSame(exception, e.getCause());
+        }
+        assertFalse(iterator.hasNext());
+        try {
+            iterator.next();
+            fail("there should be no more elements");
+        } catch (NoSuchElementException e) {
+            assertEquals(Collections.singletonList(0), loadedPages);
+        }
+    }
+
+    private PageIterable.Page<Integer> load(int page, int total) {
+        loadedPages.add(page);
+        List<Integer> elements = new ArrayList<Integer>();
+        for (int i = page * PAGE_SIZE; i < Math.min(total, (page + 1) * PAGE_SIZE); i++) {
+            elements.add(i);
+        }
+        return new PageIterable.Page<Integer>(elements, total);
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+}
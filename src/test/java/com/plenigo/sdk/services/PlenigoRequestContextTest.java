@@ -0,0 +1,139 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.internal.ApiURLs;
+import com.plenigo.sdk.internal.cache.CookieCache;
+import com.plenigo.sdk.internal.models.Customer;
+import com.plenigo.sdk.internal.util.CookieParser;
+import com.plenigo.sdk.internal.util.EncryptionUtils;
+import com.plenigo.sdk.internal.util.HttpConfig;
+import com.plenigo.sdk.internal.util.RestClient;
+import com.plenigo.sdk.util.TestUtil;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.support.SuppressCode.suppressConstructor;
+
+/**
+ * Tests for {@link PlenigoRequestContext}.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({EncryptionUtils.class, PlenigoManager.class})
+@PowerMockIgnore({"javax.crypto.*"})
+public class PlenigoRequestContextTest {
+    private static final String COOKIE_HEADER = "JSESSIONID=D7E0A06D30AC326AFD32841DF975226A; "
+            + CookieParser.PLENIGO_USER_COOKIE_NAME + "=userCookie; " + CookieParser.PLENIGO_METERED_VIEW_COOKIE_NAME + "=viewCookie";
+
+    @Test
+    public void testCookiesAreDecryptedOnlyOnce() throws Exception {
+        EncryptionUtils encryptionUtils = mockEncryptionUtils();
+        mockPlenigoManager();
+        RestClient client = Mockito.mock(RestClient.class);
+        Mockito.when(client.get(anyString(), anyString(), eq(ApiURLs.USER_PRODUCT_ACCESS), anyString(), anyMap()))
+                .thenReturn(Collections.<String, Object>emptyMap());
+        HttpConfig.get().setClient(client);
+
+        PlenigoRequestContext context = new PlenigoRequestContext(COOKIE_HEADER, "");
+        assertTrue(context.hasFreeViews());
+        assertTrue(context.isLoggedIn());
+        assertTrue(context.hasUserBought("SAMPLE_PROD"));
+        Customer customer = context.getCustomer();
+        assertNotNull(customer);
+        assertEquals("1234", customer.getCustomerId());
+        assertNotNull(context.getMeteredUserData());
+
+        Mockito.verify(encryptionUtils, Mockito.times(1)).decryptWithAES(anyString(), anyString());
+        Mockito.verify(encryptionUtils, Mockito.times(1)).decryptWithAES(anyString(), anyString(), any(byte[].class));
+    }
+
+    @Test
+    public void testCookieCacheAvoidsDecryption() throws Exception {
+        EncryptionUtils encryptionUtils = mockEncryptionUtils();
+        PlenigoManager mockedMgr = mockPlenigoManager();
+        CookieCache cookieCache = new CookieCache(10);
+        PowerMockito.when(mockedMgr.getCookieCache()).thenReturn(cookieCache);
+
+        for (int i = 0; i < 3; i++) {
+            PlenigoRequestContext context = new PlenigoRequestContext(COOKIE_HEADER, "");
+            assertEquals("1234", context.getCustomer().getCustomerId());
+            assertNotNull(context.getMeteredUserData());
+            assertTrue(context.hasFreeViews());
+        }
+
+        Mockito.verify(encryptionUtils, Mockito.times(1)).decryptWithAES(anyString(), anyString());
+        Mockito.verify(encryptionUtils, Mockito.times(1)).decryptWithAES(anyString(), anyString(), any(byte[].class));
+        assertEquals(4, cookieCache.getStatistics().getHitCount());
+        assertEquals(2, cookieCache.getStatistics().getMissCount());
+    }
+
+    @Test
+    public void testCachedCustomerStillExpires() throws Exception {
+        PlenigoManager mockedMgr = mockPlenigoManager();
+        CookieCache cookieCache = new CookieCache(10);
+        cookieCache.putCustomer(mockedMgr.getSnapshot(), "userCookie", new Customer("1234", 0L));
+        PowerMockito.when(mockedMgr.getCookieCache()).thenReturn(cookieCache);
+        PlenigoRequestContext context = new PlenigoRequestContext(COOKIE_HEADER, "");
+        assertTrue(context.isLoggedIn());
+        assertFalse(context.hasUserBought("SAMPLE_PROD"));
+    }
+
+    @Test
+    public void testWithoutCookies() throws Exception {
+        EncryptionUtils encryptionUtils = mockEncryptionUtils();
+        mockPlenigoManager();
+        PlenigoRequestContext context = new PlenigoRequestContext(null, null);
+        assertFalse(context.isLoggedIn());
+        assertNull(context.getCustomer());
+        assertNull(context.getMeteredUserData());
+        assertTrue(context.hasFreeViews());
+        assertFalse(context.hasUserBought("SAMPLE_PROD"));
+        Mockito.verifyZeroInteractions(encryptionUtils);
+    }
+
+    @Test
+    public void testLimitReachedByUrlParam() throws Exception {
+        mockPlenigoManager();
+        PlenigoRequestContext context = new PlenigoRequestContext("", MeterService.METERED_LIMIT_REACHED + "=true");
+        assertFalse(context.hasFreeViews());
+    }
+
+    private EncryptionUtils mockEncryptionUtils() throws Exception {
+        long currentTimeMillis = System.currentTimeMillis();
+        String meteredData = "browserId|true|2|1|false|1,2,3,4,5|6|7|8|9|123|100|" + currentTimeMillis + "|DAY|false|" + currentTimeMillis + "|etc";
+        suppressConstructor(EncryptionUtils.class);
+        mockStatic(EncryptionUtils.class);
+        EncryptionUtils mockSingleton = PowerMockito.mock(EncryptionUtils.class);
+        PowerMockito.when(EncryptionUtils.get()).thenReturn(mockSingleton);
+        PowerMockito.when(mockSingleton.decryptWithAES(anyString(), anyString())).thenReturn("ci=>1234&ts=>" + currentTimeMillis);
+        PowerMockito.when(mockSingleton.decryptWithAES(anyString(), anyString(), any(byte[].class))).thenReturn(meteredData);
+        return mockSingleton;
+    }
+
+    private PlenigoManager mockPlenigoManager() {
+        suppressConstructor(PlenigoManager.class);
+        mockStatic(PlenigoManager.class);
+        PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
+        PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
+        PowerMockito.when(mockedMgr.getCompanyId()).thenReturn(TestUtil.COMPANY_ID);
+        PowerMockito.when(mockedMgr.getSecret()).thenReturn(TestUtil.SECRET);
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, TestUtil.COMPANY_ID, TestUtil.SECRET, false));
+        return mockedMgr;
+    }
+}
@@ -2,16 +2,25 @@ package com.plenigo.sdk.services;
 
 import com.plenigo.sdk.PlenigoException;
 import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.http.HttpRequest;
+import com.plenigo.sdk.http.HttpResponse;
 import com.plenigo.sdk.internal.ApiResults;
+import com.plenigo.sdk.internal.ApiURLs;
 import com.plenigo.sdk.internal.ErrorCode;
+import com.plenigo.sdk.internal.cache.CatalogCache;
 import com.plenigo.sdk.internal.util.EncryptionUtils;
+import com.plenigo.sdk.internal.util.HttpConfig;
 import com.plenigo.sdk.internal.util.RestClient;
+import com.plenigo.sdk.internal.util.TransportRestClient;
 import com.plenigo.sdk.models.CategoryData;
 import com.plenigo.sdk.models.CategoryInfo;
 import com.plenigo.sdk.models.PagedList;
 import com.plenigo.sdk.models.ProductData;
 import com.plenigo.sdk.models.ProductInfo;
 import com.plenigo.sdk.models.ValidityTime;
+import com.plenigo.sdk.util.TestUtil;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
@@ -19,7 +28,6 @@ import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.reflect.Whitebox;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.ByteArrayInputStream;
 import java.lang.reflect.Constructor;
@@ -34,6 +42,7 @@ import java.util.Map;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyMap;
@@ -66,7 +75,7 @@ public class ProductServiceTest {
         Mockito.when(client.get(anyString(), anyString(), anyString(), anyString(), Mockito.anyMap()))
                 .thenReturn(map);
         ProductService instance = Whitebox.invokeConstructor(ProductService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         ProductData productData = ProductService.getProductData("1");
         validateSampleProductMap(productData);
     }
@@ -130,12 +139,33 @@ public class ProductServiceTest {
         return map;
     }
 
-    private void mockPlenigoManager() {
+    private PlenigoManager mockPlenigoManager() {
         suppressConstructor(PlenigoManager.class);
         mockStatic(PlenigoManager.class);
         PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn("CP_ID");
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, "CP_ID", null, false));
+        return mockedMgr;
+    }
+
+    @Test
+    public void testGetProductDataUsesCatalogCache() throws Exception {
+        PlenigoManager mockedMgr = mockPlenigoManager();
+        CatalogCache catalogCache = new CatalogCache(10, 60000L, 120000L);
+        PowerMockito.when(mockedMgr.getCatalogCache()).thenReturn(catalogCache);
+        RestClient client = Mockito.mock(RestClient.class);
+        Mockito.when(client.get(anyString(), anyString(), anyString(), anyString(), Mockito.anyMap()))
+                .thenReturn(getSampleProductMap());
+        HttpConfig.get().setClient(client);
+        ProductData productData = ProductService.getProductData("1");
+        validateSampleProductMap(productData);
+        assertSame(productData, ProductService.getProductData("1"));
+        Mockito.verify(client, Mockito.times(1)).get(anyString(), anyString(), anyString(), anyString(), Mockito.anyMap());
+        ProductService.invalidateProductData("1");
+        validateSampleProductMap(ProductService.getProductData("1"));
+        Mockito.verify(client, Mockito.times(2)).get(anyString(), anyString(), anyString(), anyString(), Mockito.anyMap());
+        assertEquals(1, catalogCache.getProductStatistics().getHitCount());
     }
 
 
@@ -162,7 +192,7 @@ public class ProductServiceTest {
         Mockito.when(client.get(anyString(), anyString(), anyString(), anyString(), Mockito.anyMap()))
                 .thenReturn(map);
         ProductService instance = Whitebox.invokeConstructor(ProductService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         assertNotNull(ProductService.getProductData("1"));
     }
 
@@ -183,7 +213,7 @@ public class ProductServiceTest {
                             method(RestClient.class, "handleResponse", HttpURLConnection.class, String.class, String.class))
                     .withArguments(any(HttpURLConnection.class), anyString(), anyString());
             ProductService instance = Whitebox.invokeConstructor(ProductService.class);
-            ReflectionTestUtils.setField(instance, "client", client);
+            HttpConfig.get().setClient(client);
             ProductService.getProductData("sampleProd");
         } catch (PlenigoException pe) {
             assertEquals(ErrorCode.INVALID_PARAMETERS.getCode(), pe.getResponseCode());
@@ -215,13 +245,39 @@ public class ProductServiceTest {
         Mockito.when(client.get(anyString(), anyString(), anyString(), anyString(), anyMap()))
                 .thenReturn(map);
         ProductService instance = Whitebox.invokeConstructor(ProductService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         PagedList<ProductInfo> productList = ProductService.getProductList(3, 0);
         assertNotNull(productList);
         assertEquals(productList.getTotalElements(), totalElements);
         assertEquals(productList.getPageSize(), pageSize);
     }
 
+    @Test
+    public void testStreamProductList() throws Exception {
+        mockPlenigoManager();
+        RestClient client = Mockito.mock(RestClient.class);
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put(ApiResults.TOTAL_ELEMENTS, 30);
+        map.put(ApiResults.PAGE_SIZE, 10);
+        List<Map<String, String>> elements = new ArrayList<Map<String, String>>();
+        for (int i = 0; i < 3; i++) {
+            Map<String, String> productInformation = new HashMap<String, String>();
+            productInformation.put(ApiResults.PROD_ID, "prodId" + i);
+            productInformation.put(ApiResults.TITLE, "title" + i);
+            elements.add(productInformation);
+        }
+        map.put(ApiResults.ELEMENTS, elements);
+        Mockito.when(client.get(anyString(), anyString(), anyString(), anyString(), anyMap()))
+                .thenReturn(map);
+        HttpConfig.get().setClient(client);
+        List<ProductInfo> products = new ArrayList<ProductInfo>();
+        assertEquals(30, ProductService.streamProductList(10, 0, products::add));
+        assertEquals(3, products.size());
+        assertEquals("prodId2", products.get(2).getProductId());
+        //the response of the client is not modified
+        assertEquals(elements, map.get(ApiResults.ELEMENTS));
+    }
+
     @Test
     public void testGetProductListSuccessfullyWithLastId() throws Exception {
         mockPlenigoManager();
@@ -246,7 +302,7 @@ public class ProductServiceTest {
         Mockito.when(client.get(anyString(), anyString(), anyString(), anyString(), anyMap()))
                 .thenReturn(map);
         ProductService instance = Whitebox.invokeConstructor(ProductService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         PagedList<ProductInfo> productList = ProductService.getProductList(3, 0);
         assertNotNull(productList);
         assertEquals(productList.getTotalElements(), totalElements);
@@ -277,7 +333,7 @@ public class ProductServiceTest {
         Mockito.when(client.get(anyString(), anyString(), anyString(), anyString(), anyMap()))
                 .thenReturn(map);
         ProductService instance = Whitebox.invokeConstructor(ProductService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         PagedList<CategoryInfo> categoryList = ProductService.getCategoryList(3, 0);
         assertNotNull(categoryList);
         assertEquals(categoryList.getTotalElements(), totalElements);
@@ -308,7 +364,7 @@ public class ProductServiceTest {
         Mockito.when(client.get(anyString(), anyString(), anyString(), anyString(), anyMap()))
                 .thenReturn(map);
         ProductService instance = Whitebox.invokeConstructor(ProductService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         PagedList<CategoryInfo> categoryList = ProductService.getCategoryList(3, 0);
         assertNotNull(categoryList);
         assertEquals(categoryList.getTotalElements(), totalElements);
@@ -329,10 +385,40 @@ public class ProductServiceTest {
         Mockito.when(client.get(anyString(), anyString(), anyString(), anyString(), anyMap()))
                 .thenReturn(map);
         ProductService instance = Whitebox.invokeConstructor(ProductService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         CategoryData data = ProductService.getCategoryData("id");
         assertNotNull(data);
         assertEquals(data.getId(), "id");
         assertEquals(data.getValidityTime(), ValidityTime.DAY);
     }
+
+    @Test
+    public void testGetProductDataThroughTheCodec() throws Exception {
+        PlenigoManager mockedMgr = mockPlenigoManager();
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot("https://api.plenigo.com", "CP_ID", null, false));
+        String json = "{\"id\":\"P1\",\"title\":\"Title\",\"description\":\"Desc\",\"collectible\":true,\"choosePrice\":false,"
+                + "\"price\":\"20.99\",\"taxes\":19,\"currency\":\"EUR\",\"subscription\":true,\"term\":12,\"cancellationPeriod\":3,"
+                + "\"autoRenewal\":true,\"actionPeriodName\":\"Spring\",\"actionPeriodTerm\":5,\"actionPeriodPrice\":\"1.5\","
+                + "\"images\":[{\"url\":\"http://img/1\",\"description\":\"one\",\"altText\":\"alt\"}]}";
+        AtomicReference<HttpRequest> sent = new AtomicReference<HttpRequest>();
+        HttpConfig.get().setClient(new TransportRestClient(request -> {
+            sent.set(request);
+            return new HttpResponse(200, null, json.getBytes(StandardCharsets.UTF_8));
+        }));
+        ProductData productData = ProductService.getProductData("P1");
+        assertEquals("GET", sent.get().getMethod());
+        assertEquals(ApiURLs.GET_PRODUCT, sent.get().getEndpoint());
+        assertEquals("https://api.plenigo.com" + ApiURLs.GET_PRODUCT + "/P1", sent.get().getUrl());
+        assertEquals("P1", productData.getId());
+        assertEquals("Title", productData.getTitle());
+        assertEquals(20.99, productData.getPrice(), 0.001);
+        assertEquals(19.0, productData.getTaxes(), 0.001);
+        assertEquals("EUR", productData.getCurrency());
+        assertTrue(productData.isSubscribable());
+        assertFalse(productData.isPriceChosen());
+        assertEquals("Spring", productData.getActionPeriodName());
+        assertEquals(5, productData.getActionPeriodTerm());
+        assertEquals(1, productData.getImages().size());
+        assertEquals("http://img/1", productData.getImages().get(0).getUrl());
+    }
 }
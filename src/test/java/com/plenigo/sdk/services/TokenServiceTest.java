@@ -3,6 +3,7 @@ package com.plenigo.sdk.services;
 import com.plenigo.sdk.PlenigoException;
 import com.plenigo.sdk.internal.ApiResults;
 import com.plenigo.sdk.internal.util.EncryptionUtils;
+import com.plenigo.sdk.internal.util.HttpConfig;
 import com.plenigo.sdk.internal.util.RestClient;
 import com.plenigo.sdk.models.AccessTokenRequest;
 import com.plenigo.sdk.models.RefreshTokenRequest;
@@ -13,7 +14,6 @@ import org.mockito.Mockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.reflect.Whitebox;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
@@ -54,7 +54,7 @@ public class TokenServiceTest {
         Mockito.when(client.post(anyString(), anyString(), anyString(), anyString(), Mockito.anyMap(), Mockito.anyMap()))
                 .thenReturn(map);
         TokenService instance = Whitebox.invokeConstructor(TokenService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         RefreshTokenRequest request = new RefreshTokenRequest("1234");
         TokenData tokenData = TokenService.getNewAccessToken(request);
         assertEquals(map.get(ApiResults.REFRESH_TOKEN), tokenData.getRefreshToken());
@@ -76,7 +76,7 @@ public class TokenServiceTest {
                 .thenReturn(map);
 
         TokenService instance = Whitebox.invokeConstructor(TokenService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         RefreshTokenRequest request = new RefreshTokenRequest("1234", "12391823");
         TokenService.getNewAccessToken(request);
     }
@@ -95,7 +95,7 @@ public class TokenServiceTest {
         Mockito.when(client.post(anyString(), anyString(), anyString(), anyString(), Mockito.anyMap(), Mockito.anyMap()))
                 .thenReturn(map);
         TokenService instance = Whitebox.invokeConstructor(TokenService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         RefreshTokenRequest request = new RefreshTokenRequest("1234", "123");
         TokenData tokenData = TokenService.getNewAccessToken(request);
         assertEquals(map.get(ApiResults.REFRESH_TOKEN), tokenData.getRefreshToken());
@@ -118,7 +118,7 @@ public class TokenServiceTest {
         Mockito.when(client.post(anyString(), anyString(), anyString(), anyString(), Mockito.anyMap(), Mockito.anyMap()))
                 .thenReturn(map);
         TokenService instance = Whitebox.invokeConstructor(TokenService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         AccessTokenRequest request = new AccessTokenRequest("1234", "http://example.com");
         TokenData tokenData = TokenService.getAccessToken(request);
         assertEquals(map.get(ApiResults.REFRESH_TOKEN), tokenData.getRefreshToken());
@@ -0,0 +1,189 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.internal.ApiParams;
+import com.plenigo.sdk.internal.ApiResults;
+import com.plenigo.sdk.internal.util.EncryptionUtils;
+import com.plenigo.sdk.internal.util.HttpConfig;
+import com.plenigo.sdk.internal.util.RestClient;
+import com.plenigo.sdk.internal.util.ValidationUtils;
+import com.plenigo.sdk.models.TransactionSearchRequest;
+import com.plenigo.sdk.util.TestUtil;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.support.SuppressCode.suppressConstructor;
+
+/**
+ * <p>
+ * Tests for {@link TransactionExporter}.
+ * </p>
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({EncryptionUtils.class, PlenigoManager.class, RestClient.class})
+public class TransactionExporterTest {
+    private static final int TRANSACTIONS_PER_WINDOW = 15;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final SimpleDateFormat dayFormat = new SimpleDateFormat("yyyy-MM-dd");
+    private final ConcurrentMap<String, String> requestedWindows = new ConcurrentHashMap<String, String>();
+    private final CountDownLatch prefetchCancelled = new CountDownLatch(1);
+
+    @Before
+    public void setup() throws PlenigoException {
+        suppressConstructor(PlenigoManager.class);
+        mockStatic(PlenigoManager.class);
+        PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
+        PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
+        PowerMockito.when(mockedMgr.getCompanyId()).thenReturn("CP_ID");
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, "CP_ID", null, false));
+        RestClient client = Mockito.mock(RestClient.class);
+        Mockito.when(client.get(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyMap()))
+                .thenAnswer(new TransactionApi());
+        HttpConfig.get().setClient(client);
+    }
+
+    @Test
+    public void testSplitIntoWindows() throws Exception {
+        TransactionExporter exporter = new TransactionExporter(dayFormat.parse("2017-01-01"), dayFormat.parse("2018-12-31"),
+                TransactionExporter.Format.CSV).setWindowDays(1000);
+        List<TransactionSearchRequest> windows = exporter.splitIntoWindows();
+        assertEquals(2, windows.size());
+        assertEquals("2017-01-01", dayFormat.format(windows.get(0).getStartDate()));
+        assertEquals("2017-12-31", dayFormat.format(windows.get(0).getEndDate()));
+        assertEquals("2018-01-01", dayFormat.format(windows.get(1).getStartDate()));
+        assertEquals("2018-12-31", dayFormat.format(windows.get(1).getEndDate()));
+        for (TransactionSearchRequest window : windows) {
+            TransactionSearchRequest copy = new TransactionSearchRequest(0, 10).setStartDate(window.getStartDate()).setEndDate(window.getEndDate());
+            ValidationUtils.validateDateRange(copy);
+            assertEquals(window.getStartDate(), copy.getStartDate());
+        }
+    }
+
+    @Test
+    public void testExportToFileInChronologicalOrder() throws Exception {
+        Path file = folder.newFile("transactions.ndjson").toPath();
+        long exported = new TransactionExporter(dayFormat.parse("2017-01-01"), dayFormat.parse("2017-01-25"), TransactionExporter.Format.NDJSON)
+                .setWindowDays(10).setPageSize(10).setParallelism(3).export(file);
+        assertEquals(3 * TRANSACTIONS_PER_WINDOW, exported);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(3 * TRANSACTIONS_PER_WINDOW, lines.size());
+        List<String> expectedIds = new ArrayList<String>();
+        for (String windowStart : new String[]{"2017-01-01", "2017-01-11", "2017-01-21"}) {
+            for (int i = 0; i < TRANSACTIONS_PER_WINDOW; i++) {
+                expectedIds.add(windowStart + "-" + i);
+            }
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            assertTrue(lines.get(i).startsWith("{\"transactionId\":\"" + expectedIds.get(i) + "\","));
+        }
+        assertEquals("2017-01-25", requestedWindows.get("2017-01-21"));
+        assertEquals(3, requestedWindows.size());
+    }
+
+    @Test
+    public void testFailedPageStopsTheExport() throws Exception {
+        Path file = folder.newFile("transactions.csv").toPath();
+        try {
+            new TransactionExporter(dayFormat.parse("2017-01-01"), dayFormat.parse("2017-03-31"), TransactionExporter.Format.CSV)
+                    .setWindowDays(10).export(file);
+            fail("the failed page should stop the export");
+        } catch (PlenigoException e) {
+            assertEquals("failed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testMissingPeriod() throws Exception {
+        try {
+            new TransactionExporter(null, null, TransactionExporter.Format.CSV).export(folder.newFile("empty.csv").toPath());
+            fail("a period is required");
+        } catch (PlenigoException e) {
+            assertFalse(e.getMessage().isEmpty());
+        }
+    }
+
+    @Test
+    public void testFailedPageCancelsThePrefetchedWindow() throws Exception {
+        Path file = folder.newFile("cancelled.csv").toPath();
+        try {
+            new TransactionExporter(dayFormat.parse("2017-04-21"), dayFormat.parse("2017-05-10"), TransactionExporter.Format.CSV)
+                    .setWindowDays(10).setPageSize(10).export(file);
+            fail("the failed page should stop the export");
+        } catch (PlenigoException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertTrue("the first page of the next window should be cancelled", prefetchCancelled.await(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Answers the transaction searches with 15 transactions per date window, the searches of march and the second pages of april
+     * fail and the searches of may wait until they are interrupted.
+     */
+    private final class TransactionApi implements Answer<Map<String, Object>> {
+        @Override
+        public Map<String, Object> answer(InvocationOnMock invocation) throws Throwable {
+            Map<String, String> params = new HashMap<String, String>();
+            for (String param : ((String) invocation.getArguments()[3]).split("&")) {
+                String[] keyValue = param.split("=", 2);
+                params.put(keyValue[0], keyValue.length > 1 ? keyValue[1] : "");
+            }
+            String startDate = params.get(ApiParams.START_DATE);
+            int page = Integer.parseInt(params.get(ApiParams.PAGE_NUMBER));
+            if (startDate.startsWith("2017-03") || startDate.startsWith("2017-04") && page > 0) {
+                throw new PlenigoException("500", "failed");
+            }
+            if (startDate.startsWith("2017-05")) {
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    prefetchCancelled.countDown();
+                }
+                throw new PlenigoException("500", "interrupted");
+            }
+            requestedWindows.put(startDate, params.get(ApiParams.END_DATE));
+            int pageSize = Integer.parseInt(params.get(ApiParams.PAGE_SIZE));
+            List<Map<String, Object>> transactions = new ArrayList<Map<String, Object>>();
+            for (int i = page * pageSize; i < Math.min(TRANSACTIONS_PER_WINDOW, (page + 1) * pageSize); i++) {
+                Map<String, Object> transaction = new HashMap<String, Object>();
+                transaction.put(ApiResults.TRANSACTION_ID, startDate + "-" + i);
+                transactions.add(transaction);
+            }
+            Map<String, Object> result = new HashMap<String, Object>();
+            result.put(ApiResults.TOTAL_ELEMENTS, TRANSACTIONS_PER_WINDOW);
+            result.put(ApiResults.PAGE_SIZE, pageSize);
+            result.put(ApiResults.ELEMENTS, transactions);
+            return result;
+        }
+    }
+}
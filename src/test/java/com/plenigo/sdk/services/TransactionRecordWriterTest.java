@@ -0,0 +1,91 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.models.PaymentMethod;
+import com.plenigo.sdk.models.Transaction;
+import com.plenigo.sdk.models.TransactionStatus;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * Tests for {@link TransactionRecordWriter}.
+ * </p>
+ */
+public class TransactionRecordWriterTest {
+
+    @Test
+    public void testWriteNdjson() throws Exception {
+        SimpleDateFormat utc = new SimpleDateFormat(TransactionService.RESPONSE_DATE_FORMAT);
+        utc.setTimeZone(TimeZone.getTimeZone("UTC"));
+        Date date = utc.parse("2017-03-01T10:15:30Z");
+        Transaction transaction = new Transaction("TX1", "CUST", "PROD", "A \"quoted\"\ttitle\u0001", 9.99, 19.0, 1.59, "DE", "EUR",
+                PaymentMethod.values()[0], date, TransactionStatus.values()[0], 42L, null, "TX0");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransactionRecordWriter writer = new TransactionRecordWriter(Channels.newChannel(out), TransactionExporter.Format.NDJSON);
+        writer.writeHeader();
+        writer.write(transaction);
+        writer.flush();
+        assertEquals("{\"transactionId\":\"TX1\",\"customerId\":\"CUST\",\"productId\":\"PROD\",\"title\":\"A \\\"quoted\\\"\\ttitle\\u0001\","
+                + "\"price\":9.99,\"taxesPercentage\":19.0,\"taxesAmount\":1.59,\"taxesCountry\":\"DE\",\"currency\":\"EUR\","
+                + "\"paymentMethod\":\"" + PaymentMethod.values()[0].name() + "\",\"transactionDate\":\"2017-03-01T10:15:30Z\","
+                + "\"status\":\"" + TransactionStatus.values()[0].name() + "\",\"billingId\":42,\"cancellationTransactionId\":null,"
+                + "\"cancelledTransactionId\":\"TX0\"}\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(1, writer.getRecordCount());
+    }
+
+    @Test
+    public void testWriteCsv() throws Exception {
+        Transaction transaction = new Transaction("TX1", "CUST", "PROD", "Title, \"special\" ä", 1.0, 0.0, 0.0, null, "EUR",
+                null, null, null, 0L, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransactionRecordWriter writer = new TransactionRecordWriter(Channels.newChannel(out), TransactionExporter.Format.CSV);
+        writer.writeHeader();
+        writer.write(transaction);
+        writer.flush();
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("transactionId,customerId,productId,title,price,taxesPercentage,taxesAmount,taxesCountry,currency,paymentMethod,"
+                + "transactionDate,status,billingId,cancellationTransactionId,cancelledTransactionId", lines[0]);
+        assertEquals("TX1,CUST,PROD,\"Title, \"\"special\"\" ä\",1.0,0.0,0.0,,EUR,,,,0,,", lines[1]);
+    }
+
+    @Test
+    public void testWriteAmountsWithoutExponent() throws Exception {
+        Transaction transaction = new Transaction("TX1", null, null, null, 12345678.9, 0.0001, 1.0E-7, null, null,
+                null, null, null, 0L, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransactionRecordWriter writer = new TransactionRecordWriter(Channels.newChannel(out), TransactionExporter.Format.CSV);
+        writer.write(transaction);
+        writer.flush();
+        assertEquals("TX1,,,,12345678.9,0.00010,0.00000010,,,,,,0,,\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWritesMoreThanTheBuffer() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransactionRecordWriter writer = new TransactionRecordWriter(Channels.newChannel(out), TransactionExporter.Format.CSV);
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            title.append("€");
+        }
+        for (int i = 0; i < 100; i++) {
+            writer.write(new Transaction("TX" + i, null, null, title.toString(), 0.0, 0.0, 0.0, null, null, null, null, null, 0L, null, null));
+        }
+        assertTrue(out.size() > 0);
+        writer.flush();
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(100, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertTrue(lines[i].startsWith("TX" + i + ",,," + title + ","));
+        }
+    }
+}
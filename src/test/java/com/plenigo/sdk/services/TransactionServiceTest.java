@@ -2,11 +2,21 @@ package com.plenigo.sdk.services;
 
 import com.plenigo.sdk.PlenigoException;
 import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.http.HttpRequest;
+import com.plenigo.sdk.http.HttpResponse;
+import com.plenigo.sdk.http.HttpTransport;
+import com.plenigo.sdk.internal.ApiURLs;
+import com.plenigo.sdk.internal.util.DateParser;
 import com.plenigo.sdk.internal.util.EncryptionUtils;
 import com.plenigo.sdk.internal.util.HttpConfig;
 import com.plenigo.sdk.internal.util.RestClient;
+import com.plenigo.sdk.internal.util.TransportRestClient;
+import com.plenigo.sdk.models.Transaction;
 import com.plenigo.sdk.models.TransactionList;
 import com.plenigo.sdk.models.TransactionSearchRequest;
+import com.plenigo.sdk.models.TransactionStatus;
+import com.plenigo.sdk.util.TestUtil;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -17,9 +27,13 @@ import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
@@ -39,7 +53,8 @@ public class TransactionServiceTest {
         PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn("CP_ID");
-
+        PowerMockito.when(mockedMgr.getUrl()).thenReturn("https://api.plenigo.com/api/v2");
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot("https://api.plenigo.com/api/v2", "CP_ID", null, false));
     }
 
     @Test
@@ -60,4 +75,50 @@ public class TransactionServiceTest {
         TransactionList list = TransactionService.searchTransactions(new TransactionSearchRequest(0, 10));
         assertNotNull(list);
     }
+
+    @Test
+    public void testStreamTransactions() throws Exception {
+        String json = "{\"totalElements\":25,\"size\":10,\"elements\":["
+                + "{\"transactionId\":\"T1\",\"price\":\"1.5\",\"transactionDate\":\"2017-01-31T10:15:30Z\",\"status\":\"DONE\"},"
+                + "{\"transactionId\":\"T2\",\"price\":\"2.5\"}]}";
+        HttpTransport transport = request -> new HttpResponse(200, null, json.getBytes(StandardCharsets.UTF_8));
+        HttpConfig.get().setClient(new TransportRestClient(transport));
+        List<Transaction> transactions = new ArrayList<Transaction>();
+        long total = TransactionService.streamTransactions(new TransactionSearchRequest(0, 10), transactions::add);
+        assertEquals(25, total);
+        assertEquals(2, transactions.size());
+        assertEquals("T1", transactions.get(0).getTransactionId());
+        assertEquals(1.5, transactions.get(0).getPrice(), 0.001);
+        assertEquals(TransactionStatus.DONE, transactions.get(0).getStatus());
+        assertEquals(DateParser.LITERAL_Z.parse("2017-01-31T10:15:30Z"), transactions.get(0).getTransactionDate());
+        assertEquals("T2", transactions.get(1).getTransactionId());
+    }
+
+    @Test
+    public void testSearchTransactionsThroughTheCodec() throws Exception {
+        String json = "{\"totalElements\":25,\"size\":2,\"elements\":["
+                + "{\"transactionId\":\"T1\",\"customerId\":\"U1\",\"productId\":\"P1\",\"title\":\"One\",\"price\":\"1.5\","
+                + "\"currency\":\"EUR\",\"transactionDate\":\"2017-01-31T10:15:30Z\",\"status\":\"DONE\"},"
+                + "{\"transactionId\":\"T2\",\"price\":2.5,\"status\":\"BOOKED\"}]}";
+        AtomicReference<HttpRequest> sent = new AtomicReference<HttpRequest>();
+        HttpConfig.get().setClient(new TransportRestClient(request -> {
+            sent.set(request);
+            return new HttpResponse(200, null, json.getBytes(StandardCharsets.UTF_8));
+        }));
+        TransactionList list = TransactionService.searchTransactions(new TransactionSearchRequest(0, 2));
+        assertEquals("GET", sent.get().getMethod());
+        assertEquals(ApiURLs.TX_SEARCH, sent.get().getEndpoint());
+        assertTrue(sent.get().getUrl().startsWith("https://api.plenigo.com/api/v2" + ApiURLs.TX_SEARCH + "?"));
+        assertEquals(25, list.getTotalElements());
+        assertEquals(2, list.getElements().size());
+        Transaction first = list.getElements().get(0);
+        assertEquals("T1", first.getTransactionId());
+        assertEquals("U1", first.getCustomerId());
+        assertEquals("P1", first.getProductId());
+        assertEquals(1.5, first.getPrice(), 0.001);
+        assertEquals(TransactionStatus.DONE, first.getStatus());
+        assertEquals(DateParser.LITERAL_Z.parse("2017-01-31T10:15:30Z"), first.getTransactionDate());
+        assertEquals(2.5, list.getElements().get(1).getPrice(), 0.001);
+        assertEquals(TransactionStatus.BOOKED, list.getElements().get(1).getStatus());
+    }
 }
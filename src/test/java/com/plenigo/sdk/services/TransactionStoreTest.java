@@ -0,0 +1,86 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.models.PaymentMethod;
+import com.plenigo.sdk.models.Transaction;
+import com.plenigo.sdk.models.TransactionStatus;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * <p>
+ * Tests for {@link TransactionStore}.
+ * </p>
+ */
+public class TransactionStoreTest {
+    private static final double DELTA = 0.0001;
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+
+    private Transaction transaction(String productId, double price, String currency, PaymentMethod paymentMethod, TransactionStatus status,
+                                    String date) throws Exception {
+        return new Transaction("TR", "CU", productId, "title", price, 19, price * 0.19, "DE", currency, paymentMethod,
+                date == null ? null : dateFormat.parse(date), status, 0, null, null);
+    }
+
+    @Test
+    public void testGroupBy() throws Exception {
+        TransactionStore store = new TransactionStore();
+        store.addAll(Arrays.asList(
+                transaction("P1", 10, "EUR", PaymentMethod.PAYPAL, TransactionStatus.DONE, "2017-01-01 10:00"),
+                transaction("P2", 5, "EUR", PaymentMethod.CREDIT_CARD, TransactionStatus.DONE, "2017-01-01 23:00"),
+                transaction("P1", 2.5, "USD", PaymentMethod.PAYPAL, TransactionStatus.CANCELED, "2017-01-02 08:00"),
+                transaction(null, 1, null, null, null, null)));
+        assertEquals(4, store.size());
+        assertEquals(18.5, store.sum(TransactionStore.Measure.PRICE), DELTA);
+
+        Map<String, Double> byProduct = store.sum(TransactionStore.Dimension.PRODUCT, TransactionStore.Measure.PRICE, false);
+        assertEquals(Arrays.asList("P1", "P2"), Arrays.asList(byProduct.keySet().toArray()));
+        assertEquals(12.5, byProduct.get("P1"), DELTA);
+        assertEquals(5, byProduct.get("P2"), DELTA);
+
+        Map<PaymentMethod, Long> byPaymentMethod = store.count(TransactionStore.Dimension.PAYMENT_METHOD, false);
+        assertEquals(Long.valueOf(2), byPaymentMethod.get(PaymentMethod.PAYPAL));
+        assertEquals(Long.valueOf(1), byPaymentMethod.get(PaymentMethod.CREDIT_CARD));
+        assertEquals(2, byPaymentMethod.size());
+
+        Map<Date, Long> byDay = store.count(TransactionStore.Dimension.DAY, false);
+        assertEquals(Long.valueOf(2), byDay.get(dateFormat.parse("2017-01-01 00:00")));
+        assertEquals(Long.valueOf(1), byDay.get(dateFormat.parse("2017-01-02 00:00")));
+
+        Map<String, Double> taxesByCurrency = store.sum(TransactionStore.Dimension.CURRENCY, TransactionStore.Measure.TAXES_AMOUNT, false);
+        assertEquals(15 * 0.19, taxesByCurrency.get("EUR"), DELTA);
+
+        assertEquals(TransactionStatus.CANCELED, store.get(2, TransactionStore.Dimension.STATUS));
+        assertNull(store.get(3, TransactionStore.Dimension.PRODUCT));
+        assertEquals(Long.MIN_VALUE, store.getTransactionDate(3));
+        assertEquals(2.5, store.get(2, TransactionStore.Measure.PRICE), DELTA);
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws Exception {
+        TransactionStore store = new TransactionStore();
+        TransactionStatus[] statuses = TransactionStatus.values();
+        for (int i = 0; i < 100000; i++) {
+            store.add(transaction("P" + (i % 7), i % 100, "EUR", PaymentMethod.BILLING, statuses[i % statuses.length], "2017-01-01 10:00"));
+        }
+        Map<String, Double> sequential = store.sum(TransactionStore.Dimension.PRODUCT, TransactionStore.Measure.PRICE, false);
+        Map<String, Double> parallel = store.sum(TransactionStore.Dimension.PRODUCT, TransactionStore.Measure.PRICE, true);
+        assertEquals(sequential.keySet(), parallel.keySet());
+        for (Map.Entry<String, Double> entry : sequential.entrySet()) {
+            assertEquals(entry.getValue(), parallel.get(entry.getKey()), DELTA);
+        }
+        assertEquals(store.count(TransactionStore.Dimension.STATUS, false), store.count(TransactionStore.Dimension.STATUS, true));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testMissingRow() {
+        new TransactionStore().get(0, TransactionStore.Measure.PRICE);
+    }
+}
@@ -0,0 +1,232 @@
+package com.plenigo.sdk.services;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.internal.ApiParams;
+import com.plenigo.sdk.internal.ApiResults;
+import com.plenigo.sdk.internal.util.EncryptionUtils;
+import com.plenigo.sdk.internal.util.HttpConfig;
+import com.plenigo.sdk.internal.util.RestClient;
+import com.plenigo.sdk.models.SyncCheckpoint;
+import com.plenigo.sdk.models.Transaction;
+import com.plenigo.sdk.util.TestUtil;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.support.SuppressCode.suppressConstructor;
+
+/**
+ * <p>
+ * Tests for {@link TransactionSync}.
+ * </p>
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({EncryptionUtils.class, PlenigoManager.class, RestClient.class})
+public class TransactionSyncTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final SimpleDateFormat dayFormat = new SimpleDateFormat("yyyy-MM-dd");
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat(TransactionService.RESPONSE_DATE_FORMAT);
+    private final Map<String, List<String>> transactionsByDay = new ConcurrentHashMap<String, List<String>>();
+    private final Map<String, String> transactionTimes = new ConcurrentHashMap<String, String>();
+    private final AtomicLong now = new AtomicLong();
+    private Path checkpointFile;
+
+    @Before
+    public void setup() throws Exception {
+        suppressConstructor(PlenigoManager.class);
+        mockStatic(PlenigoManager.class);
+        PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
+        PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
+        PowerMockito.when(mockedMgr.getCompanyId()).thenReturn("CP_ID");
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, "CP_ID", null, false));
+        RestClient client = Mockito.mock(RestClient.class);
+        Mockito.when(client.get(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyMap()))
+                .thenAnswer(new TransactionApi());
+        HttpConfig.get().setClient(client);
+        checkpointFile = folder.getRoot().toPath().resolve("transactions.checkpoint");
+        now.set(dateFormat.parse("2017-01-03T12:00:00Z").getTime());
+    }
+
+    @Test
+    public void testOnlyNewTransactionsAreDelivered() throws Exception {
+        transactionsByDay.put("2017-01-01", Arrays.asList("A1", "A2"));
+        transactionsByDay.put("2017-01-03", Arrays.asList("C1"));
+        TransactionSync sync = new TransactionSync(checkpointFile, dayFormat.parse("2017-01-01"), now::get);
+        List<String> delivered = new ArrayList<String>();
+        assertEquals(3, sync.synchronize(transaction -> delivered.add(transaction.getTransactionId())));
+        assertEquals(Arrays.asList("A1", "A2", "C1"), delivered);
+
+        SyncCheckpoint checkpoint = sync.getCheckpoint();
+        assertEquals("2017-01-03", dayFormat.format(checkpoint.getSyncedUntil()));
+        assertEquals(Collections.singleton("C1"), checkpoint.getDeliveredIds());
+        assertEquals("2017-01-03T10:00:00Z", dateFormat.format(checkpoint.getLastTransactionDate()));
+
+        //more transactions of the boundary day and the next day
+        transactionsByDay.put("2017-01-03", Arrays.asList("C1", "C2"));
+        transactionsByDay.put("2017-01-04", Arrays.asList("D1"));
+        now.set(dateFormat.parse("2017-01-04T12:00:00Z").getTime());
+        delivered.clear();
+        TransactionSync nextRun = new TransactionSync(checkpointFile, null, now::get);
+        assertEquals(2, nextRun.synchronize(transaction -> delivered.add(transaction.getTransactionId())));
+        assertEquals(Arrays.asList("C2", "D1"), delivered);
+        assertEquals("2017-01-04", dayFormat.format(nextRun.getCheckpoint().getSyncedUntil()));
+        assertEquals(Collections.singleton("D1"), nextRun.getCheckpoint().getDeliveredIds());
+        assertFalse(Files.exists(checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp")));
+    }
+
+    @Test
+    public void testResumesAfterFailure() throws Exception {
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < 25; i++) {
+            ids.add("T" + i);
+        }
+        transactionsByDay.put("2017-01-03", ids);
+        TransactionSync sync = new TransactionSync(checkpointFile, dayFormat.parse("2017-01-03"), now::get).setPageSize(10);
+        List<String> delivered = new ArrayList<String>();
+        try {
+            sync.synchronize(transaction -> {
+                if ("T15".equals(transaction.getTransactionId())) {
+                    throw new IllegalStateException("crash");
+                }
+                delivered.add(transaction.getTransactionId());
+            });
+            fail("the consumer error should stop the synchronization");
+        } catch (IllegalStateException e) {
+            assertEquals(15, delivered.size());
+        }
+        //the checkpoint was written after the first 10 transactions
+        assertEquals(10, sync.getCheckpoint().getDeliveredIds().size());
+
+        List<String> resumed = new ArrayList<String>();
+        assertEquals(15, sync.synchronize(transaction -> resumed.add(transaction.getTransactionId())));
+        assertEquals(ids.subList(10, 25), resumed);
+        assertEquals(25, sync.getCheckpoint().getDeliveredIds().size());
+    }
+
+    @Test
+    public void testCheckpointOnlyKeepsTheIdsOfTheLastTransactionDate() throws Exception {
+        transactionsByDay.put("2017-01-01", Arrays.asList("A1", "A2"));
+        transactionsByDay.put("2017-01-02", Arrays.asList("B1"));
+        transactionsByDay.put("2017-01-03", Arrays.asList("C1", "C2", "C3"));
+        transactionTimes.put("C2", "11:00:00");
+        transactionTimes.put("C3", "11:00:00");
+        TransactionSync sync = new TransactionSync(checkpointFile, dayFormat.parse("2017-01-01"), now::get).setWindowDays(30);
+        List<String> delivered = new ArrayList<String>();
+        assertEquals(6, sync.synchronize(transaction -> delivered.add(transaction.getTransactionId())));
+
+        SyncCheckpoint checkpoint = sync.getCheckpoint();
+        assertEquals("2017-01-03", dayFormat.format(checkpoint.getSyncedUntil()));
+        assertEquals("2017-01-03T11:00:00Z", dateFormat.format(checkpoint.getLastTransactionDate()));
+        assertEquals(new HashSet<String>(Arrays.asList("C2", "C3")), checkpoint.getDeliveredIds());
+
+        //a transaction at the boundary and a newer one
+        transactionsByDay.put("2017-01-03", Arrays.asList("C1", "C2", "C3", "C4", "C5"));
+        transactionTimes.put("C4", "11:00:00");
+        transactionTimes.put("C5", "12:00:00");
+        delivered.clear();
+        assertEquals(2, sync.synchronize(transaction -> delivered.add(transaction.getTransactionId())));
+        assertEquals(Arrays.asList("C4", "C5"), delivered);
+        assertEquals(Collections.singleton("C5"), sync.getCheckpoint().getDeliveredIds());
+    }
+
+    @Test
+    public void testStaleTempFilesAreDeleted() throws Exception {
+        Path stale = Files.createFile(checkpointFile.resolveSibling(checkpointFile.getFileName() + "12345.tmp"));
+        Path other = Files.createFile(checkpointFile.resolveSibling("other.tmp"));
+        transactionsByDay.put("2017-01-03", Arrays.asList("C1"));
+        TransactionSync sync = new TransactionSync(checkpointFile, dayFormat.parse("2017-01-03"), now::get);
+        assertEquals(1, sync.synchronize(new ArrayList<Transaction>()::add));
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(other));
+        assertTrue(Files.exists(checkpointFile));
+    }
+
+    @Test
+    public void testMissingCheckpointAndStartDate() throws Exception {
+        try {
+            new TransactionSync(checkpointFile, null).synchronize(transaction -> {
+            });
+            fail("an initial start date is required");
+        } catch (PlenigoException e) {
+            assertTrue(e.getMessage().contains(checkpointFile.toString()));
+        }
+    }
+
+    @Test
+    public void testCorruptCheckpoint() throws Exception {
+        Files.write(checkpointFile, "syncedUntil=yesterday".getBytes("UTF-8"));
+        try {
+            new TransactionSync(checkpointFile, dayFormat.parse("2017-01-01")).getCheckpoint();
+            fail("a corrupt checkpoint should not be ignored");
+        } catch (PlenigoException e) {
+            assertTrue(e.getMessage().contains(checkpointFile.toString()));
+        }
+    }
+
+    /**
+     * Answers the transaction searches with the transactions of the requested days, the transactions are dated at 10:00 unless they
+     * have another time.
+     */
+    private final class TransactionApi implements Answer<Map<String, Object>> {
+        @Override
+        public Map<String, Object> answer(InvocationOnMock invocation) throws Throwable {
+            Map<String, String> params = new HashMap<String, String>();
+            for (String param : ((String) invocation.getArguments()[3]).split("&")) {
+                String[] keyValue = param.split("=", 2);
+                params.put(keyValue[0], keyValue.length > 1 ? keyValue[1] : "");
+            }
+            List<Map<String, Object>> all = new ArrayList<Map<String, Object>>();
+            String day = params.get(ApiParams.START_DATE);
+            while (day.compareTo(params.get(ApiParams.END_DATE)) <= 0) {
+                List<String> ids = transactionsByDay.get(day);
+                if (ids != null) {
+                    for (String id : ids) {
+                        Map<String, Object> transaction = new HashMap<String, Object>();
+                        transaction.put(ApiResults.TRANSACTION_ID, id);
+                        transaction.put(ApiResults.TRANSACTION_DATE, day + "T" + transactionTimes.getOrDefault(id, "10:00:00") + "Z");
+                        all.add(transaction);
+                    }
+                }
+                day = dayFormat.format(new Date(dayFormat.parse(day).getTime() + 36L * 3600 * 1000));
+            }
+            int page = Integer.parseInt(params.get(ApiParams.PAGE_NUMBER));
+            int pageSize = Integer.parseInt(params.get(ApiParams.PAGE_SIZE));
+            Map<String, Object> result = new HashMap<String, Object>();
+            result.put(ApiResults.TOTAL_ELEMENTS, all.size());
+            result.put(ApiResults.PAGE_SIZE, pageSize);
+            result.put(ApiResults.ELEMENTS, all.subList(Math.min(all.size(), page * pageSize), Math.min(all.size(), (page + 1) * pageSize)));
+            return result;
+        }
+    }
+}
@@ -2,17 +2,20 @@ package com.plenigo.sdk.services;
 
 import com.plenigo.sdk.PlenigoException;
 import com.plenigo.sdk.PlenigoManager;
+import com.plenigo.sdk.http.CircuitBreakerPolicy;
+import com.plenigo.sdk.http.CircuitOpenException;
 import com.plenigo.sdk.internal.ApiResults;
 import com.plenigo.sdk.internal.ApiURLs;
 import com.plenigo.sdk.internal.ErrorCode;
-import com.plenigo.sdk.internal.models.Address;
-import com.plenigo.sdk.internal.services.InternalUserApiService;
+import com.plenigo.sdk.internal.cache.EntitlementCache;
 import com.plenigo.sdk.internal.util.CookieParser;
 import com.plenigo.sdk.internal.util.EncryptionUtils;
 import com.plenigo.sdk.internal.util.HashUtils;
+import com.plenigo.sdk.internal.util.HttpConfig;
 import com.plenigo.sdk.internal.util.RestClient;
 import com.plenigo.sdk.models.ProductsBought;
 import com.plenigo.sdk.models.UserData;
+import com.plenigo.sdk.util.TestUtil;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -23,19 +26,21 @@ import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.reflect.Whitebox;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.ByteArrayInputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyMap;
@@ -68,29 +73,80 @@ public class UserServiceTest {
     public void testSuccessfulHasUserBought() throws Exception {
         configurePlenigoManager();
 
-        UserService instance = Whitebox.invokeConstructor(UserService.class);
-        InternalUserApiService internalUserApiService = Mockito.mock(InternalUserApiService.class);
-        Mockito.when(internalUserApiService.hasUserBought(anyString(), anyString(), anyString(), anyString(),
-                Mockito.anyBoolean(), Mockito.anyList(), Mockito.anyBoolean())).thenReturn(true);
-        ReflectionTestUtils.setField(instance, "internalUserApiService", internalUserApiService);
+        RestClient client = mockRestClient();
+        Mockito.when(client.get(anyString(), anyString(), eq(ApiURLs.USER_PRODUCT_ACCESS), anyString(), anyMap()))
+                .thenReturn(Collections.<String, Object>emptyMap());
         Assert.assertTrue(UserService.hasUserBought("SAMPLE_PROD", PLENIGO_USER_SAMPLE_COOKIE));
         Assert.assertTrue(UserService.hasUserBought(Collections.singletonList("SAMPLE_PROD"), PLENIGO_USER_SAMPLE_COOKIE));
     }
 
+    @Test
+    public void testHasUserBoughtUsesEntitlementCache() throws Exception {
+        configurePlenigoManager();
+        EntitlementCache entitlementCache = new EntitlementCache(10, 60000L, 60000L);
+        PowerMockito.when(PlenigoManager.get().getEntitlementCache()).thenReturn(entitlementCache);
+
+        RestClient client = mockRestClient();
+        Mockito.when(client.get(anyString(), anyString(), eq(ApiURLs.USER_PRODUCT_ACCESS), anyString(), anyMap()))
+                .thenReturn(Collections.<String, Object>emptyMap());
+        Assert.assertTrue(UserService.hasUserBought("SAMPLE_PROD", PLENIGO_USER_SAMPLE_COOKIE));
+        Assert.assertTrue(UserService.hasUserBought("SAMPLE_PROD", PLENIGO_USER_SAMPLE_COOKIE));
+        Assert.assertTrue(UserService.hasUserBoughtByCustomerId("SAMPLE_PROD", "1234", false));
+        Mockito.verify(client, Mockito.times(1)).get(anyString(), anyString(), eq(ApiURLs.USER_PRODUCT_ACCESS), anyString(), anyMap());
+
+        UserService.invalidateEntitlements("1234");
+        Assert.assertTrue(UserService.hasUserBought("SAMPLE_PROD", PLENIGO_USER_SAMPLE_COOKIE));
+        Mockito.verify(client, Mockito.times(2)).get(anyString(), anyString(), eq(ApiURLs.USER_PRODUCT_ACCESS), anyString(), anyMap());
+    }
+
+    @Test
+    public void testHasUserBoughtAsync() throws Exception {
+        configurePlenigoManager();
+        PowerMockito.when(PlenigoManager.get().getExecutor()).thenReturn(Runnable::run);
+
+        RestClient client = mockRestClient();
+        Mockito.when(client.get(anyString(), anyString(), eq(ApiURLs.USER_PRODUCT_ACCESS), anyString(), anyMap()))
+                .thenReturn(Collections.<String, Object>emptyMap());
+        Assert.assertTrue(UserService.hasUserBoughtAsync("SAMPLE_PROD", PLENIGO_USER_SAMPLE_COOKIE).get());
+        Assert.assertTrue(UserService.hasUserBoughtByCustomerIdAsync("SAMPLE_PROD", "1234", false).get());
+    }
+
     @Test
     public void testSuccessfulHasUserBoughtByCustomerId() throws Exception {
         configurePlenigoManager();
 
-        UserService instance = Whitebox.invokeConstructor(UserService.class);
-        InternalUserApiService internalUserApiService = Mockito.mock(InternalUserApiService.class);
-        Mockito.when(internalUserApiService.hasUserBought(anyString(), anyString(), anyString(), anyString(),
-                Mockito.anyBoolean(), Mockito.anyList(), Mockito.anyBoolean())).thenReturn(true);
-        ReflectionTestUtils.setField(instance, "internalUserApiService", internalUserApiService);
+        RestClient client = mockRestClient();
+        Mockito.when(client.get(anyString(), anyString(), eq(ApiURLs.USER_PRODUCT_ACCESS), anyString(), anyMap()))
+                .thenReturn(Collections.<String, Object>emptyMap());
         Assert.assertTrue(UserService.hasUserBoughtByCustomerId("SAMPLE_PROD", PLENIGO_USER_SAMPLE_COOKIE, true));
         Assert.assertTrue(UserService.hasUserBoughtByCustomerId(Collections.singletonList("SAMPLE_PROD"), PLENIGO_USER_SAMPLE_COOKIE, true));
 
     }
 
+    @Test
+    public void testHasUserBoughtUsesLastKnownAnswerWhileCircuitOpen() throws Exception {
+        configurePlenigoManager();
+        EntitlementCache entitlementCache = new EntitlementCache(10, 1L, 1L);
+        PowerMockito.when(PlenigoManager.get().getEntitlementCache()).thenReturn(entitlementCache);
+
+        RestClient client = mockRestClient();
+        Mockito.when(client.get(anyString(), anyString(), eq(ApiURLs.USER_PRODUCT_ACCESS), anyString(), anyMap()))
+                .thenReturn(Collections.<String, Object>emptyMap())
+                .thenThrow(circuitOpen(CircuitBreakerPolicy.Fallback.FAIL_CLOSED))
+                .thenThrow(circuitOpen(CircuitBreakerPolicy.Fallback.FAIL_CLOSED))
+                .thenThrow(circuitOpen(CircuitBreakerPolicy.Fallback.FAIL_FAST));
+        assertTrue(UserService.hasUserBoughtByCustomerId("SAMPLE_PROD", "1234", false));
+        Thread.sleep(5);
+        assertTrue(UserService.hasUserBoughtByCustomerId("SAMPLE_PROD", "1234", false));
+        assertFalse(UserService.hasUserBoughtByCustomerId("OTHER_PROD", "1234", false));
+        try {
+            UserService.hasUserBoughtByCustomerId("OTHER_PROD", "1234", false);
+            Assert.fail("A breaker that fails fast should throw the exception");
+        } catch (PlenigoException e) {
+            assertNotNull(CircuitOpenException.find(e));
+        }
+    }
+
 
     @Test
     public void testUnsuccessfulHasUserBoughtWithEmptyData() throws Exception {
@@ -106,6 +162,7 @@ public class UserServiceTest {
         PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn("CP_ID");
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, "CP_ID", null, false));
 
 
         suppressConstructor(HashUtils.class);
@@ -116,7 +173,7 @@ public class UserServiceTest {
         Mockito.when(client.get(anyString(), anyString(), eq(ApiURLs.PAYWALL_STATE), anyString(), Mockito.anyMap()))
                 .thenReturn(Collections.singletonMap("enabled", (Object) "true"));
         UserService instance = Whitebox.invokeConstructor(UserService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         Assert.assertFalse(UserService.hasUserBought("SAMPLE_PROD", PLENIGO_USER_SAMPLE_COOKIE));
     }
 
@@ -133,10 +190,11 @@ public class UserServiceTest {
         PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn("CP_ID");
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, "CP_ID", null, false));
 
         RestClient client = Mockito.mock(RestClient.class);
         UserService instance = Whitebox.invokeConstructor(UserService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         assertFalse(UserService.hasUserBought("SAMPLE_PROD", PLENIGO_USER_SAMPLE_COOKIE));
     }
 
@@ -144,11 +202,9 @@ public class UserServiceTest {
     @Test(expected = PlenigoException.class)
     public void testHasUserBoughtWithNotFoundException() throws Exception {
         configurePlenigoManager();
-        UserService instance = Whitebox.invokeConstructor(UserService.class);
-        InternalUserApiService internalUserApiService = Mockito.mock(InternalUserApiService.class);
-        Mockito.when(internalUserApiService.hasUserBought(anyString(), anyString(), anyString(), anyString(),
-                Mockito.anyBoolean(), Mockito.anyList(), Mockito.anyBoolean())).thenThrow(new PlenigoException(ErrorCode.SERVER, "", null));
-        ReflectionTestUtils.setField(instance, "internalUserApiService", internalUserApiService);
+        RestClient client = mockRestClient();
+        Mockito.when(client.get(anyString(), anyString(), eq(ApiURLs.USER_PRODUCT_ACCESS), anyString(), anyMap()))
+                .thenThrow(new PlenigoException(ErrorCode.SERVER, "", null));
         Assert.assertTrue(UserService.hasUserBought("SAMPLE_PROD", PLENIGO_USER_SAMPLE_COOKIE));
     }
 
@@ -166,11 +222,12 @@ public class UserServiceTest {
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn("CP_ID");
         PowerMockito.when(mockedMgr.getSecret()).thenReturn("SECRET");
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, "CP_ID", "SECRET", false));
         suppressConstructor(HashUtils.class);
         mockStatic(HashUtils.class);
         RestClient client = Mockito.mock(RestClient.class);
         UserService instance = Whitebox.invokeConstructor(UserService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         Map<String, Object> result = new HashMap<String, Object>();
         result.put(ApiResults.PAYWALL_STATE, Boolean.TRUE.toString());
         Mockito.when(client.get(anyString(), anyString(), anyString(), anyString(), Mockito.anyMap()))
@@ -178,6 +235,23 @@ public class UserServiceTest {
         assertTrue(UserService.isPaywallEnabled());
     }
 
+    @Test
+    public void testIsPaywallEnabledFallsBackWhileCircuitOpen() throws Exception {
+        mockPlenigoManager();
+        PowerMockito.when(PlenigoManager.get().getLastPaywallState()).thenReturn(null);
+        RestClient client = Mockito.mock(RestClient.class);
+        HttpConfig.get().setClient(client);
+        Mockito.when(client.get(anyString(), anyString(), anyString(), anyString(), Mockito.anyMap()))
+                .thenThrow(circuitOpen(CircuitBreakerPolicy.Fallback.FAIL_OPEN))
+                .thenThrow(circuitOpen(CircuitBreakerPolicy.Fallback.FAIL_CLOSED))
+                .thenThrow(circuitOpen(CircuitBreakerPolicy.Fallback.FAIL_OPEN));
+        assertFalse(UserService.isPaywallEnabled());
+        assertTrue(UserService.isPaywallEnabled());
+
+        PowerMockito.when(PlenigoManager.get().getLastPaywallState()).thenReturn(Boolean.TRUE);
+        assertTrue(UserService.isPaywallEnabled());
+    }
+
 
     @Test
     public void testSuccessfulGetProductsBought() throws Exception {
@@ -205,7 +279,7 @@ public class UserServiceTest {
                         method(RestClient.class, "handleResponse", HttpURLConnection.class, String.class, String.class))
                 .withArguments(any(HttpURLConnection.class), anyString(), anyString());
         UserService instance = Whitebox.invokeConstructor(UserService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         ProductsBought productsBought = instance.getProductsBought(PLENIGO_USER_SAMPLE_COOKIE);
         assertNotNull(productsBought);
         assertNotNull(productsBought.getSubscriptionProducts());
@@ -239,7 +313,7 @@ public class UserServiceTest {
                         method(RestClient.class, "handleResponse", HttpURLConnection.class, String.class, String.class))
                 .withArguments(any(HttpURLConnection.class), anyString(), anyString());
         UserService instance = Whitebox.invokeConstructor(UserService.class);
-        ReflectionTestUtils.setField(instance, "client", client);
+        HttpConfig.get().setClient(client);
         ProductsBought productsBought = instance.getProductsBought(PLENIGO_USER_SAMPLE_COOKIE);
         assertNotNull(productsBought);
         assertNotNull(productsBought.getSinglePaymentProducts());
@@ -267,14 +341,81 @@ public class UserServiceTest {
     public void testSuccessfulGetUserData() throws Exception {
         configurePlenigoManager();
 
-        UserService instance = Whitebox.invokeConstructor(UserService.class);
-        InternalUserApiService internalUserApiService = Mockito.mock(InternalUserApiService.class);
-        Address addressInfo = new Address("Calle", "Adicional", "00000", "Sto Dgo", "Dom Rep");
-        UserData userData = new UserData("id", "email@sample.com", "MALE", "Torres", "Ricardo", addressInfo, "ricardo");
-        Mockito.when(internalUserApiService.getUserData(anyString(), anyString(), anyString(), anyString()))
-                .thenReturn(userData);
-        ReflectionTestUtils.setField(instance, "internalUserApiService", internalUserApiService);
-        Assert.assertEquals("User data is different", userData, UserService.getUserData("123"));
+        RestClient client = mockRestClient();
+        Map<String, Object> profile = new HashMap<String, Object>();
+        profile.put(ApiResults.USER_ID, "id");
+        profile.put(ApiResults.EMAIL, "email@sample.com");
+        profile.put(ApiResults.GENDER, "MALE");
+        profile.put(ApiResults.LAST_NAME, "Torres");
+        profile.put(ApiResults.FIRST_NAME, "Ricardo");
+        profile.put(ApiResults.STREET, "Calle");
+        profile.put(ApiResults.POST_CODE, "00000");
+        profile.put(ApiResults.CITY, "Sto Dgo");
+        profile.put(ApiResults.COUNTRY, "Dom Rep");
+        profile.put(ApiResults.USERNAME, "ricardo");
+        Mockito.when(client.get(anyString(), anyString(), eq(ApiURLs.USER_PROFILE), anyString(), anyMap())).thenReturn(profile);
+
+        UserData userData = UserService.getUserData("123");
+        assertEquals("id", userData.getId());
+        assertEquals("email@sample.com", userData.getEmail());
+        assertEquals("Torres", userData.getLastName());
+        assertEquals("Ricardo", userData.getFirstName());
+        assertEquals("ricardo", userData.getUsername());
+        assertEquals("Calle", userData.getStreet());
+        assertEquals("Dom Rep", userData.getCountry());
+    }
+
+    @Test(expected = PlenigoException.class)
+    public void testGetUserDataWithErrorResponse() throws Exception {
+        configurePlenigoManager();
+
+        RestClient client = mockRestClient();
+        Map<String, Object> error = new HashMap<String, Object>();
+        error.put(ApiResults.ERROR, "invalid_token");
+        error.put(ApiResults.DESCRIPTION, "The token is invalid");
+        Mockito.when(client.get(anyString(), anyString(), eq(ApiURLs.USER_PROFILE), anyString(), anyMap())).thenReturn(error);
+        UserService.getUserData("123");
+    }
+
+    @Test
+    public void testHasUserBoughtWithoutAccess() throws Exception {
+        configurePlenigoManager();
+
+        RestClient client = mockRestClient();
+        Mockito.when(client.get(anyString(), anyString(), eq(ApiURLs.USER_PRODUCT_ACCESS), anyString(), anyMap()))
+                .thenThrow(new PlenigoException(ErrorCode.CANNOT_ACCESS_PRODUCT, "", null));
+        assertFalse(UserService.hasUserBoughtByCustomerId("SAMPLE_PROD", "1234", false));
+    }
+
+    @Test
+    public void testRequestsReuseTheSignedJwtHeader() throws Exception {
+        mockPlenigoManager();
+        PowerMockito.when(PlenigoManager.get().getSnapshot()).thenReturn(TestUtil.snapshot(null, TestUtil.COMPANY_ID, TestUtil.SECRET, false));
+
+        RestClient client = mockRestClient();
+        List<Map<String, String>> headers = new ArrayList<Map<String, String>>();
+        Mockito.when(client.get(anyString(), anyString(), anyString(), anyString(), anyMap())).thenAnswer(invocation -> {
+            headers.add((Map<String, String>) invocation.getArguments()[4]);
+            return Collections.<String, Object>emptyMap();
+        });
+        UserService.hasUserBoughtByCustomerId("SAMPLE_PROD", "1234", false);
+        UserService.hasUserBoughtByCustomerId("OTHER_PROD", "1234", true);
+        UserService.getUserData("123");
+
+        assertEquals(3, headers.size());
+        assertNotNull(headers.get(0).get("plenigoToken"));
+        assertSame("The JWT header must not be signed for every request", headers.get(0), headers.get(1));
+        assertSame(headers.get(0), headers.get(2));
+    }
+
+    private static RestClient mockRestClient() {
+        RestClient client = Mockito.mock(RestClient.class);
+        HttpConfig.get().setClient(client);
+        return client;
+    }
+
+    private static PlenigoException circuitOpen(CircuitBreakerPolicy.Fallback fallback) {
+        return new PlenigoException(ErrorCode.CONNECTION_ERROR, "rejected", new CircuitOpenException(ApiURLs.PAYWALL_STATE, fallback));
     }
 
     private void configurePlenigoManager() throws PlenigoException {
@@ -298,5 +439,6 @@ public class UserServiceTest {
         PlenigoManager mockedMgr = PowerMockito.mock(PlenigoManager.class);
         PowerMockito.when(PlenigoManager.get()).thenReturn(mockedMgr);
         PowerMockito.when(mockedMgr.getCompanyId()).thenReturn("CP_ID");
+        PowerMockito.when(mockedMgr.getSnapshot()).thenReturn(TestUtil.snapshot(null, "CP_ID", null, false));
     }
 }
@@ -59,4 +59,63 @@ public class CookieParserTest {
     public void testReturnNullWhenCookieIsNull() {
         assertNull(CookieParser.extractCookieValue(CookieParser.PLENIGO_USER_COOKIE_NAME, null));
     }
+
+    @Test
+    public void testExtractCookieValues() {
+        String cookieHeader = "JSESSIONID=D7E0A06D30AC326AFD32841DF975226A; plenigo_view=viewValue; POPUPCHECK=1399076648180; plenigo_user=userValue|giberish";
+        String[] values = CookieParser.extractCookieValues(cookieHeader, CookieParser.PLENIGO_USER_COOKIE_NAME,
+                CookieParser.PLENIGO_METERED_VIEW_COOKIE_NAME, "missing");
+        assertEquals(3, values.length);
+        assertEquals("userValue", values[0]);
+        assertEquals("viewValue", values[1]);
+        assertNull(values[2]);
+    }
+
+    @Test
+    public void testExtractCookieValuesWithNullHeader() {
+        String[] values = CookieParser.extractCookieValues(null, CookieParser.PLENIGO_USER_COOKIE_NAME);
+        assertEquals(1, values.length);
+        assertNull(values[0]);
+    }
+
+    @Test
+    public void testExtractCookieValueMatchesExactName() {
+        String cookieHeader = "xplenigo_user=wrongValue; plenigo_user_old=oldValue;plenigo_user = userValue ; other=1";
+        assertEquals("userValue", CookieParser.extractCookieValue(CookieParser.PLENIGO_USER_COOKIE_NAME, cookieHeader));
+    }
+
+    @Test
+    public void testExtractCookieValueWithCookiesWithoutValue() {
+        String cookieHeader = "flag; ;plenigo_view=viewValue;";
+        assertEquals("viewValue", CookieParser.extractCookieValue(CookieParser.PLENIGO_METERED_VIEW_COOKIE_NAME, cookieHeader));
+        assertNull(CookieParser.extractCookieValue("flag", cookieHeader));
+    }
+
+    @Test
+    public void testFindCookieValueOffsets() {
+        String cookieHeader = "a=1; plenigo_user=userValue|giberish; plenigo_view=";
+        long bounds = CookieParser.findCookieValue(cookieHeader, CookieParser.PLENIGO_USER_COOKIE_NAME);
+        assertEquals("userValue", cookieHeader.substring(CookieParser.valueStart(bounds), CookieParser.valueEnd(bounds)));
+        long emptyBounds = CookieParser.findCookieValue(cookieHeader, CookieParser.PLENIGO_METERED_VIEW_COOKIE_NAME);
+        assertEquals(CookieParser.valueStart(emptyBounds), CookieParser.valueEnd(emptyBounds));
+        assertEquals(CookieParser.NOT_FOUND, CookieParser.findCookieValue(cookieHeader, "missing"));
+        assertEquals(CookieParser.NOT_FOUND, CookieParser.findCookieValue(null, "missing"));
+    }
+
+    @Test
+    public void testFindCookieValuesKeepsFirstOccurrence() {
+        String cookieHeader = "plenigo_user=first; plenigo_user=second";
+        int[] bounds = new int[2];
+        CookieParser.findCookieValues(cookieHeader, new String[]{CookieParser.PLENIGO_USER_COOKIE_NAME}, bounds);
+        assertEquals("first", cookieHeader.substring(bounds[0], bounds[1]));
+    }
+
+    @Test
+    public void testSingleNameScansKeepFirstOccurrence() {
+        String cookieHeader = "plenigo_user=first|x; plenigo_view= view ; plenigo_user=second";
+        long bounds = CookieParser.findCookieValue(cookieHeader, CookieParser.PLENIGO_USER_COOKIE_NAME);
+        assertEquals("first", cookieHeader.substring(CookieParser.valueStart(bounds), CookieParser.valueEnd(bounds)));
+        String[] values = CookieParser.extractCookieValues(cookieHeader, CookieParser.PLENIGO_METERED_VIEW_COOKIE_NAME);
+        assertEquals("view", values[0]);
+    }
 }
@@ -0,0 +1,118 @@
+package com.plenigo.sdk.util;
+
+import com.plenigo.sdk.internal.util.DateParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Compares {@link DateParser} with the {@link SimpleDateFormat} kept per thread that it falls back to, and with the new
+ * {@link SimpleDateFormat} per value that the mappers used before, on the timestamps of the API responses. The parsers are used
+ * by several threads at the same time, like the mappers of concurrent service calls.
+ * </p>
+ * <p>
+ * It is not run by the build, run its main method from the test classpath after {@code mvn test-compile}, or
+ * {@code org.openjdk.jmh.Main DateParserBenchmark} to pass JMH options.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class DateParserBenchmark {
+    private static final String[] LITERAL_Z_DATES = {"2017-01-31T10:15:30Z", "2018-06-01T00:00:00Z", "2019-12-31T23:59:59Z",
+            "2020-02-29T12:30:45Z"};
+    private static final String[] WITH_OFFSET_DATES = {"2017-01-31 10:15:30 +0100", "2018-06-01 00:00:00 +0200",
+            "2019-12-31 23:59:59 -0500", "2020-02-29 12:30:45 +0000"};
+
+    @Param({"LITERAL_Z", "WITH_OFFSET"})
+    private String layout;
+
+    private DateParser parser;
+    private String[] dates;
+    private ThreadLocal<DateFormat> threadLocalFormat;
+
+    /**
+     * Selects the parser and the timestamps of the layout.
+     */
+    @Setup
+    public void setup() {
+        if ("LITERAL_Z".equals(layout)) {
+            parser = DateParser.LITERAL_Z;
+            dates = LITERAL_Z_DATES;
+        } else {
+            parser = DateParser.WITH_OFFSET;
+            dates = WITH_OFFSET_DATES;
+        }
+        String pattern = parser.getPattern();
+        threadLocalFormat = ThreadLocal.withInitial(() -> new SimpleDateFormat(pattern));
+    }
+
+    @Benchmark
+    public Date dateParser(ThreadIndex index) throws ParseException {
+        return parser.parse(dates[index.next(dates.length)]);
+    }
+
+    @Benchmark
+    public Date threadLocalSimpleDateFormat(ThreadIndex index) throws ParseException {
+        return threadLocalFormat.get().parse(dates[index.next(dates.length)]);
+    }
+
+    @Benchmark
+    public Date newSimpleDateFormat(ThreadIndex index) throws ParseException {
+        return new SimpleDateFormat(parser.getPattern()).parse(dates[index.next(dates.length)]);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the arguments are ignored
+     *
+     * @throws RunnerException if the benchmark could not be run
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DateParserBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * Cycles every thread through the timestamps.
+     */
+    @State(Scope.Thread)
+    public static class ThreadIndex {
+        private int current;
+
+        /**
+         * Returns the next index.
+         *
+         * @param length the amount of timestamps
+         *
+         * @return the index
+         */
+        int next(int length) {
+            current = (current + 1) % length;
+            return current;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.plenigo.sdk.util;
+
+import com.plenigo.sdk.internal.util.DateParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * <p>
+ * Tests for {@link DateParser}.
+ * </p>
+ */
+public class DateParserTest {
+    private TimeZone defaultTimeZone;
+
+    @Before
+    public void setup() {
+        defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    private void assertSameAsSimpleDateFormat(DateParser parser, String dateStr) throws ParseException {
+        assertEquals(dateStr, new SimpleDateFormat(parser.getPattern()).parse(dateStr), parser.parse(dateStr));
+    }
+
+    @Test
+    public void testLiteralZ() throws Exception {
+        assertSameAsSimpleDateFormat(DateParser.LITERAL_Z, "2017-01-31T10:15:30Z");
+        assertSameAsSimpleDateFormat(DateParser.LITERAL_Z, "2016-02-29T23:59:59Z");
+        assertSameAsSimpleDateFormat(DateParser.LITERAL_Z, "2017-07-01T00:00:00Z");
+        //daylight saving time gap and overlap
+        assertSameAsSimpleDateFormat(DateParser.LITERAL_Z, "2017-03-26T02:30:00Z");
+        assertSameAsSimpleDateFormat(DateParser.LITERAL_Z, "2017-10-29T02:30:00Z");
+        //lenient values and other layouts
+        assertSameAsSimpleDateFormat(DateParser.LITERAL_Z, "2017-13-01T10:15:30Z");
+        assertSameAsSimpleDateFormat(DateParser.LITERAL_Z, "2017-1-1T1:2:3Z");
+        assertSameAsSimpleDateFormat(DateParser.LITERAL_Z, "2017-01-31T10:15:30Zignored");
+    }
+
+    @Test
+    public void testWithOffset() throws Exception {
+        assertSameAsSimpleDateFormat(DateParser.WITH_OFFSET, "2017-01-31 10:15:30 +0100");
+        assertSameAsSimpleDateFormat(DateParser.WITH_OFFSET, "1980-06-15 00:00:00 -0530");
+        assertSameAsSimpleDateFormat(DateParser.WITH_OFFSET, "1970-01-01 00:00:00 +0000");
+        assertSameAsSimpleDateFormat(DateParser.WITH_OFFSET, "1500-01-01 00:00:00 +0000");
+        assertSameAsSimpleDateFormat(DateParser.WITH_OFFSET, "2017-01-31 24:00:00 +0100");
+        assertSameAsSimpleDateFormat(DateParser.WITH_OFFSET, "2017-01-31 10:15:30 GMT+01:00");
+    }
+
+    @Test(expected = ParseException.class)
+    public void testInvalidDate() throws Exception {
+        DateParser.WITH_OFFSET.parse("31.01.2017");
+    }
+
+    @Test
+    public void testConcurrentParsing() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Date>> results = new ArrayList<Future<Date>>();
+            for (int i = 0; i < 200; i++) {
+                String dateStr = String.format("2017-01-%02d %02d:00:00 +0100", i % 28 + 1, i % 24);
+                //every other date takes the fallback
+                String input = i % 2 == 0 ? dateStr : dateStr.replace("+0100", "GMT+01:00");
+                results.add(executor.submit((Callable<Date>) () -> DateParser.WITH_OFFSET.parse(input)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                String dateStr = String.format("2017-01-%02d %02d:00:00 +0100", i % 28 + 1, i % 24);
+                assertEquals(new SimpleDateFormat(DateParser.WITH_OFFSET.getPattern()).parse(dateStr), results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
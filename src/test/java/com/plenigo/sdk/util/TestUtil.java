@@ -1,5 +1,8 @@
 package com.plenigo.sdk.util;
 
+import com.plenigo.sdk.internal.models.Configuration;
+import com.plenigo.sdk.internal.models.ConfigurationSnapshot;
+
 /**
  * <p>
  * Unit and Integration Test utility.
@@ -9,4 +12,23 @@ public class TestUtil {
     public static final String COMPANY_ID = "jZBjVl2u1VdgS1Gpg0qD";
     public static final String SECRET = "GN0NvxWB8xebUuxSSmqz7T0FQmLCmQCCNXbVbD7c";
     public static final String COOKIE_TPL = "%s=%s";
+
+    /**
+     * Builds a configuration snapshot to be returned by a mocked {@link com.plenigo.sdk.PlenigoManager}.
+     *
+     * @param url       the API url
+     * @param companyId the company id
+     * @param secret    the secret, null to send the requests without JWT header
+     * @param testMode  the test mode flag
+     *
+     * @return the snapshot
+     */
+    public static ConfigurationSnapshot snapshot(String url, String companyId, String secret, boolean testMode) {
+        Configuration configuration = new Configuration();
+        configuration.setUrl(url);
+        configuration.setCompanyId(companyId);
+        configuration.setSecret(secret);
+        configuration.setTestMode(testMode);
+        return new ConfigurationSnapshot(configuration);
+    }
 }
@@ -0,0 +1,167 @@
+package com.plenigo.sdk.util;
+
+import com.plenigo.sdk.PlenigoException;
+import com.plenigo.sdk.http.HttpRequest;
+import com.plenigo.sdk.http.HttpResponse;
+import com.plenigo.sdk.http.HttpTransport;
+import com.plenigo.sdk.internal.ErrorCode;
+import com.plenigo.sdk.internal.util.TransportRestClient;
+import com.plenigo.sdk.models.AppAccessData;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests for {@link TransportRestClient}.
+ * </p>
+ */
+public class TransportRestClientTest {
+    private static final String URL = "https://api.plenigo.com/api/v2";
+
+    @Test
+    public void testGet() throws PlenigoException {
+        StubTransport transport = new StubTransport(new HttpResponse(200, null, "{\"name\":\"value\"}".getBytes(StandardCharsets.UTF_8)));
+        TransportRestClient client = new TransportRestClient(transport);
+        Map<String, Object> result = client.get(URL, "/products", "/products/1", "testMode=true", Collections.singletonMap("token", "jwt"));
+        assertEquals("value", result.get("name"));
+        HttpRequest request = transport.request;
+        assertEquals("GET", request.getMethod());
+        assertEquals(URL + "/products/1?testMode=true", request.getUrl());
+        assertEquals("/products", request.getEndpoint());
+        assertEquals("application/json", request.getHeaders().get("Accept"));
+        assertEquals("jwt", request.getHeaders().get("token"));
+        assertNull(request.getBody());
+        assertEquals(client.getConnectionTimeout(), request.getConnectTimeout());
+        assertEquals(client.getReadTimeout(), request.getReadTimeout());
+    }
+
+    @Test
+    public void testPostSendsJsonBody() throws PlenigoException {
+        StubTransport transport = new StubTransport(new HttpResponse(201, null, "{}".getBytes(StandardCharsets.UTF_8)));
+        TransportRestClient client = new TransportRestClient(transport);
+        client.post(URL, "", "/users", null, Collections.singletonMap("email", "a@b.c"), null);
+        HttpRequest request = transport.request;
+        assertEquals("POST", request.getMethod());
+        assertEquals(URL + "/users", request.getUrl());
+        assertEquals("/users", request.getEndpoint());
+        assertEquals("application/json", request.getHeaders().get("Content-Type"));
+        assertEquals("{\"email\":\"a@b.c\"}", new String(request.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testErrorResponseIsTranslated() {
+        StubTransport transport = new StubTransport(new HttpResponse(401, null, null));
+        try {
+            new TransportRestClient(transport).delete(URL, "/users", "/users/1", null, null);
+            fail("An exception should have been thrown");
+        } catch (PlenigoException e) {
+            assertEquals("401", e.getResponseCode());
+        }
+    }
+
+    @Test
+    public void testConnectionErrors() {
+        assertErrorCode(new ConnectException("refused"), ErrorCode.CONNECTION_ERROR);
+        assertErrorCode(new UnknownHostException("unknown"), ErrorCode.UNKNOWN_HOST);
+        assertErrorCode(new IOException("broken"), ErrorCode.SERVER);
+    }
+
+    @Test
+    public void testGetList() throws PlenigoException {
+        String body = "{\"totalElements\":2,\"elements\":[{\"customerAppId\":\"1\"},{\"customerAppId\":\"2\"}],\"size\":10}";
+        StubTransport transport = new StubTransport(new HttpResponse(200, null, body.getBytes(StandardCharsets.UTF_8)));
+        List<String> ids = new ArrayList<String>();
+        Map<String, Object> result = new TransportRestClient(transport).getList(URL, "/apps", "/apps", "size=10", null,
+                "elements", AppAccessData.class, element -> ids.add(element.getCustomerAppId()));
+        assertEquals(Arrays.asList("1", "2"), ids);
+        assertEquals(2L, result.get("totalElements"));
+        assertEquals(10L, result.get("size"));
+        assertFalse(result.containsKey("elements"));
+        assertEquals("GET", transport.request.getMethod());
+    }
+
+    @Test
+    public void testGetListErrors() {
+        try {
+            new TransportRestClient(new StubTransport(new HttpResponse(401, null, null))).getList(URL, "/apps", "/apps", null, null,
+                    "elements", AppAccessData.class, element -> fail("there are no elements"));
+            fail("An exception should have been thrown");
+        } catch (PlenigoException e) {
+            assertEquals("401", e.getResponseCode());
+        }
+        try {
+            new TransportRestClient(new StubTransport(new ConnectException("refused"))).getList(URL, "/apps", "/apps", null, null,
+                    "elements", AppAccessData.class, element -> fail("there are no elements"));
+            fail("An exception should have been thrown");
+        } catch (PlenigoException e) {
+            assertEquals(ErrorCode.CONNECTION_ERROR.getCode(), e.getResponseCode());
+        }
+    }
+
+    @Test
+    public void testGetListConsumerErrorIsRethrown() throws PlenigoException {
+        StubTransport transport = new StubTransport(new HttpResponse(200, null, "{\"elements\":[{}]}".getBytes(StandardCharsets.UTF_8)));
+        IllegalStateException failure = new IllegalStateException("consumer failed");
+        try {
+            new TransportRestClient(transport).getList(URL, "/apps", "/apps", null, null, "elements", AppAccessData.class, element -> {
+                throw failure;
+            });
+            fail("An exception should have been thrown");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+    }
+
+    private void assertErrorCode(IOException exception, ErrorCode errorCode) {
+        StubTransport transport = new StubTransport(exception);
+        try {
+            new TransportRestClient(transport).put(URL, "/users", "/users/1", null, null, null);
+            fail("An exception should have been thrown");
+        } catch (PlenigoException e) {
+            assertEquals(errorCode.getCode(), e.getResponseCode());
+        }
+    }
+
+    /**
+     * Transport that records the request and returns a fixed answer.
+     */
+    private static final class StubTransport implements HttpTransport {
+        private final HttpResponse response;
+        private final IOException exception;
+        private HttpRequest request;
+
+        StubTransport(HttpResponse response) {
+            this.response = response;
+            this.exception = null;
+        }
+
+        StubTransport(IOException exception) {
+            this.response = null;
+            this.exception = exception;
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request) throws IOException {
+            this.request = request;
+            if (exception != null) {
+                throw exception;
+            }
+            return response;
+        }
+    }
+}